@@ -28,7 +28,7 @@ tasks.jacocoTestCoverageVerification {
 }
 java {
     toolchain {
-        languageVersion = JavaLanguageVersion.of(17)
+        languageVersion = JavaLanguageVersion.of(21)
     }
 }
 
@@ -44,7 +44,14 @@ configurations {
 
 dependencies {
     implementation(libs.springboot.starter.web)
+    implementation(libs.springboot.starter.actuator)
     implementation(libs.aws.s3)
+    implementation(libs.aws.apache.client)
+    implementation(libs.commons.compress)
+    implementation(libs.zstd.jni)
+    implementation(libs.opentelemetry.sdk)
+    implementation(libs.opentelemetry.exporter.otlp)
+    implementation(libs.opentelemetry.exporter.logging)
     implementation(libs.dotenv.java)
     implementation(libs.springboot.webmvc)
     compileOnly(libs.lombok)
@@ -58,6 +65,9 @@ dependencies {
 
 
 tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     testLogging {
         events("failed", "skipped")
         exceptionFormat = org.gradle.api.tasks.testing.logging.TestExceptionFormat.FULL
@@ -65,7 +75,20 @@ tasks.test {
         showCauses = true
         showStackTraces = true
     }
-    useJUnitPlatform()
+}
+
+val benchmark by tasks.registering(Test::class) {
+    description = "Runs the load and allocation benchmarks."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    jvmArgs("-Djdk.tracePinnedThreads=short")
+    testLogging {
+        showStandardStreams = true
+    }
 }
 
 tasks.jacocoTestReport {
@@ -2,8 +2,10 @@ package org.argos.file.manager;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ArgosFileManagerApplication {
     public static void main(String[] args) {
         SpringApplication.run(ArgosFileManagerApplication.class, args);
@@ -0,0 +1,235 @@
+package org.argos.file.manager.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory LRU cache of file contents bounded by a byte budget.
+ * The weight of an entry is the heap size of its content: one byte per character for
+ * Latin-1 text, which the JVM stores compactly, and two bytes per character otherwise.
+ * Prefetched entries are speculative until they are first read. They are evicted before any
+ * requested entry, and a speculative insertion only ever evicts older speculative entries,
+ * so prefetching can keep a full cache warm without displacing what was actually requested.
+ * A {@link ReentrantLock} guards the entries so virtual threads never pin their carrier here.
+ */
+public class FileContentCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashSet<String> speculativeKeys = new LinkedHashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long usedBytes;
+    private long speculativeBytes;
+
+    /**
+     * Creates a cache holding at most the given number of bytes.
+     *
+     * @param maxBytes the byte budget of the cache; zero or less disables caching.
+     */
+    public FileContentCache(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    /**
+     * Indicates whether the cache is able to hold any entries.
+     *
+     * @return true if the cache has a positive byte budget.
+     */
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Returns the cached content for a key, marking it as recently used. Reading a
+     * speculative entry turns it into a requested one.
+     *
+     * @param key the object key.
+     * @return the cached content, or null if the key is not cached.
+     */
+    public String get(String key) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (speculativeKeys.remove(key)) {
+                speculativeBytes -= entry.weight();
+            }
+            return entry.content();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Indicates whether a key is cached without affecting its recency.
+     *
+     * @param key the object key.
+     * @return true if the key is cached.
+     */
+    public boolean contains(String key) {
+        lock.lock();
+        try {
+            return entries.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores requested content for a key, evicting speculative entries first and then least
+     * recently used entries to stay within budget.
+     * Content larger than the whole budget is not cached.
+     *
+     * @param key the object key.
+     * @param content the file content.
+     */
+    public void put(String key, String content) {
+        long weight = weightOf(content);
+        if (weight > maxBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            remove(key);
+            entries.put(key, new Entry(content, weight));
+            usedBytes += weight;
+            evictSpeculative(maxBytes);
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (usedBytes > maxBytes && iterator.hasNext()) {
+                usedBytes -= iterator.next().getValue().weight();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores prefetched content for a key, evicting only older speculative entries to make
+     * room. A key that is already cached is left as it is.
+     *
+     * @param key the object key.
+     * @param content the file content.
+     * @return false if the content does not fit next to the requested entries.
+     */
+    public boolean putSpeculative(String key, String content) {
+        long weight = weightOf(content);
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) {
+                return true;
+            }
+            if (usedBytes - speculativeBytes + weight > maxBytes) {
+                return false;
+            }
+            evictSpeculative(maxBytes - weight);
+            entries.put(key, new Entry(content, weight));
+            speculativeKeys.add(key);
+            usedBytes += weight;
+            speculativeBytes += weight;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every cached entry whose key starts with the given prefix.
+     *
+     * @param keyPrefix the key prefix to invalidate.
+     */
+    public void invalidatePrefix(String keyPrefix) {
+        lock.lock();
+        try {
+            List<String> keys =
+                    entries.keySet().stream().filter(key -> key.startsWith(keyPrefix)).toList();
+            keys.forEach(this::remove);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently held by the cache.
+     *
+     * @return the used bytes.
+     */
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the byte budget of the cache.
+     *
+     * @return the maximum number of bytes.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the heap size of a content.
+     *
+     * @param content the file content.
+     * @return its length for Latin-1 text, twice its length otherwise.
+     */
+    static long weightOf(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) > 0xFF) {
+                return 2L * content.length();
+            }
+        }
+        return content.length();
+    }
+
+    /**
+     * Removes an entry. Must be called while holding the lock.
+     *
+     * @param key the object key.
+     */
+    private void remove(String key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        usedBytes -= entry.weight();
+        if (speculativeKeys.remove(key)) {
+            speculativeBytes -= entry.weight();
+        }
+    }
+
+    /**
+     * Evicts the oldest speculative entries until the cache holds at most the given number
+     * of bytes or no speculative entry is left. Must be called while holding the lock.
+     *
+     * @param targetBytes the number of bytes to shrink to.
+     */
+    private void evictSpeculative(long targetBytes) {
+        Iterator<String> iterator = speculativeKeys.iterator();
+        while (usedBytes > targetBytes && iterator.hasNext()) {
+            Entry entry = entries.remove(iterator.next());
+            iterator.remove();
+            usedBytes -= entry.weight();
+            speculativeBytes -= entry.weight();
+        }
+    }
+
+    /**
+     * A cached content with its weight.
+     *
+     * @param content the file content.
+     * @param weight the heap size of the content.
+     */
+    private record Entry(String content, long weight) {}
+}
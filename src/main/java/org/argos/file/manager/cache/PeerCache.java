@@ -0,0 +1,263 @@
+package org.argos.file.manager.cache;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.argos.file.manager.utils.EnvSettings;
+
+/**
+ * Clustered layer of the file content cache shared by the service replicas.
+ * Every file key is owned by one replica on a {@link PeerRing}; other replicas ask the
+ * owner over HTTP instead of reading S3, so a hot file is read from S3 and cached once for
+ * the whole cluster. A peer that fails to answer is skipped for a cooldown period and
+ * callers fall back to S3 meanwhile. Replicas authenticate to each other with a shared
+ * secret sent in the {@link #SECRET_HEADER} header, so the peer endpoints cannot be called
+ * by clients even though they are served on the public port.
+ */
+public class PeerCache {
+
+    /** Path of the endpoint through which the owner serves a file to its peers. */
+    public static final String FILE_ENDPOINT = "/internal/cache/file";
+
+    /** Path of the endpoint through which peers drop the cached files of a project. */
+    public static final String PROJECT_ENDPOINT = "/internal/cache/project";
+
+    /** Header carrying the secret shared by the replicas. */
+    public static final String SECRET_HEADER = "X-Argos-Peer-Secret";
+
+    private final PeerRing ring;
+    private final String self;
+    private final String secret;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final long cooldownNanos;
+    private final Map<String, Long> unavailableUntil = new ConcurrentHashMap<>();
+    private final AtomicLong peerHits = new AtomicLong();
+    private final AtomicLong peerFallbacks = new AtomicLong();
+
+    /**
+     * Creates a peer cache.
+     *
+     * @param ring the ring of all peers, including this replica.
+     * @param self the base URL of this replica, as listed in the ring.
+     * @param secret the secret shared by the replicas.
+     * @param timeout the timeout of a request to a peer.
+     * @param cooldown how long a failed peer is skipped.
+     */
+    public PeerCache(
+            PeerRing ring, String self, String secret, Duration timeout, Duration cooldown) {
+        this.ring = ring;
+        this.self = normalize(self);
+        this.secret = secret;
+        this.timeout = timeout;
+        this.cooldownNanos = cooldown.toNanos();
+        this.httpClient = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    /**
+     * Creates the peer cache configured by ARGOS_CACHE_PEERS, ARGOS_CACHE_SELF and
+     * ARGOS_CACHE_PEER_SECRET.
+     *
+     * @return the peer cache, or null if no peers are configured.
+     * @throws IllegalStateException if this replica is not one of the configured peers, or
+     *     no secret is configured.
+     */
+    public static PeerCache fromEnvironment() {
+        List<String> peers =
+                Arrays.stream(EnvSettings.getString("ARGOS_CACHE_PEERS", "").split(","))
+                        .map(PeerCache::normalize)
+                        .filter(peer -> !peer.isEmpty())
+                        .distinct()
+                        .toList();
+        if (peers.isEmpty()) {
+            return null;
+        }
+        String self = normalize(EnvSettings.getString("ARGOS_CACHE_SELF", ""));
+        if (!peers.contains(self)) {
+            throw new IllegalStateException("ARGOS_CACHE_SELF must be one of ARGOS_CACHE_PEERS.");
+        }
+        String secret = EnvSettings.getString("ARGOS_CACHE_PEER_SECRET", "");
+        if (secret.isBlank()) {
+            throw new IllegalStateException(
+                    "ARGOS_CACHE_PEER_SECRET must be set when ARGOS_CACHE_PEERS is.");
+        }
+        return new PeerCache(
+                new PeerRing(peers, EnvSettings.getInt("ARGOS_CACHE_PEER_VNODES", 128)),
+                self,
+                secret,
+                Duration.ofMillis(EnvSettings.getLong("ARGOS_CACHE_PEER_TIMEOUT_MS", 250)),
+                Duration.ofMillis(EnvSettings.getLong("ARGOS_CACHE_PEER_COOLDOWN_MS", 5000)));
+    }
+
+    /**
+     * Indicates whether this replica owns a key.
+     *
+     * @param key the cache key.
+     * @return true if the key is cached by this replica.
+     */
+    public boolean ownsKey(String key) {
+        return ring.ownerOf(key).equals(self);
+    }
+
+    /**
+     * Indicates whether a request to a peer endpoint carries the shared secret.
+     *
+     * @param presented the value of the {@link #SECRET_HEADER} header, or null.
+     * @return true if the request comes from a replica.
+     */
+    public boolean isAuthorized(String presented) {
+        return presented != null
+                && MessageDigest.isEqual(
+                        secret.getBytes(StandardCharsets.UTF_8),
+                        presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Fetches a file from the replica owning its key.
+     *
+     * @param key the cache key of the file.
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the file content, or null if the owner is unavailable or does not have the file.
+     */
+    public String fetch(String key, String projectId, String filePath) {
+        String owner = ring.ownerOf(key);
+        if (isCoolingDown(owner)) {
+            peerFallbacks.incrementAndGet();
+            return null;
+        }
+        HttpRequest request =
+                HttpRequest.newBuilder(
+                                URI.create(
+                                        owner
+                                                + FILE_ENDPOINT
+                                                + "?projectId="
+                                                + encode(projectId)
+                                                + "&filePath="
+                                                + encode(filePath)))
+                        .header(SECRET_HEADER, secret)
+                        .timeout(timeout)
+                        .GET()
+                        .build();
+        try {
+            HttpResponse<String> response =
+                    httpClient.send(
+                            request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (response.statusCode() == 200) {
+                peerHits.incrementAndGet();
+                return response.body();
+            }
+            if (response.statusCode() >= 500) {
+                markUnavailable(owner);
+            }
+        } catch (IOException e) {
+            markUnavailable(owner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        peerFallbacks.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Asks every other replica to drop the cached files of a project. Failures are ignored;
+     * a replica that misses the request keeps at most the files it owns until they are evicted.
+     *
+     * @param projectId the ID of the project.
+     */
+    public void invalidateProject(String projectId) {
+        for (String peer : ring.peers()) {
+            if (!peer.equals(self)) {
+                httpClient.sendAsync(
+                        HttpRequest.newBuilder(
+                                        URI.create(
+                                                peer
+                                                        + PROJECT_ENDPOINT
+                                                        + "?projectId="
+                                                        + encode(projectId)))
+                                .header(SECRET_HEADER, secret)
+                                .timeout(timeout)
+                                .DELETE()
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of files served by a peer instead of S3.
+     *
+     * @return the peer hit count.
+     */
+    public long peerHits() {
+        return peerHits.get();
+    }
+
+    /**
+     * Returns the number of reads of files owned by another replica that fell back to S3.
+     *
+     * @return the fallback count.
+     */
+    public long peerFallbacks() {
+        return peerFallbacks.get();
+    }
+
+    /**
+     * Indicates whether a peer is still skipped after a failure.
+     *
+     * @param peer the base URL of the peer.
+     * @return true if the peer failed within the cooldown period.
+     */
+    private boolean isCoolingDown(String peer) {
+        Long until = unavailableUntil.get(peer);
+        if (until == null) {
+            return false;
+        }
+        if (System.nanoTime() - until >= 0) {
+            unavailableUntil.remove(peer, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Skips a failed peer for the cooldown period.
+     *
+     * @param peer the base URL of the peer.
+     */
+    private void markUnavailable(String peer) {
+        unavailableUntil.put(peer, System.nanoTime() + cooldownNanos);
+    }
+
+    /**
+     * Encodes a query parameter value.
+     *
+     * @param value the value to encode.
+     * @return the encoded value.
+     */
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Normalizes a peer base URL by trimming it and removing any trailing slash.
+     *
+     * @param peer the configured peer URL.
+     * @return the normalized URL.
+     */
+    private static String normalize(String peer) {
+        String trimmed = peer.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
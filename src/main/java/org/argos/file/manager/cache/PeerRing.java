@@ -0,0 +1,51 @@
+package org.argos.file.manager.cache;
+
+import java.util.List;
+import org.argos.file.manager.utils.ConsistentHashRing;
+
+/**
+ * Consistent-hash ring assigning every cache key to exactly one peer.
+ * Each peer is placed on the {@link ConsistentHashRing} at several virtual positions so keys
+ * spread evenly, and adding or removing a peer only moves the keys adjacent to its positions.
+ */
+public class PeerRing {
+
+    private final ConsistentHashRing ring = new ConsistentHashRing();
+    private final List<String> peers;
+
+    /**
+     * Creates a ring over the given peers.
+     *
+     * @param peers the base URLs of all peers, including this replica.
+     * @param virtualNodes the number of ring positions per peer.
+     * @throws IllegalArgumentException if there are no peers.
+     */
+    public PeerRing(List<String> peers, int virtualNodes) {
+        if (peers.isEmpty()) {
+            throw new IllegalArgumentException("At least one peer is required.");
+        }
+        this.peers = List.copyOf(peers);
+        for (String peer : this.peers) {
+            ring.add(peer, Math.max(1, virtualNodes));
+        }
+    }
+
+    /**
+     * Returns the peer owning a key: the first peer position at or after the key's hash.
+     *
+     * @param key the cache key.
+     * @return the base URL of the owning peer.
+     */
+    public String ownerOf(String key) {
+        return ring.ownerOf(key);
+    }
+
+    /**
+     * Returns the peers of the ring.
+     *
+     * @return the base URLs of all peers.
+     */
+    public List<String> peers() {
+        return peers;
+    }
+}
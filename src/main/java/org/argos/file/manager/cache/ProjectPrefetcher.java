@@ -0,0 +1,226 @@
+package org.argos.file.manager.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.utils.KeyGenerator;
+
+/**
+ * Warms a {@link FileContentCache} with the files of a project right after it has been listed,
+ * so the follow-up content reads are served from memory.
+ * Candidates are ranked by file type and size, selected within a byte budget and fetched
+ * with bounded concurrency. Fetched files are inserted as speculative entries, which only
+ * displace older speculative entries, and a prefetch stops as soon as a file no longer fits
+ * next to the entries that were actually requested.
+ */
+public class ProjectPrefetcher {
+
+    private static final int EXCLUDED = Integer.MAX_VALUE;
+
+    private static final Set<String> SOURCE_EXTENSIONS =
+            Set.of(
+                    "java", "kt", "kts", "scala", "groovy", "py", "js", "jsx", "ts", "tsx", "go",
+                    "rs", "c", "h", "cpp", "hpp", "cc", "cs", "rb", "php", "swift", "m", "sql",
+                    "sh");
+
+    private static final Set<String> TEXT_EXTENSIONS =
+            Set.of(
+                    "xml", "json", "yml", "yaml", "properties", "gradle", "toml", "md", "txt",
+                    "html", "css", "scss", "cfg", "ini", "conf");
+
+    private static final Set<String> BINARY_EXTENSIONS =
+            Set.of(
+                    "png", "jpg", "jpeg", "gif", "bmp", "ico", "svgz", "pdf", "zip", "jar", "war",
+                    "gz", "tgz", "tar", "7z", "class", "exe", "dll", "so", "dylib", "bin", "woff",
+                    "woff2", "ttf", "eot", "mp3", "mp4", "mov", "avi");
+
+    private final FileContentCache cache;
+    private final BiFunction<String, String, String> loader;
+    private final Executor executor;
+    private final int concurrency;
+    private final long byteBudget;
+    private final long maxFileBytes;
+    private final Set<String> projectsInFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a prefetcher.
+     *
+     * @param cache the cache to warm.
+     * @param loader loads the content of a file given its project ID and relative path.
+     * @param executor the executor running the fetch workers.
+     * @param concurrency the maximum number of concurrent fetches per project.
+     * @param byteBudget the maximum number of bytes prefetched per listing.
+     * @param maxFileBytes the size above which files are never prefetched.
+     */
+    public ProjectPrefetcher(
+            FileContentCache cache,
+            BiFunction<String, String, String> loader,
+            Executor executor,
+            int concurrency,
+            long byteBudget,
+            long maxFileBytes) {
+        this.cache = cache;
+        this.loader = loader;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.byteBudget = byteBudget;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * Starts prefetching the given files of a project in the background.
+     * A project that is already being prefetched is ignored.
+     *
+     * @param projectId the ID of the project.
+     * @param files the listed files of the project.
+     */
+    public void prefetch(String projectId, List<StoredFile> files) {
+        if (!cache.isEnabled() || !projectsInFlight.add(projectId)) {
+            return;
+        }
+
+        ConcurrentLinkedQueue<StoredFile> queue =
+                new ConcurrentLinkedQueue<>(selectCandidates(files));
+        if (queue.isEmpty()) {
+            projectsInFlight.remove(projectId);
+            return;
+        }
+
+        int workers = Math.min(concurrency, queue.size());
+        AtomicInteger remainingWorkers = new AtomicInteger(workers);
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(() -> runWorker(projectId, queue, remainingWorkers));
+            } catch (RejectedExecutionException e) {
+                finishWorker(projectId, remainingWorkers);
+            }
+        }
+    }
+
+    /**
+     * Ranks the listed files and keeps the best candidates that fit within the byte budget.
+     * A file larger than the remaining budget is passed over, so that smaller files ranked
+     * after it still fill the budget.
+     *
+     * @param files the listed files of a project.
+     * @return the files to prefetch, in fetch order.
+     */
+    public List<StoredFile> selectCandidates(List<StoredFile> files) {
+        List<StoredFile> ranked =
+                files.stream()
+                        .filter(file -> file.size() > 0 && file.size() <= maxFileBytes)
+                        .filter(file -> typeRank(file.key()) != EXCLUDED)
+                        .filter(file -> !cache.contains(file.key()))
+                        .sorted(
+                                Comparator.comparingInt((StoredFile file) -> typeRank(file.key()))
+                                        .thenComparingLong(StoredFile::size))
+                        .toList();
+
+        List<StoredFile> selected = new ArrayList<>();
+        long budget = byteBudget;
+        for (StoredFile file : ranked) {
+            if (file.size() > budget) {
+                continue;
+            }
+            budget -= file.size();
+            selected.add(file);
+        }
+        return selected;
+    }
+
+    /**
+     * Fetches queued files until the queue is drained or the cache has no room left.
+     *
+     * @param projectId the ID of the project.
+     * @param queue the shared queue of files to fetch.
+     * @param remainingWorkers the number of workers still running for the project.
+     */
+    private void runWorker(
+            String projectId,
+            ConcurrentLinkedQueue<StoredFile> queue,
+            AtomicInteger remainingWorkers) {
+        try {
+            StoredFile file;
+            while ((file = queue.poll()) != null) {
+                if (!fetchIntoCache(projectId, file)) {
+                    queue.clear();
+                }
+            }
+        } finally {
+            finishWorker(projectId, remainingWorkers);
+        }
+    }
+
+    /**
+     * Loads a single file into the cache. Failures are ignored because the file
+     * will simply be fetched on demand.
+     *
+     * @param projectId the ID of the project.
+     * @param file the file to fetch.
+     * @return false if the cache had no room left for the file.
+     */
+    private boolean fetchIntoCache(String projectId, StoredFile file) {
+        if (cache.contains(file.key())) {
+            return true;
+        }
+        try {
+            String content =
+                    loader.apply(projectId, KeyGenerator.relativePath(projectId, file.key()));
+            return cache.putSpeculative(file.key(), content);
+        } catch (RuntimeException e) {
+            // Prefetching is best effort; the on-demand read reports the real error.
+            return true;
+        }
+    }
+
+    /**
+     * Marks a worker as finished and releases the project once all workers are done.
+     *
+     * @param projectId the ID of the project.
+     * @param remainingWorkers the number of workers still running for the project.
+     */
+    private void finishWorker(String projectId, AtomicInteger remainingWorkers) {
+        if (remainingWorkers.decrementAndGet() == 0) {
+            projectsInFlight.remove(projectId);
+        }
+    }
+
+    /**
+     * Ranks a file by its extension: source code first, then text and configuration files,
+     * then everything else. Known binary formats are excluded.
+     *
+     * @param key the object key of the file.
+     * @return the rank of the file type, lower is fetched first.
+     */
+    private int typeRank(String key) {
+        String extension = extensionOf(key);
+        if (SOURCE_EXTENSIONS.contains(extension)) {
+            return 0;
+        }
+        if (TEXT_EXTENSIONS.contains(extension)) {
+            return 1;
+        }
+        return BINARY_EXTENSIONS.contains(extension) ? EXCLUDED : 2;
+    }
+
+    /**
+     * Extracts the lower-case extension of a key.
+     *
+     * @param key the object key.
+     * @return the extension without the dot, or an empty string.
+     */
+    private String extensionOf(String key) {
+        int slash = key.lastIndexOf('/');
+        int dot = key.lastIndexOf('.');
+        return dot > slash ? key.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+}
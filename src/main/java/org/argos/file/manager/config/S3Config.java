@@ -1,38 +1,92 @@
 package org.argos.file.manager.config;
 
+import org.argos.file.manager.utils.EnvSettings;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 /**
- * Configuration class for setting up the AWS S3 client.
+ * Configuration class for setting up the AWS S3 client and URL presigner.
  */
 @Configuration
 public class S3Config {
 
     /**
      * Creates and configures an S3 client bean.
+     * The Apache HTTP client guards its connection pool with locks rather than monitors,
+     * so requests blocked on a free connection do not pin virtual-thread carriers.
+     * The SDK does not retry: reads, writes, deletes and copies are retried by the
+     * repository under its own attempt limits and retry budget, which SDK retries would
+     * multiply without being counted.
      *
      * @return an S3Client instance configured with credentials and region from environment variables.
      */
     @Bean
     public S3Client s3Client() {
-        String accessKeyId = System.getenv("AWS_ACCESS_KEY_ID");
-        String secretAccessKey = System.getenv("AWS_SECRET_ACCESS_KEY");
-        String region = System.getenv("AWS_REGION");
+        return S3Client.builder()
+                .region(region())
+                .credentialsProvider(credentialsProvider())
+                .httpClientBuilder(
+                        ApacheHttpClient.builder()
+                                .maxConnections(
+                                        EnvSettings.getInt("ARGOS_S3_MAX_CONNECTIONS", 50)))
+                .overrideConfiguration(c -> c.retryPolicy(RetryPolicy.none()))
+                .build();
+    }
+
+    /**
+     * Creates an S3 presigner bean, used to hand out short-lived download URLs.
+     * Presigning is a local signing operation and does not call S3.
+     *
+     * @return an S3Presigner configured with the same credentials and region as the client.
+     */
+    @Bean
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .region(region())
+                .credentialsProvider(credentialsProvider())
+                .build();
+    }
+
+    /**
+     * Reads the AWS region from environment variables.
+     *
+     * @return the configured region.
+     */
+    private Region region() {
+        return Region.of(requireEnv("AWS_REGION"));
+    }
+
+    /**
+     * Reads the AWS credentials from environment variables.
+     *
+     * @return a static credentials provider.
+     */
+    private AwsCredentialsProvider credentialsProvider() {
+        return StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(
+                        requireEnv("AWS_ACCESS_KEY_ID"), requireEnv("AWS_SECRET_ACCESS_KEY")));
+    }
 
-        if (accessKeyId == null || secretAccessKey == null || region == null) {
+    /**
+     * Reads a required environment variable.
+     *
+     * @param name the name of the variable.
+     * @return the value of the variable.
+     * @throws IllegalStateException if the variable is not set.
+     */
+    private static String requireEnv(String name) {
+        String value = System.getenv(name);
+        if (value == null) {
             throw new IllegalStateException("AWS environment variables are not set.");
         }
-
-        return S3Client.builder()
-                .region(Region.of(region))
-                .credentialsProvider(
-                        StaticCredentialsProvider.create(
-                                AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
-                .build();
+        return value;
     }
 }
@@ -1,9 +1,33 @@
 package org.argos.file.manager.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.AllArgsConstructor;
+import org.argos.file.manager.exceptions.ApiException;
+import org.argos.file.manager.model.DeliveryMode;
+import org.argos.file.manager.model.FileDelivery;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.ResultMode;
+import org.argos.file.manager.model.SnapshotDiff;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.model.UploadOptions;
+import org.argos.file.manager.model.UploadSummary;
 import org.argos.file.manager.service.S3FileService;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.InputValidator;
+import org.argos.file.manager.utils.PathPattern;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,44 +45,408 @@ public class FileManagerController {
      * Uploads an entire directory to the S3 bucket and generates a new project ID.
      *
      * @param localDir the path to the local directory to upload.
+     * @param ttlSeconds the optional time-to-live of the project, in seconds.
+     * @param parentProjectId the optional project this upload is a new version of.
+     * @param resumeProjectId the optional project of a failed upload to resume.
+     * @param exclude optional {@code .gitignore}-style patterns of paths to leave out.
+     * @param gitignore whether {@code .gitignore} files in the upload are honoured.
+     * @param maxFileBytes the optional size above which files are left out.
+     * @param skipBinary whether files that look binary are left out.
+     * @param results the optional result mode: full, summary or stream.
+     * @param response the response, written directly in stream mode.
      * @return a map containing the generated project ID and uploaded file statuses.
      */
     @PostMapping("/upload")
-    public Map<String, Object> uploadDirectory(@RequestParam String localDir) {
-        return s3FileService.uploadDirectory(localDir);
+    public ResponseEntity<Object> uploadDirectory(
+            @RequestParam String localDir,
+            @RequestParam(required = false) Long ttlSeconds,
+            @RequestParam(required = false) String parentProjectId,
+            @RequestParam(required = false) String resumeProjectId,
+            @RequestParam(required = false) List<String> exclude,
+            @RequestParam(required = false) Boolean gitignore,
+            @RequestParam(required = false) Long maxFileBytes,
+            @RequestParam(required = false) Boolean skipBinary,
+            @RequestParam(required = false) String results,
+            HttpServletResponse response) {
+        UploadOptions options =
+                uploadOptions(
+                        ttlSeconds,
+                        parentProjectId,
+                        resumeProjectId,
+                        ingestFilter(exclude, gitignore, maxFileBytes, skipBinary));
+        return uploadResponse(
+                ResultMode.fromParameter(results),
+                response,
+                () -> s3FileService.uploadDirectory(localDir, options),
+                listener -> s3FileService.uploadDirectory(localDir, options, listener));
     }
 
     /**
-     * Lists all files in the S3 bucket for a specific project.
+     * Lists all files in the S3 bucket for a specific project. With a glob or a regular
+     * expression, only the files whose relative paths match it are listed, and the matches
+     * are streamed as a JSON array as the listing finds them.
      *
      * @param projectId the ID of the project.
-     * @return a list of file keys in the S3 bucket for the given project.
+     * @param glob the optional glob the relative file paths must match.
+     * @param regex the optional regular expression the relative file paths must match.
+     * @param response the response the matches are streamed to.
+     * @return a list of file keys in the S3 bucket for the given project, or null once the
+     *     matches have been streamed.
      */
     @GetMapping("/files")
-    public List<String> listFiles(@RequestParam String projectId) {
-        return s3FileService.listFiles(projectId);
+    public List<String> listFiles(
+            @RequestParam String projectId,
+            @RequestParam(required = false) String glob,
+            @RequestParam(required = false) String regex,
+            HttpServletResponse response) {
+        PathPattern pattern = PathPattern.fromParameters(glob, regex);
+        if (pattern == null) {
+            return s3FileService.listFiles(projectId);
+        }
+        JsonArrayWriter writer = new JsonArrayWriter(response);
+        try {
+            s3FileService.listFiles(projectId, pattern, writer);
+            writer.finish();
+        } catch (ApiException e) {
+            if (!writer.hasStarted()) {
+                throw e;
+            }
+        } catch (JsonArrayWriter.ClientDisconnectedException e) {
+            // The client is gone; there is nobody left to answer.
+        }
+        return null;
     }
 
     /**
      * Retrieves the content of a specific file from the S3 bucket for a specific project.
+     * Depending on the delivery mode, the content is returned inline, as a presigned URL,
+     * or through a redirect to a presigned URL.
      *
      * @param projectId the ID of the project.
      * @param filePath  the relative path of the file to retrieve.
-     * @return the content of the file as a string.
+     * @param delivery  the optional delivery mode: content, url, redirect or auto.
+     * @return the content of the file, its presigned URL, or a 302 redirect.
      */
     @GetMapping("/file")
-    public String getFile(@RequestParam String projectId, @RequestParam String filePath) {
-        return s3FileService.getFileContent(projectId, filePath);
+    public ResponseEntity<Object> getFile(
+            @RequestParam String projectId,
+            @RequestParam String filePath,
+            @RequestParam(required = false) String delivery) {
+        DeliveryMode mode = DeliveryMode.fromParameter(delivery);
+        if (mode == DeliveryMode.CONTENT) {
+            return ResponseEntity.ok(s3FileService.getFileContent(projectId, filePath));
+        }
+
+        FileDelivery fileDelivery = s3FileService.getFileDelivery(projectId, filePath, mode);
+        if (!fileDelivery.isPresigned()) {
+            return ResponseEntity.ok(fileDelivery.content());
+        }
+        if (mode == DeliveryMode.URL) {
+            return ResponseEntity.ok(fileDelivery.presignedFile());
+        }
+        return ResponseEntity.status(HttpStatus.FOUND)
+                .location(URI.create(fileDelivery.presignedFile().url()))
+                .build();
+    }
+
+    /**
+     * Answers a HEAD request for a file with its size, ETag, content type and last-modified
+     * instant as headers, read from storage without transferring the file's content.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath  the relative path of the file.
+     * @return an empty response carrying the metadata headers, or 404 if the file is missing.
+     */
+    @RequestMapping(value = "/file", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headFile(
+            @RequestParam String projectId, @RequestParam String filePath) {
+        FileStat stat = s3FileService.statFile(projectId, filePath);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentLength(stat.size());
+        if (stat.eTag() != null) {
+            response.eTag(stat.eTag());
+        }
+        if (stat.contentType() != null) {
+            response.header(HttpHeaders.CONTENT_TYPE, stat.contentType());
+        }
+        if (stat.lastModified() != null) {
+            response.lastModified(stat.lastModified());
+        }
+        return response.build();
+    }
+
+    /**
+     * Retrieves a range of lines of a file, fetching only the bytes that cover them.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath  the relative path of the file.
+     * @param from      the 1-based number of the first line.
+     * @param to        the 1-based number of the last line, inclusive.
+     * @return the requested lines and the total number of lines of the file.
+     */
+    @GetMapping("/file/lines")
+    public LineRange getFileLines(
+            @RequestParam String projectId,
+            @RequestParam String filePath,
+            @RequestParam int from,
+            @RequestParam int to) {
+        return s3FileService.readLines(projectId, filePath, from, to);
+    }
+
+    /**
+     * Creates short-lived presigned download URLs for several files of a project.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath  the relative paths of the files, repeated once per file.
+     * @return the presigned URLs, in request order.
+     */
+    @GetMapping("/files/urls")
+    public List<PresignedFile> presignFiles(
+            @RequestParam String projectId, @RequestParam List<String> filePath) {
+        return s3FileService.presignFiles(projectId, filePath);
+    }
+
+    /**
+     * Reads the metadata of several files of a project without transferring their content.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath  the relative paths of the files, repeated once per file.
+     * @return the size, ETag, content type and last-modified instant of each file, in
+     *         request order; missing files have {@code exists} set to false.
+     */
+    @GetMapping("/files/stat")
+    public List<FileStat> statFiles(
+            @RequestParam String projectId, @RequestParam List<String> filePath) {
+        return s3FileService.statFiles(projectId, filePath);
     }
 
     /**
      * Uploads a ZIP file to the S3 bucket, extracts its contents, and organizes them under a new project ID.
      *
      * @param file      the uploaded ZIP file.
+     * @param ttlSeconds the optional time-to-live of the project, in seconds.
+     * @param parentProjectId the optional project this upload is a new version of.
+     * @param resumeProjectId the optional project of a failed upload to resume.
+     * @param exclude optional {@code .gitignore}-style patterns of paths to leave out.
+     * @param gitignore whether {@code .gitignore} files in the upload are honoured.
+     * @param maxFileBytes the optional size above which files are left out.
+     * @param skipBinary whether files that look binary are left out.
+     * @param results the optional result mode: full, summary or stream.
+     * @param response the response, written directly in stream mode.
      * @return a map containing the generated project ID and uploaded file statuses.
      */
     @PostMapping("/uploadZip")
-    public Map<String, Object> uploadZipFile(@RequestParam MultipartFile file) {
-        return s3FileService.uploadZipFile(file);
+    public ResponseEntity<Object> uploadZipFile(
+            @RequestParam MultipartFile file,
+            @RequestParam(required = false) Long ttlSeconds,
+            @RequestParam(required = false) String parentProjectId,
+            @RequestParam(required = false) String resumeProjectId,
+            @RequestParam(required = false) List<String> exclude,
+            @RequestParam(required = false) Boolean gitignore,
+            @RequestParam(required = false) Long maxFileBytes,
+            @RequestParam(required = false) Boolean skipBinary,
+            @RequestParam(required = false) String results,
+            HttpServletResponse response) {
+        UploadOptions options =
+                uploadOptions(
+                        ttlSeconds,
+                        parentProjectId,
+                        resumeProjectId,
+                        ingestFilter(exclude, gitignore, maxFileBytes, skipBinary));
+        return uploadResponse(
+                ResultMode.fromParameter(results),
+                response,
+                () -> s3FileService.uploadZipFile(file, options),
+                listener -> s3FileService.uploadZipFile(file, options, listener));
+    }
+
+    /**
+     * Forks a project under a new project ID by copying its files inside the bucket.
+     * Files of the optional overlay ZIP replace or extend the copied files.
+     *
+     * @param sourceProjectId the ID of the project to fork.
+     * @param overlay an optional ZIP of changed files.
+     * @param ttlSeconds the optional time-to-live of the new project, in seconds.
+     * @return a map containing the new project ID and the status of each file.
+     */
+    @PostMapping("/fork")
+    public Map<String, Object> forkProject(
+            @RequestParam String sourceProjectId,
+            @RequestParam(required = false) MultipartFile overlay,
+            @RequestParam(required = false) Long ttlSeconds) {
+        return s3FileService.forkProject(
+                sourceProjectId, overlay, uploadOptions(ttlSeconds, null, null, null));
+    }
+
+    /**
+     * Starts a direct-to-storage upload. The client PUTs its ZIP archive to the returned URL,
+     * or its parts to the returned part URLs, without sending the body through this service.
+     *
+     * @param parts the number of parts the archive will be uploaded in.
+     * @return the new project ID and the presigned upload URLs.
+     */
+    @PostMapping("/uploads")
+    public StagedUpload createStagedUpload(@RequestParam(defaultValue = "1") int parts) {
+        return s3FileService.createStagedUpload(parts);
+    }
+
+    /**
+     * Processes an archive uploaded directly to storage.
+     *
+     * @param projectId the project ID returned when the upload was started.
+     * @param uploadId the ID of the multipart upload, if the archive was uploaded in parts.
+     * @param eTag the ETags returned for the uploaded parts, in part-number order.
+     * @param ttlSeconds the optional time-to-live of the project, in seconds.
+     * @param parentProjectId the optional project this upload is a new version of.
+     * @param exclude optional {@code .gitignore}-style patterns of paths to leave out.
+     * @param gitignore whether {@code .gitignore} files in the upload are honoured.
+     * @param maxFileBytes the optional size above which files are left out.
+     * @param skipBinary whether files that look binary are left out.
+     * @param results the optional result mode: full, summary or stream.
+     * @param response the response, written directly in stream mode.
+     * @return a map containing the project ID and uploaded file statuses.
+     */
+    @PostMapping("/uploads/process")
+    public ResponseEntity<Object> processStagedUpload(
+            @RequestParam String projectId,
+            @RequestParam(required = false) String uploadId,
+            @RequestParam(required = false) List<String> eTag,
+            @RequestParam(required = false) Long ttlSeconds,
+            @RequestParam(required = false) String parentProjectId,
+            @RequestParam(required = false) List<String> exclude,
+            @RequestParam(required = false) Boolean gitignore,
+            @RequestParam(required = false) Long maxFileBytes,
+            @RequestParam(required = false) Boolean skipBinary,
+            @RequestParam(required = false) String results,
+            HttpServletResponse response) {
+        UploadOptions options =
+                uploadOptions(
+                        ttlSeconds,
+                        parentProjectId,
+                        null,
+                        ingestFilter(exclude, gitignore, maxFileBytes, skipBinary));
+        return uploadResponse(
+                ResultMode.fromParameter(results),
+                response,
+                () -> s3FileService.processStagedUpload(projectId, uploadId, eTag, options),
+                listener ->
+                        s3FileService.processStagedUpload(
+                                projectId, uploadId, eTag, options, listener));
+    }
+
+    /**
+     * Lists the files added, removed and modified between two project snapshots, comparing
+     * their manifests instead of the file contents.
+     *
+     * @param projectId the ID of the project.
+     * @param baseProjectId the optional project to compare against; defaults to the parent.
+     * @return the differing paths.
+     */
+    @GetMapping("/diff")
+    public SnapshotDiff diffSnapshots(
+            @RequestParam String projectId,
+            @RequestParam(required = false) String baseProjectId) {
+        return s3FileService.diffSnapshots(projectId, baseProjectId);
+    }
+
+    /**
+     * Returns the language, line count, size, encoding and binary flag of every file of a
+     * project with their aggregates, as computed when the project was uploaded.
+     *
+     * @param projectId the ID of the project.
+     * @return the statistics of the project.
+     */
+    @GetMapping("/stats")
+    public ProjectStats getStats(@RequestParam String projectId) {
+        return s3FileService.getStats(projectId);
+    }
+
+    /**
+     * Runs an upload and answers with its results in the requested mode. In summary and
+     * stream mode no per-file results are kept; an upload failing after some files were
+     * stored reports what it stored, while earlier failures get the usual error response.
+     *
+     * @param mode the result mode.
+     * @param response the response, written directly in stream mode.
+     * @param upload runs the upload and returns its full results.
+     * @param listenedUpload runs the upload reporting each file to a listener.
+     * @return the response entity, or null once the stream has been written.
+     */
+    private ResponseEntity<Object> uploadResponse(
+            ResultMode mode,
+            HttpServletResponse response,
+            Supplier<Map<String, Object>> upload,
+            Function<UploadListener, Map<String, Object>> listenedUpload) {
+        if (mode == ResultMode.FULL) {
+            return ResponseEntity.ok(upload.get());
+        }
+        if (mode == ResultMode.SUMMARY) {
+            UploadSummary summary = new UploadSummary();
+            try {
+                Map<String, Object> body = listenedUpload.apply(summary);
+                body.putAll(summary.toMap("completed"));
+                return ResponseEntity.ok(body);
+            } catch (ApiException e) {
+                if (summary.isEmpty()) {
+                    throw e;
+                }
+                return ResponseEntity.status(e.getStatusCode()).body(summary.toMap(e));
+            }
+        }
+        NdjsonUploadWriter writer = new NdjsonUploadWriter(response);
+        try {
+            writer.complete(listenedUpload.apply(writer));
+        } catch (ApiException e) {
+            if (!writer.hasStarted()) {
+                throw e;
+            }
+            writer.fail(e);
+        }
+        return null;
+    }
+
+    /**
+     * Builds the options of an upload from its optional request parameters.
+     *
+     * @param ttlSeconds the optional time-to-live of the project, in seconds.
+     * @param parentProjectId the optional project the upload is a new version of.
+     * @param resumeProjectId the optional project of a failed upload to resume.
+     * @param ingestFilter the requested ingest filter, or null for the deployment's filter.
+     * @return the upload options.
+     */
+    private UploadOptions uploadOptions(
+            Long ttlSeconds,
+            String parentProjectId,
+            String resumeProjectId,
+            IngestFilter ingestFilter) {
+        InputValidator.getInstance().validateTtlSeconds(ttlSeconds);
+        if (parentProjectId != null) {
+            InputValidator.getInstance().validateProjectId(parentProjectId);
+        }
+        if (resumeProjectId != null) {
+            InputValidator.getInstance().validateProjectId(resumeProjectId);
+        }
+        return new UploadOptions(
+                ttlSeconds != null ? Duration.ofSeconds(ttlSeconds) : null,
+                parentProjectId,
+                resumeProjectId,
+                ingestFilter);
+    }
+
+    /**
+     * Builds the ingest filter of an upload from its optional request parameters, on top of
+     * the filter configured for the deployment.
+     *
+     * @param exclude optional patterns of paths to leave out.
+     * @param gitignore whether {@code .gitignore} files are honoured, or null.
+     * @param maxFileBytes the size above which files are left out, or null.
+     * @param skipBinary whether binary files are left out, or null.
+     * @return the ingest filter, or null if no filter parameter was given.
+     */
+    private IngestFilter ingestFilter(
+            List<String> exclude, Boolean gitignore, Long maxFileBytes, Boolean skipBinary) {
+        if (exclude == null && gitignore == null && maxFileBytes == null && skipBinary == null) {
+            return null;
+        }
+        return IngestFilter.fromEnvironment().with(exclude, gitignore, maxFileBytes, skipBinary);
     }
 }
@@ -0,0 +1,105 @@
+package org.argos.file.manager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import org.springframework.http.MediaType;
+
+/**
+ * Writes a listing to the response as a JSON array of strings while it is produced, flushing
+ * each batch of elements as soon as it is handed over. The response is committed by the
+ * first batch, so a listing that fails before finding anything is still answered with a
+ * regular error response; one that fails later leaves the array unterminated, which clients
+ * cannot mistake for a complete listing. A client that disconnects stops the listing.
+ */
+class JsonArrayWriter implements Consumer<List<String>> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServletResponse response;
+    private OutputStream out;
+
+    /**
+     * Creates a writer for a response.
+     *
+     * @param response the response the array is written to.
+     */
+    JsonArrayWriter(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Writes a batch of elements and flushes it to the client.
+     *
+     * @param elements the elements.
+     * @throws ClientDisconnectedException if the response can no longer be written.
+     */
+    @Override
+    public void accept(List<String> elements) {
+        if (elements.isEmpty()) {
+            return;
+        }
+        try {
+            for (String element : elements) {
+                if (out == null) {
+                    start();
+                } else {
+                    out.write(',');
+                }
+                out.write(MAPPER.writeValueAsBytes(element));
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new ClientDisconnectedException(e);
+        }
+    }
+
+    /**
+     * Returns whether an element has been written, committing the response.
+     *
+     * @return true once the response has started.
+     */
+    boolean hasStarted() {
+        return out != null;
+    }
+
+    /**
+     * Terminates the array, writing an empty one if no element was written.
+     *
+     * @throws ClientDisconnectedException if the response can no longer be written.
+     */
+    void finish() {
+        try {
+            if (out == null) {
+                start();
+            }
+            out.write(']');
+            out.flush();
+        } catch (IOException e) {
+            throw new ClientDisconnectedException(e);
+        }
+    }
+
+    /**
+     * Commits the response and opens the array.
+     */
+    private void start() throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        out = response.getOutputStream();
+        out.write('[');
+    }
+
+    /**
+     * Raised when the client has gone away, to stop the listing that feeds the writer.
+     */
+    static final class ClientDisconnectedException extends RuntimeException {
+
+        ClientDisconnectedException(IOException cause) {
+            super(cause);
+        }
+    }
+}
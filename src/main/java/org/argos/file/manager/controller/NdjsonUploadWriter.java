@@ -0,0 +1,184 @@
+package org.argos.file.manager.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import org.argos.file.manager.exceptions.ApiException;
+import org.argos.file.manager.model.FilterReason;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.model.UploadSummary;
+
+/**
+ * Writes the results of an upload to the response as NDJSON while the upload runs: one
+ * {@code file} or {@code failure} record per file as soon as its PUT completes, and a final
+ * {@code summary} record. The response is committed by the first record, so an upload that
+ * fails before storing any file is still answered with a regular error response.
+ * A client that disconnects does not stop the upload; later records are dropped.
+ * Records arrive from the upload workers; a {@link ReentrantLock} serializes them so virtual
+ * threads never pin their carrier while a record is written to the client.
+ */
+class NdjsonUploadWriter implements UploadListener {
+
+    static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServletResponse response;
+    private final UploadSummary summary = new UploadSummary();
+    private final ReentrantLock lock = new ReentrantLock();
+    private OutputStream out;
+    private boolean disconnected;
+
+    /**
+     * Creates a writer for a response.
+     *
+     * @param response the response the records are written to.
+     */
+    NdjsonUploadWriter(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Writes a {@code file} record.
+     *
+     * @param key the key of the file.
+     * @param bytes the size of the file in bytes.
+     */
+    @Override
+    public void uploaded(String key, long bytes) {
+        lock.lock();
+        try {
+            summary.uploaded(key, bytes);
+            write(Map.of("type", "file", "key", key, "status", "Uploaded", "bytes", bytes));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a {@code failure} record.
+     *
+     * @param key the key of the file.
+     * @param error the error message.
+     */
+    @Override
+    public void failed(String key, String error) {
+        lock.lock();
+        try {
+            summary.failed(key, error);
+            write(Map.of("type", "failure", "key", key, "error", error));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a {@code file} record for a file stored by an earlier attempt of the upload.
+     *
+     * @param key the key of the file.
+     * @param bytes the size of the file in bytes.
+     */
+    @Override
+    public void skipped(String key, long bytes) {
+        lock.lock();
+        try {
+            summary.skipped(key, bytes);
+            write(Map.of("type", "file", "key", key, "status", "Skipped", "bytes", bytes));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a {@code file} record for a file or directory left out by the ingest filter.
+     *
+     * @param key the key of the file or directory.
+     * @param reason why it is left out.
+     */
+    @Override
+    public void filtered(String key, FilterReason reason) {
+        lock.lock();
+        try {
+            summary.filtered(key, reason);
+            write(Map.of("type", "file", "key", key, "status", reason.status()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether a record has been written, committing the response.
+     *
+     * @return true once the response has started.
+     */
+    boolean hasStarted() {
+        lock.lock();
+        try {
+            return out != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the {@code summary} record of a completed upload.
+     *
+     * @param upload the upload response, such as the project ID and expiry.
+     */
+    void complete(Map<String, Object> upload) {
+        lock.lock();
+        try {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "summary");
+            record.putAll(upload);
+            record.putAll(summary.toMap("completed"));
+            write(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the {@code summary} record of an upload that ended with an error.
+     *
+     * @param error the error that ended the upload.
+     */
+    void fail(ApiException error) {
+        lock.lock();
+        try {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("type", "summary");
+            record.putAll(summary.toMap(error));
+            write(record);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a record as one line and flushes it to the client.
+     *
+     * @param record the record.
+     */
+    private void write(Map<String, Object> record) {
+        if (disconnected) {
+            return;
+        }
+        try {
+            if (out == null) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType(CONTENT_TYPE);
+                out = response.getOutputStream();
+            }
+            out.write(MAPPER.writeValueAsBytes(record));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            disconnected = true;
+        }
+    }
+}
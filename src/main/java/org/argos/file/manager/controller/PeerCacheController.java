@@ -0,0 +1,54 @@
+package org.argos.file.manager.controller;
+
+import java.nio.charset.StandardCharsets;
+import lombok.AllArgsConstructor;
+import org.argos.file.manager.cache.PeerCache;
+import org.argos.file.manager.repository.CachingStorageRepository;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller through which service replicas share their file content caches.
+ * It serves only what {@code /fileManager/file} serves, and only to replicas presenting the
+ * shared secret in the {@link PeerCache#SECRET_HEADER} header.
+ */
+@RestController
+@AllArgsConstructor
+public class PeerCacheController {
+
+    private final CachingStorageRepository cachingRepository;
+
+    /**
+     * Serves a file owned by this replica from its cache, reading S3 on a miss.
+     *
+     * @param secret the secret shared by the replicas.
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the content of the file as plain text.
+     */
+    @GetMapping(PeerCache.FILE_ENDPOINT)
+    public ResponseEntity<String> getOwnedFile(
+            @RequestHeader(name = PeerCache.SECRET_HEADER, required = false) String secret,
+            @RequestParam String projectId,
+            @RequestParam String filePath) {
+        cachingRepository.authorizePeer(secret);
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(cachingRepository.getOwnedFileContent(projectId, filePath));
+    }
+
+    /**
+     * Drops the files of a deleted project from the cache of this replica.
+     *
+     * @param secret the secret shared by the replicas.
+     * @param projectId the ID of the project.
+     */
+    @DeleteMapping(PeerCache.PROJECT_ENDPOINT)
+    public void invalidateProject(
+            @RequestHeader(name = PeerCache.SECRET_HEADER, required = false) String secret,
+            @RequestParam String projectId) {
+        cachingRepository.authorizePeer(secret);
+        cachingRepository.invalidateProject(projectId);
+    }
+}
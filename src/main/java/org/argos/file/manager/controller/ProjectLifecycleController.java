@@ -0,0 +1,39 @@
+package org.argos.file.manager.controller;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.service.ProjectLifecycleService;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for deleting projects and monitoring deletions.
+ */
+@RestController
+@RequestMapping("/fileManager")
+@AllArgsConstructor
+public class ProjectLifecycleController {
+
+    private final ProjectLifecycleService lifecycleService;
+
+    /**
+     * Deletes every file of a project.
+     *
+     * @param projectId the ID of the project.
+     * @return the number of deleted objects, the batches sent and any keys that failed.
+     */
+    @DeleteMapping("/project")
+    public DeletionResult deleteProject(@RequestParam String projectId) {
+        return lifecycleService.deleteProject(projectId);
+    }
+
+    /**
+     * Returns the progress of running deletions and the lifetime deletion counts.
+     *
+     * @return the lifecycle status.
+     */
+    @GetMapping("/project/deletions")
+    public Map<String, Object> getDeletionStatus() {
+        return lifecycleService.getStatus();
+    }
+}
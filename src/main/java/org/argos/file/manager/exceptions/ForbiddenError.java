@@ -0,0 +1,10 @@
+package org.argos.file.manager.exceptions;
+
+/**
+ * Exception for Forbidden errors.
+ */
+public class ForbiddenError extends ApiException {
+    public ForbiddenError(String message) {
+        super(message, 403);
+    }
+}
@@ -34,6 +34,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(ex.getStatusCode()).body(errorDetails);
     }
 
+    /**
+     * Handles uploads that stored only some of their files, adding the project ID to resume
+     * the upload under and the files that failed.
+     *
+     * @param ex the exception to handle
+     * @return a ResponseEntity with the error details
+     */
+    @ExceptionHandler(IncompleteUploadError.class)
+    public ResponseEntity<Map<String, Object>> handleIncompleteUpload(IncompleteUploadError ex) {
+        ResponseEntity<Map<String, Object>> response = handleApiException(ex);
+        response.getBody().put("projectId", ex.getProjectId());
+        response.getBody().put("failedFiles", ex.getFailedFileCount());
+        response.getBody().put("failures", ex.getFailedFiles());
+
+        return response;
+    }
+
     /**
      * Handles all other exceptions as a fallback.
      *
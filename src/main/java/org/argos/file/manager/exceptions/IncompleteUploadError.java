@@ -0,0 +1,46 @@
+package org.argos.file.manager.exceptions;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exception for uploads that stored some files but not all of them.
+ * The stored files are checkpointed, so the upload can be resumed under the same project ID.
+ */
+public class IncompleteUploadError extends BadRequestError {
+
+    private final String projectId;
+    private final int failedFileCount;
+    private final List<Map<String, String>> failedFiles;
+
+    /**
+     * Creates the error of an incomplete upload.
+     *
+     * @param message the error message.
+     * @param projectId the project the upload can be resumed under.
+     * @param failedFileCount the number of files that could not be stored.
+     * @param failedFiles the listed failed files, each with its key and error.
+     */
+    public IncompleteUploadError(
+            String message,
+            String projectId,
+            int failedFileCount,
+            List<Map<String, String>> failedFiles) {
+        super(message);
+        this.projectId = projectId;
+        this.failedFileCount = failedFileCount;
+        this.failedFiles = List.copyOf(failedFiles);
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public int getFailedFileCount() {
+        return failedFileCount;
+    }
+
+    public List<Map<String, String>> getFailedFiles() {
+        return failedFiles;
+    }
+}
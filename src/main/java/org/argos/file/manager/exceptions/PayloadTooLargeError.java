@@ -0,0 +1,10 @@
+package org.argos.file.manager.exceptions;
+
+/**
+ * Exception for Payload Too Large errors.
+ */
+public class PayloadTooLargeError extends ApiException {
+    public PayloadTooLargeError(String message) {
+        super(message, 413);
+    }
+}
@@ -0,0 +1,10 @@
+package org.argos.file.manager.exceptions;
+
+/**
+ * Exception for Service Unavailable errors.
+ */
+public class ServiceUnavailableError extends ApiException {
+    public ServiceUnavailableError(String message) {
+        super(message, 503);
+    }
+}
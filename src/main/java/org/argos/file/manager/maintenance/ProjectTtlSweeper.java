@@ -0,0 +1,89 @@
+package org.argos.file.manager.maintenance;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import org.argos.file.manager.service.ProjectLifecycleService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically deletes projects whose time-to-live has passed, and exposes deletion
+ * progress and counts as metrics.
+ */
+@Component
+@AllArgsConstructor
+public class ProjectTtlSweeper implements MeterBinder {
+
+    private final ProjectLifecycleService lifecycleService;
+
+    /**
+     * Deletes the projects that have expired since the previous sweep.
+     */
+    @Scheduled(
+            fixedDelayString = "${argos.lifecycle.sweep-interval-ms}",
+            initialDelayString = "${argos.lifecycle.sweep-interval-ms}")
+    public void sweepExpired() {
+        lifecycleService.sweepExpired();
+    }
+
+    /**
+     * Registers the lifecycle metrics.
+     *
+     * @param registry the meter registry.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(
+                        "argos.lifecycle.deletions.active",
+                        lifecycleService,
+                        service -> service.activeDeletions().size())
+                .description("Project deletions in progress")
+                .register(registry);
+        Gauge.builder(
+                        "argos.lifecycle.deletions.pending",
+                        lifecycleService,
+                        service ->
+                                service.activeDeletions().stream()
+                                        .mapToLong(
+                                                progress ->
+                                                        progress.getListedObjects()
+                                                                - progress.getDeletedObjects()
+                                                                - progress.getFailedObjects())
+                                        .sum())
+                .description("Listed objects of running deletions not yet deleted")
+                .register(registry);
+        FunctionCounter.builder(
+                        "argos.lifecycle.projects.deleted",
+                        lifecycleService,
+                        ProjectLifecycleService::deletedProjects)
+                .description("Projects deleted on request or by the TTL sweeper")
+                .register(registry);
+        FunctionCounter.builder(
+                        "argos.lifecycle.projects.expired",
+                        lifecycleService,
+                        ProjectLifecycleService::expiredProjects)
+                .description("Projects deleted because their TTL passed")
+                .register(registry);
+        FunctionCounter.builder(
+                        "argos.lifecycle.objects.deleted",
+                        lifecycleService,
+                        ProjectLifecycleService::deletedObjects)
+                .description("Objects removed by project deletions")
+                .register(registry);
+        FunctionCounter.builder(
+                        "argos.lifecycle.objects.failed",
+                        lifecycleService,
+                        ProjectLifecycleService::failedObjects)
+                .description("Objects that project deletions failed to remove")
+                .register(registry);
+        FunctionCounter.builder(
+                        "argos.lifecycle.sweep.failures",
+                        lifecycleService,
+                        ProjectLifecycleService::sweepFailures)
+                .description("Expired projects whose deletion failed")
+                .register(registry);
+    }
+}
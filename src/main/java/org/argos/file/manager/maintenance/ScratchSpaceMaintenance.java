@@ -0,0 +1,77 @@
+package org.argos.file.manager.maintenance;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.argos.file.manager.utils.ScratchSpaceManager;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sweeps leftover scratch directories at startup and periodically, and exposes scratch-space
+ * usage and the reaper backlog as metrics.
+ */
+@Component
+public class ScratchSpaceMaintenance implements MeterBinder {
+
+    private final ScratchSpaceManager scratchSpace = ScratchSpaceManager.getInstance();
+
+    /**
+     * Removes every directory left behind by a previous run once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepAtStartup() {
+        scratchSpace.sweepAtStartup();
+    }
+
+    /**
+     * Removes directories leaked by requests that never released them.
+     */
+    @Scheduled(
+            fixedDelayString = "${argos.scratch.sweep-interval-ms}",
+            initialDelayString = "${argos.scratch.sweep-interval-ms}")
+    public void sweepStale() {
+        scratchSpace.sweepStale();
+    }
+
+    /**
+     * Registers the scratch-space metrics.
+     *
+     * @param registry the meter registry.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("argos.scratch.used", scratchSpace, ScratchSpaceManager::usedBytes)
+                .baseUnit("bytes")
+                .description("Bytes held by active and not yet deleted scratch directories")
+                .register(registry);
+        Gauge.builder(
+                        "argos.scratch.active",
+                        scratchSpace,
+                        ScratchSpaceManager::activeDirectories)
+                .description("Scratch directories in use by requests")
+                .register(registry);
+        Gauge.builder(
+                        "argos.scratch.reaper.backlog",
+                        scratchSpace,
+                        ScratchSpaceManager::pendingDeletes)
+                .description("Scratch directories waiting to be deleted")
+                .register(registry);
+        Gauge.builder(
+                        "argos.scratch.reaper.backlog.bytes",
+                        scratchSpace,
+                        ScratchSpaceManager::pendingDeleteBytes)
+                .baseUnit("bytes")
+                .description("Bytes waiting to be deleted")
+                .register(registry);
+        FunctionCounter.builder(
+                        "argos.scratch.swept",
+                        scratchSpace,
+                        ScratchSpaceManager::sweptDirectories)
+                .description("Leftover scratch directories removed by sweeps")
+                .register(registry);
+    }
+}
@@ -0,0 +1,66 @@
+package org.argos.file.manager.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of a project deletion, updated concurrently by the deletion batches.
+ */
+public class DeletionProgress {
+
+    private final String projectId;
+    private final AtomicLong listedObjects = new AtomicLong();
+    private final AtomicLong deletedObjects = new AtomicLong();
+    private final AtomicLong failedObjects = new AtomicLong();
+    private final AtomicInteger completedBatches = new AtomicInteger();
+
+    /**
+     * Creates the progress of a deletion.
+     *
+     * @param projectId the ID of the project being deleted.
+     */
+    public DeletionProgress(String projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public long getListedObjects() {
+        return listedObjects.get();
+    }
+
+    public long getDeletedObjects() {
+        return deletedObjects.get();
+    }
+
+    public long getFailedObjects() {
+        return failedObjects.get();
+    }
+
+    public int getCompletedBatches() {
+        return completedBatches.get();
+    }
+
+    /**
+     * Records objects found by the listing.
+     *
+     * @param count the number of listed objects.
+     */
+    public void onListed(int count) {
+        listedObjects.addAndGet(count);
+    }
+
+    /**
+     * Records a finished deletion batch.
+     *
+     * @param deleted the number of objects deleted by the batch.
+     * @param failed the number of objects the batch failed to delete.
+     */
+    public void onBatch(int deleted, int failed) {
+        deletedObjects.addAndGet(deleted);
+        failedObjects.addAndGet(failed);
+        completedBatches.incrementAndGet();
+    }
+}
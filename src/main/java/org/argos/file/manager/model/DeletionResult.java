@@ -0,0 +1,19 @@
+package org.argos.file.manager.model;
+
+import java.util.List;
+
+/**
+ * Outcome of a project deletion.
+ *
+ * @param projectId the ID of the deleted project.
+ * @param deletedObjects the number of objects deleted.
+ * @param failedObjects the number of objects that could not be deleted.
+ * @param batches the number of DeleteObjects batches sent.
+ * @param failedKeys a sample of the keys that could not be deleted.
+ */
+public record DeletionResult(
+        String projectId,
+        long deletedObjects,
+        long failedObjects,
+        int batches,
+        List<String> failedKeys) {}
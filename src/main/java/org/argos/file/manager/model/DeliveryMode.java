@@ -0,0 +1,36 @@
+package org.argos.file.manager.model;
+
+import java.util.Locale;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.utils.EnvSettings;
+
+/**
+ * How the content of a file is delivered to the client.
+ */
+public enum DeliveryMode {
+    /** The content is read by the service and returned in the response body. */
+    CONTENT,
+    /** A presigned GET URL is returned instead of the content. */
+    URL,
+    /** The client is redirected to a presigned GET URL. */
+    REDIRECT,
+    /** Files at or above the presign threshold are redirected, smaller ones returned inline. */
+    AUTO;
+
+    /**
+     * Parses the delivery mode requested by a client, falling back to ARGOS_FILE_DELIVERY.
+     *
+     * @param value the requested mode, case-insensitive, or null to use the default.
+     * @return the delivery mode.
+     * @throws BadRequestError if the mode is unknown.
+     */
+    public static DeliveryMode fromParameter(String value) {
+        String mode =
+                value != null ? value : EnvSettings.getString("ARGOS_FILE_DELIVERY", "content");
+        try {
+            return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestError("Invalid delivery mode: " + mode);
+        }
+    }
+}
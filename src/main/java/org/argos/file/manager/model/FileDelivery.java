@@ -0,0 +1,39 @@
+package org.argos.file.manager.model;
+
+/**
+ * A file delivered either inline or through a presigned URL.
+ *
+ * @param content the content of the file, or null if it is delivered through a URL.
+ * @param presignedFile the presigned URL of the file, or null if it is delivered inline.
+ */
+public record FileDelivery(String content, PresignedFile presignedFile) {
+
+    /**
+     * Creates an inline delivery.
+     *
+     * @param content the content of the file.
+     * @return the delivery.
+     */
+    public static FileDelivery ofContent(String content) {
+        return new FileDelivery(content, null);
+    }
+
+    /**
+     * Creates a delivery through a presigned URL.
+     *
+     * @param presignedFile the presigned URL of the file.
+     * @return the delivery.
+     */
+    public static FileDelivery ofPresigned(PresignedFile presignedFile) {
+        return new FileDelivery(null, presignedFile);
+    }
+
+    /**
+     * Indicates whether the file is delivered through a presigned URL.
+     *
+     * @return true if the client downloads the file from object storage.
+     */
+    public boolean isPresigned() {
+        return presignedFile != null;
+    }
+}
@@ -0,0 +1,16 @@
+package org.argos.file.manager.model;
+
+/**
+ * Facts about a stored file, computed while its bytes were read for the upload.
+ *
+ * @param language the language of the file, recognised by its name.
+ * @param size the size of the file in bytes.
+ * @param lines the number of lines of a text file, or 0 for a binary file.
+ * @param encoding "US-ASCII", "UTF-8", "unknown" for other 8-bit text, or "binary".
+ * @param binary whether the file looks binary, meaning its leading bytes contain a NUL byte.
+ */
+public record FileFacts(String language, long size, long lines, String encoding, boolean binary) {
+
+    /** Encoding reported for binary files. */
+    public static final String BINARY = "binary";
+}
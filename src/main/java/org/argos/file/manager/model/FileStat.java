@@ -0,0 +1,32 @@
+package org.argos.file.manager.model;
+
+import java.time.Instant;
+
+/**
+ * Metadata of a file, read from storage without transferring its content.
+ *
+ * @param filePath the relative path of the file.
+ * @param exists whether the file exists; the other fields are empty if it does not.
+ * @param size the size of the file in bytes.
+ * @param eTag the entity tag of the stored object, quotes included.
+ * @param contentType the content type the file was stored with.
+ * @param lastModified the instant the file was stored.
+ */
+public record FileStat(
+        String filePath,
+        boolean exists,
+        long size,
+        String eTag,
+        String contentType,
+        Instant lastModified) {
+
+    /**
+     * Returns the metadata of a file that does not exist.
+     *
+     * @param filePath the relative path of the file.
+     * @return the metadata.
+     */
+    public static FileStat missing(String filePath) {
+        return new FileStat(filePath, false, 0, null, null, null);
+    }
+}
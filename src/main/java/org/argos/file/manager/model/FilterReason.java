@@ -0,0 +1,28 @@
+package org.argos.file.manager.model;
+
+/**
+ * Why an ingest filter left a file or directory out of an upload.
+ */
+public enum FilterReason {
+    /** The path matches an exclude pattern or a {@code .gitignore} rule. */
+    IGNORED("Ignored"),
+    /** The file is larger than the configured maximum file size. */
+    TOO_LARGE("TooLarge"),
+    /** The file looks binary and binary files are skipped. */
+    BINARY("Binary");
+
+    private final String status;
+
+    FilterReason(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Returns the status reported to clients for a file left out for this reason.
+     *
+     * @return the status.
+     */
+    public String status() {
+        return status;
+    }
+}
@@ -0,0 +1,57 @@
+package org.argos.file.manager.model;
+
+import java.util.Locale;
+import java.util.UUID;
+import org.argos.file.manager.utils.EnvSettings;
+
+/**
+ * How the object keys of a project are laid out in the bucket.
+ * The layout of a project is recorded in its ID when the project is created, so it is
+ * resolved without a storage request and never changes for the lifetime of the project.
+ */
+public enum KeyLayout {
+    /** Files are stored under {@code projects/{projectId}/{filePath}}. */
+    V1,
+    /**
+     * Files are stored under {@code projects/{projectId}/{partition}/{filePath}}, where the
+     * partition is derived from a hash of the file path, so that parallel requests of one
+     * project spread over many key prefixes.
+     */
+    V2;
+
+    private static final String V2_ID_PREFIX = "v2-";
+
+    /**
+     * Returns the layout new projects are created with, read from ARGOS_KEY_LAYOUT.
+     *
+     * @return the configured layout, V1 if the setting is missing or invalid.
+     */
+    public static KeyLayout fromEnvironment() {
+        String layout = EnvSettings.getString("ARGOS_KEY_LAYOUT", "v1");
+        try {
+            return valueOf(layout.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return V1;
+        }
+    }
+
+    /**
+     * Resolves the layout of an existing project from its ID.
+     *
+     * @param projectId the ID of the project.
+     * @return the layout the project was created with.
+     */
+    public static KeyLayout resolve(String projectId) {
+        return projectId.startsWith(V2_ID_PREFIX) ? V2 : V1;
+    }
+
+    /**
+     * Generates the ID of a new project using this layout.
+     *
+     * @return a unique project ID.
+     */
+    public String newProjectId() {
+        String id = UUID.randomUUID().toString();
+        return this == V2 ? V2_ID_PREFIX + id : id;
+    }
+}
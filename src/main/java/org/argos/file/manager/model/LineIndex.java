@@ -0,0 +1,146 @@
+package org.argos.file.manager.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Compact line-offset index of a stored file.
+ * Instead of every line start, only the byte offset of every {@code interval}-th line is
+ * kept, so a line range maps to a byte range covering at most one extra block at each end.
+ *
+ * @param eTag the ETag of the object the index was built from.
+ * @param size the size of the object in bytes.
+ * @param lineCount the number of lines of the file.
+ * @param interval the number of lines between two checkpoints.
+ * @param checkpoints the byte offsets of lines 1, interval + 1, 2 * interval + 1, and so on.
+ */
+public record LineIndex(
+        String eTag, long size, int lineCount, int interval, long[] checkpoints) {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Builds the index of a file by scanning its content once.
+     *
+     * @param content the content of the file; it is not closed.
+     * @param eTag the ETag of the object being scanned.
+     * @param interval the number of lines between two checkpoints.
+     * @return the line index.
+     * @throws IOException if the content cannot be read.
+     */
+    public static LineIndex build(InputStream content, String eTag, int interval)
+            throws IOException {
+        long[] checkpoints = new long[16];
+        int checkpointCount = 0;
+        int lineCount = 0;
+        long offset = 0;
+        boolean atLineStart = true;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++, offset++) {
+                if (atLineStart) {
+                    if (lineCount % interval == 0) {
+                        if (checkpointCount == checkpoints.length) {
+                            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                        }
+                        checkpoints[checkpointCount++] = offset;
+                    }
+                    lineCount++;
+                    atLineStart = false;
+                }
+                if (buffer[i] == '\n') {
+                    atLineStart = true;
+                }
+            }
+        }
+        return new LineIndex(
+                eTag, offset, lineCount, interval, Arrays.copyOf(checkpoints, checkpointCount));
+    }
+
+    /**
+     * Returns the number of the first line of the block containing a line.
+     *
+     * @param line the 1-based line number.
+     * @return the 1-based number of the first line of its block.
+     */
+    public int blockFirstLine(int line) {
+        return (line - 1) / interval * interval + 1;
+    }
+
+    /**
+     * Returns the byte offset at which the block containing a line starts.
+     *
+     * @param line the 1-based line number, at most {@link #lineCount()}.
+     * @return the offset of the first byte of the block.
+     */
+    public long blockStart(int line) {
+        return checkpoints[(line - 1) / interval];
+    }
+
+    /**
+     * Returns the byte offset at which the block containing a line ends.
+     *
+     * @param line the 1-based line number, at most {@link #lineCount()}.
+     * @return the offset of the last byte of the block, inclusive.
+     */
+    public long blockEnd(int line) {
+        int next = (line - 1) / interval + 1;
+        return next < checkpoints.length ? checkpoints[next] - 1 : size - 1;
+    }
+
+    /**
+     * Serializes the index for storage next to the file.
+     *
+     * @return the serialized index.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + checkpoints.length * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(eTag != null ? eTag : "");
+            out.writeLong(size);
+            out.writeInt(lineCount);
+            out.writeInt(interval);
+            out.writeInt(checkpoints.length);
+            for (long checkpoint : checkpoints) {
+                out.writeLong(checkpoint);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes a stored index.
+     *
+     * @param bytes the serialized index.
+     * @return the index, or null if it was written in an unknown format.
+     */
+    public static LineIndex fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String eTag = in.readUTF();
+            long size = in.readLong();
+            int lineCount = in.readInt();
+            int interval = in.readInt();
+            long[] checkpoints = new long[in.readInt()];
+            for (int i = 0; i < checkpoints.length; i++) {
+                checkpoints[i] = in.readLong();
+            }
+            return new LineIndex(eTag, size, lineCount, interval, checkpoints);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.argos.file.manager.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of lines read from a file.
+ *
+ * @param filePath the relative path of the file.
+ * @param fromLine the 1-based number of the first requested line.
+ * @param toLine the 1-based number of the last returned line; below fromLine if none was.
+ * @param totalLines the number of lines of the whole file.
+ * @param lines the returned lines, without line terminators.
+ */
+public record LineRange(
+        String filePath, int fromLine, int toLine, int totalLines, List<String> lines) {
+
+    /**
+     * Extracts a line range from a piece of text.
+     *
+     * @param filePath the relative path of the file.
+     * @param text text of the file starting at the beginning of a line.
+     * @param firstLine the 1-based line number of the first line of the text.
+     * @param fromLine the 1-based number of the first requested line.
+     * @param toLine the 1-based number of the last requested line.
+     * @param totalLines the number of lines of the whole file.
+     * @return the requested lines that exist.
+     */
+    public static LineRange slice(
+            String filePath,
+            String text,
+            int firstLine,
+            int fromLine,
+            int toLine,
+            int totalLines) {
+        int lastLine = Math.min(toLine, totalLines);
+        List<String> lines = new ArrayList<>(Math.max(0, lastLine - fromLine + 1));
+        int line = firstLine;
+        int start = 0;
+        while (line <= lastLine && start <= text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            if (line >= fromLine) {
+                int stop = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+                lines.add(text.substring(start, stop));
+            }
+            start = end + 1;
+            line++;
+        }
+        return new LineRange(filePath, fromLine, fromLine + lines.size() - 1, totalLines, lines);
+    }
+
+    /**
+     * Counts the lines of a text; a trailing line terminator does not start another line.
+     *
+     * @param text the text.
+     * @return the number of lines.
+     */
+    public static int countLines(String text) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        int lines = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return text.charAt(text.length() - 1) == '\n' ? lines : lines + 1;
+    }
+}
@@ -0,0 +1,13 @@
+package org.argos.file.manager.model;
+
+import java.time.Instant;
+
+/**
+ * Short-lived URL from which a client downloads a file directly from object storage.
+ *
+ * @param filePath the relative path of the file.
+ * @param url the presigned GET URL.
+ * @param size the size of the file in bytes.
+ * @param expiresAt the instant after which the URL is no longer valid.
+ */
+public record PresignedFile(String filePath, String url, long size, Instant expiresAt) {}
@@ -0,0 +1,11 @@
+package org.argos.file.manager.model;
+
+import java.time.Instant;
+
+/**
+ * Expiry scheduled for a project with a time-to-live.
+ *
+ * @param projectId the ID of the project.
+ * @param expiresAt the instant after which the project is deleted.
+ */
+public record ProjectExpiry(String projectId, Instant expiresAt) {}
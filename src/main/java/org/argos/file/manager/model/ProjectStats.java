@@ -0,0 +1,160 @@
+package org.argos.file.manager.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Metadata index of a project: the {@link FileFacts} of every file, computed at ingest,
+ * with aggregates over them, so that consumers do not have to download the files.
+ *
+ * @param projectId the project the index describes.
+ * @param createdAt the instant the index was stored.
+ * @param fileCount the number of files.
+ * @param totalBytes the total size of the files in bytes.
+ * @param totalLines the total number of lines of the text files.
+ * @param binaryFiles the number of binary files.
+ * @param languages the totals of each language, largest first.
+ * @param files the facts of each file, by path relative to the project root.
+ */
+public record ProjectStats(
+        String projectId,
+        Instant createdAt,
+        int fileCount,
+        long totalBytes,
+        long totalLines,
+        int binaryFiles,
+        Map<String, LanguageStats> languages,
+        SortedMap<String, FileFacts> files) {
+
+    private static final String FORMAT = "argos-stats 1";
+
+    /**
+     * Totals of the files of one language.
+     *
+     * @param files the number of files.
+     * @param bytes the total size of the files in bytes.
+     * @param lines the total number of lines of the files.
+     */
+    public record LanguageStats(int files, long bytes, long lines) {}
+
+    /**
+     * Builds the index of a project from the facts of its files.
+     *
+     * @param projectId the project the index describes.
+     * @param createdAt the instant the index is stored.
+     * @param files the facts of each file, by path relative to the project root.
+     * @return the index.
+     */
+    public static ProjectStats build(
+            String projectId, Instant createdAt, Map<String, FileFacts> files) {
+        long totalBytes = 0;
+        long totalLines = 0;
+        int binaryFiles = 0;
+        Map<String, LanguageStats> languages = new HashMap<>();
+        for (FileFacts facts : files.values()) {
+            totalBytes += facts.size();
+            totalLines += facts.lines();
+            if (facts.binary()) {
+                binaryFiles++;
+            }
+            languages.merge(
+                    facts.language(),
+                    new LanguageStats(1, facts.size(), facts.lines()),
+                    (a, b) ->
+                            new LanguageStats(
+                                    a.files() + b.files(),
+                                    a.bytes() + b.bytes(),
+                                    a.lines() + b.lines()));
+        }
+        Map<String, LanguageStats> sorted = new LinkedHashMap<>();
+        languages.entrySet().stream()
+                .sorted(
+                        Map.Entry.<String, LanguageStats>comparingByValue(
+                                        Comparator.comparingLong(LanguageStats::bytes).reversed())
+                                .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(language -> sorted.put(language.getKey(), language.getValue()));
+        return new ProjectStats(
+                projectId,
+                createdAt,
+                files.size(),
+                totalBytes,
+                totalLines,
+                binaryFiles,
+                Collections.unmodifiableMap(sorted),
+                Collections.unmodifiableSortedMap(new TreeMap<>(files)));
+    }
+
+    /**
+     * Serializes the index as text: a header, a blank line, then one line per file. Only
+     * the facts of the files are stored; the aggregates are rebuilt when it is read.
+     *
+     * @return the serialized index.
+     */
+    public byte[] toBytes() {
+        StringBuilder text = new StringBuilder();
+        text.append(FORMAT).append('\n');
+        text.append("project ").append(projectId).append('\n');
+        text.append("created ").append(createdAt).append('\n');
+        text.append('\n');
+        for (Map.Entry<String, FileFacts> file : files.entrySet()) {
+            FileFacts facts = file.getValue();
+            text.append(facts.size())
+                    .append(' ')
+                    .append(facts.lines())
+                    .append(' ')
+                    .append(facts.encoding())
+                    .append(' ')
+                    .append(facts.language())
+                    .append(' ')
+                    .append(file.getKey())
+                    .append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deserializes a stored index.
+     *
+     * @param bytes the serialized index.
+     * @return the index, or null if it is in an unknown format.
+     */
+    public static ProjectStats fromBytes(byte[] bytes) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            if (!FORMAT.equals(reader.readLine())) {
+                return null;
+            }
+            Map<String, String> header = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                String[] field = line.split(" ", 2);
+                header.put(field[0], field.length > 1 ? field[1] : "");
+            }
+            Map<String, FileFacts> files = new HashMap<>();
+            while ((line = reader.readLine()) != null) {
+                String[] field = line.split(" ", 5);
+                files.put(
+                        field[4],
+                        new FileFacts(
+                                field[3],
+                                Long.parseLong(field[0]),
+                                Long.parseLong(field[1]),
+                                field[2],
+                                FileFacts.BINARY.equals(field[2])));
+            }
+            return build(header.get("project"), Instant.parse(header.get("created")), files);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.argos.file.manager.model;
+
+import java.util.Locale;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.utils.EnvSettings;
+
+/**
+ * How the per-file results of an upload are returned to the client.
+ */
+public enum ResultMode {
+    /** A JSON object with the status of every file, written once the upload has finished. */
+    FULL,
+    /** A JSON object with file and byte counts and the failed files only. */
+    SUMMARY,
+    /** One NDJSON record per file as soon as it is stored, followed by a summary record. */
+    STREAM;
+
+    /**
+     * Parses the result mode requested by a client, falling back to ARGOS_UPLOAD_RESULTS.
+     *
+     * @param value the requested mode, case-insensitive, or null to use the default.
+     * @return the result mode.
+     * @throws BadRequestError if the mode is unknown.
+     */
+    public static ResultMode fromParameter(String value) {
+        String mode = value != null ? value : EnvSettings.getString("ARGOS_UPLOAD_RESULTS", "full");
+        try {
+            return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestError("Invalid result mode: " + mode);
+        }
+    }
+}
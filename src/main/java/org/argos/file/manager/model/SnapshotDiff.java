@@ -0,0 +1,110 @@
+package org.argos.file.manager.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import org.argos.file.manager.model.SnapshotManifest.Node;
+
+/**
+ * The files that differ between two project snapshots.
+ *
+ * @param baseProjectId the project compared against.
+ * @param projectId the project compared.
+ * @param baseRootHash the root hash of the base snapshot.
+ * @param rootHash the root hash of the compared snapshot.
+ * @param added the paths only present in the compared snapshot.
+ * @param removed the paths only present in the base snapshot.
+ * @param modified the paths present in both snapshots with different contents.
+ */
+public record SnapshotDiff(
+        String baseProjectId,
+        String projectId,
+        String baseRootHash,
+        String rootHash,
+        List<String> added,
+        List<String> removed,
+        List<String> modified) {
+
+    /**
+     * Compares two snapshots, descending only into directories whose hashes differ.
+     *
+     * @param base the snapshot compared against.
+     * @param target the snapshot compared.
+     * @return the differing paths, each list in path order.
+     */
+    public static SnapshotDiff compare(SnapshotManifest base, SnapshotManifest target) {
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<String> modified = new ArrayList<>();
+        compare("", base.root(), target.root(), added, removed, modified);
+        return new SnapshotDiff(
+                base.projectId(),
+                target.projectId(),
+                base.root().hash(),
+                target.root().hash(),
+                added,
+                removed,
+                modified);
+    }
+
+    /**
+     * Compares two directories with the same path.
+     *
+     * @param path the path of the directories, empty or ending with a slash.
+     * @param base the directory of the base snapshot.
+     * @param target the directory of the compared snapshot.
+     * @param added receives the paths only present in the compared snapshot.
+     * @param removed receives the paths only present in the base snapshot.
+     * @param modified receives the paths whose contents differ.
+     */
+    private static void compare(
+            String path,
+            Node base,
+            Node target,
+            List<String> added,
+            List<String> removed,
+            List<String> modified) {
+        if (base.hash().equals(target.hash())) {
+            return;
+        }
+        TreeSet<String> names = new TreeSet<>(base.children().keySet());
+        names.addAll(target.children().keySet());
+        for (String name : names) {
+            Node before = base.children().get(name);
+            Node after = target.children().get(name);
+            String childPath = path + name;
+            if (before == null) {
+                collect(childPath, after, added);
+            } else if (after == null) {
+                collect(childPath, before, removed);
+            } else if (before.isDirectory() && after.isDirectory()) {
+                compare(childPath + "/", before, after, added, removed, modified);
+            } else if (before.isDirectory() || after.isDirectory()) {
+                collect(childPath, before, removed);
+                collect(childPath, after, added);
+            } else if (!before.hash().equals(after.hash())) {
+                modified.add(childPath);
+            }
+        }
+    }
+
+    /**
+     * Adds the path of a file, or of every file below a directory.
+     *
+     * @param path the path of the node.
+     * @param node a file or directory.
+     * @param paths receives the file paths.
+     */
+    private static void collect(String path, Node node, List<String> paths) {
+        if (!node.isDirectory()) {
+            paths.add(path);
+            return;
+        }
+        SortedMap<String, Node> children = node.children();
+        for (Map.Entry<String, Node> child : children.entrySet()) {
+            collect(path + "/" + child.getKey(), child.getValue(), paths);
+        }
+    }
+}
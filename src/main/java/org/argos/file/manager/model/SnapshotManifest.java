@@ -0,0 +1,267 @@
+package org.argos.file.manager.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Manifest of a project snapshot, structured as a Merkle tree.
+ * A file is hashed by its stored ETag and size, and a directory by the names and hashes of
+ * its children, so two snapshots with equal hashes for a directory have identical contents
+ * below it and a diff can skip it.
+ *
+ * @param projectId the project the snapshot describes.
+ * @param parentProjectId the project this snapshot was derived from, or null.
+ * @param createdAt the instant the manifest was built.
+ * @param root the root directory of the project.
+ */
+public record SnapshotManifest(
+        String projectId, String parentProjectId, Instant createdAt, Node root) {
+
+    private static final String FORMAT = "argos-snapshot 1";
+
+    /**
+     * A file or directory of a snapshot.
+     *
+     * @param hash the hash of the file, or of the whole directory.
+     * @param size the size of the file, or the total size of the directory.
+     * @param children the entries of a directory by name, or null for a file.
+     */
+    public record Node(String hash, long size, SortedMap<String, Node> children) {
+
+        /**
+         * Returns whether this node is a directory.
+         *
+         * @return true for a directory.
+         */
+        public boolean isDirectory() {
+            return children != null;
+        }
+    }
+
+    /**
+     * Builds the manifest of a project from the files it contains.
+     *
+     * @param projectId the project the snapshot describes.
+     * @param parentProjectId the project this snapshot was derived from, or null.
+     * @param createdAt the instant the manifest is built.
+     * @param files the ETag and size of each file, by path relative to the project root.
+     * @return the manifest.
+     */
+    public static SnapshotManifest build(
+            String projectId,
+            String parentProjectId,
+            Instant createdAt,
+            Map<String, Node> files) {
+        Map<String, Object> tree = new TreeMap<>();
+        for (Map.Entry<String, Node> file : files.entrySet()) {
+            insert(tree, file.getKey().split("/"), 0, file.getValue());
+        }
+        return new SnapshotManifest(projectId, parentProjectId, createdAt, directory(tree));
+    }
+
+    /**
+     * Creates the node of a stored file.
+     *
+     * @param eTag the ETag of the stored object.
+     * @param size the size of the file in bytes.
+     * @return the file node.
+     */
+    public static Node file(String eTag, long size) {
+        String hash = eTag != null ? eTag.replace("\"", "") : "";
+        return new Node(hash + ":" + size, size, null);
+    }
+
+    /**
+     * Returns the number of files of the snapshot.
+     *
+     * @return the file count.
+     */
+    public int fileCount() {
+        return countFiles(root);
+    }
+
+    /**
+     * Returns the files of the snapshot by path relative to the project root.
+     *
+     * @return the file nodes, sorted by path.
+     */
+    public SortedMap<String, Node> files() {
+        SortedMap<String, Node> files = new TreeMap<>();
+        collectFiles(root, "", files);
+        return files;
+    }
+
+    /**
+     * Serializes the manifest as text: a header, a blank line, then one line per file.
+     *
+     * @return the serialized manifest.
+     */
+    public byte[] toBytes() {
+        StringBuilder text = new StringBuilder();
+        text.append(FORMAT).append('\n');
+        text.append("project ").append(projectId).append('\n');
+        if (parentProjectId != null) {
+            text.append("parent ").append(parentProjectId).append('\n');
+        }
+        text.append("created ").append(createdAt).append('\n');
+        text.append("root ").append(root.hash()).append('\n');
+        text.append('\n');
+        for (Map.Entry<String, Node> file : files().entrySet()) {
+            Node node = file.getValue();
+            text.append(node.hash())
+                    .append(' ')
+                    .append(node.size())
+                    .append(' ')
+                    .append(file.getKey())
+                    .append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deserializes a stored manifest, rebuilding its directory hashes.
+     *
+     * @param bytes the serialized manifest.
+     * @return the manifest, or null if it is in an unknown format or its root hash does not
+     *         match its files.
+     */
+    public static SnapshotManifest fromBytes(byte[] bytes) {
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+            if (!FORMAT.equals(reader.readLine())) {
+                return null;
+            }
+            Map<String, String> header = new HashMap<>();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                String[] field = line.split(" ", 2);
+                header.put(field[0], field.length > 1 ? field[1] : "");
+            }
+            Map<String, Node> files = new HashMap<>();
+            while ((line = reader.readLine()) != null) {
+                String[] field = line.split(" ", 3);
+                files.put(field[2], new Node(field[0], Long.parseLong(field[1]), null));
+            }
+            SnapshotManifest manifest =
+                    build(
+                            header.get("project"),
+                            header.get("parent"),
+                            Instant.parse(header.get("created")),
+                            files);
+            return manifest.root().hash().equals(header.get("root")) ? manifest : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds a file to a tree of names, creating its parent directories.
+     *
+     * @param tree the children of a directory by name: file nodes or nested trees.
+     * @param path the segments of the file path.
+     * @param depth the index of the segment naming a child of this directory.
+     * @param file the file node.
+     */
+    @SuppressWarnings("unchecked")
+    private static void insert(Map<String, Object> tree, String[] path, int depth, Node file) {
+        if (depth == path.length - 1) {
+            tree.put(path[depth], file);
+            return;
+        }
+        Object child = tree.computeIfAbsent(path[depth], name -> new TreeMap<String, Object>());
+        if (child instanceof Map) {
+            insert((Map<String, Object>) child, path, depth + 1, file);
+        }
+    }
+
+    /**
+     * Turns a tree of names into directory nodes, hashing each directory from its children.
+     *
+     * @param tree the children of the directory by name: file nodes or nested trees.
+     * @return the directory node.
+     */
+    @SuppressWarnings("unchecked")
+    private static Node directory(Map<String, Object> tree) {
+        MessageDigest digest = sha256();
+        SortedMap<String, Node> children = new TreeMap<>();
+        long size = 0;
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            Node child =
+                    entry.getValue() instanceof Node file
+                            ? file
+                            : directory((Map<String, Object>) entry.getValue());
+            children.put(entry.getKey(), child);
+            size += child.size();
+            String line =
+                    (child.isDirectory() ? "d " : "f ")
+                            + entry.getKey()
+                            + ' '
+                            + child.hash()
+                            + '\n';
+            digest.update(line.getBytes(StandardCharsets.UTF_8));
+        }
+        return new Node(
+                HexFormat.of().formatHex(digest.digest()),
+                size,
+                Collections.unmodifiableSortedMap(children));
+    }
+
+    /**
+     * Counts the files below a node.
+     *
+     * @param node a file or directory.
+     * @return the number of files.
+     */
+    private static int countFiles(Node node) {
+        if (!node.isDirectory()) {
+            return 1;
+        }
+        int count = 0;
+        for (Node child : node.children().values()) {
+            count += countFiles(child);
+        }
+        return count;
+    }
+
+    /**
+     * Collects the files below a directory by path.
+     *
+     * @param node the directory.
+     * @param path the path of the directory, empty or ending with a slash.
+     * @param files the map receiving the files.
+     */
+    private static void collectFiles(Node node, String path, SortedMap<String, Node> files) {
+        for (Map.Entry<String, Node> child : node.children().entrySet()) {
+            String childPath = path + child.getKey();
+            if (child.getValue().isDirectory()) {
+                collectFiles(child.getValue(), childPath + "/", files);
+            } else {
+                files.put(childPath, child.getValue());
+            }
+        }
+    }
+
+    /**
+     * Creates the digest used for directory hashes.
+     *
+     * @return a SHA-256 digest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.argos.file.manager.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Presigned URLs through which a client uploads an archive directly to the staging area.
+ * A single-part upload uses {@code uploadUrl}; a multipart upload uses one URL per part
+ * and must be completed with the part ETags when the archive is processed.
+ *
+ * @param projectId the ID of the project the archive will be processed into.
+ * @param uploadUrl the presigned PUT URL of a single-part upload, or null.
+ * @param uploadId the ID of the multipart upload, or null.
+ * @param partUrls the presigned PUT URLs of the parts, in part-number order.
+ * @param expiresAt the instant after which the URLs are no longer valid.
+ */
+public record StagedUpload(
+        String projectId,
+        String uploadUrl,
+        String uploadId,
+        List<String> partUrls,
+        Instant expiresAt) {}
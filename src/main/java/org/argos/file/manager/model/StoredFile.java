@@ -0,0 +1,9 @@
+package org.argos.file.manager.model;
+
+/**
+ * A file stored for a project, as returned by a storage listing.
+ *
+ * @param key the full object key of the file.
+ * @param size the size of the file in bytes.
+ */
+public record StoredFile(String key, long size) {}
@@ -0,0 +1,100 @@
+package org.argos.file.manager.model;
+
+import java.util.Map;
+
+/**
+ * Receives the result of each file of an upload as soon as its PUT completes.
+ * Uploads run on several workers, so implementations must be thread-safe.
+ */
+public interface UploadListener {
+
+    /**
+     * Called once a file has been stored.
+     *
+     * @param key the key of the file, as reported to clients.
+     * @param bytes the size of the file in bytes.
+     */
+    void uploaded(String key, long bytes);
+
+    /**
+     * Called with the facts of a file computed while it was stored, just before
+     * {@link #uploaded}. Files whose bytes the S3 client did not read through the service
+     * are not described.
+     *
+     * @param key the key of the file, as reported to clients.
+     * @param facts the facts of the file.
+     */
+    default void described(String key, FileFacts facts) {
+    }
+
+    /**
+     * Called when a file could not be stored, once its retries are exhausted. The remaining
+     * files are still uploaded; the upload fails once they are done.
+     *
+     * @param key the key of the file, as reported to clients.
+     * @param error the error message.
+     */
+    void failed(String key, String error);
+
+    /**
+     * Called instead of uploading a file that a resumed upload had already stored.
+     *
+     * @param key the key of the file, as reported to clients.
+     * @param bytes the size of the file in bytes.
+     */
+    default void skipped(String key, long bytes) {
+    }
+
+    /**
+     * Called instead of uploading a file or directory that the ingest filter leaves out.
+     * An ignored directory is reported once, with a key ending in a slash.
+     *
+     * @param key the key of the file or directory, as reported to clients.
+     * @param reason why it is left out.
+     */
+    default void filtered(String key, FilterReason reason) {
+    }
+
+    /**
+     * Decides whether a file still has to be uploaded.
+     *
+     * @param key the key of the file, as reported to clients.
+     * @param bytes the size of the file in bytes.
+     * @return false if the file is already stored and is reported as skipped instead.
+     */
+    default boolean shouldUpload(String key, long bytes) {
+        return true;
+    }
+
+    /**
+     * Returns a listener recording the status of every stored file in a map.
+     *
+     * @param results a thread-safe map receiving "Uploaded", "Skipped" for files stored by
+     *                an earlier attempt of a resumed upload, or the status of the
+     *                {@link FilterReason} of files left out, for each file key.
+     * @return the listener.
+     */
+    static UploadListener collectingInto(Map<String, String> results) {
+        return new UploadListener() {
+            @Override
+            public void uploaded(String key, long bytes) {
+                results.put(key, "Uploaded");
+            }
+
+            @Override
+            public void failed(String key, String error) {
+                results.put(key, "Failed");
+            }
+
+            @Override
+            public void skipped(String key, long bytes) {
+                results.put(key, "Skipped");
+            }
+
+            @Override
+            public void filtered(String key, FilterReason reason) {
+                results.put(key, reason.status());
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package org.argos.file.manager.model;
+
+import java.time.Duration;
+import org.argos.file.manager.utils.IngestFilter;
+
+/**
+ * Optional settings of an upload.
+ *
+ * @param ttl the time-to-live of the uploaded project, or null to keep it forever.
+ * @param parentProjectId the project the upload is a new version of, or null.
+ * @param resumeProjectId the project of a failed upload to resume, or null for a new project.
+ * @param ingestFilter the filter deciding which files are stored, or null to apply the
+ *                     filter configured for the deployment.
+ */
+public record UploadOptions(
+        Duration ttl, String parentProjectId, String resumeProjectId, IngestFilter ingestFilter) {
+
+    /**
+     * Creates the options of an upload that applies the deployment's ingest filter.
+     *
+     * @param ttl the time-to-live of the uploaded project, or null to keep it forever.
+     * @param parentProjectId the project the upload is a new version of, or null.
+     * @param resumeProjectId the project of a failed upload to resume, or null for a new
+     *                        project.
+     */
+    public UploadOptions(Duration ttl, String parentProjectId, String resumeProjectId) {
+        this(ttl, parentProjectId, resumeProjectId, null);
+    }
+
+    /**
+     * Creates the options of an upload into a new project.
+     *
+     * @param ttl the time-to-live of the uploaded project, or null to keep it forever.
+     * @param parentProjectId the project the upload is a new version of, or null.
+     */
+    public UploadOptions(Duration ttl, String parentProjectId) {
+        this(ttl, parentProjectId, null);
+    }
+
+    /**
+     * Creates the options of an upload that is not linked to a parent project.
+     *
+     * @param ttl the time-to-live of the uploaded project, or null to keep it forever.
+     */
+    public UploadOptions(Duration ttl) {
+        this(ttl, null);
+    }
+
+    /**
+     * Returns the options of an upload without any optional settings.
+     *
+     * @return the default options.
+     */
+    public static UploadOptions defaults() {
+        return new UploadOptions(null, null, null, null);
+    }
+}
@@ -0,0 +1,129 @@
+package org.argos.file.manager.model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.argos.file.manager.exceptions.ApiException;
+import org.argos.file.manager.exceptions.IncompleteUploadError;
+
+/**
+ * Counts the files and bytes of an upload instead of keeping a status per file.
+ * Only failed files are listed, up to {@value #MAX_FAILURES} of them. Files and directories
+ * left out by the ingest filter are counted by reason.
+ */
+public class UploadSummary implements UploadListener {
+
+    private static final int MAX_FAILURES = 100;
+
+    private final AtomicInteger uploadedFiles = new AtomicInteger();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicInteger failedFiles = new AtomicInteger();
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+    private final Map<FilterReason, AtomicInteger> filtered = new EnumMap<>(FilterReason.class);
+    private final List<Map<String, String>> failures = new ArrayList<>();
+
+    /**
+     * Counts a stored file.
+     *
+     * @param key the key of the file.
+     * @param bytes the size of the file in bytes.
+     */
+    @Override
+    public void uploaded(String key, long bytes) {
+        uploadedFiles.incrementAndGet();
+        uploadedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Counts a failed file and lists it if the failure list is not full.
+     *
+     * @param key the key of the file.
+     * @param error the error message.
+     */
+    @Override
+    public void failed(String key, String error) {
+        if (failedFiles.getAndIncrement() < MAX_FAILURES) {
+            synchronized (failures) {
+                failures.add(Map.of("key", key, "error", error));
+            }
+        }
+    }
+
+    /**
+     * Counts a file already stored by an earlier attempt of a resumed upload.
+     *
+     * @param key the key of the file.
+     * @param bytes the size of the file in bytes.
+     */
+    @Override
+    public void skipped(String key, long bytes) {
+        skippedFiles.incrementAndGet();
+    }
+
+    /**
+     * Counts a file or directory left out by the ingest filter.
+     *
+     * @param key the key of the file or directory.
+     * @param reason why it is left out.
+     */
+    @Override
+    public void filtered(String key, FilterReason reason) {
+        synchronized (filtered) {
+            filtered.computeIfAbsent(reason, r -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns whether no file has been stored or has failed yet.
+     *
+     * @return true if the upload has not reported any file.
+     */
+    public boolean isEmpty() {
+        return uploadedFiles.get() == 0 && failedFiles.get() == 0;
+    }
+
+    /**
+     * Describes the upload as response fields.
+     *
+     * @param status "completed", or "failed" if the upload ended with an error.
+     * @return the counts and the listed failures.
+     */
+    public Map<String, Object> toMap(String status) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", status);
+        fields.put("uploadedFiles", uploadedFiles.get());
+        fields.put("uploadedBytes", uploadedBytes.get());
+        fields.put("failedFiles", failedFiles.get());
+        fields.put("skippedFiles", skippedFiles.get());
+        Map<String, Integer> filteredCounts = new LinkedHashMap<>();
+        synchronized (filtered) {
+            filtered.forEach((reason, count) -> filteredCounts.put(reason.status(), count.get()));
+        }
+        fields.put("filtered", filteredCounts);
+        synchronized (failures) {
+            fields.put("failures", List.copyOf(failures));
+        }
+        return fields;
+    }
+
+    /**
+     * Describes an upload that ended with an error, with the project ID to resume it under
+     * if some of its files were stored.
+     *
+     * @param error the error that ended the upload.
+     * @return the counts, the listed failures and the error.
+     */
+    public Map<String, Object> toMap(ApiException error) {
+        Map<String, Object> fields = toMap("failed");
+        if (error instanceof IncompleteUploadError incomplete) {
+            fields.put("projectId", incomplete.getProjectId());
+        }
+        fields.put("error", error.getMessage());
+        fields.put("statusCode", error.getStatusCode());
+        return fields;
+    }
+}
@@ -0,0 +1,613 @@
+package org.argos.file.manager.repository;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.PayloadTooLargeError;
+import org.argos.file.manager.model.FileFacts;
+import org.argos.file.manager.model.FilterReason;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.utils.ArchiveFormat;
+import org.argos.file.manager.utils.ArchiveReader;
+import org.argos.file.manager.utils.BufferPool;
+import org.argos.file.manager.utils.ContentProfiler;
+import org.argos.file.manager.utils.CountingInputStream;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.IngestSession;
+import org.argos.file.manager.utils.KeyGenerator;
+import org.argos.file.manager.utils.PooledContent;
+import org.argos.file.manager.utils.UploadChecksum;
+import org.argos.file.manager.utils.ZipBudget;
+import org.argos.file.manager.utils.ZipBudgetTracker;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Streams an archive into project keys without unpacking it to a directory first.
+ * ZIP archives and tar archives, plain or compressed with gzip or zstd, are recognised
+ * by their leading bytes. Entries are read one after another from the archive stream and
+ * uploaded concurrently.
+ * Entries are held in buffers of the {@link BufferPool} while they upload, and are sent
+ * from there on every attempt without a heap copy. An entry larger than the part size is
+ * sent as a {@link MultipartEntryUpload} while it is read, one part at a time, so memory
+ * stays bounded by the number of uploads in flight and nothing is written to local disk,
+ * whatever the size of the entries. The {@link ZipBudget}
+ * is enforced while entries are inflated, and failed uploads are retried with backoff.
+ * Entries left out by an {@link IngestFilter}, and entries the listener reports as already
+ * stored by an earlier attempt of the upload, are never staged. The {@link UploadChecksum}
+ * of each entry is computed while it is staged, or taken from the ZIP entry, and sent with
+ * its PUT; its {@link FileFacts} are computed in the same pass and reported to the listener
+ * once it is stored.
+ */
+public class ArchiveIngestor {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+    private static final int READ_BUFFER_SIZE = 64 << 10;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final long partBytes;
+    private final RetryPolicy retryPolicy;
+    private final UploadChecksum checksum;
+
+    /**
+     * Creates an archive ingestor.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket receiving the project files.
+     * @param executor the executor running the uploads.
+     * @param concurrency the maximum number of uploads in flight.
+     * @param partBytes the size above which entries are uploaded in parts, and the size of
+     *     those parts; S3 requires at least 5 MiB.
+     * @param retryPolicy the policy for retrying failed uploads.
+     */
+    public ArchiveIngestor(
+            S3Client s3Client,
+            String bucketName,
+            ExecutorService executor,
+            int concurrency,
+            long partBytes,
+            RetryPolicy retryPolicy) {
+        this(
+                s3Client,
+                bucketName,
+                executor,
+                concurrency,
+                partBytes,
+                retryPolicy,
+                UploadChecksum.fromEnvironment());
+    }
+
+    /**
+     * Creates an archive ingestor sending the given checksum with every file.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket receiving the project files.
+     * @param executor the executor running the uploads.
+     * @param concurrency the maximum number of uploads in flight.
+     * @param partBytes the size above which entries are uploaded in parts, and the size of
+     *     those parts; S3 requires at least 5 MiB.
+     * @param retryPolicy the policy for retrying failed uploads.
+     * @param checksum the checksum sent with every file.
+     */
+    public ArchiveIngestor(
+            S3Client s3Client,
+            String bucketName,
+            ExecutorService executor,
+            int concurrency,
+            long partBytes,
+            RetryPolicy retryPolicy,
+            UploadChecksum checksum) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.partBytes = partBytes;
+        this.retryPolicy = retryPolicy;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Uploads every file of a ZIP stream under a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param archive the archive stream; it is not closed.
+     * @param budget the resource limits to enforce.
+     * @return a map containing the uploaded file keys and their statuses.
+     * @throws BadRequestError if the archive is invalid or an upload fails.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
+     */
+    public Map<String, String> ingestZip(String projectId, InputStream archive, ZipBudget budget) {
+        Map<String, String> result = new ConcurrentHashMap<>();
+        ingest(
+                projectId,
+                archive,
+                budget,
+                IngestFilter.none(),
+                UploadListener.collectingInto(result));
+        return result;
+    }
+
+    /**
+     * Uploads the files of a ZIP or tar stream that an ingest filter keeps under a project,
+     * reporting each file to a listener as soon as it is stored. The first file that cannot
+     * be stored ends the ingest.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param archive the archive stream; it is not closed.
+     * @param budget the resource limits to enforce.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     * @return the number of uploaded files.
+     * @throws BadRequestError if the archive is invalid or an upload fails.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
+     */
+    public int ingest(
+            String projectId,
+            InputStream archive,
+            ZipBudget budget,
+            IngestFilter filter,
+            UploadListener listener) {
+        UploadFailures failures = new UploadFailures(1);
+        int uploaded = ingest(projectId, archive, budget, filter, listener, failures);
+        if (!failures.isEmpty()) {
+            throw failures.toError();
+        }
+        return uploaded;
+    }
+
+    /**
+     * Uploads the files of a ZIP or tar stream that an ingest filter keeps under a project,
+     * reporting each file to a listener as soon as it is stored. The archive is read in a
+     * single pass, so a {@code .gitignore} entry only applies to the entries that follow it.
+     * Entries left out are inflated only to account them against the budget, and so are
+     * entries the listener does not want uploaded, such as the files a resumed upload has
+     * already stored. A file that still fails after its retries is reported to the listener
+     * and the failure collector, and the archive goes on until the collector's limit is
+     * reached. Entry names are validated like extracted paths, and symbolic or hard links
+     * are rejected rather than followed.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param archive the archive stream; it is not closed.
+     * @param budget the resource limits to enforce.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     * @param failures the collector of the files that could not be stored.
+     * @return the number of uploaded files.
+     * @throws BadRequestError if the archive is invalid.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
+     */
+    @SuppressWarnings("java:S5042")
+    int ingest(
+            String projectId,
+            InputStream archive,
+            ZipBudget budget,
+            IngestFilter filter,
+            UploadListener listener,
+            UploadFailures failures) {
+        IngestSession session =
+                new IngestSession(
+                        filter,
+                        (path, reason) ->
+                                listener.filtered(
+                                        KeyGenerator.generateKey(projectId, path), reason));
+        AtomicInteger uploaded = new AtomicInteger();
+        int skipped = 0;
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Future<?>> uploads = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(concurrency);
+        String label = "ZIP";
+        try {
+            CountingInputStream compressed = new CountingInputStream(archive);
+            ArchiveReader reader =
+                    ArchiveReader.open(new BufferedInputStream(compressed, READ_BUFFER_SIZE));
+            label = reader.format().label();
+            ZipBudgetTracker tracker = new ZipBudgetTracker(budget, compressed, label);
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            ArchiveReader.Entry entry;
+            while (failure.get() == null
+                    && !failures.limitReached()
+                    && (entry = reader.nextEntry()) != null) {
+                tracker.onEntry(entry.name(), entry.size());
+                if (entry.kind() == ArchiveReader.Kind.LINK) {
+                    throw new BadRequestError(
+                            label + " entry contains a symbolic link: " + entry.name());
+                }
+                if (entry.kind() != ArchiveReader.Kind.FILE) {
+                    continue;
+                }
+                String filePath = entryPath(entry.name(), label);
+                if (session.skipFile(filePath, entry.size())) {
+                    drain(reader.data(), buffer, entry.name(), 0, tracker);
+                    continue;
+                }
+                String clientKey = KeyGenerator.generateKey(projectId, filePath);
+                boolean checked = entry.size() >= 0 && !session.isGitignore(filePath);
+                if (checked && !listener.shouldUpload(clientKey, entry.size())) {
+                    drain(reader.data(), buffer, entry.name(), 0, tracker);
+                    listener.skipped(clientKey, entry.size());
+                    skipped++;
+                    continue;
+                }
+                String key = KeyGenerator.objectKey(projectId, filePath);
+                StagedEntry staged =
+                        stage(reader, buffer, entry.name(), filePath, key, tracker, session);
+                if (staged == null) {
+                    continue;
+                }
+                if (session.isGitignore(filePath)
+                        && staged.multipart() == null
+                        && staged.size() <= IngestFilter.MAX_GITIGNORE_BYTES) {
+                    session.addGitignore(
+                            filePath,
+                            new String(
+                                    staged.memory().newInputStream().readAllBytes(),
+                                    StandardCharsets.UTF_8));
+                }
+                if (!checked && !listener.shouldUpload(clientKey, staged.size())) {
+                    staged.discard();
+                    listener.skipped(clientKey, staged.size());
+                    skipped++;
+                    continue;
+                }
+                try {
+                    inFlight.acquire();
+                } catch (InterruptedException e) {
+                    staged.discard();
+                    throw e;
+                }
+                uploads.add(
+                        submitUpload(
+                                key,
+                                clientKey,
+                                staged,
+                                listener,
+                                uploaded,
+                                failures,
+                                failure,
+                                inFlight));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new BadRequestError("Archive processing interrupted."));
+        } catch (IOException e) {
+            failure.compareAndSet(
+                    null,
+                    new BadRequestError(
+                            "Error extracting " + label + " file: " + e.getMessage()));
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            awaitUploads(uploads);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (uploaded.get() == 0 && skipped == 0 && failures.isEmpty()) {
+            throw new BadRequestError("No files found in the directory to upload.");
+        }
+        return uploaded.get();
+    }
+
+    /**
+     * Validates an entry name and returns it as a relative file path. The {@code ./} prefix
+     * written by many tar tools is dropped.
+     *
+     * @param name the entry name.
+     * @param label the name of the archive format used in error messages.
+     * @return the relative path of the file.
+     * @throws BadRequestError if the name is absolute, escapes the project root, or has an
+     *     empty or {@code .} segment.
+     */
+    private String entryPath(String name, String label) {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        if (path.isEmpty() || path.startsWith("/") || path.matches("^[A-Za-z]:.*")) {
+            throw new BadRequestError("Invalid " + label + " entry: " + name);
+        }
+        for (String segment : path.split("/", -1)) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                throw new BadRequestError("Invalid " + label + " entry: " + name);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Reads the current entry into memory, accounting every chunk against the budget. Once
+     * the entry outgrows the part size, each full part is uploaded as it is read, and the
+     * last part is kept for the upload to complete. If the ingest filter rejects the entry
+     * by its content or its actual size, the rest of the entry is only accounted.
+     * The checksum of an entry held as a whole is computed as it is read, or taken from the
+     * ZIP entry once its data has been read to the end and its CRC32 verified, and the entry
+     * is profiled as it is read.
+     *
+     * @param reader the archive reader positioned at the entry's data.
+     * @param buffer the buffer each chunk is read into before it is copied to pooled
+     *     buffers; one buffer serves every entry of the archive.
+     * @param name the name of the entry being read.
+     * @param filePath the relative path of the entry.
+     * @param key the object key of the entry.
+     * @param tracker the budget tracker of the archive.
+     * @param session the ingest filter of the archive.
+     * @return the staged entry, or null if the entry was left out.
+     * @throws IOException if the entry cannot be read.
+     */
+    private StagedEntry stage(
+            ArchiveReader reader,
+            byte[] buffer,
+            String name,
+            String filePath,
+            String key,
+            ZipBudgetTracker tracker,
+            IngestSession session)
+            throws IOException {
+        InputStream data = reader.data();
+        boolean reuseCrc = checksum.reusesZipCrc() && reader.format() == ArchiveFormat.ZIP;
+        UploadChecksum.Hasher hasher = reuseCrc ? null : checksum.newHasher();
+        ContentProfiler profiler = new ContentProfiler();
+        PooledContent memory = new PooledContent(BufferPool.getInstance());
+        MultipartEntryUpload multipart = null;
+        FilterReason reason;
+        long entryBytes = 0;
+        try {
+            int read = data.readNBytes(buffer, 0, buffer.length);
+            reason = session.checkContent(buffer, read);
+            while (reason == null && read > 0) {
+                entryBytes += read;
+                tracker.onBytes(name, entryBytes, read);
+                if (session.filter().exceedsSize(entryBytes)) {
+                    reason = FilterReason.TOO_LARGE;
+                    break;
+                }
+                memory.write(buffer, 0, read);
+                if (memory.size() >= partBytes) {
+                    if (multipart == null) {
+                        multipart =
+                                new MultipartEntryUpload(
+                                        s3Client, bucketName, key, checksum, retryPolicy);
+                    }
+                    multipart.addPart(memory);
+                    memory = new PooledContent(BufferPool.getInstance());
+                }
+                if (hasher != null) {
+                    hasher.update(buffer, 0, read);
+                }
+                profiler.update(buffer, 0, read);
+                read = data.read(buffer);
+            }
+        } catch (IOException | RuntimeException e) {
+            memory.close();
+            if (multipart != null) {
+                multipart.abort();
+            }
+            throw e;
+        }
+        String entryChecksum = null;
+        if (reason == null && reuseCrc) {
+            entryChecksum = UploadChecksum.encodeCrc(reader.crc32());
+        } else if (reason == null && hasher != null) {
+            entryChecksum = hasher.value();
+        }
+        FileFacts facts = reason == null ? profiler.facts(filePath) : null;
+        StagedEntry staged = new StagedEntry(memory, multipart, entryBytes, entryChecksum, facts);
+        if (reason == null) {
+            return staged;
+        }
+        staged.discard();
+        drain(data, buffer, name, entryBytes, tracker);
+        session.skip(filePath, reason);
+        return null;
+    }
+
+    /**
+     * Inflates the rest of the current entry without keeping it, so that a left-out entry
+     * still counts against the budget.
+     *
+     * @param data the stream of the entry's data.
+     * @param buffer the buffer the entry is read into.
+     * @param name the name of the entry being skipped.
+     * @param entryBytes the number of bytes of the entry already accounted.
+     * @param tracker the budget tracker of the archive.
+     * @throws IOException if the entry cannot be read.
+     */
+    private void drain(
+            InputStream data,
+            byte[] buffer,
+            String name,
+            long entryBytes,
+            ZipBudgetTracker tracker)
+            throws IOException {
+        int read;
+        while ((read = data.read(buffer)) != -1) {
+            entryBytes += read;
+            tracker.onBytes(name, entryBytes, read);
+        }
+    }
+
+    /**
+     * Submits the upload of a staged entry, releasing its in-flight permit when it completes.
+     * A file that still fails after its retries is reported to the listener and the failure
+     * collector; it is not attempted once the collector's limit has been reached.
+     *
+     * @param key the object key of the file.
+     * @param clientKey the key of the file reported in the result.
+     * @param staged the staged entry content.
+     * @param listener the listener receiving the result of the upload.
+     * @param uploaded the count of uploaded files.
+     * @param failures the collector of the files that could not be stored.
+     * @param failure holder for the first unexpected failure raised by any upload.
+     * @param inFlight the permits bounding the uploads in flight.
+     * @return the future of the upload.
+     */
+    private Future<?> submitUpload(
+            String key,
+            String clientKey,
+            StagedEntry staged,
+            UploadListener listener,
+            AtomicInteger uploaded,
+            UploadFailures failures,
+            AtomicReference<RuntimeException> failure,
+            Semaphore inFlight) {
+        try {
+            return executor.submit(
+                    () -> {
+                        try {
+                            if (failure.get() == null && !failures.limitReached()) {
+                                upload(key, clientKey, staged, listener, uploaded, failures);
+                            }
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            staged.discard();
+                            inFlight.release();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            staged.discard();
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Stores a staged entry and reports its result to the listener.
+     *
+     * @param key the object key of the file.
+     * @param clientKey the key of the file reported in the result.
+     * @param staged the staged entry content.
+     * @param listener the listener receiving the result of the upload.
+     * @param uploaded the count of uploaded files.
+     * @param failures the collector of the files that could not be stored.
+     */
+    private void upload(
+            String key,
+            String clientKey,
+            StagedEntry staged,
+            UploadListener listener,
+            AtomicInteger uploaded,
+            UploadFailures failures) {
+        try {
+            if (staged.multipart() != null) {
+                staged.multipart().complete(staged.memory());
+            } else {
+                putWithRetries(key, staged);
+            }
+        } catch (RuntimeException e) {
+            String error = uploadError(e);
+            listener.failed(clientKey, error);
+            failures.add(clientKey, error);
+            return;
+        }
+        uploaded.incrementAndGet();
+        listener.described(clientKey, staged.facts());
+        listener.uploaded(clientKey, staged.size());
+    }
+
+    /**
+     * Stores a staged entry, retrying retryable failures with backoff.
+     *
+     * @param key the object key of the file.
+     * @param staged the staged entry content.
+     */
+    private void putWithRetries(String key, StagedEntry staged) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                s3Client.putObject(
+                        checksum.applyTo(
+                                        PutObjectRequest.builder().bucket(bucketName).key(key),
+                                        staged.checksum())
+                                .build(),
+                        staged.requestBody());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= retryPolicy.maxAttempts()
+                        || !retryPolicy.isRetryable(e)
+                        || !retryPolicy.sleepBeforeRetry(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the message reported for a failed PUT.
+     *
+     * @param e the failure.
+     * @return the S3 error message, or the message of a client-side failure.
+     */
+    private String uploadError(RuntimeException e) {
+        if (e instanceof S3Exception s3Exception && s3Exception.awsErrorDetails() != null) {
+            return s3Exception.awsErrorDetails().errorMessage();
+        }
+        return e.getMessage();
+    }
+
+    /**
+     * Waits for all submitted uploads to finish.
+     *
+     * @param uploads the futures of the submitted uploads.
+     */
+    private void awaitUploads(List<Future<?>> uploads) {
+        for (Future<?> upload : uploads) {
+            try {
+                upload.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadRequestError("Archive processing interrupted.");
+            } catch (ExecutionException e) {
+                throw new BadRequestError("Failed to upload files to S3: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Content of an entry waiting to be uploaded, held in pooled buffers. For an entry
+     * uploaded in parts, only its last part is held.
+     *
+     * @param memory the entry content, or its last part.
+     * @param multipart the upload of the earlier parts, or null if the entry is held whole.
+     * @param size the size of the entry in bytes.
+     * @param checksum the Base64-encoded checksum of the content, or null if none is sent.
+     * @param facts the facts of the content.
+     */
+    private record StagedEntry(
+            PooledContent memory,
+            MultipartEntryUpload multipart,
+            long size,
+            String checksum,
+            FileFacts facts) {
+
+        RequestBody requestBody() {
+            return RequestBody.fromContentProvider(
+                    memory::newInputStream, memory.size(), ContentTypes.OCTET_STREAM);
+        }
+
+        void discard() {
+            memory.close();
+            if (multipart != null) {
+                multipart.abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.argos.file.manager.repository;
+
+import java.util.List;
+import org.argos.file.manager.cache.FileContentCache;
+import org.argos.file.manager.cache.PeerCache;
+import org.argos.file.manager.cache.ProjectPrefetcher;
+import org.argos.file.manager.exceptions.ForbiddenError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.utils.EnvSettings;
+import org.argos.file.manager.utils.ExecutorFactory;
+import org.argos.file.manager.utils.InputValidator;
+import org.argos.file.manager.utils.KeyGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository decorator that serves file contents from an in-memory cache.
+ * When prefetching is enabled, listing a project warms the cache in the background
+ * with the files that are most likely to be read next. When peers are configured, each
+ * file is cached only by the replica owning it, and other replicas read it from that
+ * owner before falling back to S3.
+ */
+@Primary
+@Repository
+public class CachingStorageRepository extends ForwardingStorageRepository {
+
+    private final FileContentCache cache;
+    private final ProjectPrefetcher prefetcher;
+    private final PeerCache peerCache;
+
+    /**
+     * Constructs the caching repository on top of the repository routing projects to their
+     * S3 shards.
+     * The cache and the prefetcher are configured from environment variables.
+     *
+     * @param s3Repository the repository that reads from S3.
+     */
+    @Autowired
+    public CachingStorageRepository(ShardedStorageRepository s3Repository) {
+        super(s3Repository);
+        this.cache = new FileContentCache(EnvSettings.getLong("ARGOS_CACHE_MAX_BYTES", 64L << 20));
+        this.prefetcher =
+                EnvSettings.getBoolean("ARGOS_PREFETCH_ENABLED", false)
+                        ? createPrefetcher(s3Repository, cache)
+                        : null;
+        this.peerCache = cache.isEnabled() ? PeerCache.fromEnvironment() : null;
+    }
+
+    /**
+     * Constructs the caching repository with explicit collaborators.
+     *
+     * @param delegate the repository to read from on a cache miss.
+     * @param cache the file content cache.
+     * @param prefetcher the prefetcher to run after listings, or null to disable prefetching.
+     */
+    public CachingStorageRepository(
+            IStorageRepository delegate, FileContentCache cache, ProjectPrefetcher prefetcher) {
+        this(delegate, cache, prefetcher, null);
+    }
+
+    /**
+     * Constructs the caching repository with explicit collaborators and a peer cache.
+     *
+     * @param delegate the repository to read from on a cache miss.
+     * @param cache the file content cache.
+     * @param prefetcher the prefetcher to run after listings, or null to disable prefetching.
+     * @param peerCache the peer cache shared with the other replicas, or null to cache locally.
+     */
+    public CachingStorageRepository(
+            IStorageRepository delegate,
+            FileContentCache cache,
+            ProjectPrefetcher prefetcher,
+            PeerCache peerCache) {
+        super(delegate);
+        this.cache = cache;
+        this.prefetcher = prefetcher;
+        this.peerCache = peerCache;
+    }
+
+    /**
+     * Lists the files of a project and, if enabled, starts prefetching the ones this
+     * replica owns.
+     *
+     * @param projectId the ID of the project.
+     * @return a list of file keys.
+     */
+    @Override
+    public List<String> listFiles(String projectId) {
+        if (prefetcher == null) {
+            return delegate.listFiles(projectId);
+        }
+        List<StoredFile> files = delegate.listStoredFiles(projectId);
+        prefetcher.prefetch(
+                projectId,
+                peerCache == null
+                        ? files
+                        : files.stream().filter(file -> peerCache.ownsKey(file.key())).toList());
+        return files.stream().map(StoredFile::key).toList();
+    }
+
+    /**
+     * Retrieves the content of a file, from the cache when possible. A file owned by another
+     * replica is read from that replica, and from S3 without caching it if the owner does
+     * not answer.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the content of the file as a string.
+     */
+    @Override
+    public String getFileContent(String projectId, String filePath) {
+        if (!cache.isEnabled()) {
+            return delegate.getFileContent(projectId, filePath);
+        }
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateFilePath(filePath);
+
+        String key = KeyGenerator.generateKey(projectId, filePath);
+        if (peerCache != null && !peerCache.ownsKey(key)) {
+            String content = peerCache.fetch(key, projectId, filePath);
+            return content != null ? content : delegate.getFileContent(projectId, filePath);
+        }
+        return getOwnedFileContent(projectId, filePath);
+    }
+
+    /**
+     * Returns the content of a file from the local cache. Files owned by another replica are
+     * never cached locally.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the cached content of the file, or null if it is not cached.
+     */
+    @Override
+    public String getCachedFileContent(String projectId, String filePath) {
+        if (!cache.isEnabled()) {
+            return null;
+        }
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateFilePath(filePath);
+        return cache.get(KeyGenerator.generateKey(projectId, filePath));
+    }
+
+    /**
+     * Reads a range of lines of a file, slicing the cached content when the whole file is
+     * already cached and using a ranged read otherwise.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @param fromLine the 1-based number of the first line.
+     * @param toLine the 1-based number of the last line, inclusive.
+     * @return the lines of the range that exist in the file.
+     */
+    @Override
+    public LineRange readLines(String projectId, String filePath, int fromLine, int toLine) {
+        String content =
+                cache.isEnabled() ? cache.get(KeyGenerator.generateKey(projectId, filePath)) : null;
+        if (content == null) {
+            return delegate.readLines(projectId, filePath, fromLine, toLine);
+        }
+        return LineRange.slice(
+                filePath, content, 1, fromLine, toLine, LineRange.countLines(content));
+    }
+
+    /**
+     * Retrieves the content of a file from the local cache or S3, caching it on a miss.
+     * Peers call this on the owner of a file, so it never forwards to another replica.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the content of the file as a string.
+     */
+    public String getOwnedFileContent(String projectId, String filePath) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateFilePath(filePath);
+
+        String key = KeyGenerator.generateKey(projectId, filePath);
+        String content = cache.get(key);
+        if (content == null) {
+            content = delegate.getFileContent(projectId, filePath);
+            cache.put(key, content);
+        }
+        return content;
+    }
+
+    /**
+     * Checks that a request to a peer endpoint comes from another replica.
+     *
+     * @param secret the secret presented by the caller, or null.
+     * @throws ForbiddenError if peer caching is disabled or the secret does not match.
+     */
+    public void authorizePeer(String secret) {
+        if (peerCache == null || !peerCache.isAuthorized(secret)) {
+            throw new ForbiddenError("Peer cache requests must come from a configured replica.");
+        }
+    }
+
+    /**
+     * Drops the locally cached files of a project.
+     *
+     * @param projectId the ID of the project.
+     */
+    public void invalidateProject(String projectId) {
+        cache.invalidatePrefix(KeyGenerator.projectPrefix(projectId));
+    }
+
+    /**
+     * Deletes a project and drops its cached files.
+     *
+     * @param projectId the ID of the project.
+     * @param progress the progress updated while the deletion runs.
+     * @return the outcome of the deletion.
+     */
+    @Override
+    public DeletionResult deleteProject(String projectId, DeletionProgress progress) {
+        try {
+            return delegate.deleteProject(projectId, progress);
+        } finally {
+            invalidateProject(projectId);
+            if (peerCache != null) {
+                peerCache.invalidateProject(projectId);
+            }
+        }
+    }
+
+    /**
+     * Creates the prefetcher on a dedicated executor.
+     *
+     * @param s3Repository the repository used to load prefetched files.
+     * @param cache the cache to warm.
+     * @return the configured prefetcher.
+     */
+    private static ProjectPrefetcher createPrefetcher(
+            IStorageRepository s3Repository, FileContentCache cache) {
+        int concurrency = EnvSettings.getInt("ARGOS_PREFETCH_CONCURRENCY", 4);
+        return new ProjectPrefetcher(
+                cache,
+                s3Repository::getFileContent,
+                ExecutorFactory.newExecutor("argos-prefetch", concurrency),
+                concurrency,
+                EnvSettings.getLong("ARGOS_PREFETCH_BUDGET_BYTES", 16L << 20),
+                EnvSettings.getLong("ARGOS_PREFETCH_MAX_FILE_BYTES", 512L << 10));
+    }
+}
@@ -0,0 +1,32 @@
+package org.argos.file.manager.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Content types sent with stored files, resolved with the JDK rather than the internal MIME
+ * table of the AWS SDK.
+ */
+final class ContentTypes {
+
+    /** Content type of files whose type is unknown. */
+    static final String OCTET_STREAM = "application/octet-stream";
+
+    private ContentTypes() {}
+
+    /**
+     * Probes the content type of a file, falling back to {@link #OCTET_STREAM}.
+     *
+     * @param file the file to probe.
+     * @return the content type of the file.
+     */
+    static String of(Path file) {
+        try {
+            String type = Files.probeContentType(file);
+            return type != null ? type : OCTET_STREAM;
+        } catch (IOException e) {
+            return OCTET_STREAM;
+        }
+    }
+}
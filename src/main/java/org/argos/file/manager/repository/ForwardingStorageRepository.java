@@ -0,0 +1,183 @@
+package org.argos.file.manager.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.ProjectExpiry;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.PathPattern;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Base class for repositories that decorate another {@link IStorageRepository}.
+ * Every operation is forwarded to the delegate; subclasses override only what they change.
+ */
+public abstract class ForwardingStorageRepository implements IStorageRepository {
+
+    protected final IStorageRepository delegate;
+
+    /**
+     * Creates a repository forwarding to the given delegate.
+     *
+     * @param delegate the repository to forward operations to.
+     */
+    protected ForwardingStorageRepository(IStorageRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Map<String, String> uploadDirectory(String projectId, String localDir) {
+        return delegate.uploadDirectory(projectId, localDir);
+    }
+
+    @Override
+    public void uploadDirectory(
+            String projectId, String localDir, IngestFilter filter, UploadListener listener) {
+        delegate.uploadDirectory(projectId, localDir, filter, listener);
+    }
+
+    @Override
+    public Map<String, String> uploadMultiPartDirectory(String projectId, MultipartFile zipFile) {
+        return delegate.uploadMultiPartDirectory(projectId, zipFile);
+    }
+
+    @Override
+    public void uploadMultiPartDirectory(
+            String projectId, MultipartFile zipFile, IngestFilter filter, UploadListener listener) {
+        delegate.uploadMultiPartDirectory(projectId, zipFile, filter, listener);
+    }
+
+    @Override
+    public UploadListener resumeUpload(String projectId, UploadListener listener) {
+        return delegate.resumeUpload(projectId, listener);
+    }
+
+    @Override
+    public List<String> listFiles(String projectId) {
+        return delegate.listFiles(projectId);
+    }
+
+    @Override
+    public List<StoredFile> listStoredFiles(String projectId) {
+        return delegate.listStoredFiles(projectId);
+    }
+
+    @Override
+    public void listMatchingFiles(
+            String projectId, PathPattern pattern, Consumer<List<String>> matches) {
+        delegate.listMatchingFiles(projectId, pattern, matches);
+    }
+
+    @Override
+    public String getFileContent(String projectId, String filePath) {
+        return delegate.getFileContent(projectId, filePath);
+    }
+
+    @Override
+    public String getCachedFileContent(String projectId, String filePath) {
+        return delegate.getCachedFileContent(projectId, filePath);
+    }
+
+    @Override
+    public LineRange readLines(String projectId, String filePath, int fromLine, int toLine) {
+        return delegate.readLines(projectId, filePath, fromLine, toLine);
+    }
+
+    @Override
+    public PresignedFile presignFile(String projectId, String filePath) {
+        return delegate.presignFile(projectId, filePath);
+    }
+
+    @Override
+    public List<PresignedFile> presignFiles(String projectId, List<String> filePaths) {
+        return delegate.presignFiles(projectId, filePaths);
+    }
+
+    @Override
+    public FileStat statFile(String projectId, String filePath) {
+        return delegate.statFile(projectId, filePath);
+    }
+
+    @Override
+    public List<FileStat> statFiles(String projectId, List<String> filePaths) {
+        return delegate.statFiles(projectId, filePaths);
+    }
+
+    @Override
+    public Map<String, String> forkProject(
+            String sourceProjectId, String targetProjectId, MultipartFile overlayZip) {
+        return delegate.forkProject(sourceProjectId, targetProjectId, overlayZip);
+    }
+
+    @Override
+    public StagedUpload createStagedUpload(String projectId, int parts) {
+        return delegate.createStagedUpload(projectId, parts);
+    }
+
+    @Override
+    public Map<String, String> processStagedUpload(
+            String projectId, String uploadId, List<String> partETags) {
+        return delegate.processStagedUpload(projectId, uploadId, partETags);
+    }
+
+    @Override
+    public void processStagedUpload(
+            String projectId,
+            String uploadId,
+            List<String> partETags,
+            IngestFilter filter,
+            UploadListener listener) {
+        delegate.processStagedUpload(projectId, uploadId, partETags, filter, listener);
+    }
+
+    @Override
+    public SnapshotManifest createSnapshot(String projectId, String parentProjectId) {
+        return delegate.createSnapshot(projectId, parentProjectId);
+    }
+
+    @Override
+    public SnapshotManifest getSnapshot(String projectId) {
+        return delegate.getSnapshot(projectId);
+    }
+
+    @Override
+    public ProjectStats getStats(String projectId) {
+        return delegate.getStats(projectId);
+    }
+
+    @Override
+    public void inheritStats(String projectId, String sourceProjectId) {
+        delegate.inheritStats(projectId, sourceProjectId);
+    }
+
+    @Override
+    public DeletionResult deleteProject(String projectId, DeletionProgress progress) {
+        return delegate.deleteProject(projectId, progress);
+    }
+
+    @Override
+    public void scheduleExpiry(String projectId, Instant expiresAt) {
+        delegate.scheduleExpiry(projectId, expiresAt);
+    }
+
+    @Override
+    public List<ProjectExpiry> findExpiredProjects(Instant now, int limit) {
+        return delegate.findExpiredProjects(now, limit);
+    }
+
+    @Override
+    public void clearExpiry(ProjectExpiry expiry) {
+        delegate.clearExpiry(expiry);
+    }
+}
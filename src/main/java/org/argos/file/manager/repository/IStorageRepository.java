@@ -1,7 +1,22 @@
 package org.argos.file.manager.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.ProjectExpiry;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.PathPattern;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -18,6 +33,18 @@ public interface IStorageRepository {
      */
     Map<String, String> uploadDirectory(String projectId, String localDir);
 
+    /**
+     * Uploads the files of a local directory that an ingest filter keeps, reporting each
+     * file to a listener as soon as it is stored instead of collecting the results.
+     *
+     * @param projectId the ID of the project.
+     * @param localDir the path to the local directory.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     */
+    void uploadDirectory(
+            String projectId, String localDir, IngestFilter filter, UploadListener listener);
+
     /**
      * Uploads a ZIP file to the storage bucket and unpacks it, preserving directory structure.
      *
@@ -27,6 +54,29 @@ public interface IStorageRepository {
      */
     Map<String, String> uploadMultiPartDirectory(String projectId, MultipartFile zipFilePath);
 
+    /**
+     * Uploads a ZIP file and unpacks the entries that an ingest filter keeps, reporting each
+     * file to a listener as soon as it is stored instead of collecting the results.
+     *
+     * @param projectId the ID of the project.
+     * @param zipFile the uploaded ZIP file.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     */
+    void uploadMultiPartDirectory(
+            String projectId, MultipartFile zipFile, IngestFilter filter, UploadListener listener);
+
+    /**
+     * Prepares the resumption of an upload that failed after storing some of its files.
+     * A new upload into the same project with the returned listener skips the files the
+     * failed upload stored, as long as their size is unchanged.
+     *
+     * @param projectId the ID of the project.
+     * @param listener the listener receiving the result of each file.
+     * @return the listener to pass to the resumed upload.
+     */
+    UploadListener resumeUpload(String projectId, UploadListener listener);
+
     /**
      * Lists all files in the storage bucket for a specific project.
      *
@@ -35,6 +85,24 @@ public interface IStorageRepository {
      */
     List<String> listFiles(String projectId);
 
+    /**
+     * Lists all files in the storage bucket for a specific project, including their sizes.
+     *
+     * @param projectId the ID of the project.
+     * @return a list of stored files.
+     */
+    List<StoredFile> listStoredFiles(String projectId);
+
+    /**
+     * Lists the files of a project whose relative paths match a pattern, handing over the
+     * matches page by page as the listing proceeds.
+     *
+     * @param projectId the ID of the project.
+     * @param pattern the pattern the relative file paths must match.
+     * @param matches receives each non-empty batch of matching file keys, in listing order.
+     */
+    void listMatchingFiles(String projectId, PathPattern pattern, Consumer<List<String>> matches);
+
     /**
      * Retrieves the content of a specific file.
      *
@@ -43,4 +111,178 @@ public interface IStorageRepository {
      * @return the content of the file as a string.
      */
     String getFileContent(String projectId, String filePath);
+
+    /**
+     * Returns the content of a file if it is held in memory, without a storage request.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the cached content of the file, or null if it is not cached.
+     */
+    String getCachedFileContent(String projectId, String filePath);
+
+    /**
+     * Reads a range of lines of a file without fetching the whole file.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @param fromLine the 1-based number of the first line.
+     * @param toLine the 1-based number of the last line, inclusive.
+     * @return the lines of the range that exist in the file.
+     */
+    LineRange readLines(String projectId, String filePath, int fromLine, int toLine);
+
+    /**
+     * Creates a short-lived URL from which a client downloads a file directly from storage.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the presigned URL of the file.
+     */
+    PresignedFile presignFile(String projectId, String filePath);
+
+    /**
+     * Creates short-lived download URLs for several files of a project.
+     *
+     * @param projectId the ID of the project.
+     * @param filePaths the relative paths of the files.
+     * @return the presigned URLs, in request order.
+     */
+    List<PresignedFile> presignFiles(String projectId, List<String> filePaths);
+
+    /**
+     * Reads the metadata of a file without transferring its content.
+     *
+     * @param projectId the ID of the project.
+     * @param filePath the relative path of the file.
+     * @return the size, ETag, content type and last-modified instant of the file.
+     */
+    FileStat statFile(String projectId, String filePath);
+
+    /**
+     * Reads the metadata of several files of a project without transferring their content.
+     *
+     * @param projectId the ID of the project.
+     * @param filePaths the relative paths of the files.
+     * @return the metadata of each file, in request order; missing files are reported as such.
+     */
+    List<FileStat> statFiles(String projectId, List<String> filePaths);
+
+    /**
+     * Copies every file of a project to a new project inside the storage bucket,
+     * then uploads the files of an optional overlay ZIP over the copy.
+     *
+     * @param sourceProjectId the ID of the project to copy.
+     * @param targetProjectId the ID of the new project.
+     * @param overlayZip a ZIP of changed files, or null to copy the project unchanged.
+     * @return a map containing the file keys of the new project and their statuses.
+     */
+    Map<String, String> forkProject(
+            String sourceProjectId, String targetProjectId, MultipartFile overlayZip);
+
+    /**
+     * Creates presigned URLs through which a client uploads a project archive directly to
+     * storage, bypassing the service.
+     *
+     * @param projectId the ID of the project.
+     * @param parts the number of parts the archive is uploaded in.
+     * @return the presigned upload URLs.
+     */
+    StagedUpload createStagedUpload(String projectId, int parts);
+
+    /**
+     * Extracts an archive uploaded through {@link #createStagedUpload} into the project.
+     *
+     * @param projectId the ID of the project.
+     * @param uploadId the ID of the multipart upload to complete first, or null.
+     * @param partETags the ETags of the uploaded parts, in part-number order.
+     * @return a map containing the uploaded file keys and their statuses.
+     */
+    Map<String, String> processStagedUpload(
+            String projectId, String uploadId, List<String> partETags);
+
+    /**
+     * Extracts the entries of an archive uploaded through {@link #createStagedUpload} that
+     * an ingest filter keeps into the project, reporting each file to a listener as soon as
+     * it is stored.
+     *
+     * @param projectId the ID of the project.
+     * @param uploadId the ID of the multipart upload to complete first, or null.
+     * @param partETags the ETags of the uploaded parts, in part-number order.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     */
+    void processStagedUpload(
+            String projectId,
+            String uploadId,
+            List<String> partETags,
+            IngestFilter filter,
+            UploadListener listener);
+
+    /**
+     * Records a snapshot of a project: a manifest of its files linked to a parent project.
+     *
+     * @param projectId the ID of the project.
+     * @param parentProjectId the ID of the project it was derived from, or null.
+     * @return the snapshot manifest.
+     */
+    SnapshotManifest createSnapshot(String projectId, String parentProjectId);
+
+    /**
+     * Returns the snapshot manifest of a project, recording one if it has none yet.
+     *
+     * @param projectId the ID of the project.
+     * @return the snapshot manifest.
+     */
+    SnapshotManifest getSnapshot(String projectId);
+
+    /**
+     * Returns the stats index of a project: the facts of each file computed while it was
+     * uploaded, with their aggregates.
+     *
+     * @param projectId the ID of the project.
+     * @return the stats of the project.
+     */
+    ProjectStats getStats(String projectId);
+
+    /**
+     * Adds the facts of the files a fork copied from its source to the fork's stats index.
+     *
+     * @param projectId the ID of the fork.
+     * @param sourceProjectId the ID of the forked project.
+     */
+    void inheritStats(String projectId, String sourceProjectId);
+
+    /**
+     * Deletes every file of a project.
+     *
+     * @param projectId the ID of the project.
+     * @param progress the progress updated while the deletion runs.
+     * @return the outcome of the deletion.
+     */
+    DeletionResult deleteProject(String projectId, DeletionProgress progress);
+
+    /**
+     * Records that a project expires at the given instant.
+     *
+     * @param projectId the ID of the project.
+     * @param expiresAt the instant after which the project may be deleted.
+     */
+    void scheduleExpiry(String projectId, Instant expiresAt);
+
+    /**
+     * Finds projects whose expiry has passed, oldest first.
+     *
+     * @param now the current instant.
+     * @param limit the maximum number of projects to return.
+     * @return the expired projects.
+     */
+    List<ProjectExpiry> findExpiredProjects(Instant now, int limit);
+
+    /**
+     * Removes the expiry record of a project.
+     *
+     * @param expiry the expiry to remove.
+     */
+    void clearExpiry(ProjectExpiry expiry);
 }
@@ -0,0 +1,242 @@
+package org.argos.file.manager.repository;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.LineIndex;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.resilience.HedgedReader;
+import org.argos.file.manager.utils.KeyGenerator;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Reads line ranges of stored files with ranged GETs.
+ * The {@link LineIndex} of a file is built on its first line read by scanning the object
+ * once, stored under the project's metadata prefix and kept in a bounded in-memory cache.
+ * Later reads fetch only the bytes of the blocks covering the requested lines. Ranged GETs
+ * are conditional on the ETag the index was built from, so a replaced object rebuilds it.
+ */
+public class LineRangeReader {
+
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final HedgedReader hedgedReader;
+    private final int interval;
+    private final int maxCachedIndexes;
+    private final LinkedHashMap<String, LineIndex> indexes = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates a line range reader.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket holding the files.
+     * @param hedgedReader the policy applied to ranged GETs.
+     * @param interval the number of lines between two checkpoints of new indexes.
+     * @param maxCachedIndexes the number of indexes kept in memory.
+     */
+    public LineRangeReader(
+            S3Client s3Client,
+            String bucketName,
+            HedgedReader hedgedReader,
+            int interval,
+            int maxCachedIndexes) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.hedgedReader = hedgedReader;
+        this.interval = Math.max(1, interval);
+        this.maxCachedIndexes = Math.max(0, maxCachedIndexes);
+    }
+
+    /**
+     * Reads a range of lines of a file.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @param fromLine the 1-based number of the first line.
+     * @param toLine the 1-based number of the last line, inclusive.
+     * @return the lines of the range that exist in the file.
+     * @throws NotFoundError if the file does not exist.
+     */
+    public LineRange read(String projectId, String filePath, int fromLine, int toLine) {
+        String key = KeyGenerator.objectKey(projectId, filePath);
+        LineIndex index = cachedIndex(key);
+        if (index == null) {
+            index = storedIndex(projectId, filePath);
+        }
+        if (index == null) {
+            index = buildIndex(projectId, filePath, key);
+        }
+        try {
+            try {
+                return readRange(filePath, key, index, fromLine, toLine);
+            } catch (S3Exception e) {
+                if (e.statusCode() != PRECONDITION_FAILED) {
+                    throw e;
+                }
+                index = buildIndex(projectId, filePath, key);
+                return readRange(filePath, key, index, fromLine, toLine);
+            }
+        } catch (NoSuchKeyException e) {
+            throw new NotFoundError("File not found: " + filePath);
+        } catch (S3Exception e) {
+            throw readError(e);
+        }
+    }
+
+    /**
+     * Fetches the blocks covering a line range and extracts the lines.
+     *
+     * @param filePath the path of the file within the project.
+     * @param key the object key of the file.
+     * @param index the line index of the file.
+     * @param fromLine the 1-based number of the first line.
+     * @param toLine the 1-based number of the last line, inclusive.
+     * @return the lines of the range that exist in the file.
+     */
+    private LineRange readRange(
+            String filePath, String key, LineIndex index, int fromLine, int toLine) {
+        if (fromLine > index.lineCount()) {
+            return new LineRange(filePath, fromLine, fromLine - 1, index.lineCount(), List.of());
+        }
+        int lastLine = Math.min(toLine, index.lineCount());
+        GetObjectRequest request =
+                GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .range(
+                                "bytes="
+                                        + index.blockStart(fromLine)
+                                        + "-"
+                                        + index.blockEnd(lastLine))
+                        .ifMatch(index.eTag())
+                        .build();
+        String text = hedgedReader.read(() -> s3Client.getObjectAsBytes(request)).asUtf8String();
+        return LineRange.slice(
+                filePath,
+                text,
+                index.blockFirstLine(fromLine),
+                fromLine,
+                toLine,
+                index.lineCount());
+    }
+
+    /**
+     * Loads the stored index of a file.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @return the stored index, or null if there is none or it cannot be read.
+     */
+    private LineIndex storedIndex(String projectId, String filePath) {
+        try {
+            byte[] bytes =
+                    s3Client.getObjectAsBytes(
+                                    GetObjectRequest.builder()
+                                            .bucket(bucketName)
+                                            .key(KeyGenerator.lineIndexKey(projectId, filePath))
+                                            .build())
+                            .asByteArray();
+            LineIndex index = LineIndex.fromBytes(bytes);
+            if (index != null) {
+                cache(KeyGenerator.objectKey(projectId, filePath), index);
+            }
+            return index;
+        } catch (S3Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Builds the index of a file by streaming it once, then stores and caches it.
+     * A failure to store the index only means it is rebuilt by the next replica that needs it.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @param key the object key of the file.
+     * @return the new index.
+     * @throws NotFoundError if the file does not exist.
+     */
+    private LineIndex buildIndex(String projectId, String filePath, String key) {
+        LineIndex index;
+        GetObjectRequest request = GetObjectRequest.builder().bucket(bucketName).key(key).build();
+        try (ResponseInputStream<GetObjectResponse> content = s3Client.getObject(request)) {
+            index = LineIndex.build(content, content.response().eTag(), interval);
+        } catch (NoSuchKeyException e) {
+            throw new NotFoundError("File not found: " + filePath);
+        } catch (S3Exception e) {
+            throw readError(e);
+        } catch (IOException e) {
+            throw new BadRequestError("Error reading file content: " + e.getMessage());
+        }
+
+        try {
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(KeyGenerator.lineIndexKey(projectId, filePath))
+                            .build(),
+                    RequestBody.fromBytes(index.toBytes()));
+        } catch (S3Exception e) {
+            // The index is still cached locally.
+        }
+        cache(key, index);
+        return index;
+    }
+
+    /**
+     * Returns the cached index of an object.
+     *
+     * @param key the object key of the file.
+     * @return the index, or null if it is not cached.
+     */
+    private LineIndex cachedIndex(String key) {
+        lock.lock();
+        try {
+            return indexes.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Caches the index of an object, evicting the least recently used indexes.
+     *
+     * @param key the object key of the file.
+     * @param index the index to cache.
+     */
+    private void cache(String key, LineIndex index) {
+        lock.lock();
+        try {
+            indexes.put(key, index);
+            Iterator<String> eldest = indexes.keySet().iterator();
+            while (indexes.size() > maxCachedIndexes && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Converts an S3 failure into the error reported to the client.
+     *
+     * @param e the S3 failure.
+     * @return the error to throw.
+     */
+    private BadRequestError readError(S3Exception e) {
+        String errorMessage =
+                e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : "Error occurred";
+        return new BadRequestError("Failed to retrieve file: " + errorMessage);
+    }
+}
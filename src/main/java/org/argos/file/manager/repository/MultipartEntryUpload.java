@@ -0,0 +1,192 @@
+package org.argos.file.manager.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.utils.PooledContent;
+import org.argos.file.manager.utils.UploadChecksum;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Multipart upload of an archive entry too large to be held in memory as a whole. Parts are
+ * uploaded one after another while the entry is read, each from pooled buffers that are
+ * released once the part is stored, so an entry of any size needs one part of memory and no
+ * scratch file. Every part carries its own checksum. A part that still fails after its
+ * retries aborts the upload; later parts are dropped and the failure is raised when the
+ * upload is completed. An upload is used by one thread at a time.
+ */
+final class MultipartEntryUpload {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String key;
+    private final UploadChecksum checksum;
+    private final RetryPolicy retryPolicy;
+    private final List<CompletedPart> parts = new ArrayList<>();
+    private String uploadId;
+    private RuntimeException failure;
+
+    /**
+     * Creates an upload; the multipart upload is started with its first part.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket receiving the file.
+     * @param key the object key of the file.
+     * @param checksum the checksum sent with every part.
+     * @param retryPolicy the policy for retrying failed requests.
+     */
+    MultipartEntryUpload(
+            S3Client s3Client,
+            String bucketName,
+            String key,
+            UploadChecksum checksum,
+            RetryPolicy retryPolicy) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.checksum = checksum;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Uploads the next part, unless an earlier part has failed, and closes it.
+     *
+     * @param part the content of the part.
+     */
+    void addPart(PooledContent part) {
+        try {
+            if (failure == null) {
+                upload(part);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            abort();
+        } finally {
+            part.close();
+        }
+    }
+
+    /**
+     * Uploads the last part and completes the upload.
+     *
+     * @param lastPart the content of the last part, which may be empty.
+     * @throws RuntimeException the failure of any part or of the completion.
+     */
+    void complete(PooledContent lastPart) {
+        if (lastPart.size() > 0 || parts.isEmpty()) {
+            addPart(lastPart);
+        } else {
+            lastPart.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        try {
+            s3Client.completeMultipartUpload(
+                    CompleteMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .multipartUpload(
+                                    CompletedMultipartUpload.builder().parts(parts).build())
+                            .build());
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+        uploadId = null;
+    }
+
+    /**
+     * Aborts the upload if it was started and has not completed.
+     */
+    void abort() {
+        if (uploadId == null) {
+            return;
+        }
+        String aborted = uploadId;
+        uploadId = null;
+        try {
+            s3Client.abortMultipartUpload(
+                    AbortMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(aborted)
+                            .build());
+        } catch (RuntimeException e) {
+            // The failure that ended the upload is reported instead.
+        }
+    }
+
+    /**
+     * Uploads a part, starting the multipart upload first if needed.
+     *
+     * @param part the content of the part.
+     */
+    private void upload(PooledContent part) {
+        if (uploadId == null) {
+            CreateMultipartUploadRequest create =
+                    CreateMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .checksumAlgorithm(checksum.algorithm())
+                            .build();
+            uploadId = withRetries(() -> s3Client.createMultipartUpload(create)).uploadId();
+        }
+        int partNumber = parts.size() + 1;
+        UploadPartRequest request =
+                UploadPartRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .checksumAlgorithm(checksum.algorithm())
+                        .build();
+        UploadPartResponse response =
+                withRetries(
+                        () ->
+                                s3Client.uploadPart(
+                                        request,
+                                        RequestBody.fromContentProvider(
+                                                part::newInputStream,
+                                                part.size(),
+                                                ContentTypes.OCTET_STREAM)));
+        parts.add(
+                checksum.applyTo(
+                                CompletedPart.builder()
+                                        .partNumber(partNumber)
+                                        .eTag(response.eTag()),
+                                response)
+                        .build());
+    }
+
+    /**
+     * Executes a request, retrying retryable failures with backoff.
+     *
+     * @param request the request to execute.
+     * @param <T> the type of the response.
+     * @return the response.
+     */
+    private <T> T withRetries(Supplier<T> request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return request.get();
+            } catch (RuntimeException e) {
+                if (attempt >= retryPolicy.maxAttempts()
+                        || !retryPolicy.isRetryable(e)
+                        || !retryPolicy.sleepBeforeRetry(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.argos.file.manager.repository;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.FileFacts;
+import org.argos.file.manager.model.FilterReason;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.utils.KeyGenerator;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Stores the metadata indexes of projects: the {@link FileFacts} computed while each file
+ * was uploaded, so that the statistics of a project are served from one small object
+ * instead of by downloading its files. An index is written once an upload has stored its
+ * files; a resumed upload merges the facts of the files its failed attempt stored.
+ * Indexes are stored under the project's metadata prefix and deleted with the project.
+ */
+public class ProjectStatsStore {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+
+    /**
+     * Creates a stats store.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket holding the projects.
+     */
+    public ProjectStatsStore(S3Client s3Client, String bucketName) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Returns the stored index of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the index.
+     * @throws NotFoundError if the project has no index.
+     * @throws BadRequestError if the index cannot be read.
+     */
+    public ProjectStats get(String projectId) {
+        ProjectStats stats = find(projectId);
+        if (stats == null) {
+            throw new NotFoundError("No stats found for project ID: " + projectId);
+        }
+        return stats;
+    }
+
+    /**
+     * Starts recording the facts of the files stored by an upload.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param listener the listener the results are forwarded to.
+     * @return the recorder, to be passed to the upload as its listener.
+     */
+    public Recorder recorder(String projectId, UploadListener listener) {
+        return new Recorder(projectId, listener);
+    }
+
+    /**
+     * Completes the index of a forked project with the facts of the source project's files
+     * that the fork copied, keeping the facts of the overlay files it uploaded.
+     *
+     * @param projectId the unique identifier of the fork.
+     * @param sourceProjectId the unique identifier of the forked project.
+     * @throws BadRequestError if an index cannot be read or stored.
+     */
+    public void inherit(String projectId, String sourceProjectId) {
+        ProjectStats source = find(sourceProjectId);
+        if (source == null) {
+            return;
+        }
+        Map<String, FileFacts> files = new HashMap<>(source.files());
+        ProjectStats overlay = find(projectId);
+        if (overlay != null) {
+            files.putAll(overlay.files());
+        }
+        store(projectId, files);
+    }
+
+    /**
+     * Loads the stored index of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the index, or null if the project has none or it is in an unknown format.
+     * @throws BadRequestError if the index cannot be read.
+     */
+    private ProjectStats find(String projectId) {
+        try {
+            byte[] bytes =
+                    s3Client.getObjectAsBytes(
+                                    GetObjectRequest.builder()
+                                            .bucket(bucketName)
+                                            .key(KeyGenerator.statsKey(projectId))
+                                            .build())
+                            .asByteArray();
+            return ProjectStats.fromBytes(bytes);
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to read stats: " + errorMessage(e));
+        }
+    }
+
+    /**
+     * Stores the index of a project, replacing any stored index.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param files the facts of each file, by path relative to the project root.
+     * @throws BadRequestError if the index cannot be stored.
+     */
+    private void store(String projectId, Map<String, FileFacts> files) {
+        ProjectStats stats = ProjectStats.build(projectId, Instant.now(), files);
+        try {
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(KeyGenerator.statsKey(projectId))
+                            .build(),
+                    RequestBody.fromBytes(stats.toBytes()));
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to store stats: " + errorMessage(e));
+        }
+    }
+
+    /**
+     * Returns the message of an S3 failure.
+     *
+     * @param e the S3 failure.
+     * @return the error message.
+     */
+    private String errorMessage(S3Exception e) {
+        return e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : "Error occurred";
+    }
+
+    /**
+     * Recorder of the facts of a running upload. It forwards every result to the upload's
+     * listener and keeps the facts of the stored files until the index is saved.
+     */
+    public final class Recorder implements UploadListener {
+
+        private final String projectId;
+        private final UploadListener listener;
+        private final Map<String, FileFacts> files = new ConcurrentHashMap<>();
+        private volatile boolean resumed;
+
+        private Recorder(String projectId, UploadListener listener) {
+            this.projectId = projectId;
+            this.listener = listener;
+        }
+
+        @Override
+        public void uploaded(String key, long bytes) {
+            listener.uploaded(key, bytes);
+        }
+
+        @Override
+        public void described(String key, FileFacts facts) {
+            files.put(KeyGenerator.relativePath(projectId, key), facts);
+            listener.described(key, facts);
+        }
+
+        @Override
+        public void failed(String key, String error) {
+            listener.failed(key, error);
+        }
+
+        @Override
+        public void skipped(String key, long bytes) {
+            resumed = true;
+            listener.skipped(key, bytes);
+        }
+
+        @Override
+        public void filtered(String key, FilterReason reason) {
+            listener.filtered(key, reason);
+        }
+
+        @Override
+        public boolean shouldUpload(String key, long bytes) {
+            return listener.shouldUpload(key, bytes);
+        }
+
+        /**
+         * Stores the index of the files described so far, merged with the stored index if
+         * the upload skipped files an earlier attempt stored. The files are already stored
+         * at this point and the index is only derived from them, so a failure is ignored
+         * and the project is served without stats.
+         */
+        public void save() {
+            if (files.isEmpty() && !resumed) {
+                return;
+            }
+            try {
+                Map<String, FileFacts> merged = new HashMap<>();
+                if (resumed) {
+                    ProjectStats stored = find(projectId);
+                    if (stored != null) {
+                        merged.putAll(stored.files());
+                    }
+                }
+                merged.putAll(files);
+                store(projectId, merged);
+            } catch (RuntimeException e) {
+                // The index can be rebuilt by uploading the project again.
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.argos.file.manager.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.resilience.RetryPolicy;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Deletes every object under a key prefix with multi-object DeleteObjects requests.
+ * Each listing page of up to 1000 keys becomes one batch; batches are deleted concurrently
+ * while the listing continues, with at most a fixed number in flight. Throttled or failed
+ * keys are retried with the jittered backoff of the {@link RetryPolicy}.
+ */
+public class S3BatchDeleter {
+
+    /** Maximum number of keys accepted by a single DeleteObjects request. */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final Set<String> RETRYABLE_ERROR_CODES =
+            Set.of("SlowDown", "InternalError", "ServiceUnavailable", "RequestTimeout");
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Creates a batch deleter.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket holding the objects.
+     * @param executor the executor running the batches.
+     * @param concurrency the maximum number of batches in flight.
+     * @param retryPolicy the policy deciding which failures are retried.
+     */
+    public S3BatchDeleter(
+            S3Client s3Client,
+            String bucketName,
+            ExecutorService executor,
+            int concurrency,
+            RetryPolicy retryPolicy) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Deletes every object under a prefix.
+     *
+     * @param projectId the ID of the project being deleted.
+     * @param prefix the key prefix to delete.
+     * @param progress the progress updated as batches complete.
+     * @return the outcome of the deletion.
+     * @throws BadRequestError if the objects cannot be listed.
+     */
+    public DeletionResult deletePrefix(String projectId, String prefix, DeletionProgress progress) {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Future<List<String>>> batches = new ArrayList<>();
+        RuntimeException listingFailure = null;
+        try {
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response page =
+                        s3Client.listObjectsV2(
+                                ListObjectsV2Request.builder()
+                                        .bucket(bucketName)
+                                        .prefix(prefix)
+                                        .maxKeys(MAX_BATCH_SIZE)
+                                        .continuationToken(continuationToken)
+                                        .build());
+                List<String> keys = page.contents().stream().map(S3Object::key).toList();
+                if (!keys.isEmpty()) {
+                    progress.onListed(keys.size());
+                    inFlight.acquire();
+                    batches.add(submitBatch(keys, progress, inFlight));
+                }
+                continuationToken =
+                        Boolean.TRUE.equals(page.isTruncated())
+                                ? page.nextContinuationToken()
+                                : null;
+            } while (continuationToken != null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            listingFailure = new BadRequestError("Project deletion interrupted.");
+        } catch (S3Exception e) {
+            String errorMessage =
+                    e.awsErrorDetails() != null
+                            ? e.awsErrorDetails().errorMessage()
+                            : "Error occurred";
+            listingFailure = new BadRequestError("Failed to delete project: " + errorMessage);
+        }
+
+        List<String> failedKeys = awaitBatches(batches);
+        if (listingFailure != null) {
+            throw listingFailure;
+        }
+        return new DeletionResult(
+                projectId,
+                progress.getDeletedObjects(),
+                progress.getFailedObjects(),
+                batches.size(),
+                failedKeys);
+    }
+
+    /**
+     * Deletes a list of keys, retrying throttled or failed keys.
+     *
+     * @param keys the keys to delete, at most {@link #MAX_BATCH_SIZE}.
+     * @return the keys that could not be deleted.
+     */
+    public List<String> deleteBatch(List<String> keys) {
+        List<String> failed = new ArrayList<>();
+        List<String> remaining = keys;
+        for (int attempt = 1; !remaining.isEmpty(); attempt++) {
+            List<String> retry = new ArrayList<>();
+            try {
+                DeleteObjectsResponse response = s3Client.deleteObjects(request(remaining));
+                for (S3Error error : response.errors()) {
+                    if (RETRYABLE_ERROR_CODES.contains(error.code())) {
+                        retry.add(error.key());
+                    } else {
+                        failed.add(error.key());
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!retryPolicy.isRetryable(e)) {
+                    failed.addAll(remaining);
+                    break;
+                }
+                retry.addAll(remaining);
+            }
+            if (retry.isEmpty()) {
+                break;
+            }
+            if (attempt >= retryPolicy.maxAttempts() || !retryPolicy.sleepBeforeRetry(attempt)) {
+                failed.addAll(retry);
+                break;
+            }
+            remaining = retry;
+        }
+        return failed;
+    }
+
+    /**
+     * Submits a batch, releasing its in-flight permit when it completes.
+     *
+     * @param keys the keys of the batch.
+     * @param progress the progress to update.
+     * @param inFlight the permits bounding the batches in flight.
+     * @return the future of the batch, yielding the keys that could not be deleted.
+     */
+    private Future<List<String>> submitBatch(
+            List<String> keys, DeletionProgress progress, Semaphore inFlight) {
+        try {
+            return executor.submit(
+                    () -> {
+                        try {
+                            List<String> failed = deleteBatch(keys);
+                            progress.onBatch(keys.size() - failed.size(), failed.size());
+                            return failed;
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all submitted batches and collects a sample of the failed keys.
+     *
+     * @param batches the futures of the submitted batches.
+     * @return up to 100 keys that could not be deleted.
+     */
+    private List<String> awaitBatches(List<Future<List<String>>> batches) {
+        List<String> failedKeys = new ArrayList<>();
+        for (Future<List<String>> batch : batches) {
+            try {
+                for (String key : batch.get()) {
+                    if (failedKeys.size() < MAX_REPORTED_FAILURES) {
+                        failedKeys.add(key);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadRequestError("Project deletion interrupted.");
+            } catch (ExecutionException e) {
+                throw new BadRequestError("Failed to delete project: " + e.getMessage());
+            }
+        }
+        return failedKeys;
+    }
+
+    /**
+     * Builds a quiet DeleteObjects request, which only reports the keys that failed.
+     *
+     * @param keys the keys to delete.
+     * @return the request.
+     */
+    private DeleteObjectsRequest request(List<String> keys) {
+        List<ObjectIdentifier> objects =
+                keys.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList();
+        return DeleteObjectsRequest.builder()
+                .bucket(bucketName)
+                .delete(Delete.builder().objects(objects).quiet(true).build())
+                .build();
+    }
+}
@@ -0,0 +1,331 @@
+package org.argos.file.manager.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.resilience.RetryPolicy;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Copies every object under a key prefix to another prefix inside the bucket without
+ * transferring any bytes through the service. Objects are copied with CopyObject, or with a
+ * multipart UploadPartCopy once they exceed the multipart threshold. Copies run concurrently
+ * while the listing continues, with at most a fixed number in flight.
+ */
+public class S3ProjectCopier {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final long multipartThreshold;
+    private final long partSize;
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Creates a project copier.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket holding the objects.
+     * @param executor the executor running the copies.
+     * @param concurrency the maximum number of copies in flight.
+     * @param multipartThreshold the size above which objects are copied in parts.
+     * @param partSize the size of each copied part.
+     * @param retryPolicy the policy deciding which failures are retried.
+     */
+    public S3ProjectCopier(
+            S3Client s3Client,
+            String bucketName,
+            ExecutorService executor,
+            int concurrency,
+            long multipartThreshold,
+            long partSize,
+            RetryPolicy retryPolicy) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.executor = executor;
+        this.concurrency = Math.max(1, concurrency);
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Copies the objects under a source prefix to a target prefix.
+     *
+     * @param sourceProjectId the ID of the project being copied.
+     * @param sourcePrefix the prefix to copy from.
+     * @param targetPrefix the prefix to copy to.
+     * @param include selects the source keys to copy.
+     * @return a map with the target keys as keys and "Copied" as values.
+     * @throws NotFoundError if there are no objects under the source prefix.
+     * @throws BadRequestError if an object cannot be copied.
+     */
+    public Map<String, String> copyPrefix(
+            String sourceProjectId,
+            String sourcePrefix,
+            String targetPrefix,
+            Predicate<String> include) {
+        return copyPrefix(
+                sourceProjectId,
+                sourcePrefix,
+                key -> targetPrefix + key.substring(sourcePrefix.length()),
+                include);
+    }
+
+    /**
+     * Copies the objects under a source prefix, deriving each target key from its source key.
+     * Used when the source and target projects have different key layouts.
+     *
+     * @param sourceProjectId the ID of the project being copied.
+     * @param sourcePrefix the prefix to copy from.
+     * @param targetKey maps a source key to the key it is copied to.
+     * @param include selects the source keys to copy.
+     * @return a map with the target keys as keys and "Copied" as values.
+     * @throws NotFoundError if there are no objects under the source prefix.
+     * @throws BadRequestError if an object cannot be copied.
+     */
+    public Map<String, String> copyPrefix(
+            String sourceProjectId,
+            String sourcePrefix,
+            UnaryOperator<String> targetKey,
+            Predicate<String> include) {
+        Semaphore inFlight = new Semaphore(concurrency);
+        Map<String, String> copied = new ConcurrentHashMap<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Future<?>> copies = new ArrayList<>();
+        boolean found = false;
+        try {
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response page =
+                        s3Client.listObjectsV2(
+                                ListObjectsV2Request.builder()
+                                        .bucket(bucketName)
+                                        .prefix(sourcePrefix)
+                                        .continuationToken(continuationToken)
+                                        .build());
+                for (S3Object object : page.contents()) {
+                    found = true;
+                    if (failure.get() != null) {
+                        break;
+                    }
+                    if (include.test(object.key())) {
+                        inFlight.acquire();
+                        copies.add(
+                                submitCopy(
+                                        object,
+                                        targetKey.apply(object.key()),
+                                        copied,
+                                        failure,
+                                        inFlight));
+                    }
+                }
+                continuationToken =
+                        failure.get() == null && Boolean.TRUE.equals(page.isTruncated())
+                                ? page.nextContinuationToken()
+                                : null;
+            } while (continuationToken != null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new BadRequestError("Project copy interrupted."));
+        } catch (S3Exception e) {
+            failure.compareAndSet(null, copyError(e));
+        }
+
+        awaitCopies(copies);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (!found) {
+            throw new NotFoundError("No files found for project ID: " + sourceProjectId);
+        }
+        return copied;
+    }
+
+    /**
+     * Submits the copy of one object, releasing its in-flight permit when it completes.
+     *
+     * @param source the listed source object.
+     * @param targetKey the key to copy to.
+     * @param copied a thread-safe map to store copy results.
+     * @param failure holder for the first failure raised by any copy.
+     * @param inFlight the permits bounding the copies in flight.
+     * @return the future of the copy.
+     */
+    private Future<?> submitCopy(
+            S3Object source,
+            String targetKey,
+            Map<String, String> copied,
+            AtomicReference<RuntimeException> failure,
+            Semaphore inFlight) {
+        try {
+            return executor.submit(
+                    () -> {
+                        try {
+                            if (failure.get() == null) {
+                                copyObject(source, targetKey);
+                                copied.put(targetKey, "Copied");
+                            }
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies a single object, in parts if it exceeds the multipart threshold.
+     *
+     * @param source the listed source object.
+     * @param targetKey the key to copy to.
+     * @throws BadRequestError if the copy fails.
+     */
+    private void copyObject(S3Object source, String targetKey) {
+        long size = source.size() != null ? source.size() : 0L;
+        try {
+            if (size > multipartThreshold) {
+                copyInParts(source.key(), targetKey, size);
+            } else {
+                withRetries(
+                        () ->
+                                s3Client.copyObject(
+                                        CopyObjectRequest.builder()
+                                                .sourceBucket(bucketName)
+                                                .sourceKey(source.key())
+                                                .destinationBucket(bucketName)
+                                                .destinationKey(targetKey)
+                                                .build()));
+            }
+        } catch (S3Exception e) {
+            throw copyError(e);
+        }
+    }
+
+    /**
+     * Copies a large object with a multipart upload whose parts are copied server-side.
+     * The upload is aborted if any part fails.
+     *
+     * @param sourceKey the key to copy from.
+     * @param targetKey the key to copy to.
+     * @param size the size of the object.
+     */
+    private void copyInParts(String sourceKey, String targetKey, long size) {
+        String uploadId =
+                s3Client.createMultipartUpload(
+                                CreateMultipartUploadRequest.builder()
+                                        .bucket(bucketName)
+                                        .key(targetKey)
+                                        .build())
+                        .uploadId();
+        try {
+            List<CompletedPart> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long last = Math.min(offset + partSize, size) - 1;
+                UploadPartCopyRequest request =
+                        UploadPartCopyRequest.builder()
+                                .sourceBucket(bucketName)
+                                .sourceKey(sourceKey)
+                                .destinationBucket(bucketName)
+                                .destinationKey(targetKey)
+                                .uploadId(uploadId)
+                                .partNumber(partNumber)
+                                .copySourceRange("bytes=" + offset + "-" + last)
+                                .build();
+                UploadPartCopyResponse response =
+                        withRetries(() -> s3Client.uploadPartCopy(request));
+                parts.add(
+                        CompletedPart.builder()
+                                .partNumber(partNumber)
+                                .eTag(response.copyPartResult().eTag())
+                                .build());
+            }
+            s3Client.completeMultipartUpload(
+                    CompleteMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(targetKey)
+                            .uploadId(uploadId)
+                            .multipartUpload(
+                                    CompletedMultipartUpload.builder().parts(parts).build())
+                            .build());
+        } catch (RuntimeException e) {
+            s3Client.abortMultipartUpload(
+                    AbortMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(targetKey)
+                            .uploadId(uploadId)
+                            .build());
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a request, retrying retryable failures with backoff.
+     *
+     * @param request the request to execute.
+     * @param <T> the type of the response.
+     * @return the response.
+     */
+    private <T> T withRetries(Supplier<T> request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return request.get();
+            } catch (RuntimeException e) {
+                if (attempt >= retryPolicy.maxAttempts()
+                        || !retryPolicy.isRetryable(e)
+                        || !retryPolicy.sleepBeforeRetry(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for all submitted copies to finish.
+     *
+     * @param copies the futures of the submitted copies.
+     * @throws BadRequestError if waiting is interrupted or a copy fails unexpectedly.
+     */
+    private void awaitCopies(List<Future<?>> copies) {
+        for (Future<?> copy : copies) {
+            try {
+                copy.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadRequestError("Project copy interrupted.");
+            } catch (ExecutionException e) {
+                throw new BadRequestError("Failed to copy files in S3: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Converts an S3 failure into the error reported to the client.
+     *
+     * @param e the S3 failure.
+     * @return the error to throw.
+     */
+    private BadRequestError copyError(S3Exception e) {
+        String errorMessage =
+                e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : "Error occurred";
+        return new BadRequestError("Failed to copy files in S3: " + errorMessage);
+    }
+}
@@ -1,37 +1,214 @@
 package org.argos.file.manager.repository;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.argos.file.manager.exceptions.ApiException;
 import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.IncompleteUploadError;
 import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.exceptions.ServiceUnavailableError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.KeyLayout;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.ProjectExpiry;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.resilience.HedgedReader;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.tracing.RequestTrace;
+import org.argos.file.manager.tracing.Stage;
+import org.argos.file.manager.utils.ContentProfiler;
+import org.argos.file.manager.utils.EnvSettings;
+import org.argos.file.manager.utils.FileChecksums;
 import org.argos.file.manager.utils.FileProcessor;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.IngestSession;
 import org.argos.file.manager.utils.InputValidator;
 import org.argos.file.manager.utils.KeyGenerator;
+import org.argos.file.manager.utils.PathPattern;
+import org.argos.file.manager.utils.UploadChecksum;
+import org.argos.file.manager.utils.ZipBudget;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedUploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
 
 /**
  * Repository implementation for interacting with AWS S3.
- * Provides methods to upload files, list project files, and retrieve file content.
+ * Provides methods to upload files, list project files, retrieve file content and delete projects.
  */
 @Repository
 public class S3Repository implements IStorageRepository {
 
+    private static final int MAX_UPLOAD_PARTS = 10_000;
+
     private final S3Client s3Client;
     private final String bucketName;
+    private final int uploadConcurrency;
+    private final ExecutorService uploadExecutor;
+    private final HedgedReader hedgedReader;
+    private final S3BatchDeleter batchDeleter;
+    private final S3ProjectCopier projectCopier;
+    private final S3Presigner s3Presigner;
+    private final ExecutorService readExecutor;
+    private final Duration presignTtl;
+    private final Duration stagingUrlTtl;
+    private final ArchiveIngestor archiveIngestor;
+    private final LineRangeReader lineRangeReader;
+    private final SnapshotStore snapshotStore;
+    private final ProjectStatsStore statsStore;
+    private final UploadCheckpointStore checkpointStore;
+    private final RetryPolicy uploadRetryPolicy;
+    private final int maxFailedUploadFiles;
+    private final UploadChecksum uploadChecksum;
+    private final S3Workers workers;
 
     /**
-     * Constructs a new S3Repository with the given S3 client.
-     * The bucket name is loaded from environment variables using Dotenv.
+     * Constructs a new S3Repository with the given S3 client and no URL presigner.
      *
      * @param s3Client the S3 client to use for interacting with the S3 bucket.
      */
     public S3Repository(S3Client s3Client) {
+        this(s3Client, null);
+    }
+
+    /**
+     * Constructs a new S3Repository with the given S3 client and URL presigner.
+     * The bucket name is loaded from environment variables using Dotenv.
+     *
+     * @param s3Client the S3 client to use for interacting with the S3 bucket.
+     * @param s3Presigner the presigner for download URLs, or null if presigning is unavailable.
+     */
+    @Autowired
+    public S3Repository(S3Client s3Client, S3Presigner s3Presigner) {
+        this(s3Client, s3Presigner, System.getenv("AWS_BUCKET_NAME"));
+    }
+
+    /**
+     * Constructs a new S3Repository storing its projects in the given bucket, with its own
+     * workers.
+     *
+     * @param s3Client the S3 client to use for interacting with the S3 bucket.
+     * @param s3Presigner the presigner for download URLs, or null if presigning is unavailable.
+     * @param bucketName the bucket holding the projects.
+     */
+    public S3Repository(S3Client s3Client, S3Presigner s3Presigner, String bucketName) {
+        this(s3Client, s3Presigner, bucketName, S3Workers.fromEnvironment());
+    }
+
+    /**
+     * Constructs a new S3Repository storing its projects in the given bucket, sharing the
+     * workers of other repositories.
+     *
+     * @param s3Client the S3 client to use for interacting with the S3 bucket.
+     * @param s3Presigner the presigner for download URLs, or null if presigning is unavailable.
+     * @param bucketName the bucket holding the projects.
+     * @param workers the thread pools and read policy to use.
+     */
+    public S3Repository(
+            S3Client s3Client, S3Presigner s3Presigner, String bucketName, S3Workers workers) {
         this.s3Client = s3Client;
-        this.bucketName = System.getenv("AWS_BUCKET_NAME");
+        this.s3Presigner = s3Presigner;
+        this.bucketName = bucketName;
+        this.workers = workers;
+        this.uploadConcurrency = workers.uploadConcurrency();
+        this.uploadExecutor = workers.uploadExecutor();
+        this.readExecutor = workers.readExecutor();
+        this.hedgedReader = workers.hedgedReader();
+        this.presignTtl = Duration.ofSeconds(EnvSettings.getLong("ARGOS_PRESIGN_TTL_SECONDS", 300));
+        this.stagingUrlTtl =
+                Duration.ofSeconds(EnvSettings.getLong("ARGOS_STAGING_URL_TTL_SECONDS", 3600));
+        RetryPolicy writeRetryPolicy =
+                new RetryPolicy(
+                        EnvSettings.getInt("ARGOS_S3_WRITE_MAX_ATTEMPTS", 5),
+                        EnvSettings.getLong("ARGOS_S3_RETRY_BASE_DELAY_MS", 50),
+                        EnvSettings.getLong("ARGOS_S3_RETRY_MAX_DELAY_MS", 1000));
+        this.uploadRetryPolicy = writeRetryPolicy;
+        this.maxFailedUploadFiles = EnvSettings.getInt("ARGOS_UPLOAD_MAX_FAILED_FILES", 100);
+        this.uploadChecksum = UploadChecksum.fromEnvironment();
+        this.archiveIngestor =
+                new ArchiveIngestor(
+                        s3Client,
+                        bucketName,
+                        uploadExecutor,
+                        uploadConcurrency,
+                        Math.max(
+                                5L << 20,
+                                EnvSettings.getLong("ARGOS_INGEST_MEMORY_ENTRY_BYTES", 8L << 20)),
+                        writeRetryPolicy,
+                        uploadChecksum);
+        this.lineRangeReader =
+                new LineRangeReader(
+                        s3Client,
+                        bucketName,
+                        hedgedReader,
+                        EnvSettings.getInt("ARGOS_LINE_INDEX_INTERVAL", 64),
+                        EnvSettings.getInt("ARGOS_LINE_INDEX_CACHE_ENTRIES", 1024));
+        this.snapshotStore = new SnapshotStore(s3Client, bucketName);
+        this.statsStore = new ProjectStatsStore(s3Client, bucketName);
+        this.batchDeleter =
+                new S3BatchDeleter(
+                        s3Client,
+                        bucketName,
+                        workers.deleteExecutor(),
+                        workers.deleteConcurrency(),
+                        writeRetryPolicy);
+        this.projectCopier =
+                new S3ProjectCopier(
+                        s3Client,
+                        bucketName,
+                        workers.copyExecutor(),
+                        workers.copyConcurrency(),
+                        EnvSettings.getLong("ARGOS_COPY_MULTIPART_THRESHOLD_BYTES", 256L << 20),
+                        EnvSettings.getLong("ARGOS_COPY_PART_BYTES", 64L << 20),
+                        writeRetryPolicy);
+        this.checkpointStore =
+                new UploadCheckpointStore(
+                        s3Client,
+                        bucketName,
+                        batchDeleter,
+                        EnvSettings.getInt("ARGOS_UPLOAD_CHECKPOINT_FILES", 1000));
+    }
+
+    /**
+     * Returns the thread pools and read policy of this repository, to share them with the
+     * repositories of other buckets.
+     *
+     * @return the workers.
+     */
+    public S3Workers workers() {
+        return workers;
     }
 
     /**
@@ -46,23 +223,104 @@ public class S3Repository implements IStorageRepository {
      */
     @Override
     public Map<String, String> uploadMultiPartDirectory(String projectId, MultipartFile zipFile) {
+        Map<String, String> uploadResults = new ConcurrentHashMap<>();
+        uploadMultiPartDirectory(
+                projectId,
+                zipFile,
+                IngestFilter.fromEnvironment(),
+                UploadListener.collectingInto(uploadResults));
+        return uploadResults;
+    }
+
+    /**
+     * Handles the upload of a ZIP file, reporting each file to a listener as soon as it is
+     * stored instead of collecting the results. Entries left out by the ingest filter are
+     * not extracted. Tar archives, plain or compressed with gzip or zstd, are streamed
+     * straight into the project without a scratch directory, large entries being uploaded
+     * in parts as they are read.
+     *
+     * @param projectId the ID of the project to associate with the uploaded files.
+     * @param zipFile the uploaded ZIP file as a {@link MultipartFile}.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     * @throws BadRequestError if the project ID or ZIP file is invalid, or if file
+     *                         processing fails.
+     */
+    @Override
+    public void uploadMultiPartDirectory(
+            String projectId, MultipartFile zipFile, IngestFilter filter, UploadListener listener) {
         InputValidator.getInstance().validateProjectId(projectId);
         InputValidator.getInstance().validateMultipartFile(zipFile);
+        if (FileProcessor.getInstance().isTarArchive(zipFile)) {
+            uploadCheckpointed(
+                    projectId, listener, stats -> ingestArchive(projectId, zipFile, filter, stats));
+            return;
+        }
 
-        Path tempDir = FileProcessor.getInstance().processAndExtractZip(zipFile);
+        Path tempDir =
+                filter.isEmpty()
+                        ? FileProcessor.getInstance().processAndExtractZip(zipFile)
+                        : FileProcessor.getInstance()
+                                .processAndExtractZip(
+                                        zipFile, ingestSession(projectId, filter, listener));
 
         try {
             List<Path> files = FileProcessor.getInstance().getFilesFromDirectory(tempDir);
             FileProcessor.getInstance().validateFilesExist(files);
 
-            Map<String, String> uploadResults = new HashMap<>();
-            uploadFiles(projectId, tempDir, files, uploadResults);
-            return uploadResults;
+            FileChecksums checksums = extractedChecksums(tempDir);
+            uploadCheckpointed(
+                    projectId,
+                    listener,
+                    stats -> uploadFiles(projectId, tempDir, files, checksums, stats));
         } finally {
-            FileProcessor.getInstance().cleanUpTempDirectory(tempDir);
+            FileProcessor.getInstance().releaseTempDirectory(tempDir);
         }
     }
 
+    /**
+     * Returns the checksums recorded while an uploaded archive was extracted.
+     *
+     * @param tempDir the scratch directory the archive was extracted into.
+     * @return the checksums of the extracted files.
+     */
+    private FileChecksums extractedChecksums(Path tempDir) {
+        FileChecksums checksums = FileProcessor.getInstance().extractedChecksums(tempDir);
+        return checksums != null ? checksums : new FileChecksums(uploadChecksum);
+    }
+
+    /**
+     * Streams an uploaded archive into a project entry by entry. Files that fail are
+     * reported and the archive goes on, until ARGOS_UPLOAD_MAX_FAILED_FILES files have
+     * failed.
+     *
+     * @param projectId the ID of the project to associate with the uploaded files.
+     * @param archive the uploaded archive.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the thread-safe listener receiving the result of each file.
+     * @return the files that could not be stored.
+     * @throws BadRequestError if the archive is invalid.
+     */
+    private UploadFailures ingestArchive(
+            String projectId, MultipartFile archive, IngestFilter filter, UploadListener listener) {
+        UploadFailures failures = new UploadFailures(maxFailedUploadFiles);
+        try (InputStream in = archive.getInputStream();
+                Stage stage = RequestTrace.stage("ingestArchive")) {
+            stage.addBytes(archive.getSize());
+            stage.addFiles(
+                    archiveIngestor.ingest(
+                            projectId,
+                            in,
+                            ZipBudget.fromEnvironment(),
+                            filter,
+                            listener,
+                            failures));
+        } catch (IOException e) {
+            throw new BadRequestError("Failed to process archive: " + e.getMessage());
+        }
+        return failures;
+    }
+
     /**
      * Uploads all files from a local directory to the S3 bucket under a specific project.
      *
@@ -72,54 +330,332 @@ public class S3Repository implements IStorageRepository {
      */
     @Override
     public Map<String, String> uploadDirectory(String projectId, String localDir) {
+        Map<String, String> result = new ConcurrentHashMap<>();
+        uploadDirectory(
+                projectId,
+                localDir,
+                IngestFilter.fromEnvironment(),
+                UploadListener.collectingInto(result));
+        return result;
+    }
+
+    /**
+     * Uploads the files from a local directory that the ingest filter keeps, reporting each
+     * file to a listener as soon as it is stored.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param localDir the local directory path containing the files to be uploaded.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     */
+    @Override
+    public void uploadDirectory(
+            String projectId, String localDir, IngestFilter filter, UploadListener listener) {
         InputValidator.getInstance().validateProjectId(projectId);
         Path directory = InputValidator.getInstance().validateDirectory(localDir);
 
-        List<Path> files = FileProcessor.getInstance().getFilesFromDirectory(directory);
+        List<Path> files =
+                filter.isEmpty()
+                        ? FileProcessor.getInstance().getFilesFromDirectory(directory)
+                        : FileProcessor.getInstance()
+                                .getFilesFromDirectory(
+                                        directory, ingestSession(projectId, filter, listener));
         FileProcessor.getInstance().validateFilesExist(files);
 
-        Map<String, String> result = new HashMap<>();
-        uploadFiles(projectId, directory, files, result);
-        return result;
+        FileChecksums checksums = new FileChecksums(uploadChecksum);
+        uploadCheckpointed(
+                projectId,
+                listener,
+                stats -> uploadFiles(projectId, directory, files, checksums, stats));
+    }
+
+    /**
+     * Starts applying an ingest filter to an upload, reporting the paths it leaves out to
+     * the upload's listener.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filter the ingest filter.
+     * @param listener the listener receiving the result of each file.
+     * @return the ingest session of the upload.
+     */
+    private IngestSession ingestSession(
+            String projectId, IngestFilter filter, UploadListener listener) {
+        return new IngestSession(
+                filter,
+                (path, reason) ->
+                        listener.filtered(KeyGenerator.generateKey(projectId, path), reason));
+    }
+
+    /**
+     * Prepares the resumption of an upload from its checkpoint.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param listener the listener receiving the result of each file.
+     * @return the listener skipping the checkpointed files.
+     * @throws NotFoundError if the project has no unfinished upload.
+     */
+    @Override
+    public UploadListener resumeUpload(String projectId, UploadListener listener) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        Map<String, Long> completed = checkpointStore.load(projectId);
+        if (completed.isEmpty()) {
+            throw new NotFoundError("No unfinished upload found for project ID: " + projectId);
+        }
+        return checkpointStore.resuming(completed, listener);
+    }
+
+    /**
+     * Uploads files while checkpointing the stored ones. If some files fail, the checkpoint
+     * is saved so that the upload can be resumed; once the upload completes it is deleted.
+     * An upload that failed before storing any file cannot be resumed and fails as usual.
+     * The stats index of the stored files is saved either way, so that a resumed upload
+     * can complete it.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param listener the thread-safe listener receiving the result of each file.
+     * @param upload the upload, storing the files and reporting them to the listener it is
+     *               given, and returning the files it could not store.
+     * @throws IncompleteUploadError if some files could not be stored and the upload can be
+     *                               resumed.
+     */
+    private void uploadCheckpointed(
+            String projectId,
+            UploadListener listener,
+            Function<UploadListener, UploadFailures> upload) {
+        UploadCheckpointStore.Checkpoint checkpoint = checkpointStore.open(projectId, listener);
+        ProjectStatsStore.Recorder stats = statsStore.recorder(projectId, checkpoint);
+        UploadFailures failures;
+        try {
+            failures = upload.apply(stats);
+        } catch (RuntimeException e) {
+            checkpoint.save();
+            stats.save();
+            throw e;
+        }
+        stats.save();
+        if (!failures.isEmpty()) {
+            throw checkpoint.save() ? failures.toError(projectId) : failures.toError();
+        }
+        checkpoint.discard();
     }
 
     /**
      * Uploads multiple files to S3 under the specified project.
+     * Files are uploaded by up to ARGOS_UPLOAD_CONCURRENCY workers. Failed PUTs are retried
+     * with backoff; a file that still fails is reported to the listener and the remaining
+     * files are uploaded, until ARGOS_UPLOAD_MAX_FAILED_FILES files have failed.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param directory the root directory of the files being uploaded.
+     * @param files the list of files to upload.
+     * @param checksums the checksums to send with the files.
+     * @param listener the thread-safe listener receiving the result of each file.
+     * @return the files that could not be stored.
+     */
+    private UploadFailures uploadFiles(
+            String projectId,
+            Path directory,
+            List<Path> files,
+            FileChecksums checksums,
+            UploadListener listener) {
+        UploadFailures failures = new UploadFailures(maxFailedUploadFiles);
+        try (Stage stage = RequestTrace.stage("putObjects")) {
+            uploadFiles(projectId, directory, files, checksums, listener, failures, stage);
+        }
+        return failures;
+    }
+
+    /**
+     * Uploads multiple files to S3, reporting each PUT to the given trace stage.
      *
      * @param projectId the unique identifier for the project.
      * @param directory the root directory of the files being uploaded.
      * @param files the list of files to upload.
-     * @param result a map to store upload results.
+     * @param checksums the checksums to send with the files.
+     * @param listener the thread-safe listener receiving the result of each file.
+     * @param failures the collector of the files that could not be stored.
+     * @param stage the stage of the request trace timing the uploads.
      */
     private void uploadFiles(
-            String projectId, Path directory, List<Path> files, Map<String, String> result) {
-        for (Path file : files) {
-            uploadSingleFile(projectId, directory, file, result);
+            String projectId,
+            Path directory,
+            List<Path> files,
+            FileChecksums checksums,
+            UploadListener listener,
+            UploadFailures failures,
+            Stage stage) {
+        if (uploadConcurrency <= 1 || files.size() <= 1) {
+            for (Path file : files) {
+                if (failures.limitReached()) {
+                    return;
+                }
+                uploadSingleFile(
+                        projectId, directory, file, checksums, listener, failures, stage);
+            }
+            return;
         }
+
+        Queue<Path> pending = new ConcurrentLinkedQueue<>(files);
+        int workers = Math.min(uploadConcurrency, files.size());
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            futures.add(
+                    uploadExecutor.submit(
+                            () ->
+                                    drainUploads(
+                                            projectId,
+                                            directory,
+                                            pending,
+                                            checksums,
+                                            listener,
+                                            failures,
+                                            stage)));
+        }
+        awaitUploads(futures);
     }
 
     /**
-     * Uploads a single file to S3.
+     * Uploads queued files until the queue is empty or too many files have failed.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param directory the root directory of the files being uploaded.
+     * @param pending the shared queue of files still to upload.
+     * @param checksums the checksums to send with the files.
+     * @param listener the thread-safe listener receiving the result of each file.
+     * @param failures the collector of the files that could not be stored.
+     * @param stage the stage of the request trace timing the uploads.
+     */
+    private void drainUploads(
+            String projectId,
+            Path directory,
+            Queue<Path> pending,
+            FileChecksums checksums,
+            UploadListener listener,
+            UploadFailures failures,
+            Stage stage) {
+        Path file;
+        while (!failures.limitReached() && (file = pending.poll()) != null) {
+            uploadSingleFile(projectId, directory, file, checksums, listener, failures, stage);
+        }
+    }
+
+    /**
+     * Waits for all upload workers to finish.
+     *
+     * @param futures the futures of the submitted workers.
+     * @throws BadRequestError if waiting is interrupted or a worker fails unexpectedly.
+     */
+    private void awaitUploads(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BadRequestError("Upload interrupted.");
+            } catch (ExecutionException e) {
+                throw new BadRequestError("Failed to upload files to S3: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Uploads a single file to S3, retrying retryable failures with backoff. A file that
+     * still fails is reported to the listener and the failure collector. The facts of a
+     * stored file are computed as the S3 client reads it and reported to the listener.
      *
      * @param projectId the unique identifier for the project.
      * @param directory the root directory of the files being uploaded.
      * @param file the file to upload.
-     * @param result a map to store upload results.
+     * @param checksums the checksums to send with the file.
+     * @param listener the listener receiving the result of the file.
+     * @param failures the collector of the files that could not be stored.
+     * @param stage the stage of the request trace timing the uploads.
      */
     private void uploadSingleFile(
-            String projectId, Path directory, Path file, Map<String, String> result) {
-        String key = KeyGenerator.generateKey(projectId, directory, file);
+            String projectId,
+            Path directory,
+            Path file,
+            FileChecksums checksums,
+            UploadListener listener,
+            UploadFailures failures,
+            Stage stage) {
+        String key = KeyGenerator.objectKey(projectId, directory, file);
+        String clientKey = KeyGenerator.generateKey(projectId, directory, file);
+        long size = file.toFile().length();
+        if (!listener.shouldUpload(clientKey, size)) {
+            listener.skipped(clientKey, size);
+            return;
+        }
+        ContentProfiler profiler = new ContentProfiler();
+        PutObjectResponse response;
         try {
-            s3Client.putObject(
-                    PutObjectRequest.builder().bucket(bucketName).key(key).build(),
-                    RequestBody.fromFile(file));
-            result.put(key, "Uploaded");
-        } catch (S3Exception e) {
-            throw new BadRequestError(
-                    "Failed to upload files to S3: " + e.awsErrorDetails().errorMessage());
+            response = putWithRetries(key, file, checksums, profiler);
+        } catch (RuntimeException e) {
+            String error = uploadError(e);
+            listener.failed(clientKey, error);
+            failures.add(clientKey, error);
+            return;
+        }
+        stage.addFiles(1).addBytes(size).addRequestId(response);
+        if (profiler.bytes() == size) {
+            listener.described(clientKey, profiler.facts(file.getFileName().toString()));
+        }
+        listener.uploaded(clientKey, size);
+    }
+
+    /**
+     * Stores a file with its checksum, retrying retryable failures with backoff. A file
+     * whose checksum was not recorded during extraction is checksummed by the S3 client
+     * while it is sent, and every file is profiled as it is read. This loop is the only
+     * retry layer of the PUT: the S3 client is built without SDK retries in
+     * {@link org.argos.file.manager.config.S3Config}, so a file is sent at most
+     * ARGOS_S3_WRITE_MAX_ATTEMPTS times.
+     *
+     * @param key the object key of the file.
+     * @param file the file to upload.
+     * @param checksums the checksums to send with the files.
+     * @param profiler the profiler computing the facts of the file.
+     * @return the response of the successful PUT.
+     */
+    private PutObjectResponse putWithRetries(
+            String key, Path file, FileChecksums checksums, ContentProfiler profiler) {
+        PutObjectRequest request =
+                checksums
+                        .algorithm()
+                        .applyTo(
+                                PutObjectRequest.builder().bucket(bucketName).key(key),
+                                checksums.get(file))
+                        .build();
+        String contentType = ContentTypes.of(file);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return s3Client.putObject(
+                        request,
+                        RequestBody.fromContentProvider(
+                                profiler.streamOf(file), file.toFile().length(), contentType));
+            } catch (RuntimeException e) {
+                if (attempt >= uploadRetryPolicy.maxAttempts()
+                        || !uploadRetryPolicy.isRetryable(e)
+                        || !uploadRetryPolicy.sleepBeforeRetry(attempt)) {
+                    throw e;
+                }
+            }
         }
     }
 
+    /**
+     * Returns the message reported for a failed PUT.
+     *
+     * @param e the failure.
+     * @return the S3 error message, or the message of a client-side failure.
+     */
+    private String uploadError(RuntimeException e) {
+        if (e instanceof S3Exception s3Exception && s3Exception.awsErrorDetails() != null) {
+            return s3Exception.awsErrorDetails().errorMessage();
+        }
+        return e.getMessage();
+    }
+
     /**
      * Lists all the files stored in the S3 bucket for a specific project.
      *
@@ -128,8 +664,19 @@ public class S3Repository implements IStorageRepository {
      */
     @Override
     public List<String> listFiles(String projectId) {
+        return listStoredFiles(projectId).stream().map(StoredFile::key).toList();
+    }
+
+    /**
+     * Lists all the files stored in the S3 bucket for a specific project, with their sizes.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return a list of stored files for the project.
+     */
+    @Override
+    public List<StoredFile> listStoredFiles(String projectId) {
         InputValidator.getInstance().validateProjectId(projectId);
-        String prefix = String.format("projects/%s/", projectId);
+        String prefix = KeyGenerator.projectPrefix(projectId);
 
         try {
             ListObjectsV2Request request =
@@ -140,7 +687,13 @@ public class S3Repository implements IStorageRepository {
                 throw new NotFoundError("No files found for project ID: " + projectId);
             }
 
-            return response.contents().stream().map(S3Object::key).toList();
+            return response.contents().stream()
+                    .map(
+                            object ->
+                                    new StoredFile(
+                                            KeyGenerator.clientKey(projectId, object.key()),
+                                            sizeOf(object)))
+                    .toList();
         } catch (S3Exception e) {
             String errorMessage =
                     e.awsErrorDetails() != null
@@ -151,8 +704,88 @@ public class S3Repository implements IStorageRepository {
         }
     }
 
+    /**
+     * Lists the files of a project whose relative paths match a pattern. The literal prefix
+     * of the pattern narrows the listing request, the rest of the pattern is matched against
+     * each page of keys, and the matches of a page are handed over before the next page is
+     * requested. A project without matching files yields no batch rather than an error.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param pattern the pattern the relative file paths must match.
+     * @param matches receives each non-empty batch of matching file keys, in listing order.
+     */
+    @Override
+    public void listMatchingFiles(
+            String projectId, PathPattern pattern, Consumer<List<String>> matches) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        String prefix = listingPrefix(projectId, pattern);
+
+        try {
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response page =
+                        s3Client.listObjectsV2(
+                                ListObjectsV2Request.builder()
+                                        .bucket(bucketName)
+                                        .prefix(prefix)
+                                        .continuationToken(continuationToken)
+                                        .build());
+                List<String> batch = new ArrayList<>();
+                for (S3Object object : page.contents()) {
+                    String filePath = KeyGenerator.filePath(projectId, object.key());
+                    if (pattern.matches(filePath)) {
+                        batch.add(KeyGenerator.generateKey(projectId, filePath));
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    matches.accept(batch);
+                }
+                continuationToken =
+                        Boolean.TRUE.equals(page.isTruncated())
+                                ? page.nextContinuationToken()
+                                : null;
+            } while (continuationToken != null);
+        } catch (S3Exception e) {
+            String errorMessage =
+                    e.awsErrorDetails() != null
+                            ? e.awsErrorDetails().errorMessage()
+                            : "Error occurred";
+
+            throw new BadRequestError("Failed to list files: " + errorMessage);
+        }
+    }
+
+    /**
+     * Returns the key prefix to list for the files matching a pattern. Under the partitioned
+     * layout the partition is derived from the whole path, so only a pattern naming a single
+     * file narrows the listing beyond the project prefix.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param pattern the pattern the relative file paths must match.
+     * @return the key prefix of the listing request.
+     */
+    private String listingPrefix(String projectId, PathPattern pattern) {
+        if (KeyLayout.resolve(projectId) == KeyLayout.V2) {
+            return pattern.isLiteral()
+                    ? KeyGenerator.objectKey(projectId, pattern.literalPrefix())
+                    : KeyGenerator.projectPrefix(projectId);
+        }
+        return KeyGenerator.projectPrefix(projectId) + pattern.literalPrefix();
+    }
+
+    /**
+     * Returns the size of a listed S3 object, treating a missing size as zero.
+     *
+     * @param object the listed S3 object.
+     * @return the object size in bytes.
+     */
+    private long sizeOf(S3Object object) {
+        return object.size() != null ? object.size() : 0L;
+    }
+
     /**
      * Retrieves the content of a specific file stored in the S3 bucket for a given project.
+     * The GET is hedged and retried according to the {@link HedgedReader} policy.
      *
      * @param projectId the unique identifier for the project.
      * @param filePath the path of the file within the S3 bucket.
@@ -163,12 +796,20 @@ public class S3Repository implements IStorageRepository {
         InputValidator.getInstance().validateProjectId(projectId);
         InputValidator.getInstance().validateFilePath(filePath);
 
-        String key = String.format("projects/%s/%s", projectId, filePath);
+        String key = KeyGenerator.objectKey(projectId, filePath);
 
-        try {
+        try (Stage stage = RequestTrace.stage("getObject")) {
             GetObjectRequest request =
                     GetObjectRequest.builder().bucket(bucketName).key(key).build();
-            return s3Client.getObjectAsBytes(request).asUtf8String();
+            ResponseBytes<GetObjectResponse> object =
+                    hedgedReader.read(() -> s3Client.getObjectAsBytes(request));
+            String content = object.asUtf8String();
+            GetObjectResponse response = object.response();
+            stage.addFiles(1).addRequestId(response);
+            if (response != null && response.contentLength() != null) {
+                stage.addBytes(response.contentLength());
+            }
+            return content;
         } catch (NoSuchKeyException e) {
             throw new NotFoundError("File not found: " + filePath);
         } catch (S3Exception e) {
@@ -178,4 +819,713 @@ public class S3Repository implements IStorageRepository {
             throw new BadRequestError("Error reading file content: " + e.getMessage());
         }
     }
+
+    /**
+     * Returns null, as file contents are not held in memory by this repository.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @return null.
+     */
+    @Override
+    public String getCachedFileContent(String projectId, String filePath) {
+        return null;
+    }
+
+    /**
+     * Reads a range of lines of a file with a ranged GET guided by its line-offset index.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @param fromLine the 1-based number of the first line.
+     * @param toLine the 1-based number of the last line, inclusive.
+     * @return the lines of the range that exist in the file.
+     */
+    @Override
+    public LineRange readLines(String projectId, String filePath, int fromLine, int toLine) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateFilePath(filePath);
+        return lineRangeReader.read(projectId, filePath, fromLine, toLine);
+    }
+
+    /**
+     * Creates a short-lived presigned GET URL for a file after checking that it exists.
+     * Signing happens locally; only the existence check calls S3.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @return the presigned URL with the size of the file.
+     */
+    @Override
+    public PresignedFile presignFile(String projectId, String filePath) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateFilePath(filePath);
+
+        String key = KeyGenerator.objectKey(projectId, filePath);
+        long size = headSize(key, filePath);
+        PresignedGetObjectRequest presigned =
+                presigner().presignGetObject(
+                        GetObjectPresignRequest.builder()
+                                .signatureDuration(presignTtl)
+                                .getObjectRequest(
+                                        GetObjectRequest.builder()
+                                                .bucket(bucketName)
+                                                .key(key)
+                                                .build())
+                                .build());
+        return new PresignedFile(
+                filePath, presigned.url().toString(), size, presigned.expiration());
+    }
+
+    /**
+     * Creates presigned GET URLs for several files, checking their existence concurrently.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePaths the paths of the files within the project.
+     * @return the presigned URLs, in request order.
+     */
+    @Override
+    public List<PresignedFile> presignFiles(String projectId, List<String> filePaths) {
+        List<CompletableFuture<PresignedFile>> futures =
+                filePaths.stream()
+                        .map(
+                                filePath ->
+                                        CompletableFuture.supplyAsync(
+                                                () -> presignFile(projectId, filePath),
+                                                readExecutor))
+                        .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException apiException) {
+                throw apiException;
+            }
+            throw new BadRequestError("Failed to presign files: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the metadata of a file with a HEAD request, so none of its content is
+     * transferred.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @return the metadata of the file.
+     * @throws NotFoundError if the file does not exist.
+     */
+    @Override
+    public FileStat statFile(String projectId, String filePath) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateFilePath(filePath);
+
+        HeadObjectResponse response = head(KeyGenerator.objectKey(projectId, filePath), filePath);
+        return new FileStat(
+                filePath,
+                true,
+                response.contentLength() != null ? response.contentLength() : 0L,
+                response.eTag(),
+                response.contentType(),
+                response.lastModified());
+    }
+
+    /**
+     * Reads the metadata of several files with concurrent HEAD requests. Files that do not
+     * exist are reported as missing rather than failing the request.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePaths the paths of the files within the project.
+     * @return the metadata of each file, in request order.
+     */
+    @Override
+    public List<FileStat> statFiles(String projectId, List<String> filePaths) {
+        List<CompletableFuture<FileStat>> futures =
+                filePaths.stream()
+                        .map(
+                                filePath ->
+                                        CompletableFuture.supplyAsync(
+                                                () -> statOrMissing(projectId, filePath),
+                                                readExecutor))
+                        .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException apiException) {
+                throw apiException;
+            }
+            throw new BadRequestError("Failed to read file metadata: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the metadata of a file, reporting a missing file instead of failing.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @return the metadata of the file.
+     */
+    private FileStat statOrMissing(String projectId, String filePath) {
+        try {
+            return statFile(projectId, filePath);
+        } catch (NotFoundError e) {
+            return FileStat.missing(filePath);
+        }
+    }
+
+    /**
+     * Hands out presigned URLs through which a client uploads an archive straight to the
+     * staging key of a project. With more than one part, a multipart upload is started and
+     * one URL is presigned per part.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param parts the number of parts the client will upload.
+     * @return the presigned upload URLs.
+     */
+    @Override
+    public StagedUpload createStagedUpload(String projectId, int parts) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        if (parts < 1 || parts > MAX_UPLOAD_PARTS) {
+            throw new BadRequestError("Parts must be between 1 and " + MAX_UPLOAD_PARTS + ".");
+        }
+        S3Presigner presigner = presigner();
+        String key = KeyGenerator.stagingKey(projectId);
+
+        if (parts == 1) {
+            PresignedPutObjectRequest presigned =
+                    presigner.presignPutObject(
+                            PutObjectPresignRequest.builder()
+                                    .signatureDuration(stagingUrlTtl)
+                                    .putObjectRequest(
+                                            PutObjectRequest.builder()
+                                                    .bucket(bucketName)
+                                                    .key(key)
+                                                    .build())
+                                    .build());
+            return new StagedUpload(
+                    projectId, presigned.url().toString(), null, List.of(), presigned.expiration());
+        }
+
+        try {
+            String uploadId =
+                    s3Client.createMultipartUpload(
+                                    CreateMultipartUploadRequest.builder()
+                                            .bucket(bucketName)
+                                            .key(key)
+                                            .build())
+                            .uploadId();
+            List<String> partUrls = new ArrayList<>(parts);
+            Instant expiresAt = null;
+            for (int partNumber = 1; partNumber <= parts; partNumber++) {
+                PresignedUploadPartRequest presigned =
+                        presigner.presignUploadPart(
+                                UploadPartPresignRequest.builder()
+                                        .signatureDuration(stagingUrlTtl)
+                                        .uploadPartRequest(
+                                                UploadPartRequest.builder()
+                                                        .bucket(bucketName)
+                                                        .key(key)
+                                                        .uploadId(uploadId)
+                                                        .partNumber(partNumber)
+                                                        .build())
+                                        .build());
+                partUrls.add(presigned.url().toString());
+                expiresAt = presigned.expiration();
+            }
+            return new StagedUpload(projectId, null, uploadId, partUrls, expiresAt);
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to create upload: " + uploadError(e));
+        }
+    }
+
+    /**
+     * Processes an archive uploaded to the staging key of a project. The archive is streamed
+     * from S3 and its entries are uploaded to the project keys as they are inflated, so the
+     * archive is never written to local disk as a whole. The staged archive is deleted once
+     * it has been ingested. A failed run deletes the files it already wrote but keeps the
+     * archive, so the processing can be retried; archives never processed successfully are
+     * expired by the bucket lifecycle rule.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param uploadId the ID of a multipart upload to complete first, or null.
+     * @param partETags the ETags of the uploaded parts, in part-number order.
+     * @return a map containing the uploaded file keys and their statuses.
+     */
+    @Override
+    public Map<String, String> processStagedUpload(
+            String projectId, String uploadId, List<String> partETags) {
+        Map<String, String> result = new ConcurrentHashMap<>();
+        processStagedUpload(
+                projectId,
+                uploadId,
+                partETags,
+                IngestFilter.fromEnvironment(),
+                UploadListener.collectingInto(result));
+        return result;
+    }
+
+    /**
+     * Processes an archive uploaded to the staging key of a project, reporting each file to
+     * a listener as soon as it is stored. Entries left out by the ingest filter are skipped
+     * while the archive streams.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param uploadId the ID of a multipart upload to complete first, or null.
+     * @param partETags the ETags of the uploaded parts, in part-number order.
+     * @param filter the ingest filter deciding which files are stored.
+     * @param listener the listener receiving the result of each file.
+     */
+    @Override
+    public void processStagedUpload(
+            String projectId,
+            String uploadId,
+            List<String> partETags,
+            IngestFilter filter,
+            UploadListener listener) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        String key = KeyGenerator.stagingKey(projectId);
+        if (uploadId != null) {
+            completeStagedUpload(key, uploadId, partETags);
+        }
+
+        ResponseInputStream<GetObjectResponse> archive;
+        try {
+            archive =
+                    s3Client.getObject(
+                            GetObjectRequest.builder().bucket(bucketName).key(key).build());
+        } catch (NoSuchKeyException e) {
+            throw new NotFoundError("No staged upload found for project ID: " + projectId);
+        }
+
+        ProjectStatsStore.Recorder stats = statsStore.recorder(projectId, listener);
+        boolean ingested = false;
+        try (Stage stage = RequestTrace.stage("ingestArchive")) {
+            stage.addFiles(
+                    archiveIngestor.ingest(
+                            projectId, archive, ZipBudget.fromEnvironment(), filter, stats));
+            ingested = true;
+        } catch (RuntimeException e) {
+            discardPartialUpload(projectId, e);
+            throw e;
+        } finally {
+            closeStagedArchive(archive, ingested);
+        }
+        deleteStagedArchive(key);
+        stats.save();
+    }
+
+    /**
+     * Completes the multipart upload of a staged archive. An upload that no longer exists
+     * has already been completed by an earlier attempt whose processing failed, so its
+     * archive is processed again.
+     *
+     * @param key the staging key.
+     * @param uploadId the ID of the multipart upload.
+     * @param partETags the ETags of the uploaded parts, in part-number order.
+     */
+    private void completeStagedUpload(String key, String uploadId, List<String> partETags) {
+        if (partETags == null || partETags.isEmpty()) {
+            throw new BadRequestError("Part ETags are required to complete a multipart upload.");
+        }
+        List<CompletedPart> parts = new ArrayList<>(partETags.size());
+        for (int i = 0; i < partETags.size(); i++) {
+            parts.add(CompletedPart.builder().partNumber(i + 1).eTag(partETags.get(i)).build());
+        }
+        try {
+            s3Client.completeMultipartUpload(
+                    CompleteMultipartUploadRequest.builder()
+                            .bucket(bucketName)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .multipartUpload(
+                                    CompletedMultipartUpload.builder().parts(parts).build())
+                            .build());
+        } catch (NoSuchUploadException e) {
+            // Retried processing; a missing archive is reported when it is read.
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to complete upload: " + uploadError(e));
+        }
+    }
+
+    /**
+     * Deletes the files already written by a failed upload. A cleanup failure is attached
+     * to the original failure instead of replacing it.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param failure the failure that aborted the upload, or null.
+     */
+    private void discardPartialUpload(String projectId, RuntimeException failure) {
+        try {
+            batchDeleter.deletePrefix(
+                    projectId,
+                    KeyGenerator.projectPrefix(projectId),
+                    new DeletionProgress(projectId));
+        } catch (RuntimeException cleanupFailure) {
+            if (failure != null) {
+                failure.addSuppressed(cleanupFailure);
+            }
+        }
+    }
+
+    /**
+     * Closes the stream of a staged archive. After a successful run the few bytes following
+     * the last entry are drained so the connection can be reused; otherwise it is aborted.
+     *
+     * @param archive the archive stream.
+     * @param drain whether the remaining bytes should be drained.
+     */
+    private void closeStagedArchive(ResponseInputStream<GetObjectResponse> archive, boolean drain) {
+        try {
+            if (drain) {
+                archive.transferTo(OutputStream.nullOutputStream());
+            } else {
+                archive.abort();
+            }
+            archive.close();
+        } catch (IOException e) {
+            // The archive has been fully processed or abandoned at this point.
+        }
+    }
+
+    /**
+     * Deletes a staged archive once it has been ingested.
+     *
+     * @param key the staging key.
+     */
+    private void deleteStagedArchive(String key) {
+        try {
+            s3Client.deleteObject(
+                    DeleteObjectRequest.builder().bucket(bucketName).key(key).build());
+        } catch (S3Exception e) {
+            // Leftover staging objects are removed by the bucket lifecycle rule.
+        }
+    }
+
+    /**
+     * Returns the URL presigner.
+     *
+     * @return the presigner.
+     * @throws ServiceUnavailableError if no presigner is configured.
+     */
+    private S3Presigner presigner() {
+        if (s3Presigner == null) {
+            throw new ServiceUnavailableError("Presigned URLs are not available.");
+        }
+        return s3Presigner;
+    }
+
+    /**
+     * Returns the size of an object, checking that it exists.
+     *
+     * @param key the object key.
+     * @param filePath the relative path reported if the object does not exist.
+     * @return the object size in bytes.
+     */
+    private long headSize(String key, String filePath) {
+        HeadObjectResponse response = head(key, filePath);
+        return response.contentLength() != null ? response.contentLength() : 0L;
+    }
+
+    /**
+     * Reads the metadata of an object.
+     *
+     * @param key the object key.
+     * @param filePath the relative path reported if the object does not exist.
+     * @return the HEAD response.
+     * @throws NotFoundError if the object does not exist.
+     */
+    private HeadObjectResponse head(String key, String filePath) {
+        try {
+            return s3Client.headObject(
+                    HeadObjectRequest.builder().bucket(bucketName).key(key).build());
+        } catch (NoSuchKeyException e) {
+            throw new NotFoundError("File not found: " + filePath);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NotFoundError("File not found: " + filePath);
+            }
+            String errorMessage =
+                    e.awsErrorDetails() != null
+                            ? e.awsErrorDetails().errorMessage()
+                            : "Error occurred";
+            throw new BadRequestError("Failed to retrieve file: " + errorMessage);
+        }
+    }
+
+    /**
+     * Forks a project by copying its objects server-side, so no file content passes through
+     * the service. Files of the overlay ZIP replace or extend the copied files. If the fork
+     * fails, the partially written project is deleted. Only the facts of the overlay files
+     * are indexed; {@link #inheritStats} adds those of the copied files.
+     *
+     * @param sourceProjectId the unique identifier of the project to copy.
+     * @param targetProjectId the unique identifier of the new project.
+     * @param overlayZip a ZIP of changed files, or null to copy the project unchanged.
+     * @return a map containing the file keys of the new project and "Copied" or "Uploaded".
+     */
+    @Override
+    public Map<String, String> forkProject(
+            String sourceProjectId, String targetProjectId, MultipartFile overlayZip) {
+        InputValidator.getInstance().validateProjectId(sourceProjectId);
+        InputValidator.getInstance().validateProjectId(targetProjectId);
+
+        Path overlayDir =
+                overlayZip != null
+                        ? FileProcessor.getInstance().processAndExtractZip(overlayZip)
+                        : null;
+        try {
+            List<Path> overlayFiles =
+                    overlayDir != null
+                            ? FileProcessor.getInstance().getExtractedFiles(overlayDir, overlayZip)
+                            : List.of();
+            Set<String> overlaidKeys = new HashSet<>();
+            for (Path file : overlayFiles) {
+                overlaidKeys.add(KeyGenerator.objectKey(sourceProjectId, overlayDir, file));
+            }
+
+            Map<String, String> result = new ConcurrentHashMap<>();
+            ProjectStatsStore.Recorder stats =
+                    statsStore.recorder(targetProjectId, UploadListener.collectingInto(result));
+            try {
+                Map<String, String> copied;
+                try (Stage stage = RequestTrace.stage("copyObjects")) {
+                    copied =
+                            projectCopier.copyPrefix(
+                                    sourceProjectId,
+                                    KeyGenerator.projectPrefix(sourceProjectId),
+                                    key ->
+                                            KeyGenerator.objectKey(
+                                                    targetProjectId,
+                                                    KeyGenerator.filePath(sourceProjectId, key)),
+                                    key -> !overlaidKeys.contains(key));
+                    stage.addFiles(copied.size());
+                }
+                copied.forEach(
+                        (key, status) ->
+                                result.put(KeyGenerator.clientKey(targetProjectId, key), status));
+                UploadFailures failures =
+                        uploadFiles(
+                                targetProjectId,
+                                overlayDir,
+                                overlayFiles,
+                                overlayDir != null
+                                        ? extractedChecksums(overlayDir)
+                                        : new FileChecksums(uploadChecksum),
+                                stats);
+                if (!failures.isEmpty()) {
+                    throw failures.toError();
+                }
+            } catch (RuntimeException e) {
+                discardPartialUpload(targetProjectId, e);
+                throw e;
+            }
+            stats.save();
+            return result;
+        } finally {
+            if (overlayDir != null) {
+                FileProcessor.getInstance().releaseTempDirectory(overlayDir);
+            }
+        }
+    }
+
+    /**
+     * Builds the snapshot manifest of a project from a listing of its files and stores it.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param parentProjectId the project it was derived from, or null.
+     * @return the snapshot manifest.
+     */
+    @Override
+    public SnapshotManifest createSnapshot(String projectId, String parentProjectId) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        return snapshotStore.create(projectId, parentProjectId);
+    }
+
+    /**
+     * Loads the stored snapshot manifest of a project, building it on first use.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the snapshot manifest.
+     */
+    @Override
+    public SnapshotManifest getSnapshot(String projectId) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        return snapshotStore.get(projectId);
+    }
+
+    /**
+     * Loads the stats index recorded for a project while its files were uploaded.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the facts of the project's files with their aggregates.
+     */
+    @Override
+    public ProjectStats getStats(String projectId) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        return statsStore.get(projectId);
+    }
+
+    /**
+     * Completes the stats index of a fork with the facts of the files copied from its
+     * source, without reading any file.
+     *
+     * @param projectId the unique identifier of the fork.
+     * @param sourceProjectId the unique identifier of the forked project.
+     */
+    @Override
+    public void inheritStats(String projectId, String sourceProjectId) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        InputValidator.getInstance().validateProjectId(sourceProjectId);
+        statsStore.inherit(projectId, sourceProjectId);
+    }
+
+    /**
+     * Deletes every file stored for a project, then its metadata, with batched DeleteObjects
+     * requests.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param progress the progress updated while the deletion runs.
+     * @return the outcome of the deletion.
+     */
+    @Override
+    public DeletionResult deleteProject(String projectId, DeletionProgress progress) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        DeletionResult result =
+                batchDeleter.deletePrefix(
+                        projectId, KeyGenerator.projectPrefix(projectId), progress);
+        deleteMetadata(projectId);
+        return result;
+    }
+
+    /**
+     * Deletes the metadata derived from the files of a deleted project. Leftover metadata
+     * is harmless, so failures are ignored.
+     *
+     * @param projectId the unique identifier for the project.
+     */
+    private void deleteMetadata(String projectId) {
+        try {
+            batchDeleter.deletePrefix(
+                    projectId,
+                    KeyGenerator.metadataPrefix(projectId),
+                    new DeletionProgress(projectId));
+        } catch (RuntimeException e) {
+            // Metadata is only read together with the files it was derived from.
+        }
+    }
+
+    /**
+     * Stores an empty expiry marker for a project and records its expiry in the project's
+     * metadata, replacing any earlier expiry. The marker of the earlier expiry is deleted;
+     * if that fails, the sweep drops it once it no longer matches the record.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param expiresAt the instant after which the project may be deleted.
+     */
+    @Override
+    public void scheduleExpiry(String projectId, Instant expiresAt) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        ProjectExpiry expiry =
+                new ProjectExpiry(projectId, Instant.ofEpochSecond(expiresAt.getEpochSecond()));
+        ProjectExpiry previous;
+        try {
+            previous = recordedExpiry(projectId);
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(KeyGenerator.expiryKey(expiry))
+                            .build(),
+                    RequestBody.empty());
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(KeyGenerator.expiryRecordKey(projectId))
+                            .build(),
+                    RequestBody.fromString(Long.toString(expiry.expiresAt().getEpochSecond())));
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to schedule project expiry: " + uploadError(e));
+        }
+        if (previous != null && !previous.equals(expiry)) {
+            try {
+                clearExpiry(previous);
+            } catch (RuntimeException e) {
+                // The sweep drops markers that no longer match the record.
+            }
+        }
+    }
+
+    /**
+     * Reads the expiry recorded in a project's metadata.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the recorded expiry, or null if the project has none or it cannot be read.
+     */
+    private ProjectExpiry recordedExpiry(String projectId) {
+        try {
+            String epochSecond =
+                    s3Client.getObjectAsBytes(
+                                    GetObjectRequest.builder()
+                                            .bucket(bucketName)
+                                            .key(KeyGenerator.expiryRecordKey(projectId))
+                                            .build())
+                            .asUtf8String();
+            return new ProjectExpiry(
+                    projectId, Instant.ofEpochSecond(Long.parseLong(epochSecond.trim())));
+        } catch (NoSuchKeyException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lists the expiry markers in expiry order and returns those that have passed.
+     * A marker replaced by a later expiry of its project is deleted instead of returned.
+     *
+     * @param now the current instant.
+     * @param limit the maximum number of projects to return.
+     * @return the expired projects.
+     */
+    @Override
+    public List<ProjectExpiry> findExpiredProjects(Instant now, int limit) {
+        List<ProjectExpiry> expired = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            ListObjectsV2Response page =
+                    s3Client.listObjectsV2(
+                            ListObjectsV2Request.builder()
+                                    .bucket(bucketName)
+                                    .prefix(KeyGenerator.EXPIRY_PREFIX)
+                                    .continuationToken(continuationToken)
+                                    .build());
+            for (S3Object object : page.contents()) {
+                ProjectExpiry expiry = KeyGenerator.parseExpiryKey(object.key());
+                if (expiry == null) {
+                    continue;
+                }
+                if (expiry.expiresAt().isAfter(now) || expired.size() >= limit) {
+                    return expired;
+                }
+                ProjectExpiry recorded = recordedExpiry(expiry.projectId());
+                if (recorded != null && !recorded.equals(expiry)) {
+                    clearExpiry(expiry);
+                    continue;
+                }
+                expired.add(expiry);
+            }
+            continuationToken =
+                    Boolean.TRUE.equals(page.isTruncated()) ? page.nextContinuationToken() : null;
+        } while (continuationToken != null);
+        return expired;
+    }
+
+    /**
+     * Deletes the expiry marker of a project.
+     *
+     * @param expiry the expiry to remove.
+     */
+    @Override
+    public void clearExpiry(ProjectExpiry expiry) {
+        s3Client.deleteObject(
+                DeleteObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(KeyGenerator.expiryKey(expiry))
+                        .build());
+    }
 }
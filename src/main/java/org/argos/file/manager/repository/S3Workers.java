@@ -0,0 +1,52 @@
+package org.argos.file.manager.repository;
+
+import java.util.concurrent.ExecutorService;
+import org.argos.file.manager.resilience.HedgedReader;
+import org.argos.file.manager.utils.EnvSettings;
+import org.argos.file.manager.utils.ExecutorFactory;
+
+/**
+ * Thread pools and read policy of the S3 repositories. They do not depend on the bucket, so
+ * the repositories of all storage shards share one set: adding a shard adds no threads, and
+ * hedges and retries of reads from every bucket draw on the same budget.
+ *
+ * @param uploadConcurrency the maximum number of concurrent file uploads per upload.
+ * @param uploadExecutor the executor running file uploads.
+ * @param readExecutor the executor running hedged reads and presigning.
+ * @param hedgedReader the policy applied to reads.
+ * @param deleteConcurrency the maximum number of concurrent delete batches.
+ * @param deleteExecutor the executor running delete batches.
+ * @param copyConcurrency the maximum number of concurrent server-side copies.
+ * @param copyExecutor the executor running server-side copies.
+ */
+public record S3Workers(
+        int uploadConcurrency,
+        ExecutorService uploadExecutor,
+        ExecutorService readExecutor,
+        HedgedReader hedgedReader,
+        int deleteConcurrency,
+        ExecutorService deleteExecutor,
+        int copyConcurrency,
+        ExecutorService copyExecutor) {
+
+    /**
+     * Creates the workers configured from environment variables.
+     *
+     * @return the workers.
+     */
+    public static S3Workers fromEnvironment() {
+        int uploadConcurrency = EnvSettings.getInt("ARGOS_UPLOAD_CONCURRENCY", 8);
+        ExecutorService readExecutor = ExecutorFactory.newUnboundedExecutor("argos-s3-read");
+        int deleteConcurrency = EnvSettings.getInt("ARGOS_DELETE_CONCURRENCY", 8);
+        int copyConcurrency = EnvSettings.getInt("ARGOS_COPY_CONCURRENCY", 16);
+        return new S3Workers(
+                uploadConcurrency,
+                ExecutorFactory.newExecutor("argos-upload", uploadConcurrency),
+                readExecutor,
+                HedgedReader.fromEnvironment(readExecutor),
+                deleteConcurrency,
+                ExecutorFactory.newExecutor("argos-delete", deleteConcurrency),
+                copyConcurrency,
+                ExecutorFactory.newExecutor("argos-copy", copyConcurrency));
+    }
+}
@@ -0,0 +1,279 @@
+package org.argos.file.manager.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.ProjectExpiry;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.InputValidator;
+import org.argos.file.manager.utils.PathPattern;
+import org.argos.file.manager.utils.ShardRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Repository routing every project to the storage shard recorded in its ID by
+ * {@link ShardRing}, so that projects spread over several buckets without a placement lookup.
+ * Operations on two projects, such as forks, require both to be on the same shard.
+ * Without configured shards, every project is routed to the primary one.
+ */
+@Repository
+public class ShardedStorageRepository implements IStorageRepository {
+
+    private final Map<String, IStorageRepository> shards;
+
+    /**
+     * Constructs the sharded repository over the S3 repository of the primary bucket and one
+     * S3 repository per shard configured in ARGOS_SHARDS. All of them share the S3 client and
+     * the workers of the primary repository, so the thread pools and the read retry budget
+     * do not grow with the number of shards; only the small per-bucket stores, such as the
+     * line index cache of ARGOS_LINE_INDEX_CACHE_ENTRIES entries, exist once per shard.
+     *
+     * @param primary the repository of the primary bucket.
+     * @param s3Client the S3 client to use for the other buckets.
+     * @param s3Presigner the presigner for URLs of the other buckets.
+     */
+    @Autowired
+    public ShardedStorageRepository(
+            S3Repository primary, S3Client s3Client, S3Presigner s3Presigner) {
+        this(shardsOf(primary, ShardRing.getInstance(), s3Client, s3Presigner));
+    }
+
+    /**
+     * Constructs the sharded repository over explicit shards.
+     *
+     * @param shards the repository of each shard by name, including {@link ShardRing#PRIMARY}.
+     * @throws IllegalArgumentException if the primary shard is missing.
+     */
+    public ShardedStorageRepository(Map<String, IStorageRepository> shards) {
+        if (!shards.containsKey(ShardRing.PRIMARY)) {
+            throw new IllegalArgumentException("The primary shard is required.");
+        }
+        this.shards = Map.copyOf(shards);
+    }
+
+    private static Map<String, IStorageRepository> shardsOf(
+            S3Repository primary, ShardRing ring, S3Client s3Client, S3Presigner s3Presigner) {
+        Map<String, IStorageRepository> shards = new HashMap<>();
+        shards.put(ShardRing.PRIMARY, primary);
+        for (ShardRing.Shard shard : ring.shards()) {
+            shards.put(
+                    shard.name(),
+                    new S3Repository(s3Client, s3Presigner, shard.bucket(), primary.workers()));
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the repository of the shard a project was created on.
+     *
+     * @param projectId the ID of the project.
+     * @return the repository of its shard.
+     * @throws NotFoundError if the shard recorded in the ID is not configured.
+     */
+    private IStorageRepository shard(String projectId) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        IStorageRepository shard = shards.get(ShardRing.shardOf(projectId));
+        if (shard == null) {
+            throw new NotFoundError("No storage shard configured for project ID: " + projectId);
+        }
+        return shard;
+    }
+
+    /**
+     * Returns the repository of the shard shared by two projects.
+     *
+     * @param projectId the ID of the project.
+     * @param otherProjectId the ID of the project it is derived from.
+     * @return the repository of their shard.
+     * @throws BadRequestError if the projects are on different shards.
+     */
+    private IStorageRepository sharedShard(String projectId, String otherProjectId) {
+        IStorageRepository shard = shard(projectId);
+        if (shard(otherProjectId) != shard) {
+            throw new BadRequestError(
+                    "Projects " + otherProjectId + " and " + projectId
+                            + " are on different shards.");
+        }
+        return shard;
+    }
+
+    @Override
+    public Map<String, String> uploadDirectory(String projectId, String localDir) {
+        return shard(projectId).uploadDirectory(projectId, localDir);
+    }
+
+    @Override
+    public void uploadDirectory(
+            String projectId, String localDir, IngestFilter filter, UploadListener listener) {
+        shard(projectId).uploadDirectory(projectId, localDir, filter, listener);
+    }
+
+    @Override
+    public Map<String, String> uploadMultiPartDirectory(String projectId, MultipartFile zipFile) {
+        return shard(projectId).uploadMultiPartDirectory(projectId, zipFile);
+    }
+
+    @Override
+    public void uploadMultiPartDirectory(
+            String projectId, MultipartFile zipFile, IngestFilter filter, UploadListener listener) {
+        shard(projectId).uploadMultiPartDirectory(projectId, zipFile, filter, listener);
+    }
+
+    @Override
+    public UploadListener resumeUpload(String projectId, UploadListener listener) {
+        return shard(projectId).resumeUpload(projectId, listener);
+    }
+
+    @Override
+    public List<String> listFiles(String projectId) {
+        return shard(projectId).listFiles(projectId);
+    }
+
+    @Override
+    public List<StoredFile> listStoredFiles(String projectId) {
+        return shard(projectId).listStoredFiles(projectId);
+    }
+
+    @Override
+    public void listMatchingFiles(
+            String projectId, PathPattern pattern, Consumer<List<String>> matches) {
+        shard(projectId).listMatchingFiles(projectId, pattern, matches);
+    }
+
+    @Override
+    public String getFileContent(String projectId, String filePath) {
+        return shard(projectId).getFileContent(projectId, filePath);
+    }
+
+    @Override
+    public String getCachedFileContent(String projectId, String filePath) {
+        return shard(projectId).getCachedFileContent(projectId, filePath);
+    }
+
+    @Override
+    public LineRange readLines(String projectId, String filePath, int fromLine, int toLine) {
+        return shard(projectId).readLines(projectId, filePath, fromLine, toLine);
+    }
+
+    @Override
+    public PresignedFile presignFile(String projectId, String filePath) {
+        return shard(projectId).presignFile(projectId, filePath);
+    }
+
+    @Override
+    public List<PresignedFile> presignFiles(String projectId, List<String> filePaths) {
+        return shard(projectId).presignFiles(projectId, filePaths);
+    }
+
+    @Override
+    public FileStat statFile(String projectId, String filePath) {
+        return shard(projectId).statFile(projectId, filePath);
+    }
+
+    @Override
+    public List<FileStat> statFiles(String projectId, List<String> filePaths) {
+        return shard(projectId).statFiles(projectId, filePaths);
+    }
+
+    @Override
+    public Map<String, String> forkProject(
+            String sourceProjectId, String targetProjectId, MultipartFile overlayZip) {
+        return sharedShard(targetProjectId, sourceProjectId)
+                .forkProject(sourceProjectId, targetProjectId, overlayZip);
+    }
+
+    @Override
+    public StagedUpload createStagedUpload(String projectId, int parts) {
+        return shard(projectId).createStagedUpload(projectId, parts);
+    }
+
+    @Override
+    public Map<String, String> processStagedUpload(
+            String projectId, String uploadId, List<String> partETags) {
+        return shard(projectId).processStagedUpload(projectId, uploadId, partETags);
+    }
+
+    @Override
+    public void processStagedUpload(
+            String projectId,
+            String uploadId,
+            List<String> partETags,
+            IngestFilter filter,
+            UploadListener listener) {
+        shard(projectId).processStagedUpload(projectId, uploadId, partETags, filter, listener);
+    }
+
+    @Override
+    public SnapshotManifest createSnapshot(String projectId, String parentProjectId) {
+        return shard(projectId).createSnapshot(projectId, parentProjectId);
+    }
+
+    @Override
+    public SnapshotManifest getSnapshot(String projectId) {
+        return shard(projectId).getSnapshot(projectId);
+    }
+
+    @Override
+    public ProjectStats getStats(String projectId) {
+        return shard(projectId).getStats(projectId);
+    }
+
+    @Override
+    public void inheritStats(String projectId, String sourceProjectId) {
+        sharedShard(projectId, sourceProjectId).inheritStats(projectId, sourceProjectId);
+    }
+
+    @Override
+    public DeletionResult deleteProject(String projectId, DeletionProgress progress) {
+        return shard(projectId).deleteProject(projectId, progress);
+    }
+
+    @Override
+    public void scheduleExpiry(String projectId, Instant expiresAt) {
+        shard(projectId).scheduleExpiry(projectId, expiresAt);
+    }
+
+    /**
+     * Finds the projects whose expiry has passed on every shard, oldest first.
+     *
+     * @param now the current instant.
+     * @param limit the maximum number of projects to return.
+     * @return the expired projects.
+     */
+    @Override
+    public List<ProjectExpiry> findExpiredProjects(Instant now, int limit) {
+        List<ProjectExpiry> expired = new ArrayList<>();
+        for (IStorageRepository shard : shards.values()) {
+            expired.addAll(shard.findExpiredProjects(now, limit));
+        }
+        return expired.stream()
+                .sorted(Comparator.comparing(ProjectExpiry::expiresAt))
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public void clearExpiry(ProjectExpiry expiry) {
+        shard(expiry.projectId()).clearExpiry(expiry);
+    }
+}
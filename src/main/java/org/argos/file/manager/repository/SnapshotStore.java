@@ -0,0 +1,180 @@
+package org.argos.file.manager.repository;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.utils.KeyGenerator;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Builds and stores the snapshot manifests of projects.
+ * A manifest is built from a listing of the project: the ETag and size S3 reports for each
+ * object identify its contents, so no file is downloaded. Manifests are stored under the
+ * project's metadata prefix; projects are never modified after their upload, so a stored
+ * manifest stays valid for the life of the project. Objects a fork copied in parts get a
+ * new multipart ETag, so they take over the node of the parent file they were copied from.
+ */
+public class SnapshotStore {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+
+    /**
+     * Creates a snapshot store.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket holding the projects.
+     */
+    public SnapshotStore(S3Client s3Client, String bucketName) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Builds the manifest of a project and stores it, replacing any stored manifest.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param parentProjectId the project the new project was derived from, or null.
+     * @return the manifest.
+     * @throws NotFoundError if the project has no files.
+     */
+    public SnapshotManifest create(String projectId, String parentProjectId) {
+        Set<String> multipartCopies = new HashSet<>();
+        Map<String, SnapshotManifest.Node> files = listFiles(projectId, multipartCopies);
+        if (parentProjectId != null && !multipartCopies.isEmpty()) {
+            inheritCopiedNodes(files, multipartCopies, parentProjectId);
+        }
+        SnapshotManifest manifest =
+                SnapshotManifest.build(projectId, parentProjectId, Instant.now(), files);
+        try {
+            s3Client.putObject(
+                    PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(KeyGenerator.snapshotKey(projectId))
+                            .build(),
+                    RequestBody.fromBytes(manifest.toBytes()));
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to store snapshot: " + errorMessage(e));
+        }
+        return manifest;
+    }
+
+    /**
+     * Returns the stored manifest of a project, building one without a parent if the
+     * project was uploaded without a snapshot.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the manifest.
+     * @throws NotFoundError if the project has no files.
+     */
+    public SnapshotManifest get(String projectId) {
+        try {
+            byte[] bytes =
+                    s3Client.getObjectAsBytes(
+                                    GetObjectRequest.builder()
+                                            .bucket(bucketName)
+                                            .key(KeyGenerator.snapshotKey(projectId))
+                                            .build())
+                            .asByteArray();
+            SnapshotManifest manifest = SnapshotManifest.fromBytes(bytes);
+            if (manifest != null) {
+                return manifest;
+            }
+        } catch (NoSuchKeyException e) {
+            // Projects uploaded without a parent get their manifest on first use.
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to read snapshot: " + errorMessage(e));
+        }
+        return create(projectId, null);
+    }
+
+    /**
+     * Gives the files a project copied in parts from its parent the node they have in the
+     * parent. Every file this service writes itself is stored with a single PUT, so an object
+     * with a multipart ETag at the path and size of a parent file is an unchanged copy of it.
+     *
+     * @param files the file nodes of the project, updated in place.
+     * @param multipartCopies the paths of the files stored with a multipart ETag.
+     * @param parentProjectId the project the files were copied from.
+     */
+    private void inheritCopiedNodes(
+            Map<String, SnapshotManifest.Node> files,
+            Set<String> multipartCopies,
+            String parentProjectId) {
+        SortedMap<String, SnapshotManifest.Node> parentFiles;
+        try {
+            parentFiles = get(parentProjectId).files();
+        } catch (NotFoundError e) {
+            return;
+        }
+        for (String path : multipartCopies) {
+            SnapshotManifest.Node parentFile = parentFiles.get(path);
+            if (parentFile != null && parentFile.size() == files.get(path).size()) {
+                files.put(path, parentFile);
+            }
+        }
+    }
+
+    /**
+     * Lists the files of a project as manifest nodes.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param multipartCopies collects the paths of the files stored with a multipart ETag.
+     * @return the file nodes by path relative to the project root.
+     * @throws NotFoundError if the project has no files.
+     */
+    private Map<String, SnapshotManifest.Node> listFiles(
+            String projectId, Set<String> multipartCopies) {
+        Map<String, SnapshotManifest.Node> files = new HashMap<>();
+        try {
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response page =
+                        s3Client.listObjectsV2(
+                                ListObjectsV2Request.builder()
+                                        .bucket(bucketName)
+                                        .prefix(KeyGenerator.projectPrefix(projectId))
+                                        .continuationToken(continuationToken)
+                                        .build());
+                for (S3Object object : page.contents()) {
+                    String path = KeyGenerator.filePath(projectId, object.key());
+                    files.put(
+                            path,
+                            SnapshotManifest.file(
+                                    object.eTag(), object.size() != null ? object.size() : 0L));
+                    if (object.eTag() != null && object.eTag().contains("-")) {
+                        multipartCopies.add(path);
+                    }
+                }
+                continuationToken =
+                        Boolean.TRUE.equals(page.isTruncated())
+                                ? page.nextContinuationToken()
+                                : null;
+            } while (continuationToken != null);
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to list files: " + errorMessage(e));
+        }
+        if (files.isEmpty()) {
+            throw new NotFoundError("No files found for project ID: " + projectId);
+        }
+        return files;
+    }
+
+    /**
+     * Returns the message of an S3 failure.
+     *
+     * @param e the S3 failure.
+     * @return the error message.
+     */
+    private String errorMessage(S3Exception e) {
+        return e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : "Error occurred";
+    }
+}
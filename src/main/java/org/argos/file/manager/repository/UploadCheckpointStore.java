@@ -0,0 +1,284 @@
+package org.argos.file.manager.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.FilterReason;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.utils.KeyGenerator;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Stores the checkpoints of uploads, recording which files an upload has stored so that a
+ * failed upload can be resumed without sending them again.
+ * A checkpoint is a set of segments under the project's checkpoint prefix, each listing
+ * stored files as {@code <size> <key>} lines. Segments are only ever added, so recording a
+ * file costs nothing until a segment fills up or the upload fails, and an upload that
+ * succeeds without filling a segment makes no extra requests. The checkpoint is deleted once
+ * an upload that wrote or used it completes.
+ */
+public class UploadCheckpointStore {
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final S3BatchDeleter batchDeleter;
+    private final int segmentFiles;
+
+    /**
+     * Creates a checkpoint store.
+     *
+     * @param s3Client the S3 client.
+     * @param bucketName the bucket holding the projects.
+     * @param batchDeleter the deleter removing the checkpoints of completed uploads.
+     * @param segmentFiles the number of stored files recorded per segment.
+     */
+    public UploadCheckpointStore(
+            S3Client s3Client, String bucketName, S3BatchDeleter batchDeleter, int segmentFiles) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.batchDeleter = batchDeleter;
+        this.segmentFiles = Math.max(1, segmentFiles);
+    }
+
+    /**
+     * Loads the files recorded by the checkpoint of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the sizes of the stored files by client key; empty if there is no checkpoint.
+     * @throws BadRequestError if the checkpoint cannot be read.
+     */
+    public Map<String, Long> load(String projectId) {
+        Map<String, Long> completed = new HashMap<>();
+        try {
+            String continuationToken = null;
+            do {
+                ListObjectsV2Response page =
+                        s3Client.listObjectsV2(
+                                ListObjectsV2Request.builder()
+                                        .bucket(bucketName)
+                                        .prefix(KeyGenerator.uploadCheckpointPrefix(projectId))
+                                        .continuationToken(continuationToken)
+                                        .build());
+                for (S3Object segment : page.contents()) {
+                    readSegment(segment.key(), completed);
+                }
+                continuationToken =
+                        Boolean.TRUE.equals(page.isTruncated())
+                                ? page.nextContinuationToken()
+                                : null;
+            } while (continuationToken != null);
+        } catch (S3Exception e) {
+            throw new BadRequestError("Failed to read upload checkpoint: " + errorMessage(e));
+        }
+        return completed;
+    }
+
+    /**
+     * Returns a listener that skips the checkpointed files whose size is unchanged, and
+     * forwards every result to another listener.
+     *
+     * @param completed the sizes of the checkpointed files by client key.
+     * @param listener the listener receiving the results.
+     * @return the listener of the resumed upload.
+     */
+    public UploadListener resuming(Map<String, Long> completed, UploadListener listener) {
+        return new Resuming(completed, listener);
+    }
+
+    /**
+     * Starts recording the files stored by an upload.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param listener the listener the results are forwarded to.
+     * @return the checkpoint, to be passed to the upload as its listener.
+     */
+    public Checkpoint open(String projectId, UploadListener listener) {
+        return new Checkpoint(projectId, listener, listener instanceof Resuming);
+    }
+
+    /**
+     * Adds the lines of a segment to the loaded checkpoint.
+     *
+     * @param key the key of the segment.
+     * @param completed the sizes of the stored files by client key.
+     */
+    private void readSegment(String key, Map<String, Long> completed) {
+        String segment =
+                s3Client.getObjectAsBytes(
+                                GetObjectRequest.builder().bucket(bucketName).key(key).build())
+                        .asString(StandardCharsets.UTF_8);
+        for (String line : segment.split("\n")) {
+            int separator = line.indexOf(' ');
+            if (separator > 0) {
+                completed.put(
+                        line.substring(separator + 1),
+                        Long.parseLong(line.substring(0, separator)));
+            }
+        }
+    }
+
+    /**
+     * Returns the message of an S3 failure.
+     *
+     * @param e the S3 failure.
+     * @return the error message.
+     */
+    private String errorMessage(S3Exception e) {
+        return e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : "Error occurred";
+    }
+
+    /**
+     * Checkpoint of a running upload. It forwards every result to the upload's listener and
+     * records stored files, writing a segment whenever enough of them are pending.
+     */
+    public final class Checkpoint implements UploadListener {
+
+        private final String projectId;
+        private final UploadListener listener;
+        private List<String> pending = new ArrayList<>();
+        private volatile boolean used;
+
+        private Checkpoint(String projectId, UploadListener listener, boolean resumed) {
+            this.projectId = projectId;
+            this.listener = listener;
+            this.used = resumed;
+        }
+
+        @Override
+        public void uploaded(String key, long bytes) {
+            listener.uploaded(key, bytes);
+            List<String> segment = null;
+            synchronized (this) {
+                pending.add(bytes + " " + key);
+                if (pending.size() >= segmentFiles) {
+                    segment = pending;
+                    pending = new ArrayList<>();
+                }
+            }
+            if (segment != null) {
+                write(segment);
+            }
+        }
+
+        @Override
+        public void failed(String key, String error) {
+            listener.failed(key, error);
+        }
+
+        @Override
+        public void skipped(String key, long bytes) {
+            listener.skipped(key, bytes);
+        }
+
+        @Override
+        public void filtered(String key, FilterReason reason) {
+            listener.filtered(key, reason);
+        }
+
+        @Override
+        public boolean shouldUpload(String key, long bytes) {
+            return listener.shouldUpload(key, bytes);
+        }
+
+        /**
+         * Writes the files recorded since the last segment, once the upload has failed.
+         *
+         * @return true if the upload can be resumed from the checkpoint.
+         */
+        public boolean save() {
+            List<String> segment;
+            synchronized (this) {
+                segment = pending;
+                pending = new ArrayList<>();
+            }
+            if (!segment.isEmpty()) {
+                write(segment);
+            }
+            return used;
+        }
+
+        /**
+         * Deletes the checkpoint once the upload has completed, if it wrote or resumed one.
+         * A leftover checkpoint is harmless, so failures are ignored.
+         */
+        public void discard() {
+            if (!used) {
+                return;
+            }
+            try {
+                batchDeleter.deletePrefix(
+                        projectId,
+                        KeyGenerator.uploadCheckpointPrefix(projectId),
+                        new DeletionProgress(projectId));
+            } catch (RuntimeException e) {
+                // A leftover checkpoint is deleted together with the project's metadata.
+            }
+        }
+
+        /**
+         * Writes a segment. A lost segment only makes a resumed upload send its files again,
+         * so failures are ignored.
+         *
+         * @param segment the lines of the segment.
+         */
+        private void write(List<String> segment) {
+            try {
+                s3Client.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(
+                                        KeyGenerator.uploadCheckpointPrefix(projectId)
+                                                + UUID.randomUUID())
+                                .build(),
+                        RequestBody.fromString(
+                                String.join("\n", segment), StandardCharsets.UTF_8));
+                used = true;
+            } catch (RuntimeException e) {
+                // The files are uploaded again if the upload is resumed.
+            }
+        }
+    }
+
+    /**
+     * Listener of a resumed upload, skipping the files its checkpoint records.
+     *
+     * @param completed the sizes of the checkpointed files by client key.
+     * @param listener the listener receiving the results.
+     */
+    private record Resuming(Map<String, Long> completed, UploadListener listener)
+            implements UploadListener {
+
+        @Override
+        public void uploaded(String key, long bytes) {
+            listener.uploaded(key, bytes);
+        }
+
+        @Override
+        public void failed(String key, String error) {
+            listener.failed(key, error);
+        }
+
+        @Override
+        public void skipped(String key, long bytes) {
+            listener.skipped(key, bytes);
+        }
+
+        @Override
+        public void filtered(String key, FilterReason reason) {
+            listener.filtered(key, reason);
+        }
+
+        @Override
+        public boolean shouldUpload(String key, long bytes) {
+            Long stored = completed.get(key);
+            return (stored == null || stored != bytes) && listener.shouldUpload(key, bytes);
+        }
+    }
+}
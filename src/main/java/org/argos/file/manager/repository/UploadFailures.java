@@ -0,0 +1,86 @@
+package org.argos.file.manager.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.IncompleteUploadError;
+
+/**
+ * Collects the files an upload could not store, so the upload can go on with the remaining
+ * files and fail once they are done. Only the first {@value #MAX_LISTED} failed files are
+ * listed. Once the configured number of files has failed the storage is assumed to be
+ * unavailable and the remaining files are no longer attempted.
+ */
+class UploadFailures {
+
+    private static final int MAX_LISTED = 100;
+
+    private final int maxFailedFiles;
+    private final List<Map<String, String>> listed = new ArrayList<>();
+    private int count;
+    private String firstError;
+
+    /**
+     * Creates an empty collection of failures.
+     *
+     * @param maxFailedFiles the number of failed files after which the upload stops, or 0
+     *                       to attempt every file.
+     */
+    UploadFailures(int maxFailedFiles) {
+        this.maxFailedFiles = maxFailedFiles;
+    }
+
+    /**
+     * Records a file that could not be stored.
+     *
+     * @param key the key of the file, as reported to clients.
+     * @param error the error message.
+     */
+    synchronized void add(String key, String error) {
+        if (count++ == 0) {
+            firstError = error;
+        }
+        if (listed.size() < MAX_LISTED) {
+            listed.add(Map.of("key", key, "error", error));
+        }
+    }
+
+    /**
+     * Returns whether every file has been stored so far.
+     *
+     * @return true if no file has failed.
+     */
+    synchronized boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Returns whether enough files have failed to stop attempting the remaining ones.
+     *
+     * @return true if the upload should stop.
+     */
+    synchronized boolean limitReached() {
+        return maxFailedFiles > 0 && count >= maxFailedFiles;
+    }
+
+    /**
+     * Builds the error of the upload, reporting the first failure.
+     *
+     * @return the error.
+     */
+    synchronized BadRequestError toError() {
+        return new BadRequestError("Failed to upload files to S3: " + firstError);
+    }
+
+    /**
+     * Builds the error of a checkpointed upload, which can be resumed under its project ID.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the error.
+     */
+    synchronized IncompleteUploadError toError(String projectId) {
+        return new IncompleteUploadError(
+                "Failed to upload files to S3: " + firstError, projectId, count, listed);
+    }
+}
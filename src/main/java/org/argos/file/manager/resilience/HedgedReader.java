@@ -0,0 +1,204 @@
+package org.argos.file.manager.resilience;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.argos.file.manager.utils.EnvSettings;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+/**
+ * Executes reads with a per-attempt timeout, hedging and jittered retries.
+ * Once an attempt has been outstanding longer than the tracked latency percentile, a duplicate
+ * request is sent and whichever response arrives first wins. Retryable failures are retried
+ * with backoff. Hedges and retries share a {@link RetryBudget}, so they can add at most a
+ * fixed fraction of extra load while the backend is degraded. Requests still running when
+ * the attempt ends, because another one won or the attempt timed out, are cancelled by
+ * interrupting them, which aborts the SDK call, so they do not keep reading whole objects.
+ */
+public class HedgedReader {
+
+    private final ExecutorService executor;
+    private final LatencyTracker latencyTracker;
+    private final RetryBudget budget;
+    private final RetryPolicy retryPolicy;
+    private final Duration attemptTimeout;
+    private final Duration minHedgeDelay;
+
+    /**
+     * Creates a hedged reader.
+     *
+     * @param executor the executor running the requests.
+     * @param latencyTracker the tracker providing the hedge delay.
+     * @param budget the budget shared by hedges and retries.
+     * @param retryPolicy the policy deciding which failures are retried.
+     * @param attemptTimeout the maximum duration of a single attempt, hedge included.
+     * @param minHedgeDelay the minimum delay before a hedge is sent.
+     */
+    public HedgedReader(
+            ExecutorService executor,
+            LatencyTracker latencyTracker,
+            RetryBudget budget,
+            RetryPolicy retryPolicy,
+            Duration attemptTimeout,
+            Duration minHedgeDelay) {
+        this.executor = executor;
+        this.latencyTracker = latencyTracker;
+        this.budget = budget;
+        this.retryPolicy = retryPolicy;
+        this.attemptTimeout = attemptTimeout;
+        this.minHedgeDelay = minHedgeDelay;
+    }
+
+    /**
+     * Creates a hedged reader configured from environment variables.
+     *
+     * @param executor the executor running the requests.
+     * @return the configured reader.
+     */
+    public static HedgedReader fromEnvironment(ExecutorService executor) {
+        return new HedgedReader(
+                executor,
+                new LatencyTracker(1024, EnvSettings.getInt("ARGOS_S3_HEDGE_PERCENTILE", 95), 50),
+                new RetryBudget(EnvSettings.getInt("ARGOS_S3_HEDGE_BUDGET_PERCENT", 10) / 100.0, 10),
+                new RetryPolicy(
+                        EnvSettings.getInt("ARGOS_S3_READ_MAX_ATTEMPTS", 3),
+                        EnvSettings.getLong("ARGOS_S3_RETRY_BASE_DELAY_MS", 50),
+                        EnvSettings.getLong("ARGOS_S3_RETRY_MAX_DELAY_MS", 1000)),
+                Duration.ofMillis(EnvSettings.getLong("ARGOS_S3_READ_TIMEOUT_MS", 10_000)),
+                Duration.ofMillis(EnvSettings.getLong("ARGOS_S3_HEDGE_MIN_DELAY_MS", 10)));
+    }
+
+    /**
+     * Executes a read, hedging and retrying it as needed.
+     *
+     * @param request the read to execute; it may be invoked more than once.
+     * @param <T> the type of the read result.
+     * @return the first successful result.
+     * @throws RuntimeException the failure of the last attempt if no attempt succeeds.
+     */
+    public <T> T read(Supplier<T> request) {
+        budget.onRequest();
+        RuntimeException lastFailure = null;
+        for (int attempt = 1; attempt <= retryPolicy.maxAttempts(); attempt++) {
+            if (attempt > 1
+                    && (!budget.tryAcquire() || !retryPolicy.sleepBeforeRetry(attempt - 1))) {
+                break;
+            }
+            try {
+                return attempt(request);
+            } catch (RuntimeException e) {
+                lastFailure = e;
+                if (!retryPolicy.isRetryable(e)) {
+                    throw e;
+                }
+            }
+        }
+        throw lastFailure;
+    }
+
+    /**
+     * Runs a single attempt, sending a hedge if the first request is slow. Whatever the
+     * outcome, the requests of the attempt that are still running are cancelled.
+     *
+     * @param request the read to execute.
+     * @param <T> the type of the read result.
+     * @return the first successful result of the attempt.
+     */
+    private <T> T attempt(Supplier<T> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        List<Future<?>> requests = new ArrayList<>(2);
+        launch(request, result, outstanding, requests);
+
+        long timeoutNanos = attemptTimeout.toNanos();
+        long hedgeDelayNanos = hedgeDelayNanos();
+        try {
+            if (hedgeDelayNanos > 0 && hedgeDelayNanos < timeoutNanos) {
+                try {
+                    return result.get(hedgeDelayNanos, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException slow) {
+                    if (budget.tryAcquire()) {
+                        outstanding.incrementAndGet();
+                        launch(request, result, outstanding, requests);
+                    }
+                }
+                return result.get(timeoutNanos - hedgeDelayNanos, TimeUnit.NANOSECONDS);
+            }
+            return result.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw SdkClientException.create(
+                    "Read timed out after " + attemptTimeout.toMillis() + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Read interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause
+                    ? cause
+                    : new IllegalStateException(e.getCause());
+        } finally {
+            for (Future<?> pending : requests) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Submits one request of an attempt. The attempt fails only once every outstanding
+     * request has failed, so a failing hedge never hides a primary that is still running.
+     *
+     * @param request the read to execute.
+     * @param result the future completed by the first successful request.
+     * @param outstanding the number of requests of the attempt that have not failed yet.
+     * @param requests the running requests of the attempt, to cancel once it ends.
+     * @param <T> the type of the read result.
+     */
+    private <T> void launch(
+            Supplier<T> request,
+            CompletableFuture<T> result,
+            AtomicInteger outstanding,
+            List<Future<?>> requests) {
+        try {
+            Future<?> pending =
+                    executor.submit(
+                            () -> {
+                                long start = System.nanoTime();
+                                try {
+                                    T value = request.get();
+                                    latencyTracker.record(System.nanoTime() - start);
+                                    result.complete(value);
+                                } catch (RuntimeException | Error e) {
+                                    if (outstanding.decrementAndGet() == 0) {
+                                        result.completeExceptionally(e);
+                                    }
+                                }
+                            });
+            requests.add(pending);
+        } catch (RejectedExecutionException e) {
+            if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Returns how long to wait before hedging.
+     *
+     * @return the hedge delay in nanoseconds, or -1 while there are too few samples to hedge.
+     */
+    private long hedgeDelayNanos() {
+        long percentile = latencyTracker.percentileNanos();
+        return percentile < 0 ? -1 : Math.max(percentile, minHedgeDelay.toNanos());
+    }
+}
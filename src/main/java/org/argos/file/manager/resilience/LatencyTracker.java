@@ -0,0 +1,77 @@
+package org.argos.file.manager.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks a latency percentile over a sliding window of recent samples.
+ * The percentile is recomputed every few samples so reading it stays cheap on the hot path.
+ */
+public class LatencyTracker {
+
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final long[] window;
+    private final double percentile;
+    private final int minSamples;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private volatile long cachedPercentileNanos = -1;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param windowSize the number of most recent samples to keep.
+     * @param percentile the tracked percentile, between 0 and 100.
+     * @param minSamples the number of samples needed before a percentile is reported.
+     */
+    public LatencyTracker(int windowSize, double percentile, int minSamples) {
+        this.window = new long[Math.max(1, windowSize)];
+        this.percentile = percentile;
+        this.minSamples = Math.max(1, minSamples);
+    }
+
+    /**
+     * Records the latency of a completed request.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        lock.lock();
+        try {
+            window[next] = nanos;
+            next = (next + 1) % window.length;
+            size = Math.min(size + 1, window.length);
+            if (size >= minSamples
+                    && (++sinceRecompute >= RECOMPUTE_INTERVAL || cachedPercentileNanos < 0)) {
+                sinceRecompute = 0;
+                cachedPercentileNanos = computePercentile();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the tracked percentile.
+     *
+     * @return the percentile latency in nanoseconds, or -1 if there are not enough samples yet.
+     */
+    public long percentileNanos() {
+        return cachedPercentileNanos;
+    }
+
+    /**
+     * Computes the percentile over the current window. Must be called while holding the lock.
+     *
+     * @return the percentile latency in nanoseconds.
+     */
+    private long computePercentile() {
+        long[] sorted = Arrays.copyOf(window, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+}
@@ -0,0 +1,53 @@
+package org.argos.file.manager.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting extra requests (hedges and retries) to a fraction of the original
+ * requests. Every original request deposits a fraction of a token and every extra request
+ * withdraws a whole one, so during an outage the extra load stays bounded by that fraction.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private final AtomicLong tokens;
+
+    /**
+     * Creates a budget.
+     *
+     * @param ratio the fraction of original requests that may be followed by an extra request.
+     * @param maxTokens the maximum number of extra requests that can be saved up for a burst.
+     */
+    public RetryBudget(double ratio, int maxTokens) {
+        this.depositPerRequest = Math.round(Math.max(0, ratio) * SCALE);
+        this.maxTokens = Math.max(0, maxTokens) * SCALE;
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    /**
+     * Records an original request, earning a fraction of a token.
+     */
+    public void onRequest() {
+        tokens.accumulateAndGet(
+                depositPerRequest, (current, deposit) -> Math.min(maxTokens, current + deposit));
+    }
+
+    /**
+     * Tries to spend a token on an extra request.
+     *
+     * @return true if the extra request may be sent.
+     */
+    public boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package org.argos.file.manager.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Retry policy for S3 calls: which failures are worth retrying and how long to back off.
+ * Server errors, throttling ("SlowDown") and client-side I/O failures are retried;
+ * backoff is exponential with full jitter so retries from many requests do not align.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxAttempts the total number of attempts, including the first one.
+     * @param baseDelayMillis the backoff cap before the first retry.
+     * @param maxDelayMillis the maximum backoff between attempts.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * Returns the total number of attempts, including the first one.
+     *
+     * @return the maximum number of attempts.
+     */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Indicates whether a failure is transient and the call may be retried.
+     *
+     * @param failure the failure raised by the call.
+     * @return true for 5xx, 429 and SlowDown responses and for client-side I/O failures.
+     */
+    public boolean isRetryable(RuntimeException failure) {
+        if (failure instanceof S3Exception s3Exception) {
+            String errorCode =
+                    s3Exception.awsErrorDetails() != null
+                            ? s3Exception.awsErrorDetails().errorCode()
+                            : null;
+            return s3Exception.statusCode() >= 500
+                    || s3Exception.statusCode() == 429
+                    || "SlowDown".equals(errorCode);
+        }
+        return failure instanceof SdkClientException;
+    }
+
+    /**
+     * Computes a jittered backoff for a retry.
+     *
+     * @param retry the retry number, starting at 1.
+     * @return the delay in milliseconds.
+     */
+    public long backoffMillis(int retry) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(retry - 1, 20));
+        return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+    }
+
+    /**
+     * Sleeps for the jittered backoff of a retry.
+     *
+     * @param retry the retry number, starting at 1.
+     * @return false if the thread was interrupted while waiting.
+     */
+    public boolean sleepBeforeRetry(int retry) {
+        try {
+            Thread.sleep(backoffMillis(retry));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
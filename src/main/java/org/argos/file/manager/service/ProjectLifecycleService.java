@@ -0,0 +1,160 @@
+package org.argos.file.manager.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.model.ProjectExpiry;
+import org.argos.file.manager.repository.IStorageRepository;
+import org.argos.file.manager.utils.EnvSettings;
+import org.argos.file.manager.utils.InputValidator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service layer for the project lifecycle.
+ * Deletes projects on request or once their time-to-live has passed, and keeps the progress
+ * of running deletions and lifetime counts for the status endpoint and the metrics.
+ */
+@Service
+public class ProjectLifecycleService {
+
+    private final IStorageRepository storageRepository;
+    private final int sweepBatchSize;
+    private final Map<String, DeletionProgress> activeDeletions = new ConcurrentHashMap<>();
+    private final AtomicLong deletedProjects = new AtomicLong();
+    private final AtomicLong deletedObjects = new AtomicLong();
+    private final AtomicLong failedObjects = new AtomicLong();
+    private final AtomicLong expiredProjects = new AtomicLong();
+    private final AtomicLong sweepFailures = new AtomicLong();
+    private volatile Instant lastSweep;
+
+    /**
+     * Constructs the lifecycle service.
+     *
+     * @param storageRepository the repository storing the projects.
+     */
+    public ProjectLifecycleService(IStorageRepository storageRepository) {
+        this.storageRepository = storageRepository;
+        this.sweepBatchSize = EnvSettings.getInt("ARGOS_TTL_SWEEP_BATCH", 100);
+    }
+
+    /**
+     * Deletes every file of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the outcome of the deletion.
+     * @throws BadRequestError if the project is already being deleted.
+     * @throws NotFoundError if the project has no files.
+     */
+    public DeletionResult deleteProject(String projectId) {
+        InputValidator.getInstance().validateProjectId(projectId);
+        DeletionResult result = runDeletion(projectId);
+        if (result.deletedObjects() == 0 && result.failedObjects() == 0) {
+            throw new NotFoundError("No files found for project ID: " + projectId);
+        }
+        return result;
+    }
+
+    /**
+     * Deletes the projects whose time-to-live has passed.
+     * A project's expiry is only cleared once all of its files have been deleted, so
+     * partially deleted projects are retried by the next sweep.
+     *
+     * @return the number of projects deleted by this sweep.
+     */
+    public int sweepExpired() {
+        Instant now = Instant.now();
+        int swept = 0;
+        for (ProjectExpiry expiry : storageRepository.findExpiredProjects(now, sweepBatchSize)) {
+            try {
+                if (runDeletion(expiry.projectId()).failedObjects() == 0) {
+                    storageRepository.clearExpiry(expiry);
+                    expiredProjects.incrementAndGet();
+                    swept++;
+                }
+            } catch (RuntimeException e) {
+                sweepFailures.incrementAndGet();
+            }
+        }
+        lastSweep = now;
+        return swept;
+    }
+
+    /**
+     * Returns the progress of running deletions and the lifetime counts.
+     *
+     * @return the lifecycle status.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("activeDeletions", activeDeletions());
+        status.put("deletedProjects", deletedProjects.get());
+        status.put("deletedObjects", deletedObjects.get());
+        status.put("failedObjects", failedObjects.get());
+        status.put("expiredProjects", expiredProjects.get());
+        status.put("sweepFailures", sweepFailures.get());
+        status.put("lastSweep", lastSweep != null ? lastSweep.toString() : null);
+        return status;
+    }
+
+    /**
+     * Returns the progress of the deletions currently running.
+     *
+     * @return the active deletions.
+     */
+    public List<DeletionProgress> activeDeletions() {
+        return new ArrayList<>(activeDeletions.values());
+    }
+
+    public long deletedProjects() {
+        return deletedProjects.get();
+    }
+
+    public long deletedObjects() {
+        return deletedObjects.get();
+    }
+
+    public long failedObjects() {
+        return failedObjects.get();
+    }
+
+    public long expiredProjects() {
+        return expiredProjects.get();
+    }
+
+    public long sweepFailures() {
+        return sweepFailures.get();
+    }
+
+    /**
+     * Runs a deletion while tracking its progress.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the outcome of the deletion.
+     * @throws BadRequestError if the project is already being deleted.
+     */
+    private DeletionResult runDeletion(String projectId) {
+        DeletionProgress progress = new DeletionProgress(projectId);
+        if (activeDeletions.putIfAbsent(projectId, progress) != null) {
+            throw new BadRequestError("Project is already being deleted: " + projectId);
+        }
+        try {
+            DeletionResult result = storageRepository.deleteProject(projectId, progress);
+            if (result.deletedObjects() > 0) {
+                deletedProjects.incrementAndGet();
+            }
+            deletedObjects.addAndGet(result.deletedObjects());
+            failedObjects.addAndGet(result.failedObjects());
+            return result;
+        } finally {
+            activeDeletions.remove(projectId);
+        }
+    }
+}
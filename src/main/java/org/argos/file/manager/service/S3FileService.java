@@ -1,11 +1,35 @@
 package org.argos.file.manager.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import lombok.AllArgsConstructor;
+import org.argos.file.manager.exceptions.ApiException;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.IncompleteUploadError;
+import org.argos.file.manager.model.DeliveryMode;
+import org.argos.file.manager.model.FileDelivery;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.KeyLayout;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.SnapshotDiff;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.model.UploadOptions;
 import org.argos.file.manager.repository.IStorageRepository;
+import org.argos.file.manager.utils.EnvSettings;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.InputValidator;
+import org.argos.file.manager.utils.PathPattern;
+import org.argos.file.manager.utils.ShardRing;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -27,16 +51,55 @@ public class S3FileService {
      * @return a map containing the generated project ID and the statuses of the uploaded files.
      */
     public Map<String, Object> uploadDirectory(String localDir) {
+        return uploadDirectory(localDir, UploadOptions.defaults());
+    }
+
+    /**
+     * Uploads a directory to the S3 bucket under a new project ID, applying the given options.
+     *
+     * @param localDir the path to the local directory to upload.
+     * @param options the optional upload settings.
+     * @return a map containing the generated project ID and the statuses of the uploaded files.
+     */
+    public Map<String, Object> uploadDirectory(String localDir, UploadOptions options) {
+        if (needsListener(options)) {
+            return withResults(results -> uploadDirectory(localDir, options, results));
+        }
         String projectId = generateProjectId();
+        Instant expiresAt = scheduleExpiry(projectId, options);
         Map<String, String> uploadResults = storageRepository.uploadDirectory(projectId, localDir);
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("projectId", projectId);
+        Map<String, Object> response = uploadResponse(projectId, expiresAt, options);
         response.put("uploadResults", uploadResults);
-
         return response;
     }
 
+    /**
+     * Uploads a directory under a new project ID, reporting each file to a listener as soon
+     * as it is stored instead of returning the per-file results.
+     *
+     * @param localDir the path to the local directory to upload.
+     * @param options the optional upload settings.
+     * @param listener the listener receiving the result of each file.
+     * @return a map containing the generated project ID, without per-file results.
+     */
+    public Map<String, Object> uploadDirectory(
+            String localDir, UploadOptions options, UploadListener listener) {
+        String projectId = uploadProjectId(options);
+        UploadListener uploadListener = resumable(projectId, options, listener);
+        Instant expiresAt =
+                uploadWithExpiry(
+                        projectId,
+                        options,
+                        () ->
+                                storageRepository.uploadDirectory(
+                                        projectId,
+                                        localDir,
+                                        ingestFilter(options),
+                                        uploadListener));
+        return uploadResponse(projectId, expiresAt, options);
+    }
+
     /**
      * Uploads a ZIP file, extracts its contents, and stores them in the S3 bucket.
      *
@@ -44,25 +107,361 @@ public class S3FileService {
      * @return a map containing the project ID and upload statuses.
      */
     public Map<String, Object> uploadZipFile(MultipartFile file) {
+        return uploadZipFile(file, UploadOptions.defaults());
+    }
+
+    /**
+     * Uploads a ZIP file under a new project ID, applying the given options.
+     *
+     * @param file the ZIP file to be uploaded and processed.
+     * @param options the optional upload settings.
+     * @return a map containing the project ID and upload statuses.
+     */
+    public Map<String, Object> uploadZipFile(MultipartFile file, UploadOptions options) {
+        if (needsListener(options)) {
+            return withResults(results -> uploadZipFile(file, options, results));
+        }
         String projectId = generateProjectId();
+        Instant expiresAt = scheduleExpiry(projectId, options);
         Map<String, String> uploadResults =
                 storageRepository.uploadMultiPartDirectory(projectId, file);
 
+        Map<String, Object> response = uploadResponse(projectId, expiresAt, options);
+        response.put("uploadResults", uploadResults);
+        return response;
+    }
+
+    /**
+     * Uploads a ZIP file under a new project ID, reporting each file to a listener as soon
+     * as it is stored instead of returning the per-file results.
+     *
+     * @param file the ZIP file to be uploaded and processed.
+     * @param options the optional upload settings.
+     * @param listener the listener receiving the result of each file.
+     * @return a map containing the project ID, without per-file results.
+     */
+    public Map<String, Object> uploadZipFile(
+            MultipartFile file, UploadOptions options, UploadListener listener) {
+        String projectId = uploadProjectId(options);
+        UploadListener uploadListener = resumable(projectId, options, listener);
+        Instant expiresAt =
+                uploadWithExpiry(
+                        projectId,
+                        options,
+                        () ->
+                                storageRepository.uploadMultiPartDirectory(
+                                        projectId, file, ingestFilter(options), uploadListener));
+        return uploadResponse(projectId, expiresAt, options);
+    }
+
+    /**
+     * Forks a project under a new project ID without downloading it, optionally replacing
+     * some of its files with the contents of an overlay ZIP.
+     *
+     * @param sourceProjectId the unique identifier of the project to fork.
+     * @param overlayZip a ZIP of changed files, or null to copy the project unchanged.
+     * @param options the optional upload settings of the new project.
+     * @return a map containing the new project ID, the source project ID and file statuses.
+     */
+    public Map<String, Object> forkProject(
+            String sourceProjectId, MultipartFile overlayZip, UploadOptions options) {
+        InputValidator.getInstance().validateProjectId(sourceProjectId);
+        String projectId =
+                ShardRing.colocatedProjectId(KeyLayout.fromEnvironment(), sourceProjectId);
+        Instant expiresAt = scheduleExpiry(projectId, options);
+        Map<String, String> uploadResults =
+                storageRepository.forkProject(sourceProjectId, projectId, overlayZip);
+
         Map<String, Object> response = new HashMap<>();
         response.put("projectId", projectId);
+        response.put("sourceProjectId", sourceProjectId);
+        response.put("uploadResults", uploadResults);
+        putExpiry(response, expiresAt);
+        recordSnapshot(response, projectId, sourceProjectId);
+        inheritStats(projectId, sourceProjectId);
+
+        return response;
+    }
+
+    /**
+     * Starts a direct-to-storage upload under a new project ID. The client uploads its ZIP
+     * archive to the returned URLs and then asks for it to be processed.
+     *
+     * @param parts the number of parts the client will upload the archive in.
+     * @return the new project ID and the presigned upload URLs.
+     */
+    public StagedUpload createStagedUpload(int parts) {
+        return storageRepository.createStagedUpload(generateProjectId(), parts);
+    }
+
+    /**
+     * Extracts an archive the client has uploaded directly to storage into its project.
+     *
+     * @param projectId the project ID returned when the upload was started.
+     * @param uploadId the ID of the multipart upload, or null for a single-part upload.
+     * @param partETags the ETags returned for the uploaded parts, in part-number order.
+     * @param options the optional upload settings.
+     * @return a map containing the project ID and the statuses of the uploaded files.
+     */
+    public Map<String, Object> processStagedUpload(
+            String projectId, String uploadId, List<String> partETags, UploadOptions options) {
+        if (needsListener(options)) {
+            return withResults(
+                    results ->
+                            processStagedUpload(projectId, uploadId, partETags, options, results));
+        }
+        Map<String, String> uploadResults = new HashMap<>();
+        Instant expiresAt =
+                scheduleExpiryOnceAccepted(
+                        projectId,
+                        options,
+                        () ->
+                                uploadResults.putAll(
+                                        storageRepository.processStagedUpload(
+                                                projectId, uploadId, partETags)));
+
+        Map<String, Object> response = uploadResponse(projectId, expiresAt, options);
         response.put("uploadResults", uploadResults);
+        return response;
+    }
+
+    /**
+     * Extracts an archive the client has uploaded directly to storage, reporting each file
+     * to a listener as soon as it is stored instead of returning the per-file results.
+     *
+     * @param projectId the project ID returned when the upload was started.
+     * @param uploadId the ID of the multipart upload, or null for a single-part upload.
+     * @param partETags the ETags returned for the uploaded parts, in part-number order.
+     * @param options the optional upload settings.
+     * @param listener the listener receiving the result of each file.
+     * @return a map containing the project ID, without per-file results.
+     */
+    public Map<String, Object> processStagedUpload(
+            String projectId,
+            String uploadId,
+            List<String> partETags,
+            UploadOptions options,
+            UploadListener listener) {
+        Instant expiresAt =
+                scheduleExpiryOnceAccepted(
+                        projectId,
+                        options,
+                        () ->
+                                storageRepository.processStagedUpload(
+                                        projectId,
+                                        uploadId,
+                                        partETags,
+                                        ingestFilter(options),
+                                        listener));
+        return uploadResponse(projectId, expiresAt, options);
+    }
 
+    /**
+     * Runs a listened upload, collecting the status of each file into the response.
+     *
+     * @param upload runs the upload with the given listener and returns its response.
+     * @return the upload response with the per-file results.
+     */
+    private Map<String, Object> withResults(
+            Function<UploadListener, Map<String, Object>> upload) {
+        Map<String, String> uploadResults = new ConcurrentHashMap<>();
+        Map<String, Object> response = upload.apply(UploadListener.collectingInto(uploadResults));
+        response.put("uploadResults", uploadResults);
         return response;
     }
 
+    /**
+     * Returns whether an upload needs the listened repository operations, because it
+     * resumes an earlier upload or filters with request-specific settings.
+     *
+     * @param options the optional upload settings.
+     * @return true if the upload must run with a listener.
+     */
+    private boolean needsListener(UploadOptions options) {
+        return options.resumeProjectId() != null || options.ingestFilter() != null;
+    }
+
+    /**
+     * Returns the ingest filter of an upload.
+     *
+     * @param options the optional upload settings.
+     * @return the requested filter, or the filter configured for the deployment.
+     */
+    private IngestFilter ingestFilter(UploadOptions options) {
+        return options.ingestFilter() != null
+                ? options.ingestFilter()
+                : IngestFilter.fromEnvironment();
+    }
+
+    /**
+     * Returns the project an upload stores its files under: the project of the upload it
+     * resumes, or a new one.
+     *
+     * @param options the optional upload settings.
+     * @return the project ID.
+     */
+    private String uploadProjectId(UploadOptions options) {
+        return options.resumeProjectId() != null ? options.resumeProjectId() : generateProjectId();
+    }
+
+    /**
+     * Makes a resumed upload skip the files its failed attempt already stored.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param options the optional upload settings.
+     * @param listener the listener receiving the result of each file.
+     * @return the listener to upload with.
+     */
+    private UploadListener resumable(
+            String projectId, UploadOptions options, UploadListener listener) {
+        if (options.resumeProjectId() == null) {
+            return listener;
+        }
+        return storageRepository.resumeUpload(projectId, listener);
+    }
+
+    /**
+     * Builds the response of a finished upload with its project ID, expiry and snapshot.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param expiresAt the expiry instant, or null if the project does not expire.
+     * @param options the optional upload settings.
+     * @return the upload response, to which callers may add the per-file results.
+     */
+    private Map<String, Object> uploadResponse(
+            String projectId, Instant expiresAt, UploadOptions options) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("projectId", projectId);
+        putExpiry(response, expiresAt);
+        recordSnapshot(response, projectId, options.parentProjectId());
+        return response;
+    }
+
+    /**
+     * Records the expiry of a new project uploaded with a time-to-live.
+     * The expiry is recorded before the upload so that partially uploaded projects expire too.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param options the optional upload settings.
+     * @return the expiry instant, or null if the project does not expire.
+     */
+    private Instant scheduleExpiry(String projectId, UploadOptions options) {
+        if (options.ttl() == null) {
+            return null;
+        }
+        Instant expiresAt = Instant.now().plus(options.ttl());
+        storageRepository.scheduleExpiry(projectId, expiresAt);
+        return expiresAt;
+    }
+
+    /**
+     * Runs an upload into a new project, or into the project of the upload it resumes,
+     * recording the project's expiry.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param options the optional upload settings.
+     * @param upload the upload.
+     * @return the expiry instant, or null if the project does not expire.
+     */
+    private Instant uploadWithExpiry(String projectId, UploadOptions options, Runnable upload) {
+        if (options.resumeProjectId() != null) {
+            return scheduleExpiryOnceAccepted(projectId, options, upload);
+        }
+        Instant expiresAt = scheduleExpiry(projectId, options);
+        upload.run();
+        return expiresAt;
+    }
+
+    /**
+     * Runs an upload into a project named by the client, such as a resumed or staged upload,
+     * and records the project's expiry once the repository has accepted the upload: when it
+     * completes, or when it stored some of the files and can be resumed. An upload rejected
+     * before storing anything, for instance because its staged archive or checkpoint is
+     * missing, leaves the project's expiry as it was.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param options the optional upload settings.
+     * @param upload the upload.
+     * @return the expiry instant, or null if the project does not expire.
+     */
+    private Instant scheduleExpiryOnceAccepted(
+            String projectId, UploadOptions options, Runnable upload) {
+        Instant expiresAt = options.ttl() != null ? Instant.now().plus(options.ttl()) : null;
+        try {
+            upload.run();
+        } catch (IncompleteUploadError e) {
+            if (expiresAt != null) {
+                storageRepository.scheduleExpiry(projectId, expiresAt);
+            }
+            throw e;
+        }
+        if (expiresAt != null) {
+            storageRepository.scheduleExpiry(projectId, expiresAt);
+        }
+        return expiresAt;
+    }
+
+    /**
+     * Adds the expiry instant to an upload response.
+     *
+     * @param response the upload response.
+     * @param expiresAt the expiry instant, or null if the project does not expire.
+     */
+    private void putExpiry(Map<String, Object> response, Instant expiresAt) {
+        if (expiresAt != null) {
+            response.put("expiresAt", expiresAt.toString());
+        }
+    }
+
+    /**
+     * Records the snapshot of a project uploaded as a new version of a parent project and
+     * adds its root hash to the upload response. The files are already stored at this point,
+     * so a failure is reported in the response instead of failing the upload.
+     *
+     * @param response the upload response.
+     * @param projectId the unique identifier for the project.
+     * @param parentProjectId the parent project, or null if the upload has none.
+     */
+    private void recordSnapshot(
+            Map<String, Object> response, String projectId, String parentProjectId) {
+        if (parentProjectId == null) {
+            return;
+        }
+        response.put("parentProjectId", parentProjectId);
+        try {
+            response.put(
+                    "rootHash",
+                    storageRepository.createSnapshot(projectId, parentProjectId).root().hash());
+        } catch (ApiException e) {
+            response.put("snapshotError", e.getMessage());
+        }
+    }
+
+    /**
+     * Completes the stats index of a fork with the facts of the files it copied. The files
+     * are already stored at this point and the index is only derived from them, so a
+     * failure leaves the fork without stats instead of failing it.
+     *
+     * @param projectId the unique identifier of the fork.
+     * @param sourceProjectId the unique identifier of the forked project.
+     */
+    private void inheritStats(String projectId, String sourceProjectId) {
+        try {
+            storageRepository.inheritStats(projectId, sourceProjectId);
+        } catch (ApiException e) {
+            // The fork is served without stats.
+        }
+    }
+
     /**
      * Generates a new unique project ID.
-     * This project ID is used to organize and identify the files uploaded to S3.
+     * This project ID is used to organize and identify the files uploaded to S3, and records
+     * the key layout the project is stored with and the shard it is placed on.
      *
      * @return a unique project ID as a string.
      */
     private String generateProjectId() {
-        return UUID.randomUUID().toString();
+        return ShardRing.getInstance().newProjectId(KeyLayout.fromEnvironment());
     }
 
     /**
@@ -75,6 +474,18 @@ public class S3FileService {
         return storageRepository.listFiles(projectId);
     }
 
+    /**
+     * Lists the files of a project whose relative paths match a pattern, handing over the
+     * matches as the listing finds them.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param pattern the pattern the relative file paths must match.
+     * @param matches receives each non-empty batch of matching file keys, in listing order.
+     */
+    public void listFiles(String projectId, PathPattern pattern, Consumer<List<String>> matches) {
+        storageRepository.listMatchingFiles(projectId, pattern, matches);
+    }
+
     /**
      * Retrieves the content of a specific file stored in the S3 bucket for a given project.
      *
@@ -85,4 +496,124 @@ public class S3FileService {
     public String getFileContent(String projectId, String filePath) {
         return storageRepository.getFileContent(projectId, filePath);
     }
+
+    /**
+     * Delivers a file inline or through a presigned URL, depending on the delivery mode.
+     * In {@link DeliveryMode#AUTO} mode, files smaller than ARGOS_PRESIGN_THRESHOLD_BYTES
+     * are returned inline. A cached file is measured from its content, so it is served
+     * without the HEAD request that presigning makes.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @param mode the requested delivery mode.
+     * @return the content of the file or its presigned URL.
+     */
+    public FileDelivery getFileDelivery(String projectId, String filePath, DeliveryMode mode) {
+        if (mode == DeliveryMode.CONTENT) {
+            return FileDelivery.ofContent(getFileContent(projectId, filePath));
+        }
+        long threshold = EnvSettings.getLong("ARGOS_PRESIGN_THRESHOLD_BYTES", 1L << 20);
+        if (mode == DeliveryMode.AUTO) {
+            String cached = storageRepository.getCachedFileContent(projectId, filePath);
+            if (cached != null && cached.getBytes(StandardCharsets.UTF_8).length < threshold) {
+                return FileDelivery.ofContent(cached);
+            }
+        }
+        PresignedFile presignedFile = storageRepository.presignFile(projectId, filePath);
+        if (mode == DeliveryMode.AUTO && presignedFile.size() < threshold) {
+            return FileDelivery.ofContent(getFileContent(projectId, filePath));
+        }
+        return FileDelivery.ofPresigned(presignedFile);
+    }
+
+    /**
+     * Reads a range of lines of a file.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @param fromLine the 1-based number of the first line.
+     * @param toLine the 1-based number of the last line, inclusive.
+     * @return the lines of the range that exist in the file, with the file's line count.
+     * @throws BadRequestError if the range is empty or longer than ARGOS_LINE_RANGE_MAX lines.
+     */
+    public LineRange readLines(String projectId, String filePath, int fromLine, int toLine) {
+        int maxLines = EnvSettings.getInt("ARGOS_LINE_RANGE_MAX", 5000);
+        if (fromLine < 1 || toLine < fromLine) {
+            throw new BadRequestError("Invalid line range: " + fromLine + "-" + toLine);
+        }
+        if ((long) toLine - fromLine + 1 > maxLines) {
+            throw new BadRequestError("At most " + maxLines + " lines can be requested.");
+        }
+        return storageRepository.readLines(projectId, filePath, fromLine, toLine);
+    }
+
+    /**
+     * Lists the files that differ between two snapshots without reading their contents.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param baseProjectId the project to compare against, or null for the parent project.
+     * @return the added, removed and modified paths.
+     * @throws BadRequestError if no base project is given and the project has no parent.
+     */
+    public SnapshotDiff diffSnapshots(String projectId, String baseProjectId) {
+        SnapshotManifest target = storageRepository.getSnapshot(projectId);
+        String baseId = baseProjectId != null ? baseProjectId : target.parentProjectId();
+        if (baseId == null) {
+            throw new BadRequestError("Project has no parent snapshot: " + projectId);
+        }
+        return SnapshotDiff.compare(storageRepository.getSnapshot(baseId), target);
+    }
+
+    /**
+     * Returns the statistics of a project from its stats index, without reading any file.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the aggregates of the project and the facts of each file.
+     */
+    public ProjectStats getStats(String projectId) {
+        return storageRepository.getStats(projectId);
+    }
+
+    /**
+     * Reads the metadata of a file without transferring its content.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the path of the file within the project.
+     * @return the size, ETag, content type and last-modified instant of the file.
+     */
+    public FileStat statFile(String projectId, String filePath) {
+        return storageRepository.statFile(projectId, filePath);
+    }
+
+    /**
+     * Reads the metadata of several files of a project without transferring their content.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePaths the paths of the files within the project.
+     * @return the metadata of each file, in request order.
+     * @throws BadRequestError if no files or more than ARGOS_STAT_BATCH_MAX files are requested.
+     */
+    public List<FileStat> statFiles(String projectId, List<String> filePaths) {
+        int maxFiles = EnvSettings.getInt("ARGOS_STAT_BATCH_MAX", 1000);
+        if (filePaths.isEmpty() || filePaths.size() > maxFiles) {
+            throw new BadRequestError("Between 1 and " + maxFiles + " file paths are required.");
+        }
+        return storageRepository.statFiles(projectId, filePaths);
+    }
+
+    /**
+     * Creates presigned download URLs for several files of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePaths the paths of the files within the project.
+     * @return the presigned URLs, in request order.
+     * @throws BadRequestError if no files or more than ARGOS_PRESIGN_BATCH_MAX files are requested.
+     */
+    public List<PresignedFile> presignFiles(String projectId, List<String> filePaths) {
+        int maxFiles = EnvSettings.getInt("ARGOS_PRESIGN_BATCH_MAX", 100);
+        if (filePaths.isEmpty() || filePaths.size() > maxFiles) {
+            throw new BadRequestError("Between 1 and " + maxFiles + " file paths are required.");
+        }
+        return storageRepository.presignFiles(projectId, filePaths);
+    }
 }
@@ -0,0 +1,187 @@
+package org.argos.file.manager.tracing;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stage timing breakdown of one request.
+ * A trace is bound to the thread serving the request, and code running on that thread opens
+ * {@link Stage}s around the steps worth measuring. Without a bound trace, {@link #stage}
+ * returns a stage that records nothing, so instrumented code is free outside requests.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+    private volatile long endNanos;
+
+    private RequestTrace(String name) {
+        Instant now = Instant.now();
+        this.name = name;
+        this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a trace and binds it to the current thread.
+     *
+     * @param name the name of the request, e.g. its method and path.
+     * @return the new trace.
+     */
+    public static RequestTrace begin(String name) {
+        RequestTrace trace = new RequestTrace(name);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Returns the trace bound to the current thread.
+     *
+     * @return the trace, or null outside a traced request.
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Opens a stage of the trace bound to the current thread. Use it in a
+     * try-with-resources block so the stage ends with the step it measures.
+     *
+     * @param name the name of the stage; it appears in the Server-Timing header.
+     * @return the stage, or a stage that records nothing outside a traced request.
+     */
+    public static Stage stage(String name) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null) {
+            return Stage.NOOP;
+        }
+        Stage stage = new Stage(name, System.nanoTime());
+        trace.stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Ends the trace and unbinds it from the current thread.
+     */
+    public void end() {
+        endNanos = System.nanoTime();
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the name of the request.
+     *
+     * @return the request name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the stages opened so far, in opening order.
+     *
+     * @return the stages.
+     */
+    public List<Stage> stages() {
+        return List.copyOf(stages);
+    }
+
+    /**
+     * Returns the duration of the request, or its duration so far if it has not ended.
+     *
+     * @return the duration in milliseconds.
+     */
+    public double durationMillis() {
+        return (endNanos() - startNanos) / 1_000_000.0;
+    }
+
+    /**
+     * Converts a {@link System#nanoTime()} reading taken during the request to epoch nanos.
+     *
+     * @param nanoTime the reading.
+     * @return the corresponding time since the epoch, in nanoseconds.
+     */
+    long toEpochNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanos);
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} reading at which the request started.
+     *
+     * @return the start time.
+     */
+    long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} reading at which the request ended, or now.
+     *
+     * @return the end time.
+     */
+    long endNanos() {
+        return endNanos != 0 ? endNanos : System.nanoTime();
+    }
+
+    /**
+     * Formats the stages as the value of a Server-Timing header, ending with the total.
+     *
+     * @return the header value, e.g. {@code extractZip;dur=41.3, total;dur=97.0}.
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Stage stage : stages) {
+            header.append(stage.name())
+                    .append(";dur=")
+                    .append(format(stage.durationMillis()))
+                    .append(", ");
+        }
+        return header.append("total;dur=").append(format(durationMillis())).toString();
+    }
+
+    /**
+     * Describes the trace for the slow-request log.
+     *
+     * @return the duration of the request and of each stage with its counters.
+     */
+    public String breakdown() {
+        StringBuilder text =
+                new StringBuilder(name).append(" took ").append(format(durationMillis()));
+        text.append(" ms:");
+        for (Stage stage : stages) {
+            text.append(' ')
+                    .append(stage.name())
+                    .append('=')
+                    .append(format(stage.durationMillis()))
+                    .append("ms");
+            if (stage.files() > 0) {
+                text.append(" files=").append(stage.files());
+            }
+            if (stage.bytes() > 0) {
+                text.append(" bytes=").append(stage.bytes());
+            }
+            List<String> requestIds = stage.requestIds();
+            if (!requestIds.isEmpty()) {
+                text.append(" s3RequestIds=").append(requestIds);
+            }
+            text.append(';');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Formats a duration with one decimal.
+     *
+     * @param millis the duration in milliseconds.
+     * @return the formatted duration.
+     */
+    private static String format(double millis) {
+        return String.format(Locale.ROOT, "%.1f", millis);
+    }
+}
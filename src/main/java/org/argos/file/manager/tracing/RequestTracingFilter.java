@@ -0,0 +1,89 @@
+package org.argos.file.manager.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.argos.file.manager.utils.EnvSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Traces each {@code /fileManager} request: binds a {@link RequestTrace} to the serving thread
+ * for the length of the request, logs the stage breakdown of requests slower than
+ * {@code ARGOS_SLOW_REQUEST_MS}, and hands the finished trace to the {@link TraceExporter}.
+ */
+@Component
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestTracingFilter.class);
+    private static final String TRACED_PATH = "/fileManager";
+
+    private final TraceExporter exporter;
+    private final long slowRequestMillis;
+
+    /**
+     * Creates the filter with the trace exporter configured by the environment.
+     */
+    public RequestTracingFilter() {
+        this(new TraceExporter());
+    }
+
+    /**
+     * Creates the filter.
+     *
+     * @param exporter the exporter of finished traces.
+     */
+    public RequestTracingFilter(TraceExporter exporter) {
+        this.exporter = exporter;
+        this.slowRequestMillis = EnvSettings.getLong("ARGOS_SLOW_REQUEST_MS", 2000);
+    }
+
+    /**
+     * Flushes pending spans when the filter is destroyed.
+     */
+    @Override
+    public void destroy() {
+        exporter.shutdown();
+    }
+
+    /**
+     * Skips requests outside the file manager API, such as actuator and peer-cache calls.
+     *
+     * @param request the request.
+     * @return true if the request is not traced.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(TRACED_PATH, request.getContextPath().length());
+    }
+
+    /**
+     * Runs the request with a bound trace and reports the trace once the request has ended.
+     *
+     * @param request the request.
+     * @param response the response.
+     * @param chain the remaining filters.
+     * @throws ServletException if a later filter or the controller fails.
+     * @throws IOException if writing the response fails.
+     */
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace trace =
+                RequestTrace.begin(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            trace.end();
+            if (slowRequestMillis > 0 && trace.durationMillis() >= slowRequestMillis) {
+                LOGGER.warn("Slow request: {}", trace.breakdown());
+            }
+            exporter.export(trace, response.getStatus());
+        }
+    }
+}
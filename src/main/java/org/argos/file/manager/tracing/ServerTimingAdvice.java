@@ -0,0 +1,62 @@
+package org.argos.file.manager.tracing;
+
+import org.argos.file.manager.utils.EnvSettings;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds a {@code Server-Timing} header with the stage durations of the request to every
+ * response body, when {@code ARGOS_SERVER_TIMING} is enabled. The header is written just
+ * before the body, so it covers every stage the controller ran.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String SERVER_TIMING = "Server-Timing";
+
+    private final boolean enabled = EnvSettings.getBoolean("ARGOS_SERVER_TIMING", false);
+
+    /**
+     * Applies the advice to every response while the header is enabled.
+     *
+     * @param returnType the return type of the handler.
+     * @param converterType the converter writing the body.
+     * @return true if the header is enabled.
+     */
+    @Override
+    public boolean supports(
+            MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    /**
+     * Adds the header if a trace is bound to the request.
+     *
+     * @param body the body to write.
+     * @param returnType the return type of the handler.
+     * @param contentType the content type of the body.
+     * @param converterType the converter writing the body.
+     * @param request the request.
+     * @param response the response.
+     * @return the body, unchanged.
+     */
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType contentType,
+            Class<? extends HttpMessageConverter<?>> converterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response) {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            response.getHeaders().set(SERVER_TIMING, trace.serverTiming());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,161 @@
+package org.argos.file.manager.tracing;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import software.amazon.awssdk.awscore.AwsResponse;
+import software.amazon.awssdk.awscore.AwsResponseMetadata;
+
+/**
+ * One timed step of a {@link RequestTrace}, such as extracting an archive or uploading its
+ * files. A stage counts the bytes and files it handled and the IDs of the S3 requests it
+ * made; counters are thread-safe so upload workers can report into the stage of the request.
+ */
+public final class Stage implements AutoCloseable {
+
+    /** Stage returned when no trace is bound to the thread; it records nothing. */
+    static final Stage NOOP = new Stage("noop", 0);
+
+    private static final int MAX_REQUEST_IDS = 50;
+    private static final String UNKNOWN_REQUEST_ID = "UNKNOWN";
+
+    private final String name;
+    private final long startNanos;
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger requestIdCount = new AtomicInteger();
+    private final Queue<String> requestIds = new ConcurrentLinkedQueue<>();
+    private volatile long endNanos;
+
+    /**
+     * Creates a stage.
+     *
+     * @param name the name of the stage.
+     * @param startNanos the {@link System#nanoTime()} reading at which the stage starts.
+     */
+    Stage(String name, long startNanos) {
+        this.name = name;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Adds to the number of bytes handled by the stage.
+     *
+     * @param count the number of bytes.
+     * @return this stage.
+     */
+    public Stage addBytes(long count) {
+        if (this != NOOP) {
+            bytes.addAndGet(count);
+        }
+        return this;
+    }
+
+    /**
+     * Adds to the number of files handled by the stage.
+     *
+     * @param count the number of files.
+     * @return this stage.
+     */
+    public Stage addFiles(int count) {
+        if (this != NOOP) {
+            files.addAndGet(count);
+        }
+        return this;
+    }
+
+    /**
+     * Records the ID of an S3 request made by the stage. Only the first IDs are kept.
+     *
+     * @param response the S3 response, or null if the client returned none.
+     * @return this stage.
+     */
+    public Stage addRequestId(AwsResponse response) {
+        if (this == NOOP || response == null) {
+            return this;
+        }
+        AwsResponseMetadata metadata = response.responseMetadata();
+        String requestId = metadata != null ? metadata.requestId() : null;
+        if (requestId != null
+                && !UNKNOWN_REQUEST_ID.equals(requestId)
+                && requestIdCount.getAndIncrement() < MAX_REQUEST_IDS) {
+            requestIds.add(requestId);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the stage. Closing a stage again keeps its first end time.
+     */
+    @Override
+    public void close() {
+        if (this != NOOP && endNanos == 0) {
+            endNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the name of the stage.
+     *
+     * @return the stage name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} reading at which the stage started.
+     *
+     * @return the start time.
+     */
+    long startNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns the {@link System#nanoTime()} reading at which the stage ended, or now.
+     *
+     * @return the end time.
+     */
+    long endNanos() {
+        return endNanos != 0 ? endNanos : System.nanoTime();
+    }
+
+    /**
+     * Returns the duration of the stage, or its duration so far if it has not ended.
+     *
+     * @return the duration in milliseconds.
+     */
+    public double durationMillis() {
+        return (endNanos() - startNanos) / 1_000_000.0;
+    }
+
+    /**
+     * Returns the number of bytes handled by the stage.
+     *
+     * @return the byte count.
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the number of files handled by the stage.
+     *
+     * @return the file count.
+     */
+    public int files() {
+        return files.get();
+    }
+
+    /**
+     * Returns the recorded S3 request IDs.
+     *
+     * @return at most the first 50 request IDs of the stage.
+     */
+    public List<String> requestIds() {
+        return List.copyOf(requestIds);
+    }
+}
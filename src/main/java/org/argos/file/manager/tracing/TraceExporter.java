@@ -0,0 +1,137 @@
+package org.argos.file.manager.tracing;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.argos.file.manager.utils.EnvSettings;
+
+/**
+ * Exports finished request traces as OpenTelemetry spans.
+ * Each request becomes a server span with one child span per stage, timed with the stage's
+ * recorded start and end, so stages are measured in-process and converted only once the
+ * request has ended. {@code ARGOS_TRACE_EXPORTER} selects {@code none} (default),
+ * {@code logging} to write spans to the application log, or {@code otlp} to batch them to
+ * the collector at {@code ARGOS_TRACE_OTLP_ENDPOINT}.
+ */
+public class TraceExporter {
+
+    private static final AttributeKey<Long> BYTES = AttributeKey.longKey("argos.bytes");
+    private static final AttributeKey<Long> FILES = AttributeKey.longKey("argos.files");
+    private static final AttributeKey<List<String>> REQUEST_IDS =
+            AttributeKey.stringArrayKey("aws.request_ids");
+    private static final AttributeKey<Long> STATUS =
+            AttributeKey.longKey("http.response.status_code");
+
+    private final SdkTracerProvider tracerProvider;
+    private final Tracer tracer;
+
+    /**
+     * Creates the exporter configured by the environment.
+     */
+    public TraceExporter() {
+        this(
+                EnvSettings.getString("ARGOS_TRACE_EXPORTER", "none"),
+                EnvSettings.getString(
+                        "ARGOS_TRACE_OTLP_ENDPOINT", "http://localhost:4318/v1/traces"));
+    }
+
+    /**
+     * Creates an exporter.
+     *
+     * @param exporter {@code none}, {@code logging} or {@code otlp}.
+     * @param otlpEndpoint the OTLP/HTTP traces endpoint used by the {@code otlp} exporter.
+     */
+    public TraceExporter(String exporter, String otlpEndpoint) {
+        SpanProcessor processor =
+                switch (exporter.toLowerCase(Locale.ROOT)) {
+                    case "logging" -> SimpleSpanProcessor.create(LoggingSpanExporter.create());
+                    case "otlp" ->
+                            BatchSpanProcessor.builder(
+                                            OtlpHttpSpanExporter.builder()
+                                                    .setEndpoint(otlpEndpoint)
+                                                    .build())
+                                    .build();
+                    default -> null;
+                };
+        if (processor == null) {
+            this.tracerProvider = null;
+            this.tracer = null;
+            return;
+        }
+        this.tracerProvider =
+                SdkTracerProvider.builder()
+                        .setResource(
+                                Resource.getDefault()
+                                        .merge(
+                                                Resource.create(
+                                                        Attributes.of(
+                                                                AttributeKey.stringKey(
+                                                                        "service.name"),
+                                                                "argos-file-manager"))))
+                        .addSpanProcessor(processor)
+                        .build();
+        this.tracer = tracerProvider.get(TraceExporter.class.getPackageName());
+    }
+
+    /**
+     * Exports a finished trace.
+     *
+     * @param trace the trace.
+     * @param status the HTTP status of the response.
+     */
+    public void export(RequestTrace trace, int status) {
+        if (tracer == null) {
+            return;
+        }
+        Span root =
+                tracer.spanBuilder(trace.name())
+                        .setNoParent()
+                        .setSpanKind(SpanKind.SERVER)
+                        .setStartTimestamp(
+                                trace.toEpochNanos(trace.startNanos()), TimeUnit.NANOSECONDS)
+                        .startSpan();
+        root.setAttribute(STATUS, (long) status);
+        if (status >= 500) {
+            root.setStatus(StatusCode.ERROR);
+        }
+        Context parent = Context.root().with(root);
+        for (Stage stage : trace.stages()) {
+            Span span =
+                    tracer.spanBuilder(stage.name())
+                            .setParent(parent)
+                            .setStartTimestamp(
+                                    trace.toEpochNanos(stage.startNanos()), TimeUnit.NANOSECONDS)
+                            .startSpan();
+            span.setAttribute(BYTES, stage.bytes());
+            span.setAttribute(FILES, (long) stage.files());
+            if (!stage.requestIds().isEmpty()) {
+                span.setAttribute(REQUEST_IDS, stage.requestIds());
+            }
+            span.end(trace.toEpochNanos(stage.endNanos()), TimeUnit.NANOSECONDS);
+        }
+        root.end(trace.toEpochNanos(trace.endNanos()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Flushes pending spans and stops the exporter.
+     */
+    public void shutdown() {
+        if (tracerProvider != null) {
+            tracerProvider.shutdown().join(5, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.argos.file.manager.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+
+/**
+ * Container formats accepted for project uploads, recognised by their leading bytes and,
+ * for archives without a magic number, by their file name.
+ */
+public enum ArchiveFormat {
+    ZIP("ZIP"),
+    TAR("TAR"),
+    TAR_GZIP("TAR"),
+    TAR_ZSTD("TAR");
+
+    /**
+     * Number of leading bytes needed to recognise every format; the tar magic ends at
+     * offset 262.
+     */
+    public static final int HEADER_BYTES = 512;
+
+    private static final int GZIP_BUFFER_SIZE = 64 << 10;
+    private static final byte[] GZIP_MAGIC = {0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {0x28, (byte) 0xb5, 0x2f, (byte) 0xfd};
+    private static final byte[] TAR_MAGIC = "ustar".getBytes(StandardCharsets.US_ASCII);
+    private static final int TAR_MAGIC_OFFSET = 257;
+
+    private final String label;
+
+    ArchiveFormat(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Recognises the format of an archive. Compressed streams are assumed to hold a tar
+     * archive. Archives that match no magic number or tar file name are treated as ZIP, so
+     * they fail with the usual ZIP errors.
+     *
+     * @param header the leading bytes of the archive, up to {@link #HEADER_BYTES}.
+     * @param fileName the name of the uploaded file, or null if unknown.
+     * @return the archive format.
+     */
+    public static ArchiveFormat detect(byte[] header, String fileName) {
+        if (startsWith(header, 0, GZIP_MAGIC)) {
+            return TAR_GZIP;
+        }
+        if (startsWith(header, 0, ZSTD_MAGIC)) {
+            return TAR_ZSTD;
+        }
+        if (startsWith(header, TAR_MAGIC_OFFSET, TAR_MAGIC)) {
+            return TAR;
+        }
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        return name.endsWith(".tar") ? TAR : ZIP;
+    }
+
+    /**
+     * Recognises the format of an archive stream without consuming it.
+     *
+     * @param archive the archive stream; it must support mark and reset.
+     * @return the archive format.
+     * @throws IOException if the stream cannot be read.
+     */
+    public static ArchiveFormat detect(InputStream archive) throws IOException {
+        archive.mark(HEADER_BYTES);
+        byte[] header = archive.readNBytes(HEADER_BYTES);
+        archive.reset();
+        return detect(header, null);
+    }
+
+    /**
+     * Returns whether the format is a tar archive, possibly compressed.
+     *
+     * @return true for tar formats.
+     */
+    public boolean isTar() {
+        return this != ZIP;
+    }
+
+    /**
+     * Returns the name of the container format used in error messages.
+     *
+     * @return "ZIP" or "TAR".
+     */
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Wraps an archive stream to undo its compression, if any.
+     *
+     * @param archive the archive stream.
+     * @return the stream of the uncompressed archive.
+     * @throws IOException if the compression header is invalid.
+     */
+    public InputStream decompress(InputStream archive) throws IOException {
+        return switch (this) {
+            case TAR_GZIP -> new GZIPInputStream(archive, GZIP_BUFFER_SIZE);
+            case TAR_ZSTD -> new ZstdCompressorInputStream(archive);
+            default -> archive;
+        };
+    }
+
+    /**
+     * Returns whether bytes contain a magic number at an offset.
+     *
+     * @param header the leading bytes of the archive.
+     * @param offset the offset of the magic number.
+     * @param magic the magic number.
+     * @return true if the magic number is present.
+     */
+    private static boolean startsWith(byte[] header, int offset, byte[] magic) {
+        return header.length >= offset + magic.length
+                && Arrays.equals(
+                        header, offset, offset + magic.length, magic, 0, magic.length);
+    }
+}
@@ -0,0 +1,172 @@
+package org.argos.file.manager.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+
+/**
+ * Reads the entries of a ZIP or tar archive one after another from a stream, so that an
+ * archive can be processed in a single pass without being stored first.
+ */
+public abstract class ArchiveReader {
+
+    /**
+     * What an archive entry holds.
+     */
+    public enum Kind {
+        FILE,
+        DIRECTORY,
+        /** A symbolic or hard link, which is never followed. */
+        LINK,
+        /** A device, FIFO or other special file, which holds no content. */
+        OTHER
+    }
+
+    /**
+     * An entry of an archive.
+     *
+     * @param name the path of the entry as stored in the archive.
+     * @param size the declared uncompressed size, or -1 if unknown.
+     * @param kind what the entry holds.
+     */
+    public record Entry(String name, long size, Kind kind) {}
+
+    private final ArchiveFormat format;
+
+    private ArchiveReader(ArchiveFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Opens an archive stream, recognising its format from its leading bytes.
+     *
+     * @param archive the archive stream; it must support mark and reset and is not closed.
+     * @return the reader of the archive.
+     * @throws IOException if the archive cannot be read.
+     */
+    public static ArchiveReader open(InputStream archive) throws IOException {
+        ArchiveFormat format = ArchiveFormat.detect(archive);
+        InputStream uncompressed = format.decompress(archive);
+        return format == ArchiveFormat.ZIP
+                ? new Zip(new ZipInputStream(uncompressed))
+                : new Tar(format, new TarArchiveInputStream(uncompressed));
+    }
+
+    /**
+     * Returns the format of the archive.
+     *
+     * @return the archive format.
+     */
+    public ArchiveFormat format() {
+        return format;
+    }
+
+    /**
+     * Advances to the next entry, skipping the unread data of the current one.
+     *
+     * @return the next entry, or null at the end of the archive.
+     * @throws IOException if the archive is malformed or cannot be read.
+     */
+    public abstract Entry nextEntry() throws IOException;
+
+    /**
+     * Returns the stream of the current entry's data, which ends with the entry.
+     *
+     * @return the entry data.
+     */
+    public abstract InputStream data();
+
+    /**
+     * Returns the CRC32 stored for the current entry. ZIP entries are verified against it
+     * once their data has been read to the end; tar archives store none.
+     *
+     * @return the CRC32 of the entry, or -1 if the archive stores none.
+     */
+    public abstract long crc32();
+
+    /**
+     * Reader of ZIP archives. Symbolic links cannot be told apart from files in a ZIP
+     * stream, so every non-directory entry is a file.
+     */
+    private static final class Zip extends ArchiveReader {
+
+        private final ZipInputStream zipInputStream;
+        private ZipEntry current;
+
+        Zip(ZipInputStream zipInputStream) {
+            super(ArchiveFormat.ZIP);
+            this.zipInputStream = zipInputStream;
+        }
+
+        @Override
+        public Entry nextEntry() throws IOException {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            current = entry;
+            if (entry == null) {
+                return null;
+            }
+            return new Entry(
+                    entry.getName(),
+                    entry.getSize(),
+                    entry.isDirectory() ? Kind.DIRECTORY : Kind.FILE);
+        }
+
+        @Override
+        public InputStream data() {
+            return zipInputStream;
+        }
+
+        @Override
+        public long crc32() {
+            return current != null ? current.getCrc() : -1;
+        }
+    }
+
+    /**
+     * Reader of tar archives, including GNU long names and PAX headers.
+     */
+    private static final class Tar extends ArchiveReader {
+
+        private final TarArchiveInputStream tarInputStream;
+
+        Tar(ArchiveFormat format, TarArchiveInputStream tarInputStream) {
+            super(format);
+            this.tarInputStream = tarInputStream;
+        }
+
+        @Override
+        public Entry nextEntry() throws IOException {
+            TarArchiveEntry entry = tarInputStream.getNextEntry();
+            if (entry == null) {
+                return null;
+            }
+            return new Entry(entry.getName(), entry.getSize(), kind(entry));
+        }
+
+        @Override
+        public InputStream data() {
+            return tarInputStream;
+        }
+
+        @Override
+        public long crc32() {
+            return -1;
+        }
+
+        private static Kind kind(TarArchiveEntry entry) {
+            if (entry.isDirectory()) {
+                return Kind.DIRECTORY;
+            }
+            if (entry.isSymbolicLink() || entry.isLink()) {
+                return Kind.LINK;
+            }
+            if (entry.isCharacterDevice() || entry.isBlockDevice() || entry.isFIFO()) {
+                return Kind.OTHER;
+            }
+            return Kind.FILE;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.argos.file.manager.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of fixed-size direct buffers lent to the copy loops of uploads: spooling uploaded
+ * archives to scratch space, writing extracted ZIP entries and holding the entries of
+ * streamed archives while they upload. Content copied through these buffers stays off the
+ * Java heap, so an upload no longer allocates short-lived arrays as large as its files.
+ * At most {@code maxIdle} released buffers are kept for reuse; a pool that runs dry
+ * allocates a new buffer, and a buffer released to a full pool is dropped.
+ * <p>
+ * Every {@link Lease} must be closed once its buffer is no longer used. A lease that becomes
+ * unreachable without being closed is counted as a leak, logged, and its buffer recovered;
+ * with {@code ARGOS_BUFFER_POOL_LEAK_TRACES} the log shows where the lease was acquired.
+ */
+public final class BufferPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferPool.class);
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int bufferBytes;
+    private final boolean traceLeaks;
+    private final BlockingQueue<ByteBuffer> idle;
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicInteger leased = new AtomicInteger();
+
+    /**
+     * Creates a pool.
+     *
+     * @param bufferBytes the capacity of every buffer.
+     * @param maxIdle the maximum number of released buffers kept for reuse.
+     * @param traceLeaks whether to record where each lease is acquired, for leak reports.
+     */
+    public BufferPool(int bufferBytes, int maxIdle, boolean traceLeaks) {
+        this.bufferBytes = Math.max(1, bufferBytes);
+        this.traceLeaks = traceLeaks;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+    }
+
+    /**
+     * Bill Pugh Singleton Design for thread-safe and efficient lazy initialization.
+     * The instance is created when it is first used.
+     */
+    private static class SingletonHelper {
+        private static final BufferPool INSTANCE =
+                new BufferPool(
+                        EnvSettings.getInt("ARGOS_BUFFER_POOL_BUFFER_BYTES", 64 << 10),
+                        EnvSettings.getInt("ARGOS_BUFFER_POOL_MAX_IDLE", 512),
+                        EnvSettings.getBoolean("ARGOS_BUFFER_POOL_LEAK_TRACES", false));
+    }
+
+    /**
+     * Returns the pool shared by the application.
+     *
+     * @return the singleton instance of BufferPool.
+     */
+    public static BufferPool getInstance() {
+        return SingletonHelper.INSTANCE;
+    }
+
+    /**
+     * Lends a cleared buffer.
+     *
+     * @return the lease of the buffer, to be closed once the buffer is no longer used.
+     */
+    public Lease acquire() {
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+            allocated.incrementAndGet();
+        }
+        buffer.clear();
+        leased.incrementAndGet();
+        Throwable site = traceLeaks ? new Throwable("Buffer lease acquired here") : null;
+        return new Lease(buffer, new Release(this, buffer, site));
+    }
+
+    /**
+     * Copies a stream to a channel through a leased buffer.
+     *
+     * @param in the stream to read to its end; it is not closed.
+     * @param out the channel receiving the content; it is not closed.
+     * @return the number of bytes copied.
+     * @throws IOException if the stream cannot be read or the channel written.
+     */
+    public long copy(InputStream in, WritableByteChannel out) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        long copied = 0;
+        try (Lease lease = acquire()) {
+            ByteBuffer buffer = lease.buffer();
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    copied += out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Returns the capacity of the buffers of this pool.
+     *
+     * @return the buffer size in bytes.
+     */
+    public int bufferBytes() {
+        return bufferBytes;
+    }
+
+    /**
+     * Returns the number of buffers allocated since the pool was created.
+     *
+     * @return the number of allocations.
+     */
+    public long allocated() {
+        return allocated.get();
+    }
+
+    /**
+     * Returns the number of buffers currently lent.
+     *
+     * @return the number of open leases.
+     */
+    public int leased() {
+        return leased.get();
+    }
+
+    /**
+     * Returns the number of released buffers waiting to be reused.
+     *
+     * @return the number of idle buffers.
+     */
+    public int idle() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of leases that became unreachable without being closed.
+     *
+     * @return the number of leaks detected.
+     */
+    public long leaks() {
+        return leaks.get();
+    }
+
+    /**
+     * Takes back a buffer, keeping it for reuse unless enough buffers are idle.
+     *
+     * @param buffer the released buffer.
+     */
+    private void recycle(ByteBuffer buffer) {
+        leased.decrementAndGet();
+        idle.offer(buffer);
+    }
+
+    /**
+     * Records a lease that was never closed.
+     *
+     * @param site where the lease was acquired, or null if leases are not traced.
+     */
+    private void leaked(Throwable site) {
+        long count = leaks.incrementAndGet();
+        if (site != null) {
+            LOGGER.warn("Buffer lease was not closed ({} leaks so far)", count, site);
+        } else {
+            LOGGER.warn(
+                    "Buffer lease was not closed ({} leaks so far); set"
+                            + " ARGOS_BUFFER_POOL_LEAK_TRACES=true to find where",
+                    count);
+        }
+    }
+
+    /**
+     * Loan of a pooled buffer. Closing the lease returns the buffer to the pool; the buffer
+     * must not be used afterwards. Closing a lease more than once has no further effect.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final ByteBuffer buffer;
+        private final Release release;
+        private final Cleaner.Cleanable cleanable;
+
+        private Lease(ByteBuffer buffer, Release release) {
+            this.buffer = buffer;
+            this.release = release;
+            this.cleanable = CLEANER.register(this, release);
+        }
+
+        /**
+         * Returns the leased buffer, cleared when the lease was acquired.
+         *
+         * @return the buffer.
+         */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        @Override
+        public void close() {
+            release.closed = true;
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * Action returning the buffer of a lease, run once the lease is closed or, for a leaked
+     * lease, once it has been collected. It must not refer to the lease itself.
+     */
+    private static final class Release implements Runnable {
+
+        private final BufferPool pool;
+        private final ByteBuffer buffer;
+        private final Throwable site;
+        private volatile boolean closed;
+
+        Release(BufferPool pool, ByteBuffer buffer, Throwable site) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.site = site;
+        }
+
+        @Override
+        public void run() {
+            if (!closed) {
+                pool.leaked(site);
+            }
+            pool.recycle(buffer);
+        }
+    }
+}
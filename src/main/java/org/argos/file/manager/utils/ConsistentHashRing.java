@@ -0,0 +1,69 @@
+package org.argos.file.manager.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring assigning every key to exactly one node.
+ * Each node is placed on the ring at several virtual positions so keys spread evenly, and
+ * adding or removing a node only moves the keys adjacent to its positions.
+ * A ring is filled when its owner is created and only read afterwards.
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * Places a node on the ring at the hashes of {@code node#0} to
+     * {@code node#(positions - 1)}.
+     *
+     * @param node the name of the node.
+     * @param positions the number of ring positions of the node; 0 places it nowhere.
+     */
+    public void add(String node, int positions) {
+        for (int i = 0; i < positions; i++) {
+            ring.put(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Returns whether no node has a position on the ring.
+     *
+     * @return true if the ring is empty.
+     */
+    public boolean isEmpty() {
+        return ring.isEmpty();
+    }
+
+    /**
+     * Returns the node owning a key: the first node position at or after the key's hash.
+     * The ring must not be empty.
+     *
+     * @param key the key.
+     * @return the name of the owning node.
+     */
+    public String ownerOf(String key) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Hashes a value onto the ring using the first eight bytes of its MD5 digest.
+     *
+     * @param value the value to hash.
+     * @return the ring position.
+     */
+    private static long hash(String value) {
+        try {
+            byte[] digest =
+                    MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available.", e);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.argos.file.manager.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import org.argos.file.manager.model.FileFacts;
+import software.amazon.awssdk.http.ContentStreamProvider;
+
+/**
+ * Computes the {@link FileFacts} of a file over its bytes as they pass through on their way
+ * to S3, so that no file is read a second time. A file is binary when its leading bytes
+ * contain a NUL byte, as for the ingest filter; otherwise its lines are counted and its
+ * bytes checked for UTF-8. A profiler describes one file and is not thread-safe.
+ */
+public class ContentProfiler {
+
+    private static final Map<String, String> LANGUAGES_BY_NAME =
+            Map.of(
+                    "dockerfile", "Dockerfile",
+                    "makefile", "Makefile",
+                    "gnumakefile", "Makefile",
+                    "cmakelists.txt", "CMake",
+                    "jenkinsfile", "Groovy");
+
+    private static final Map<String, String> LANGUAGES_BY_EXTENSION =
+            Map.ofEntries(
+                    Map.entry("java", "Java"),
+                    Map.entry("kt", "Kotlin"),
+                    Map.entry("kts", "Kotlin"),
+                    Map.entry("scala", "Scala"),
+                    Map.entry("groovy", "Groovy"),
+                    Map.entry("gradle", "Groovy"),
+                    Map.entry("py", "Python"),
+                    Map.entry("js", "JavaScript"),
+                    Map.entry("mjs", "JavaScript"),
+                    Map.entry("cjs", "JavaScript"),
+                    Map.entry("jsx", "JavaScript"),
+                    Map.entry("ts", "TypeScript"),
+                    Map.entry("tsx", "TypeScript"),
+                    Map.entry("go", "Go"),
+                    Map.entry("rs", "Rust"),
+                    Map.entry("c", "C"),
+                    Map.entry("h", "C"),
+                    Map.entry("cc", "C++"),
+                    Map.entry("cpp", "C++"),
+                    Map.entry("cxx", "C++"),
+                    Map.entry("hpp", "C++"),
+                    Map.entry("cs", "C#"),
+                    Map.entry("swift", "Swift"),
+                    Map.entry("m", "Objective-C"),
+                    Map.entry("rb", "Ruby"),
+                    Map.entry("php", "PHP"),
+                    Map.entry("sh", "Shell"),
+                    Map.entry("bash", "Shell"),
+                    Map.entry("ps1", "PowerShell"),
+                    Map.entry("sql", "SQL"),
+                    Map.entry("html", "HTML"),
+                    Map.entry("htm", "HTML"),
+                    Map.entry("css", "CSS"),
+                    Map.entry("scss", "SCSS"),
+                    Map.entry("vue", "Vue"),
+                    Map.entry("json", "JSON"),
+                    Map.entry("yaml", "YAML"),
+                    Map.entry("yml", "YAML"),
+                    Map.entry("toml", "TOML"),
+                    Map.entry("xml", "XML"),
+                    Map.entry("properties", "Properties"),
+                    Map.entry("md", "Markdown"),
+                    Map.entry("txt", "Text"),
+                    Map.entry("csv", "CSV"),
+                    Map.entry("proto", "Protobuf"),
+                    Map.entry("tf", "HCL"));
+
+    private long bytes;
+    private long newlines;
+    private int lastByte = -1;
+    private boolean nul;
+    private boolean ascii = true;
+    private boolean utf8 = true;
+    private int pendingContinuations;
+
+    /**
+     * Forgets the bytes seen so far, before the file is read again.
+     */
+    public void reset() {
+        bytes = 0;
+        newlines = 0;
+        lastByte = -1;
+        nul = false;
+        ascii = true;
+        utf8 = true;
+        pendingContinuations = 0;
+    }
+
+    /**
+     * Adds the next bytes of the file.
+     *
+     * @param buffer the bytes.
+     * @param offset the offset of the first byte.
+     * @param length the number of bytes.
+     */
+    public void update(byte[] buffer, int offset, int length) {
+        if (length <= 0) {
+            return;
+        }
+        long sniffEnd = IngestFilter.BINARY_SNIFF_BYTES - bytes;
+        for (int i = 0; i < length; i++) {
+            int b = buffer[offset + i] & 0xff;
+            if (b == '\n') {
+                newlines++;
+            } else if (b == 0 && i < sniffEnd) {
+                nul = true;
+            }
+            if (pendingContinuations > 0) {
+                if ((b & 0xc0) == 0x80) {
+                    pendingContinuations--;
+                } else {
+                    utf8 = false;
+                    pendingContinuations = 0;
+                }
+            } else if (b >= 0x80) {
+                ascii = false;
+                if (b >= 0xc2 && b <= 0xdf) {
+                    pendingContinuations = 1;
+                } else if (b >= 0xe0 && b <= 0xef) {
+                    pendingContinuations = 2;
+                } else if (b >= 0xf0 && b <= 0xf4) {
+                    pendingContinuations = 3;
+                } else {
+                    utf8 = false;
+                }
+            }
+        }
+        bytes += length;
+        lastByte = buffer[offset + length - 1] & 0xff;
+    }
+
+    /**
+     * Returns the number of bytes seen so far.
+     *
+     * @return the byte count.
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the facts of the file from the bytes seen so far.
+     *
+     * @param path the path of the file, whose name gives its language.
+     * @return the facts of the file.
+     */
+    public FileFacts facts(String path) {
+        if (nul) {
+            return new FileFacts(language(path, true), bytes, 0, FileFacts.BINARY, true);
+        }
+        String encoding;
+        if (ascii) {
+            encoding = "US-ASCII";
+        } else if (utf8 && pendingContinuations == 0) {
+            encoding = "UTF-8";
+        } else {
+            encoding = "unknown";
+        }
+        long lines = newlines + (bytes > 0 && lastByte != '\n' ? 1 : 0);
+        return new FileFacts(language(path, false), bytes, lines, encoding, false);
+    }
+
+    /**
+     * Wraps a stream so that the bytes read from it are added to this profiler.
+     *
+     * @param in the stream of the file.
+     * @return the observed stream, which does not support mark and reset.
+     */
+    public InputStream observe(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    update(new byte[] {(byte) b}, 0, 1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = super.read(buffer, offset, length);
+                update(buffer, offset, read);
+                return read;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a provider of the content of a file that profiles every stream it opens.
+     * The S3 client may open the content more than once, to sign it or to retry a request,
+     * so the profiler is reset on each new stream and describes the last one read.
+     *
+     * @param file the file.
+     * @return the content provider.
+     */
+    public ContentStreamProvider streamOf(Path file) {
+        return new ContentStreamProvider() {
+            private InputStream current;
+
+            @Override
+            public InputStream newStream() {
+                try {
+                    if (current != null) {
+                        current.close();
+                    }
+                    reset();
+                    current = observe(Files.newInputStream(file));
+                    return current;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Recognises the language of a file by its name or extension.
+     *
+     * @param path the path of the file.
+     * @param binary whether the file is binary.
+     * @return the language, "Binary" for other binary files or "Other" for other text files.
+     */
+    public static String language(String path, boolean binary) {
+        String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        String language = LANGUAGES_BY_NAME.get(name);
+        int dot = name.lastIndexOf('.');
+        if (language == null && dot > 0) {
+            language = LANGUAGES_BY_EXTENSION.get(name.substring(dot + 1));
+        }
+        if (language != null) {
+            return language;
+        }
+        return binary ? "Binary" : "Other";
+    }
+}
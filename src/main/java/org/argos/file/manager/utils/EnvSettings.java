@@ -0,0 +1,67 @@
+package org.argos.file.manager.utils;
+
+/**
+ * Utility class for reading optional tuning settings from environment variables.
+ * Missing or malformed values fall back to the supplied defaults.
+ * This class cannot be instantiated as it contains only static methods.
+ */
+public class EnvSettings {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EnvSettings() {}
+
+    /**
+     * Reads a string setting.
+     *
+     * @param name the environment variable name.
+     * @param defaultValue the value to use when the variable is not set.
+     * @return the configured value or the default.
+     */
+    public static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    /**
+     * Reads an integer setting.
+     *
+     * @param name the environment variable name.
+     * @param defaultValue the value to use when the variable is not set or invalid.
+     * @return the configured value or the default.
+     */
+    public static int getInt(String name, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(name, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a long setting.
+     *
+     * @param name the environment variable name.
+     * @param defaultValue the value to use when the variable is not set or invalid.
+     * @return the configured value or the default.
+     */
+    public static long getLong(String name, long defaultValue) {
+        try {
+            return Long.parseLong(getString(name, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a boolean setting. Only "true" (case-insensitive) enables the flag.
+     *
+     * @param name the environment variable name.
+     * @param defaultValue the value to use when the variable is not set.
+     * @return the configured value or the default.
+     */
+    public static boolean getBoolean(String name, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,61 @@
+package org.argos.file.manager.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Utility class for creating the internal executors used for storage I/O.
+ * When ARGOS_VIRTUAL_THREADS is enabled, every task runs on its own virtual thread and
+ * callers bound concurrency through the number of tasks they submit. Otherwise a fixed
+ * pool of daemon platform threads is used.
+ * This class cannot be instantiated as it contains only static methods.
+ */
+public class ExecutorFactory {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private ExecutorFactory() {}
+
+    /**
+     * Indicates whether the virtual-thread execution mode is enabled.
+     *
+     * @return true if blocking work should run on virtual threads.
+     */
+    public static boolean virtualThreadsEnabled() {
+        return EnvSettings.getBoolean("ARGOS_VIRTUAL_THREADS", false);
+    }
+
+    /**
+     * Creates an executor for blocking storage work.
+     *
+     * @param name the prefix used for thread names.
+     * @param platformThreads the pool size used when virtual threads are disabled.
+     * @return the executor service.
+     */
+    public static ExecutorService newExecutor(String name, int platformThreads) {
+        if (virtualThreadsEnabled()) {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(
+                Math.max(1, platformThreads),
+                Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+    }
+
+    /**
+     * Creates an executor for blocking work whose concurrency is already bounded by its
+     * callers, such as reads issued on behalf of request threads.
+     *
+     * @param name the prefix used for thread names.
+     * @return the executor service.
+     */
+    public static ExecutorService newUnboundedExecutor(String name) {
+        if (virtualThreadsEnabled()) {
+            return Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newCachedThreadPool(
+                Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+    }
+}
@@ -0,0 +1,54 @@
+package org.argos.file.manager.utils;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checksums of the files of one upload, recorded while the files were extracted so that
+ * they can be sent to S3 without reading the files again. Files without a recorded
+ * checksum are sent with the algorithm only.
+ */
+public class FileChecksums {
+
+    private final UploadChecksum algorithm;
+    private final Map<Path, String> checksums = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty set of checksums.
+     *
+     * @param algorithm the checksum sent with the files.
+     */
+    public FileChecksums(UploadChecksum algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Returns the checksum sent with the files.
+     *
+     * @return the checksum algorithm.
+     */
+    public UploadChecksum algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Records the checksum of a file.
+     *
+     * @param file the file.
+     * @param checksum the Base64-encoded checksum.
+     */
+    public void record(Path file, String checksum) {
+        checksums.put(file, checksum);
+    }
+
+    /**
+     * Returns the recorded checksum of a file.
+     *
+     * @param file the file.
+     * @return the Base64-encoded checksum, or null if none was recorded.
+     */
+    public String get(Path file) {
+        return checksums.get(file);
+    }
+}
@@ -1,17 +1,33 @@
 package org.argos.file.manager.utils;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import org.argos.file.manager.exceptions.BadRequestError;
 import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.exceptions.PayloadTooLargeError;
+import org.argos.file.manager.model.FilterReason;
+import org.argos.file.manager.tracing.RequestTrace;
+import org.argos.file.manager.tracing.Stage;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
@@ -21,6 +37,8 @@ import org.springframework.web.multipart.MultipartFile;
 @SuppressWarnings("java:S6548")
 public class FileProcessor {
 
+    private final Map<Path, FileChecksums> extractedChecksums = new ConcurrentHashMap<>();
+
     /**
      * Private constructor to prevent instantiation from outside the class.
      */
@@ -55,13 +73,124 @@ public class FileProcessor {
      * @throws NotFoundError if the directory cannot be read.
      */
     public List<Path> getFilesFromDirectory(Path directory) {
-        try (Stream<Path> stream = Files.walk(directory)) {
-            return stream.filter(Files::isRegularFile).toList();
+        try (Stage stage = RequestTrace.stage("walkFiles");
+                Stream<Path> stream = Files.walk(directory)) {
+            List<Path> files = stream.filter(Files::isRegularFile).toList();
+            stage.addFiles(files.size());
+            return files;
         } catch (IOException e) {
             throw new NotFoundError("Failed to read files from directory: " + e.getMessage());
         }
     }
 
+    /**
+     * Retrieves the regular files of a directory that an ingest filter keeps. Ignored
+     * directories are not descended into, and the {@code .gitignore} file of each directory
+     * is read before its contents when the filter honours them.
+     *
+     * @param directory the directory to walk and retrieve files from.
+     * @param session the ingest filter of the upload, receiving the paths left out.
+     * @return a list of the kept regular files found within the directory.
+     * @throws NotFoundError if the directory cannot be read.
+     */
+    public List<Path> getFilesFromDirectory(Path directory, IngestSession session) {
+        List<Path> files = new ArrayList<>();
+        try (Stage stage = RequestTrace.stage("walkFiles")) {
+            Files.walkFileTree(
+                    directory,
+                    new SimpleFileVisitor<>() {
+                        @Override
+                        public FileVisitResult preVisitDirectory(
+                                Path dir, BasicFileAttributes attrs) throws IOException {
+                            String path = relativePath(directory, dir);
+                            if (!path.isEmpty() && session.skipDirectory(path)) {
+                                return FileVisitResult.SKIP_SUBTREE;
+                            }
+                            Path gitignore = dir.resolve(".gitignore");
+                            String gitignorePath = relativePath(directory, gitignore);
+                            if (session.isGitignore(gitignorePath)
+                                    && Files.isRegularFile(gitignore)
+                                    && Files.size(gitignore) <= IngestFilter.MAX_GITIGNORE_BYTES) {
+                                session.addGitignore(
+                                        gitignorePath,
+                                        Files.readString(gitignore, StandardCharsets.UTF_8));
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+
+                        @Override
+                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                                throws IOException {
+                            if (Files.isRegularFile(file) && keepFile(directory, file, session)) {
+                                files.add(file);
+                            }
+                            return FileVisitResult.CONTINUE;
+                        }
+                    });
+            stage.addFiles(files.size());
+            return files;
+        } catch (IOException e) {
+            throw new NotFoundError("Failed to read files from directory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies an ingest filter to a local file, reading its leading bytes only if the
+     * filter inspects content.
+     *
+     * @param directory the root directory of the upload.
+     * @param file the file.
+     * @param session the ingest filter of the upload.
+     * @return true if the file is kept.
+     * @throws IOException if the file cannot be read.
+     */
+    private boolean keepFile(Path directory, Path file, IngestSession session)
+            throws IOException {
+        String path = relativePath(directory, file);
+        if (session.skipFile(path, Files.size(file))) {
+            return false;
+        }
+        if (session.filter().skipBinary()) {
+            byte[] buffer = new byte[IngestFilter.BINARY_SNIFF_BYTES];
+            int read;
+            try (InputStream in = Files.newInputStream(file)) {
+                read = in.readNBytes(buffer, 0, buffer.length);
+            }
+            FilterReason reason = session.checkContent(buffer, read);
+            if (reason != null) {
+                session.skip(path, reason);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the slash-separated path of a file relative to the upload root.
+     *
+     * @param directory the root directory of the upload.
+     * @param file the file.
+     * @return the relative path, empty for the root itself.
+     */
+    private static String relativePath(Path directory, Path file) {
+        return directory.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Lists the files extracted by {@link #processAndExtractZip(MultipartFile)},
+     * leaving out the copy of the archive itself.
+     *
+     * @param tempDir the directory the archive was extracted into.
+     * @param zipFile the uploaded archive.
+     * @return the extracted files.
+     */
+    public List<Path> getExtractedFiles(Path tempDir, MultipartFile zipFile) {
+        Path archive = tempDir.resolve(archiveFileName(zipFile));
+        return getFilesFromDirectory(tempDir).stream()
+                .filter(file -> !file.equals(archive))
+                .toList();
+    }
+
     /**
      * Validates that the given list of files is not empty.
      *
@@ -78,18 +207,96 @@ public class FileProcessor {
     }
 
     /**
-     * Extracts a ZIP file into the specified target directory.
+     * Extracts a ZIP file into the specified target directory, enforcing the
+     * {@link ZipBudget} configured for this deployment.
+     *
+     * @param zipFilePath the path to the ZIP file to extract.
+     * @param targetDir the directory to extract the contents into.
+     * @return the number of bytes written to the target directory.
+     * @throws BadRequestError if the ZIP file cannot be processed.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
+     */
+    public long extractZip(Path zipFilePath, Path targetDir) {
+        return extractZip(zipFilePath, targetDir, ZipBudget.fromEnvironment());
+    }
+
+    /**
+     * Extracts a ZIP file into the specified target directory. The budget is checked while
+     * entries are inflated, so extraction stops at the first byte over a limit.
      *
      * @param zipFilePath the path to the ZIP file to extract.
      * @param targetDir the directory to extract the contents into.
+     * @param budget the resource limits to enforce.
+     * @return the number of bytes written to the target directory.
      * @throws BadRequestError if the ZIP file cannot be processed.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
+     */
+    public long extractZip(Path zipFilePath, Path targetDir, ZipBudget budget) {
+        return extractZip(
+                zipFilePath,
+                targetDir,
+                budget,
+                new IngestSession(IngestFilter.none(), (path, reason) -> {}));
+    }
+
+    /**
+     * Extracts the entries of a ZIP file that an ingest filter keeps. The {@code .gitignore}
+     * files of the archive are read up front when the filter honours them, so their rules
+     * apply to every entry regardless of the entry order. Entries left out are inflated
+     * only to account them against the budget and are never written to disk.
+     *
+     * @param zipFilePath the path to the ZIP file to extract.
+     * @param targetDir the directory to extract the contents into.
+     * @param budget the resource limits to enforce.
+     * @param session the ingest filter of the upload, receiving the paths left out.
+     * @return the number of bytes written to the target directory.
+     * @throws BadRequestError if the ZIP file cannot be processed.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
+     */
+    public long extractZip(
+            Path zipFilePath, Path targetDir, ZipBudget budget, IngestSession session) {
+        return extractZip(
+                zipFilePath, targetDir, budget, session, new FileChecksums(UploadChecksum.NONE));
+    }
+
+    /**
+     * Extracts the entries of a ZIP file that an ingest filter keeps, recording the checksum
+     * of every extracted file. The CRC32 of each entry is verified while it is inflated, so
+     * it is recorded as is when CRC32 checksums are sent; other checksums are computed over
+     * the bytes as they are written. Entries are inflated straight into one
+     * {@link BufferPool} buffer, leased for the whole extraction.
+     *
+     * @param zipFilePath the path to the ZIP file to extract.
+     * @param targetDir the directory to extract the contents into.
+     * @param budget the resource limits to enforce.
+     * @param session the ingest filter of the upload, receiving the paths left out.
+     * @param checksums the checksums receiving those of the extracted files.
+     * @return the number of bytes written to the target directory.
+     * @throws BadRequestError if the ZIP file cannot be processed or an entry is corrupt.
+     * @throws PayloadTooLargeError if the archive exceeds the budget.
      */
     @SuppressWarnings("java:S5042")
-    public void extractZip(Path zipFilePath, Path targetDir) {
-        try (ZipInputStream zipInputStream =
-                new ZipInputStream(Files.newInputStream(zipFilePath))) {
+    public long extractZip(
+            Path zipFilePath,
+            Path targetDir,
+            ZipBudget budget,
+            IngestSession session,
+            FileChecksums checksums) {
+        if (session.filter().gitignore()) {
+            readGitignores(zipFilePath, session);
+        }
+        try (CountingInputStream compressed =
+                        new CountingInputStream(Files.newInputStream(zipFilePath));
+                ZipInputStream zipInputStream = new ZipInputStream(compressed);
+                BufferPool.Lease lease = BufferPool.getInstance().acquire()) {
+            ZipBudgetTracker tracker = new ZipBudgetTracker(budget, compressed);
+            // Reads each entry up to its end; the stream is closed with the extraction.
+            ReadableByteChannel data = Channels.newChannel(zipInputStream);
+            ByteBuffer buffer = lease.buffer();
+            long writtenBytes = 0;
             ZipEntry entry;
             while ((entry = zipInputStream.getNextEntry()) != null) {
+                tracker.onEntry(entry);
                 Path extractedPath = targetDir.resolve(entry.getName()).normalize();
                 if (!extractedPath.startsWith(targetDir)) {
                     throw new IOException(
@@ -97,19 +304,193 @@ public class FileProcessor {
                                     + entry.getName());
                 }
 
+                String path = relativePath(targetDir, extractedPath);
                 if (entry.isDirectory()) {
-                    Files.createDirectories(extractedPath);
+                    if (path.isEmpty() || !session.skipDirectory(path)) {
+                        Files.createDirectories(extractedPath);
+                    }
+                } else if (session.skipFile(path, entry.getSize())) {
+                    drainEntry(data, buffer, entry, 0, tracker);
                 } else {
                     Files.createDirectories(extractedPath.getParent());
-                    Files.copy(zipInputStream, extractedPath, StandardCopyOption.REPLACE_EXISTING);
+                    writtenBytes +=
+                            copyEntry(
+                                    data,
+                                    buffer,
+                                    entry,
+                                    path,
+                                    extractedPath,
+                                    tracker,
+                                    session,
+                                    checksums);
                 }
                 zipInputStream.closeEntry();
             }
+            return writtenBytes;
         } catch (IOException e) {
             throw new BadRequestError("Error extracting ZIP file: " + e.getMessage());
         }
     }
 
+    /**
+     * Adds the {@code .gitignore} files of a ZIP file to an ingest session, shallowest
+     * first, skipping those inside directories that are already ignored. The archive's
+     * central directory is read for this, so entries are not inflated twice. An archive
+     * without a readable central directory is extracted without its {@code .gitignore}
+     * rules.
+     *
+     * @param zipFilePath the path to the ZIP file.
+     * @param session the ingest session receiving the rules.
+     */
+    private void readGitignores(Path zipFilePath, IngestSession session) {
+        try (ZipFile zip = new ZipFile(zipFilePath.toFile())) {
+            List<? extends ZipEntry> gitignores =
+                    zip.stream()
+                            .filter(entry -> !entry.isDirectory())
+                            .filter(entry -> session.isGitignore(entry.getName()))
+                            .filter(entry -> entry.getSize() <= IngestFilter.MAX_GITIGNORE_BYTES)
+                            .sorted(Comparator.comparingInt(entry -> depth(entry.getName())))
+                            .toList();
+            for (ZipEntry entry : gitignores) {
+                String path = entry.getName();
+                if (path.contains("..") || session.skipFile(path, -1)) {
+                    continue;
+                }
+                try (InputStream in = zip.getInputStream(entry)) {
+                    byte[] content = in.readNBytes(IngestFilter.MAX_GITIGNORE_BYTES);
+                    session.addGitignore(path, new String(content, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            // The streaming extraction reports archives that cannot be read at all.
+        }
+    }
+
+    /**
+     * Returns the number of directories above a relative path.
+     *
+     * @param path the slash-separated relative path.
+     * @return the depth of the path.
+     */
+    private static int depth(String path) {
+        return (int) path.chars().filter(c -> c == '/').count();
+    }
+
+    /**
+     * Inflates the current ZIP entry into a file through a direct buffer, accounting every
+     * chunk against the budget.
+     * If the ingest filter rejects the entry by its content or its actual size, the partial
+     * file is deleted and the rest of the entry is only accounted. The checksum of a kept
+     * file is recorded once the entry has been read to its end, which is when
+     * {@link ZipInputStream} verifies the entry's CRC32.
+     *
+     * @param data the channel positioned at the entry's data.
+     * @param buffer the buffer the entry is read into.
+     * @param entry the entry being extracted.
+     * @param path the relative path of the entry.
+     * @param target the file to write.
+     * @param tracker the budget tracker of the extraction.
+     * @param session the ingest filter of the upload.
+     * @param checksums the checksums receiving that of the file.
+     * @return the number of bytes written, 0 if the entry was left out.
+     * @throws IOException if the entry cannot be read or written.
+     */
+    private long copyEntry(
+            ReadableByteChannel data,
+            ByteBuffer buffer,
+            ZipEntry entry,
+            String path,
+            Path target,
+            ZipBudgetTracker tracker,
+            IngestSession session,
+            FileChecksums checksums)
+            throws IOException {
+        boolean reuseCrc = checksums.algorithm().reusesZipCrc();
+        UploadChecksum.Hasher hasher = reuseCrc ? null : checksums.algorithm().newHasher();
+        FilterReason reason = null;
+        long entryBytes = 0;
+        try (FileChannel out =
+                FileChannel.open(
+                        target,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            int read = fill(data, buffer);
+            reason = session.checkContent(buffer);
+            while (reason == null && read > 0) {
+                entryBytes += read;
+                tracker.onBytes(entry, entryBytes, read);
+                if (session.filter().exceedsSize(entryBytes)) {
+                    reason = FilterReason.TOO_LARGE;
+                } else {
+                    if (hasher != null) {
+                        hasher.update(buffer.duplicate());
+                    }
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    read = fill(data, buffer);
+                }
+            }
+        }
+        if (reason == null) {
+            if (reuseCrc) {
+                checksums.record(target, UploadChecksum.encodeCrc(entry.getCrc()));
+            } else if (hasher != null) {
+                checksums.record(target, hasher.value());
+            }
+            return entryBytes;
+        }
+        Files.delete(target);
+        drainEntry(data, buffer, entry, entryBytes, tracker);
+        session.skip(path, reason);
+        return 0;
+    }
+
+    /**
+     * Inflates the rest of the current ZIP entry without storing it, so that a left-out
+     * entry still counts against the budget.
+     *
+     * @param data the channel positioned in the entry's data.
+     * @param buffer the buffer the entry is read into.
+     * @param entry the entry being skipped.
+     * @param entryBytes the number of bytes of the entry already accounted.
+     * @param tracker the budget tracker of the extraction.
+     * @throws IOException if the entry cannot be read.
+     */
+    private void drainEntry(
+            ReadableByteChannel data,
+            ByteBuffer buffer,
+            ZipEntry entry,
+            long entryBytes,
+            ZipBudgetTracker tracker)
+            throws IOException {
+        int read;
+        while ((read = fill(data, buffer)) > 0) {
+            entryBytes += read;
+            tracker.onBytes(entry, entryBytes, read);
+        }
+    }
+
+    /**
+     * Reads from a channel until a buffer is full or the channel's data ends, and flips the
+     * buffer so that the bytes read can be consumed.
+     *
+     * @param data the channel to read.
+     * @param buffer the buffer receiving the bytes; its previous content is discarded.
+     * @return the number of bytes read, 0 once the data has ended.
+     * @throws IOException if the channel cannot be read.
+     */
+    private static int fill(ReadableByteChannel data, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        int read = 0;
+        while (read != -1 && buffer.hasRemaining()) {
+            read = data.read(buffer);
+        }
+        buffer.flip();
+        return buffer.remaining();
+    }
+
     /**
      * Validates the extracted path to ensure it is within the target directory and not
      * a directory traversal attack (e.g., `../../some/path`).
@@ -133,33 +514,101 @@ public class FileProcessor {
     }
 
     /**
-     * Processes the given MultipartFile, creates a temporary directory,
+     * Returns whether an uploaded archive is a tar archive, possibly compressed with gzip or
+     * zstd, rather than a ZIP file.
+     *
+     * @param archive the uploaded archive.
+     * @return true if the archive is a tar archive.
+     * @throws BadRequestError if the archive cannot be read.
+     */
+    public boolean isTarArchive(MultipartFile archive) {
+        try (InputStream in = archive.getInputStream()) {
+            byte[] header = in.readNBytes(ArchiveFormat.HEADER_BYTES);
+            return ArchiveFormat.detect(header, archive.getOriginalFilename()).isTar();
+        } catch (IOException e) {
+            throw new BadRequestError("Failed to read uploaded archive: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processes the given MultipartFile, creates a scratch directory,
      * and extracts the ZIP contents into it.
      *
      * @param zipFile the MultipartFile containing the ZIP file.
-     * @return the path to the temporary directory containing extracted files.
+     * @return the path to the scratch directory containing extracted files.
      */
-    @SuppressWarnings("java:S5443")
     public Path processAndExtractZip(MultipartFile zipFile) {
+        return processAndExtractZip(
+                zipFile, new IngestSession(IngestFilter.none(), (path, reason) -> {}));
+    }
+
+    /**
+     * Processes the given MultipartFile, creates a scratch directory, and extracts the ZIP
+     * entries that an ingest filter keeps into it. The archive is copied to the directory
+     * through a {@link BufferPool} buffer rather than read into memory. The checksums of the
+     * extracted files are kept until the directory is released; see
+     * {@link #extractedChecksums(Path)}.
+     *
+     * @param zipFile the MultipartFile containing the ZIP file.
+     * @param session the ingest filter of the upload, receiving the paths left out.
+     * @return the path to the scratch directory containing extracted files.
+     */
+    @SuppressWarnings("java:S5443")
+    public Path processAndExtractZip(MultipartFile zipFile, IngestSession session) {
+        ScratchSpaceManager scratchSpace = ScratchSpaceManager.getInstance();
+        Path tempDir = null;
         try {
-            Path tempDir = Files.createTempDirectory("unpacked-zip");
+            tempDir = scratchSpace.createDirectory(zipFile.getSize());
             setDirectoryPermissions(tempDir);
 
-            String originalFilename = zipFile.getOriginalFilename();
-            String sanitizedFileName =
-                    sanitizeFileName(originalFilename != null ? originalFilename : "uploaded.zip");
-            Path tempZipPath = tempDir.resolve(sanitizedFileName);
+            Path tempZipPath = tempDir.resolve(archiveFileName(zipFile));
 
-            Files.write(tempZipPath, zipFile.getBytes());
+            try (Stage stage = RequestTrace.stage("spoolArchive");
+                    InputStream in = zipFile.getInputStream();
+                    FileChannel out =
+                            FileChannel.open(
+                                    tempZipPath,
+                                    StandardOpenOption.CREATE_NEW,
+                                    StandardOpenOption.WRITE)) {
+                stage.addBytes(BufferPool.getInstance().copy(in, out));
+            }
 
-            extractZip(tempZipPath, tempDir);
+            FileChecksums checksums = new FileChecksums(UploadChecksum.fromEnvironment());
+            long extractedBytes;
+            try (Stage stage = RequestTrace.stage("extractZip")) {
+                extractedBytes =
+                        extractZip(
+                                tempZipPath,
+                                tempDir,
+                                ZipBudget.fromEnvironment(),
+                                session,
+                                checksums);
+                stage.addBytes(extractedBytes);
+            }
+            scratchSpace.recordUsage(tempDir, zipFile.getSize() + extractedBytes);
+            extractedChecksums.put(tempDir, checksums);
 
             return tempDir;
         } catch (IOException e) {
+            releaseTempDirectory(tempDir);
             throw new BadRequestError("Failed to process ZIP file: " + e.getMessage());
+        } catch (RuntimeException e) {
+            releaseTempDirectory(tempDir);
+            throw e;
         }
     }
 
+    /**
+     * Returns the sanitized name under which an uploaded archive is stored before extraction.
+     *
+     * @param zipFile the uploaded archive.
+     * @return the file name of the stored archive.
+     */
+    private String archiveFileName(MultipartFile zipFile) {
+        String originalFilename = zipFile.getOriginalFilename();
+        return sanitizeFileName(originalFilename != null ? originalFilename : "uploaded.zip");
+    }
+
     /**
      * Sets restricted permissions for the given directory to prevent unauthorized access.
      *
@@ -196,6 +645,32 @@ public class FileProcessor {
         }
     }
 
+    /**
+     * Returns the checksums recorded while an uploaded archive was extracted.
+     *
+     * @param tempDir the scratch directory returned by
+     *                {@link #processAndExtractZip(MultipartFile)}.
+     * @return the checksums of the extracted files, or null if the directory is unknown.
+     */
+    public FileChecksums extractedChecksums(Path tempDir) {
+        return extractedChecksums.get(tempDir);
+    }
+
+    /**
+     * Releases a scratch directory created by {@link #processAndExtractZip(MultipartFile)}.
+     * The directory is deleted in the background so the request does not wait for it.
+     *
+     * @param tempDir the directory to release.
+     */
+    public void releaseTempDirectory(Path tempDir) {
+        if (tempDir != null) {
+            extractedChecksums.remove(tempDir);
+            try (Stage stage = RequestTrace.stage("cleanup")) {
+                ScratchSpaceManager.getInstance().release(tempDir);
+            }
+        }
+    }
+
     /**
      * Deletes a directory and its contents recursively.
      *
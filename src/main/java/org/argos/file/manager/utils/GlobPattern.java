@@ -0,0 +1,147 @@
+package org.argos.file.manager.utils;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.argos.file.manager.exceptions.BadRequestError;
+
+/**
+ * A glob over slash-separated relative paths, compiled once to a regular expression.
+ * {@code *} matches within one path segment, {@code **} across segments (a {@code **}
+ * segment also matches no directory at all), {@code ?} matches one character other than a slash,
+ * {@code [...]} matches a character class ({@code [!...]} negated), and a backslash escapes
+ * the next character.
+ */
+public final class GlobPattern {
+
+    private final String glob;
+    private final Pattern pattern;
+    private final String literalPrefix;
+
+    private GlobPattern(String glob, Pattern pattern, String literalPrefix) {
+        this.glob = glob;
+        this.pattern = pattern;
+        this.literalPrefix = literalPrefix;
+    }
+
+    /**
+     * Compiles a glob.
+     *
+     * @param glob the glob.
+     * @return the compiled glob.
+     * @throws BadRequestError if the glob is empty or malformed.
+     */
+    public static GlobPattern compile(String glob) {
+        if (glob == null || glob.isEmpty()) {
+            throw new BadRequestError("Invalid glob: empty pattern");
+        }
+        StringBuilder regex = new StringBuilder();
+        StringBuilder prefix = new StringBuilder();
+        boolean literal = true;
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i);
+            if (c == '*') {
+                literal = false;
+                if (glob.startsWith("**/", i)) {
+                    regex.append("(?:.*/)?");
+                    i += 3;
+                } else if (glob.startsWith("**", i)) {
+                    regex.append(".*");
+                    i += 2;
+                } else {
+                    regex.append("[^/]*");
+                    i++;
+                }
+            } else if (c == '?') {
+                literal = false;
+                regex.append("[^/]");
+                i++;
+            } else if (c == '[' && glob.indexOf(']', i + 2) > 0) {
+                literal = false;
+                int end = glob.indexOf(']', i + 2);
+                regex.append(characterClass(glob.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                if (c == '\\' && i + 1 < glob.length()) {
+                    c = glob.charAt(++i);
+                }
+                regex.append(Pattern.quote(String.valueOf(c)));
+                if (literal) {
+                    prefix.append(c);
+                }
+                i++;
+            }
+        }
+        try {
+            return new GlobPattern(glob, Pattern.compile(regex.toString()), prefix.toString());
+        } catch (PatternSyntaxException e) {
+            throw new BadRequestError("Invalid glob: " + glob);
+        }
+    }
+
+    /**
+     * Escapes the wildcards of a literal path, so it can be used as part of a glob.
+     *
+     * @param literal the literal path.
+     * @return a glob matching exactly the literal path.
+     */
+    public static String quote(String literal) {
+        StringBuilder glob = new StringBuilder(literal.length());
+        for (char c : literal.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == '\\') {
+                glob.append('\\');
+            }
+            glob.append(c);
+        }
+        return glob.toString();
+    }
+
+    /**
+     * Converts the body of a glob character class to a regex class that never matches a
+     * slash.
+     *
+     * @param body the characters between the brackets.
+     * @return the regex class.
+     */
+    private static String characterClass(String body) {
+        StringBuilder regex = new StringBuilder("(?!/)[");
+        int i = 0;
+        if (body.charAt(0) == '!' || body.charAt(0) == '^') {
+            regex.append('^');
+            i = 1;
+        }
+        for (; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\' || c == '[' || c == '&') {
+                regex.append('\\');
+            }
+            regex.append(c);
+        }
+        return regex.append(']').toString();
+    }
+
+    /**
+     * Returns whether the whole path matches the glob.
+     *
+     * @param path the slash-separated relative path.
+     * @return true if the path matches.
+     */
+    public boolean matches(String path) {
+        return pattern.matcher(path).matches();
+    }
+
+    /**
+     * Returns the part of the glob before its first wildcard. Every matching path starts
+     * with it, so it can narrow a listing before the glob is applied.
+     *
+     * @return the literal prefix, possibly empty.
+     */
+    public String literalPrefix() {
+        return literalPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return glob;
+    }
+}
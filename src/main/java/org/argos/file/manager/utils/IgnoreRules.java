@@ -0,0 +1,152 @@
+package org.argos.file.manager.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.argos.file.manager.exceptions.BadRequestError;
+
+/**
+ * An ordered set of ignore patterns with {@code .gitignore} semantics, evaluated against
+ * slash-separated paths relative to the upload root.
+ * A pattern without a slash matches a name at any depth, a pattern with a slash is anchored
+ * to the directory that declares it, a trailing slash only matches directories and a
+ * leading {@code !} re-includes what an earlier pattern excluded. The last matching pattern
+ * wins, and nothing inside an ignored directory can be re-included.
+ */
+public class IgnoreRules {
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    /**
+     * Adds a pattern relative to the upload root.
+     *
+     * @param pattern the pattern.
+     * @throws BadRequestError if the pattern is malformed.
+     */
+    public void add(String pattern) {
+        addRule("", pattern.strip());
+    }
+
+    /**
+     * Adds the patterns of a {@code .gitignore} file. Blank lines and comments are skipped.
+     *
+     * @param directory the directory holding the file, empty for the root or ending with a
+     *                  slash.
+     * @param content the content of the file.
+     * @throws BadRequestError if a pattern is malformed.
+     */
+    public void addGitignore(String directory, String content) {
+        String base = GlobPattern.quote(directory);
+        for (String line : content.split("\n")) {
+            String pattern = line.stripTrailing();
+            if (!pattern.isEmpty() && !pattern.startsWith("#")) {
+                addRule(base, pattern);
+            }
+        }
+    }
+
+    /**
+     * Returns whether no pattern has been added.
+     *
+     * @return true if nothing is ignored.
+     */
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Returns whether a file is ignored, either by its own path or by an ignored ancestor
+     * directory.
+     *
+     * @param path the relative path of the file.
+     * @return true if the file is ignored.
+     */
+    public boolean isIgnored(String path) {
+        return ignoredAncestor(path) != null || matches(path, false);
+    }
+
+    /**
+     * Returns whether a directory is ignored, either by its own path or by an ignored
+     * ancestor directory.
+     *
+     * @param directory the relative path of the directory, without a trailing slash.
+     * @return true if the directory is ignored.
+     */
+    public boolean isIgnoredDirectory(String directory) {
+        return ignoredAncestor(directory) != null || matches(directory, true);
+    }
+
+    /**
+     * Returns the outermost ignored directory containing a path.
+     *
+     * @param path the relative path.
+     * @return the ignored directory, without a trailing slash, or null if no ancestor is
+     *         ignored.
+     */
+    public String ignoredAncestor(String path) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        int slash = path.indexOf('/');
+        while (slash > 0) {
+            String directory = path.substring(0, slash);
+            if (matches(directory, true)) {
+                return directory;
+            }
+            slash = path.indexOf('/', slash + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Evaluates the rules against a single path, ignoring its ancestors.
+     *
+     * @param path the relative path.
+     * @param directory whether the path is a directory.
+     * @return true if the last matching rule excludes the path.
+     */
+    private boolean matches(String path, boolean directory) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if ((directory || !rule.directoryOnly()) && rule.glob().matches(path)) {
+                return !rule.negated();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles a pattern declared in a directory.
+     *
+     * @param base the glob of the declaring directory, empty or ending with a slash.
+     * @param pattern the pattern.
+     */
+    private void addRule(String base, String pattern) {
+        boolean negated = pattern.startsWith("!");
+        String glob = negated ? pattern.substring(1) : pattern;
+        boolean directoryOnly = glob.endsWith("/");
+        if (directoryOnly) {
+            glob = glob.substring(0, glob.length() - 1);
+        }
+        boolean anchored = glob.contains("/");
+        if (glob.startsWith("/")) {
+            glob = glob.substring(1);
+        }
+        if (glob.isEmpty()) {
+            return;
+        }
+        rules.add(
+                new Rule(
+                        GlobPattern.compile(base + (anchored ? glob : "**/" + glob)),
+                        negated,
+                        directoryOnly));
+    }
+
+    /**
+     * A compiled pattern.
+     *
+     * @param glob the glob matching the excluded paths.
+     * @param negated whether the pattern re-includes the matching paths.
+     * @param directoryOnly whether the pattern only matches directories.
+     */
+    private record Rule(GlobPattern glob, boolean negated, boolean directoryOnly) {}
+}
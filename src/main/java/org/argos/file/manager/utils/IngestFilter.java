@@ -0,0 +1,161 @@
+package org.argos.file.manager.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.argos.file.manager.exceptions.BadRequestError;
+
+/**
+ * Decides which files of an upload are worth storing, so that dependency trees, build
+ * outputs and binaries that no consumer reads are left out at ingest time.
+ *
+ * @param exclude the {@code .gitignore}-style patterns of the paths to leave out.
+ * @param gitignore whether {@code .gitignore} files inside the upload are honoured.
+ * @param maxFileBytes the size above which files are left out, or 0 for no limit.
+ * @param skipBinary whether files that look binary are left out.
+ */
+public record IngestFilter(
+        List<String> exclude, boolean gitignore, long maxFileBytes, boolean skipBinary) {
+
+    /**
+     * Number of leading bytes inspected to decide whether a file is binary, as git does.
+     */
+    public static final int BINARY_SNIFF_BYTES = 8000;
+
+    /**
+     * Largest {@code .gitignore} file that is honoured; larger ones are stored but ignored.
+     */
+    public static final int MAX_GITIGNORE_BYTES = 64 << 10;
+
+    private static final IngestFilter NONE = new IngestFilter(List.of(), false, 0, false);
+
+    /**
+     * Copies the patterns so the filter cannot change once created.
+     */
+    public IngestFilter {
+        exclude = List.copyOf(exclude);
+    }
+
+    /**
+     * Reads the filter applied to every upload of this deployment from environment
+     * variables. By default nothing is filtered.
+     *
+     * @return the configured filter.
+     */
+    public static IngestFilter fromEnvironment() {
+        return new IngestFilter(
+                Arrays.stream(EnvSettings.getString("ARGOS_INGEST_EXCLUDE", "").split(","))
+                        .map(String::strip)
+                        .filter(pattern -> !pattern.isEmpty())
+                        .toList(),
+                EnvSettings.getBoolean("ARGOS_INGEST_GITIGNORE", false),
+                EnvSettings.getLong("ARGOS_INGEST_MAX_FILE_BYTES", 0),
+                EnvSettings.getBoolean("ARGOS_INGEST_SKIP_BINARY", false));
+    }
+
+    /**
+     * Returns a filter that keeps every file.
+     *
+     * @return the empty filter.
+     */
+    public static IngestFilter none() {
+        return NONE;
+    }
+
+    /**
+     * Combines this filter with the settings of a single request. Requested patterns are
+     * added to the configured ones; the other settings replace the configured values.
+     *
+     * @param patterns additional exclude patterns, or null.
+     * @param gitignore whether {@code .gitignore} files are honoured, or null.
+     * @param maxFileBytes the maximum file size, or null.
+     * @param skipBinary whether binary files are left out, or null.
+     * @return the combined filter.
+     * @throws BadRequestError if a pattern is malformed or the size is negative.
+     */
+    public IngestFilter with(
+            List<String> patterns, Boolean gitignore, Long maxFileBytes, Boolean skipBinary) {
+        if (maxFileBytes != null && maxFileBytes < 0) {
+            throw new BadRequestError("maxFileBytes must not be negative.");
+        }
+        List<String> combined = new ArrayList<>(exclude);
+        if (patterns != null) {
+            patterns.stream().map(String::strip).filter(p -> !p.isEmpty()).forEach(combined::add);
+        }
+        IngestFilter filter =
+                new IngestFilter(
+                        combined,
+                        gitignore != null ? gitignore : this.gitignore,
+                        maxFileBytes != null ? maxFileBytes : this.maxFileBytes,
+                        skipBinary != null ? skipBinary : this.skipBinary);
+        filter.rules();
+        return filter;
+    }
+
+    /**
+     * Returns whether the filter keeps every file.
+     *
+     * @return true if nothing is filtered.
+     */
+    public boolean isEmpty() {
+        return exclude.isEmpty() && !gitignore && maxFileBytes <= 0 && !skipBinary;
+    }
+
+    /**
+     * Compiles the exclude patterns into a rule set, to which the {@code .gitignore} files
+     * of an upload can be added.
+     *
+     * @return a new rule set.
+     * @throws BadRequestError if a pattern is malformed.
+     */
+    public IgnoreRules rules() {
+        IgnoreRules rules = new IgnoreRules();
+        exclude.forEach(rules::add);
+        return rules;
+    }
+
+    /**
+     * Returns whether a file of the given size is left out for being too large.
+     *
+     * @param bytes the size of the file, or a lower bound of it.
+     * @return true if the size exceeds the maximum file size.
+     */
+    public boolean exceedsSize(long bytes) {
+        return maxFileBytes > 0 && bytes > maxFileBytes;
+    }
+
+    /**
+     * Returns whether content looks binary, meaning its leading bytes contain a NUL byte.
+     *
+     * @param buffer the leading bytes of the file.
+     * @param length the number of valid bytes in the buffer.
+     * @return true if the content looks binary.
+     */
+    public static boolean isBinary(byte[] buffer, int length) {
+        int end = Math.min(length, BINARY_SNIFF_BYTES);
+        for (int i = 0; i < end; i++) {
+            if (buffer[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether content looks binary, meaning its leading bytes contain a NUL byte.
+     *
+     * @param buffer the leading bytes of the file, between its position and limit, which
+     *     are left unchanged.
+     * @return true if the content looks binary.
+     */
+    public static boolean isBinary(ByteBuffer buffer) {
+        int end = buffer.position() + Math.min(buffer.remaining(), BINARY_SNIFF_BYTES);
+        for (int i = buffer.position(); i < end; i++) {
+            if (buffer.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package org.argos.file.manager.utils;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import org.argos.file.manager.model.FilterReason;
+
+/**
+ * Applies an {@link IngestFilter} to the files of a single upload, collecting the
+ * {@code .gitignore} rules found along the way and reporting every path it leaves out.
+ * An ignored directory is reported once instead of once per file it contains.
+ * A session is used by one thread at a time.
+ */
+public class IngestSession {
+
+    private final IngestFilter filter;
+    private final IgnoreRules rules;
+    private final BiConsumer<String, FilterReason> onFiltered;
+    private final Set<String> reportedDirectories = new HashSet<>();
+
+    /**
+     * Starts filtering an upload.
+     *
+     * @param filter the filter to apply.
+     * @param onFiltered receives the relative path of each file or directory left out, with
+     *                   directories ending in a slash, and the reason.
+     * @throws org.argos.file.manager.exceptions.BadRequestError if a pattern is malformed.
+     */
+    public IngestSession(IngestFilter filter, BiConsumer<String, FilterReason> onFiltered) {
+        this.filter = filter;
+        this.rules = filter.rules();
+        this.onFiltered = onFiltered;
+    }
+
+    /**
+     * Returns the filter of the session.
+     *
+     * @return the filter.
+     */
+    public IngestFilter filter() {
+        return filter;
+    }
+
+    /**
+     * Returns whether a path names a {@code .gitignore} file that the filter honours.
+     *
+     * @param path the relative path.
+     * @return true if the file's rules should be added to the session.
+     */
+    public boolean isGitignore(String path) {
+        return filter.gitignore() && (path.equals(".gitignore") || path.endsWith("/.gitignore"));
+    }
+
+    /**
+     * Adds the rules of a {@code .gitignore} file. They apply to the paths checked
+     * afterwards below the file's directory.
+     *
+     * @param path the relative path of the file.
+     * @param content the content of the file.
+     */
+    public void addGitignore(String path, String content) {
+        rules.addGitignore(path.substring(0, path.length() - ".gitignore".length()), content);
+    }
+
+    /**
+     * Decides whether a directory is left out, reporting it if so.
+     *
+     * @param directory the relative path of the directory, without a trailing slash.
+     * @return true if the directory and its contents are left out.
+     */
+    public boolean skipDirectory(String directory) {
+        String ignored = rules.ignoredAncestor(directory);
+        if (ignored == null && rules.isIgnoredDirectory(directory)) {
+            ignored = directory;
+        }
+        if (ignored == null) {
+            return false;
+        }
+        reportDirectory(ignored);
+        return true;
+    }
+
+    /**
+     * Decides whether a file is left out by its path or its size, reporting it if so.
+     *
+     * @param path the relative path of the file.
+     * @param declaredSize the size of the file if known in advance, or -1.
+     * @return true if the file is left out.
+     */
+    public boolean skipFile(String path, long declaredSize) {
+        String ignoredDirectory = rules.ignoredAncestor(path);
+        if (ignoredDirectory != null) {
+            reportDirectory(ignoredDirectory);
+            return true;
+        }
+        if (rules.isIgnored(path)) {
+            skip(path, FilterReason.IGNORED);
+            return true;
+        }
+        if (filter.exceedsSize(declaredSize)) {
+            skip(path, FilterReason.TOO_LARGE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decides whether a file is left out by its content, once its leading bytes are known.
+     * The file is not reported; call {@link #skip(String, FilterReason)} once it has been
+     * discarded.
+     *
+     * @param buffer the leading bytes of the file.
+     * @param length the number of valid bytes in the buffer.
+     * @return the reason the file is left out, or null to keep it.
+     */
+    public FilterReason checkContent(byte[] buffer, int length) {
+        return filter.skipBinary() && IngestFilter.isBinary(buffer, length)
+                ? FilterReason.BINARY
+                : null;
+    }
+
+    /**
+     * Decides whether a file is left out by its content, once its leading bytes are known.
+     * The file is not reported; call {@link #skip(String, FilterReason)} once it has been
+     * discarded.
+     *
+     * @param buffer the leading bytes of the file, between its position and limit, which
+     *     are left unchanged.
+     * @return the reason the file is left out, or null to keep it.
+     */
+    public FilterReason checkContent(ByteBuffer buffer) {
+        return filter.skipBinary() && IngestFilter.isBinary(buffer) ? FilterReason.BINARY : null;
+    }
+
+    /**
+     * Reports a file left out.
+     *
+     * @param path the relative path of the file.
+     * @param reason why the file is left out.
+     */
+    public void skip(String path, FilterReason reason) {
+        onFiltered.accept(path, reason);
+    }
+
+    /**
+     * Reports an ignored directory the first time one of its paths is left out.
+     *
+     * @param directory the relative path of the directory, without a trailing slash.
+     */
+    private void reportDirectory(String directory) {
+        if (reportedDirectories.add(directory)) {
+            onFiltered.accept(directory + "/", FilterReason.IGNORED);
+        }
+    }
+}
@@ -84,4 +84,16 @@ public class InputValidator {
             throw new BadRequestError("Uploaded ZIP file is null.");
         }
     }
+
+    /**
+     * Validates an optional time-to-live.
+     *
+     * @param ttlSeconds the time-to-live in seconds, or null if none was requested.
+     * @throws BadRequestError if the time-to-live is not positive.
+     */
+    public void validateTtlSeconds(Long ttlSeconds) {
+        if (ttlSeconds != null && ttlSeconds <= 0) {
+            throw new BadRequestError("TTL must be a positive number of seconds.");
+        }
+    }
 }
@@ -1,13 +1,29 @@
 package org.argos.file.manager.utils;
 
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import org.argos.file.manager.model.KeyLayout;
+import org.argos.file.manager.model.ProjectExpiry;
 
 /**
  * Utility class for generating object keys.
+ * Keys returned to clients always have the form {@code projects/{projectId}/{filePath}};
+ * the object keys actually stored depend on the {@link KeyLayout} of the project.
  * This class cannot be instantiated as it contains only static methods.
  */
 public class KeyGenerator {
 
+    /** Prefix of the expiry markers of projects with a time-to-live. */
+    public static final String EXPIRY_PREFIX = "lifecycle/ttl/";
+
+    /** Prefix of the metadata derived from project files, such as line indexes. */
+    public static final String METADATA_PREFIX = "meta/";
+
+    /** Prefix of the archives uploaded directly to storage and waiting to be processed. */
+    public static final String STAGING_PREFIX = "staging/";
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -26,4 +42,211 @@ public class KeyGenerator {
                 "projects/%s/%s",
                 projectId, directory.relativize(file).toString().replace("\\", "/"));
     }
+
+    /**
+     * Generates an object key for a file path relative to the project root.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the relative path of the file.
+     * @return the generated object key.
+     */
+    public static String generateKey(String projectId, String filePath) {
+        return projectPrefix(projectId) + filePath;
+    }
+
+    /**
+     * Generates the stored object key of a file, following the layout of its project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the relative path of the file.
+     * @return the object key in the bucket.
+     */
+    public static String objectKey(String projectId, String filePath) {
+        if (KeyLayout.resolve(projectId) == KeyLayout.V2) {
+            return projectPrefix(projectId) + partition(filePath) + "/" + filePath;
+        }
+        return generateKey(projectId, filePath);
+    }
+
+    /**
+     * Generates the stored object key of a local file being uploaded.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param directory the root directory of the files being uploaded.
+     * @param file the file for which the key is generated.
+     * @return the object key in the bucket.
+     */
+    public static String objectKey(String projectId, Path directory, Path file) {
+        return objectKey(projectId, directory.relativize(file).toString().replace("\\", "/"));
+    }
+
+    /**
+     * Returns the path of a file relative to the project root from its stored object key.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param objectKey the object key in the bucket.
+     * @return the file path relative to the project root.
+     */
+    public static String filePath(String projectId, String objectKey) {
+        String path = relativePath(projectId, objectKey);
+        if (KeyLayout.resolve(projectId) == KeyLayout.V2) {
+            int slash = path.indexOf('/');
+            return slash >= 0 ? path.substring(slash + 1) : path;
+        }
+        return path;
+    }
+
+    /**
+     * Converts a stored object key into the key reported to clients.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param objectKey the object key in the bucket.
+     * @return the key of the file without any partition.
+     */
+    public static String clientKey(String projectId, String objectKey) {
+        return generateKey(projectId, filePath(projectId, objectKey));
+    }
+
+    /**
+     * Derives the partition of a file from a hash of its path, as two hex digits.
+     *
+     * @param filePath the relative path of the file.
+     * @return the partition name.
+     */
+    private static String partition(String filePath) {
+        CRC32 crc = new CRC32();
+        crc.update(filePath.getBytes(StandardCharsets.UTF_8));
+        return String.format("%02x", crc.getValue() & 0xff);
+    }
+
+    /**
+     * Returns the key prefix under which all files of a project are stored.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the project key prefix, ending with a slash.
+     */
+    public static String projectPrefix(String projectId) {
+        return String.format("projects/%s/", projectId);
+    }
+
+    /**
+     * Strips the project prefix from an object key, returning the relative file path.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param key the full object key.
+     * @return the file path relative to the project root.
+     */
+    public static String relativePath(String projectId, String key) {
+        String prefix = projectPrefix(projectId);
+        return key.startsWith(prefix) ? key.substring(prefix.length()) : key;
+    }
+
+    /**
+     * Returns the key prefix under which the metadata of a project is stored.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the metadata key prefix, ending with a slash.
+     */
+    public static String metadataPrefix(String projectId) {
+        return String.format("%s%s/", METADATA_PREFIX, projectId);
+    }
+
+    /**
+     * Generates the key of the line-offset index of a file.
+     *
+     * @param projectId the unique identifier for the project.
+     * @param filePath the relative path of the file.
+     * @return the index key.
+     */
+    public static String lineIndexKey(String projectId, String filePath) {
+        return metadataPrefix(projectId) + "lines/" + filePath;
+    }
+
+    /**
+     * Generates the key of the snapshot manifest of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the manifest key.
+     */
+    public static String snapshotKey(String projectId) {
+        return metadataPrefix(projectId) + "snapshot";
+    }
+
+    /**
+     * Generates the key of the metadata index holding the file facts of a project.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the index key.
+     */
+    public static String statsKey(String projectId) {
+        return metadataPrefix(projectId) + "stats";
+    }
+
+    /**
+     * Returns the key prefix under which the checkpoint of an unfinished upload is stored.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the checkpoint key prefix, ending with a slash.
+     */
+    public static String uploadCheckpointPrefix(String projectId) {
+        return metadataPrefix(projectId) + "checkpoint/";
+    }
+
+    /**
+     * Generates the key of the record holding the current expiry of a project, against
+     * which the expiry markers of the project are checked.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the record key.
+     */
+    public static String expiryRecordKey(String projectId) {
+        return metadataPrefix(projectId) + "expiry";
+    }
+
+    /**
+     * Generates the key under which a directly uploaded archive waits to be processed.
+     *
+     * @param projectId the unique identifier for the project.
+     * @return the staging key.
+     */
+    public static String stagingKey(String projectId) {
+        return String.format("%s%s/archive", STAGING_PREFIX, projectId);
+    }
+
+    /**
+     * Generates the key of the marker recording when a project expires.
+     * The expiry is zero-padded so markers list in expiry order.
+     *
+     * @param expiry the project expiry.
+     * @return the marker key.
+     */
+    public static String expiryKey(ProjectExpiry expiry) {
+        return String.format(
+                "%s%012d/%s",
+                EXPIRY_PREFIX, expiry.expiresAt().getEpochSecond(), expiry.projectId());
+    }
+
+    /**
+     * Parses an expiry marker key.
+     *
+     * @param key the marker key.
+     * @return the project expiry, or null if the key is not an expiry marker.
+     */
+    public static ProjectExpiry parseExpiryKey(String key) {
+        if (!key.startsWith(EXPIRY_PREFIX)) {
+            return null;
+        }
+        String marker = key.substring(EXPIRY_PREFIX.length());
+        int slash = marker.indexOf('/');
+        if (slash <= 0 || slash == marker.length() - 1) {
+            return null;
+        }
+        try {
+            long epochSecond = Long.parseLong(marker.substring(0, slash));
+            return new ProjectExpiry(
+                    marker.substring(slash + 1), Instant.ofEpochSecond(epochSecond));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
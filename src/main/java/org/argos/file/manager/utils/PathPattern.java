@@ -0,0 +1,184 @@
+package org.argos.file.manager.utils;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import org.argos.file.manager.exceptions.BadRequestError;
+
+/**
+ * A filter on the relative paths of a project's files, given either as a glob or as a
+ * regular expression, which must match the whole path. Its literal prefix, the part every
+ * matching path starts with, lets a listing be narrowed to a key prefix before the pattern
+ * is applied to each listed path.
+ */
+public final class PathPattern {
+
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+    private static final String REGEX_QUANTIFIERS = "?*+{";
+
+    private final String source;
+    private final Predicate<String> matcher;
+    private final String literalPrefix;
+    private final boolean literal;
+
+    private PathPattern(
+            String source, Predicate<String> matcher, String literalPrefix, boolean literal) {
+        this.source = source;
+        this.matcher = matcher;
+        this.literalPrefix = literalPrefix;
+        this.literal = literal;
+    }
+
+    /**
+     * Parses the filter requested by a client.
+     *
+     * @param glob the requested glob, or null.
+     * @param regex the requested regular expression, or null.
+     * @return the pattern, or null if neither is requested.
+     * @throws BadRequestError if both are requested or the pattern is malformed.
+     */
+    public static PathPattern fromParameters(String glob, String regex) {
+        if (glob != null && regex != null) {
+            throw new BadRequestError("Only one of glob and regex can be given.");
+        }
+        if (glob != null) {
+            return glob(glob);
+        }
+        return regex != null ? regex(regex) : null;
+    }
+
+    /**
+     * Compiles a glob, with the syntax of {@link GlobPattern}.
+     *
+     * @param glob the glob.
+     * @return the pattern.
+     * @throws BadRequestError if the glob is empty or malformed.
+     */
+    public static PathPattern glob(String glob) {
+        GlobPattern pattern = GlobPattern.compile(glob);
+        String prefix = pattern.literalPrefix();
+        return new PathPattern(
+                glob, pattern::matches, prefix, GlobPattern.quote(prefix).equals(glob));
+    }
+
+    /**
+     * Compiles a regular expression. The literal prefix is read up to the first construct
+     * that is not a plain character, and is empty if the expression has an alternation
+     * outside any group.
+     *
+     * @param regex the regular expression.
+     * @return the pattern.
+     * @throws BadRequestError if the expression is empty or malformed.
+     */
+    public static PathPattern regex(String regex) {
+        if (regex == null || regex.isEmpty()) {
+            throw new BadRequestError("Invalid regex: empty pattern");
+        }
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new BadRequestError("Invalid regex: " + e.getDescription());
+        }
+        Predicate<String> matcher = path -> pattern.matcher(path).matches();
+        if (hasTopLevelAlternation(regex)) {
+            return new PathPattern(regex, matcher, "", false);
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        int i = regex.charAt(0) == '^' ? 1 : 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int next = i + 1;
+            if (c == '$' && next == regex.length()) {
+                i = next;
+                break;
+            }
+            if (c == '\\') {
+                if (next == regex.length() || Character.isLetterOrDigit(regex.charAt(next))) {
+                    break;
+                }
+                c = regex.charAt(next++);
+            } else if (REGEX_META.indexOf(c) >= 0) {
+                break;
+            }
+            if (next < regex.length() && REGEX_QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(c);
+            i = next;
+        }
+        return new PathPattern(regex, matcher, prefix.toString(), i == regex.length());
+    }
+
+    /**
+     * Returns whether a regular expression has an alternation outside any group, which
+     * makes its leading characters optional.
+     *
+     * @param regex the regular expression.
+     * @return true if a top-level {@code |} is found.
+     */
+    private static boolean hasTopLevelAlternation(String regex) {
+        int groups = 0;
+        int classes = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (regex.startsWith("Q", i + 1)) {
+                    int end = regex.indexOf("\\E", i + 2);
+                    if (end < 0) {
+                        return false;
+                    }
+                    i = end;
+                }
+                i++;
+            } else if (c == '[') {
+                classes++;
+            } else if (c == ']' && classes > 0) {
+                classes--;
+            } else if (classes > 0) {
+                continue;
+            } else if (c == '(') {
+                groups++;
+            } else if (c == ')') {
+                groups--;
+            } else if (c == '|' && groups == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the whole path matches the pattern.
+     *
+     * @param path the slash-separated relative path.
+     * @return true if the path matches.
+     */
+    public boolean matches(String path) {
+        return matcher.test(path);
+    }
+
+    /**
+     * Returns the prefix every matching path starts with.
+     *
+     * @return the literal prefix, possibly empty.
+     */
+    public String literalPrefix() {
+        return literalPrefix;
+    }
+
+    /**
+     * Returns whether the pattern matches its literal prefix only, that is a single path.
+     *
+     * @return true if the pattern has no wildcard.
+     */
+    public boolean isLiteral() {
+        return literal;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
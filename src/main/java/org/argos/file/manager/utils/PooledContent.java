@@ -0,0 +1,152 @@
+package org.argos.file.manager.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content held in buffers leased from a {@link BufferPool}, so that it can be read any number
+ * of times, for instance by the retries of an upload, without a heap copy of its bytes.
+ * Content is appended by one thread, then read by any number of streams once it is
+ * complete. Closing the content returns its buffers to the pool.
+ */
+public final class PooledContent implements AutoCloseable {
+
+    private final BufferPool pool;
+    private final List<BufferPool.Lease> leases = new ArrayList<>();
+    private long size;
+
+    /**
+     * Creates empty content.
+     *
+     * @param pool the pool lending the buffers.
+     */
+    public PooledContent(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Appends bytes, leasing buffers as they fill up.
+     *
+     * @param bytes the array holding the bytes.
+     * @param offset the offset of the first byte.
+     * @param length the number of bytes to append.
+     */
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            ByteBuffer buffer = leases.isEmpty() ? null : leases.get(leases.size() - 1).buffer();
+            if (buffer == null || !buffer.hasRemaining()) {
+                buffer = lease();
+            }
+            int chunk = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            size += chunk;
+        }
+    }
+
+    /**
+     * Returns the number of bytes appended.
+     *
+     * @return the content size in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Writes the content to a channel.
+     *
+     * @param channel the channel receiving the content; it is not closed.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        for (BufferPool.Lease lease : leases) {
+            ByteBuffer chunk = lease.buffer().duplicate().flip();
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+    }
+
+    /**
+     * Opens a stream reading the content from its start. Streams do not need to be closed.
+     *
+     * @return the stream.
+     */
+    public InputStream newInputStream() {
+        ByteBuffer[] chunks = new ByteBuffer[leases.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = leases.get(i).buffer().duplicate().flip();
+        }
+        return new ChunkInputStream(chunks);
+    }
+
+    /**
+     * Returns the buffers to the pool. The content must not be read afterwards.
+     */
+    @Override
+    public void close() {
+        for (BufferPool.Lease lease : leases) {
+            lease.close();
+        }
+        leases.clear();
+        size = 0;
+    }
+
+    private ByteBuffer lease() {
+        BufferPool.Lease lease = pool.acquire();
+        leases.add(lease);
+        return lease.buffer();
+    }
+
+    /**
+     * Stream over the filled parts of a sequence of buffers.
+     */
+    private static final class ChunkInputStream extends InputStream {
+
+        private final ByteBuffer[] chunks;
+        private int index;
+
+        ChunkInputStream(ByteBuffer[] chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read() {
+            ByteBuffer chunk = current();
+            return chunk == null ? -1 : chunk.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            ByteBuffer chunk = current();
+            if (chunk == null) {
+                return -1;
+            }
+            int read = Math.min(length, chunk.remaining());
+            chunk.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            ByteBuffer chunk = current();
+            return chunk == null ? 0 : chunk.remaining();
+        }
+
+        private ByteBuffer current() {
+            while (index < chunks.length && !chunks[index].hasRemaining()) {
+                index++;
+            }
+            return index < chunks.length ? chunks[index] : null;
+        }
+    }
+}
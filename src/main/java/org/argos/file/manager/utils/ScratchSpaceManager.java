@@ -0,0 +1,277 @@
+package org.argos.file.manager.utils;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.argos.file.manager.exceptions.ServiceUnavailableError;
+
+/**
+ * Manages the scratch directories used to unpack uploads. This class uses the Singleton
+ * pattern to ensure only one instance of the class exists throughout the application.
+ * <p>
+ * Directories are created under a configurable root (ARGOS_SCRATCH_ROOT, e.g. a tmpfs mount)
+ * and admitted against a byte quota (ARGOS_SCRATCH_QUOTA_BYTES). Released directories are
+ * deleted by a background reaper instead of the request thread, and directories left behind
+ * by crashed requests are swept once they are older than ARGOS_SCRATCH_STALE_MINUTES.
+ * </p>
+ */
+@SuppressWarnings("java:S6548")
+public class ScratchSpaceManager {
+
+    private static final String DIRECTORY_PREFIX = "unpacked-zip";
+
+    private final Path root;
+    private final long quotaBytes;
+    private final Duration staleAge;
+    private final Map<Path, Long> activeDirectories = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicInteger pendingDeletes = new AtomicInteger();
+    private final AtomicLong pendingDeleteBytes = new AtomicLong();
+    private final AtomicLong sweptDirectories = new AtomicLong();
+    private final ExecutorService reaper =
+            Executors.newSingleThreadExecutor(
+                    Thread.ofPlatform().name("argos-scratch-reaper").daemon(true).factory());
+
+    /**
+     * Private constructor to prevent instantiation from outside the class.
+     */
+    private ScratchSpaceManager() {
+        this.root =
+                Paths.get(
+                        EnvSettings.getString(
+                                "ARGOS_SCRATCH_ROOT",
+                                Paths.get(System.getProperty("java.io.tmpdir"), "argos-scratch")
+                                        .toString()));
+        this.quotaBytes = EnvSettings.getLong("ARGOS_SCRATCH_QUOTA_BYTES", 0);
+        this.staleAge = Duration.ofMinutes(EnvSettings.getLong("ARGOS_SCRATCH_STALE_MINUTES", 60));
+    }
+
+    /**
+     * Bill Pugh Singleton Design for thread-safe and efficient lazy initialization.
+     * The instance is created when it is first used.
+     */
+    private static class SingletonHelper {
+        private static final ScratchSpaceManager INSTANCE = new ScratchSpaceManager();
+    }
+
+    /**
+     * Returns the single instance of the ScratchSpaceManager class.
+     *
+     * @return the singleton instance of ScratchSpaceManager.
+     */
+    public static ScratchSpaceManager getInstance() {
+        return SingletonHelper.INSTANCE;
+    }
+
+    /**
+     * Creates a new scratch directory, reserving the expected number of bytes against the quota.
+     *
+     * @param expectedBytes the number of bytes the caller expects to write.
+     * @return the created directory.
+     * @throws ServiceUnavailableError if the reservation would exceed the quota.
+     * @throws IOException if the directory cannot be created.
+     */
+    public Path createDirectory(long expectedBytes) throws IOException {
+        long reserved = Math.max(0, expectedBytes);
+        long usedBefore =
+                usedBytes.getAndUpdate(
+                        used -> quotaBytes > 0 && used + reserved > quotaBytes
+                                ? used
+                                : used + reserved);
+        if (quotaBytes > 0 && usedBefore + reserved > quotaBytes) {
+            throw new ServiceUnavailableError(
+                    "Scratch space quota exceeded, please retry the upload later.");
+        }
+        try {
+            Files.createDirectories(root);
+            Path directory = Files.createTempDirectory(root, DIRECTORY_PREFIX);
+            activeDirectories.put(directory, reserved);
+            return directory;
+        } catch (IOException | RuntimeException e) {
+            usedBytes.addAndGet(-reserved);
+            throw e;
+        }
+    }
+
+    /**
+     * Updates the number of bytes accounted to an active directory once its real size is known.
+     *
+     * @param directory the scratch directory.
+     * @param bytes the number of bytes the directory now holds.
+     */
+    public void recordUsage(Path directory, long bytes) {
+        Long previous = activeDirectories.computeIfPresent(directory, (path, current) -> bytes);
+        if (previous != null) {
+            usedBytes.addAndGet(bytes - previous);
+        }
+    }
+
+    /**
+     * Releases a scratch directory and hands its deletion off to the background reaper.
+     *
+     * @param directory the directory to release.
+     */
+    public void release(Path directory) {
+        Long reserved = activeDirectories.remove(directory);
+        scheduleDeletion(directory, reserved != null ? reserved : 0L);
+    }
+
+    /**
+     * Deletes directories under the scratch root that no request is using and that are older
+     * than the configured stale age.
+     *
+     * @return the number of directories scheduled for deletion.
+     */
+    public int sweepStale() {
+        return sweep(root, staleAge);
+    }
+
+    /**
+     * Sweeps leftovers at startup: stale directories under the scratch root, plus stale
+     * "unpacked-zip" directories left in the system temp directory by earlier versions.
+     * The stale age applies here too, since other replicas on the same host may share the
+     * root and still be extracting into directories this instance does not know about.
+     *
+     * @return the number of directories scheduled for deletion.
+     */
+    public int sweepAtStartup() {
+        int swept = sweep(root, staleAge);
+        Path systemTemp = Paths.get(System.getProperty("java.io.tmpdir"));
+        if (!systemTemp.equals(root)) {
+            swept += sweep(systemTemp, staleAge);
+        }
+        return swept;
+    }
+
+    /**
+     * Returns the number of bytes accounted to active and not yet deleted directories.
+     *
+     * @return the used scratch bytes.
+     */
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Returns the number of directories currently used by requests.
+     *
+     * @return the active directory count.
+     */
+    public int activeDirectories() {
+        return activeDirectories.size();
+    }
+
+    /**
+     * Returns the number of directories waiting to be deleted by the reaper.
+     *
+     * @return the deletion backlog.
+     */
+    public int pendingDeletes() {
+        return pendingDeletes.get();
+    }
+
+    /**
+     * Returns the number of bytes waiting to be deleted by the reaper.
+     *
+     * @return the deletion backlog in bytes.
+     */
+    public long pendingDeleteBytes() {
+        return pendingDeleteBytes.get();
+    }
+
+    /**
+     * Returns the total number of leftover directories removed by sweeps.
+     *
+     * @return the swept directory count.
+     */
+    public long sweptDirectories() {
+        return sweptDirectories.get();
+    }
+
+    /**
+     * Returns the configured scratch root.
+     *
+     * @return the root directory.
+     */
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * Schedules deletion of unused scratch directories under a parent directory.
+     *
+     * @param parent the directory to scan.
+     * @param minAge the minimum age of a directory before it is considered stale.
+     * @return the number of directories scheduled for deletion.
+     */
+    private int sweep(Path parent, Duration minAge) {
+        if (!Files.isDirectory(parent)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(minAge);
+        int swept = 0;
+        try (Stream<Path> children = Files.list(parent)) {
+            for (Path child : children.toList()) {
+                if (isStale(child, cutoff)) {
+                    scheduleDeletion(child, 0L);
+                    swept++;
+                }
+            }
+        } catch (IOException e) {
+            return swept;
+        }
+        sweptDirectories.addAndGet(swept);
+        return swept;
+    }
+
+    /**
+     * Indicates whether a path is an unused scratch directory last modified before the cutoff.
+     *
+     * @param path the path to check.
+     * @param cutoff the modification time before which a directory is stale.
+     * @return true if the directory can be deleted.
+     */
+    private boolean isStale(Path path, Instant cutoff) {
+        try {
+            return path.getFileName().toString().startsWith(DIRECTORY_PREFIX)
+                    && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+                    && !activeDirectories.containsKey(path)
+                    && Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Queues a directory for deletion on the reaper thread.
+     *
+     * @param directory the directory to delete.
+     * @param bytes the bytes accounted to the directory, released once it is deleted.
+     */
+    private void scheduleDeletion(Path directory, long bytes) {
+        pendingDeletes.incrementAndGet();
+        pendingDeleteBytes.addAndGet(bytes);
+        reaper.execute(
+                () -> {
+                    try {
+                        if (Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+                            FileProcessor.getInstance().deleteDirectory(directory);
+                        }
+                    } catch (IOException e) {
+                        // Left for the next periodic sweep.
+                    } finally {
+                        pendingDeletes.decrementAndGet();
+                        pendingDeleteBytes.addAndGet(-bytes);
+                        usedBytes.addAndGet(-bytes);
+                    }
+                });
+    }
+}
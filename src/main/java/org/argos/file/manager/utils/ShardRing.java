@@ -0,0 +1,199 @@
+package org.argos.file.manager.utils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.argos.file.manager.model.KeyLayout;
+
+/**
+ * Consistent-hash ring placing new projects on storage shards, each shard being a bucket.
+ * The shard of a project is recorded in its ID when the project is created, as a suffix
+ * {@code .{shard}}, so it is resolved without a storage request and never changes for the
+ * lifetime of the project. Projects of the primary shard, the bucket of AWS_BUCKET_NAME,
+ * have no suffix, so projects created before sharding was configured stay where they are.
+ * Each shard is placed on the ring at a number of virtual positions proportional to its
+ * weight: adding a shard, or raising its weight, only shifts the placement of new projects.
+ */
+public final class ShardRing {
+
+    /** Name of the shard holding the projects whose IDs record no shard. */
+    public static final String PRIMARY = "primary";
+
+    private static final char SEPARATOR = '.';
+    private static final Pattern SHARD_NAME = Pattern.compile("[a-z0-9-]+");
+
+    private final ConsistentHashRing ring = new ConsistentHashRing();
+    private final List<Shard> shards;
+
+    /**
+     * Creates a ring over the primary shard and the configured shards.
+     *
+     * @param primaryWeight the weight of the primary shard; 0 places no new project on it.
+     * @param shards the shards besides the primary one.
+     * @param virtualNodes the number of ring positions per unit of weight.
+     * @throws IllegalArgumentException if a shard name is invalid or repeated, or no shard
+     *     takes new projects.
+     */
+    public ShardRing(int primaryWeight, List<Shard> shards, int virtualNodes) {
+        this.shards = List.copyOf(shards);
+        Set<String> names = new HashSet<>();
+        names.add(PRIMARY);
+        addPositions(PRIMARY, primaryWeight, virtualNodes);
+        for (Shard shard : this.shards) {
+            if (!SHARD_NAME.matcher(shard.name()).matches() || !names.add(shard.name())) {
+                throw new IllegalArgumentException("Invalid shard name: " + shard.name());
+            }
+            addPositions(shard.name(), shard.weight(), virtualNodes);
+        }
+        if (ring.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard must take new projects.");
+        }
+    }
+
+    /**
+     * Bill Pugh Singleton Design for thread-safe and efficient lazy initialization.
+     * The instance is created when it is first used.
+     */
+    private static class SingletonHelper {
+        private static final ShardRing INSTANCE = fromEnvironment();
+    }
+
+    /**
+     * Returns the ring configured for the deployment.
+     *
+     * @return the single instance of ShardRing.
+     */
+    public static ShardRing getInstance() {
+        return SingletonHelper.INSTANCE;
+    }
+
+    /**
+     * Reads the shards from ARGOS_SHARDS, a comma-separated list of
+     * {@code name=bucket[:weight]} entries, with the weight of the primary shard from
+     * ARGOS_SHARD_PRIMARY_WEIGHT and the virtual positions from ARGOS_SHARD_VNODES.
+     *
+     * @return the configured ring.
+     * @throws IllegalStateException if ARGOS_SHARDS is malformed.
+     */
+    private static ShardRing fromEnvironment() {
+        List<Shard> shards = new ArrayList<>();
+        for (String entry : EnvSettings.getString("ARGOS_SHARDS", "").split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] nameAndBucket = entry.trim().split("=", 2);
+            String[] bucketAndWeight =
+                    nameAndBucket.length == 2 ? nameAndBucket[1].split(":", 2) : new String[0];
+            try {
+                if (bucketAndWeight.length == 0 || bucketAndWeight[0].isBlank()) {
+                    throw new IllegalArgumentException("Missing bucket");
+                }
+                shards.add(
+                        new Shard(
+                                nameAndBucket[0].trim(),
+                                bucketAndWeight[0].trim(),
+                                bucketAndWeight.length == 2
+                                        ? Integer.parseInt(bucketAndWeight[1].trim())
+                                        : 1));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid ARGOS_SHARDS entry: " + entry, e);
+            }
+        }
+        try {
+            return new ShardRing(
+                    EnvSettings.getInt("ARGOS_SHARD_PRIMARY_WEIGHT", 1),
+                    shards,
+                    EnvSettings.getInt("ARGOS_SHARD_VNODES", 128));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid ARGOS_SHARDS: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resolves the shard of an existing project from its ID.
+     *
+     * @param projectId the ID of the project.
+     * @return the name of the shard the project was created on.
+     */
+    public static String shardOf(String projectId) {
+        int separator = projectId.lastIndexOf(SEPARATOR);
+        return separator >= 0 ? projectId.substring(separator + 1) : PRIMARY;
+    }
+
+    /**
+     * Generates the ID of a project created on the same shard as another project, such as
+     * a fork, which is copied within the bucket of its source.
+     *
+     * @param layout the key layout of the new project.
+     * @param projectId the ID of the project to share the shard of.
+     * @return a unique project ID.
+     */
+    public static String colocatedProjectId(KeyLayout layout, String projectId) {
+        return withShard(layout.newProjectId(), shardOf(projectId));
+    }
+
+    /**
+     * Generates the ID of a new project, placed on the shard owning the ID on the ring.
+     *
+     * @param layout the key layout of the new project.
+     * @return a unique project ID.
+     */
+    public String newProjectId(KeyLayout layout) {
+        return place(layout.newProjectId());
+    }
+
+    /**
+     * Records in a generated ID the shard owning it: the first shard position at or after
+     * the hash of the ID.
+     *
+     * @param id the generated ID, without any shard.
+     * @return the project ID.
+     */
+    public String place(String id) {
+        return withShard(id, ring.ownerOf(id));
+    }
+
+    /**
+     * Returns the shards besides the primary one.
+     *
+     * @return the configured shards.
+     */
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    /**
+     * Places a shard on the ring at a number of positions proportional to its weight.
+     *
+     * @param name the name of the shard.
+     * @param weight the weight of the shard; 0 places it nowhere.
+     * @param virtualNodes the number of ring positions per unit of weight.
+     */
+    private void addPositions(String name, int weight, int virtualNodes) {
+        ring.add(name, weight * Math.max(1, virtualNodes));
+    }
+
+    /**
+     * Records a shard in a generated ID. The primary shard is not recorded, so that its
+     * projects keep IDs without a suffix.
+     *
+     * @param id the generated ID, without any shard.
+     * @param shard the name of the shard.
+     * @return the project ID.
+     */
+    private static String withShard(String id, String shard) {
+        return PRIMARY.equals(shard) ? id : id + SEPARATOR + shard;
+    }
+
+    /**
+     * A storage shard besides the primary one.
+     *
+     * @param name the name recorded in the IDs of its projects.
+     * @param bucket the bucket holding its projects.
+     * @param weight its share of new projects relative to the other shards; 0 places no new
+     *     project on it while its existing projects stay readable.
+     */
+    public record Shard(String name, String bucket, int weight) {}
+}
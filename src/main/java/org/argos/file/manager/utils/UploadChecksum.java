@@ -0,0 +1,191 @@
+package org.argos.file.manager.utils;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.zip.Checksum;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Checksum sent with every stored file as an S3 additional checksum, so that S3 rejects a
+ * PUT whose bytes differ from the bytes the service read. Checksums are computed while
+ * files are extracted or streamed, never by reading a file a second time; the CRC32 of a
+ * ZIP entry, which is verified while the entry is inflated, is sent as is.
+ */
+public enum UploadChecksum {
+    /** No checksum is sent. */
+    NONE,
+    CRC32,
+    CRC32C,
+    SHA256;
+
+    /**
+     * Returns the checksum of this deployment, read from ARGOS_UPLOAD_CHECKSUM.
+     *
+     * @return the configured checksum, CRC32 if the setting is missing or invalid.
+     */
+    public static UploadChecksum fromEnvironment() {
+        String checksum = EnvSettings.getString("ARGOS_UPLOAD_CHECKSUM", "crc32");
+        try {
+            return valueOf(checksum.trim().replace("-", "").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return CRC32;
+        }
+    }
+
+    /**
+     * Returns whether the CRC32 stored in a ZIP entry can be sent instead of computing one.
+     *
+     * @return true for CRC32.
+     */
+    public boolean reusesZipCrc() {
+        return this == CRC32;
+    }
+
+    /**
+     * Starts computing the checksum of a file.
+     *
+     * @return a new hasher, or null if no checksum is sent.
+     */
+    public Hasher newHasher() {
+        return switch (this) {
+            case NONE -> null;
+            case CRC32 -> new Hasher(new java.util.zip.CRC32(), null);
+            case CRC32C -> new Hasher(new java.util.zip.CRC32C(), null);
+            case SHA256 -> new Hasher(null, sha256());
+        };
+    }
+
+    /**
+     * Encodes a CRC32 value the way S3 expects it: the four big-endian bytes in Base64.
+     *
+     * @param crc the CRC32 value.
+     * @return the encoded checksum.
+     */
+    public static String encodeCrc(long crc) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) crc).array());
+    }
+
+    /**
+     * Adds the checksum to a PUT request. Without a precomputed value only the algorithm is
+     * set, and the S3 client computes the checksum while it sends the body.
+     *
+     * @param request the request being built.
+     * @param value the Base64-encoded checksum, or null if it was not computed.
+     * @return the request builder.
+     */
+    public PutObjectRequest.Builder applyTo(PutObjectRequest.Builder request, String value) {
+        return switch (this) {
+            case NONE -> request;
+            case CRC32 ->
+                    value != null
+                            ? request.checksumCRC32(value)
+                            : request.checksumAlgorithm(ChecksumAlgorithm.CRC32);
+            case CRC32C ->
+                    value != null
+                            ? request.checksumCRC32C(value)
+                            : request.checksumAlgorithm(ChecksumAlgorithm.CRC32_C);
+            case SHA256 ->
+                    value != null
+                            ? request.checksumSHA256(value)
+                            : request.checksumAlgorithm(ChecksumAlgorithm.SHA256);
+        };
+    }
+
+    /**
+     * Returns the algorithm the S3 client computes for the parts of a multipart upload.
+     *
+     * @return the algorithm, or null if no checksum is sent.
+     */
+    public ChecksumAlgorithm algorithm() {
+        return switch (this) {
+            case NONE -> null;
+            case CRC32 -> ChecksumAlgorithm.CRC32;
+            case CRC32C -> ChecksumAlgorithm.CRC32_C;
+            case SHA256 -> ChecksumAlgorithm.SHA256;
+        };
+    }
+
+    /**
+     * Adds the checksum S3 returned for an uploaded part to the part listed when the
+     * multipart upload is completed, as S3 requires for uploads started with a checksum.
+     *
+     * @param part the completed part being built.
+     * @param response the response of the part upload.
+     * @return the part builder.
+     */
+    public CompletedPart.Builder applyTo(CompletedPart.Builder part, UploadPartResponse response) {
+        return switch (this) {
+            case NONE -> part;
+            case CRC32 -> part.checksumCRC32(response.checksumCRC32());
+            case CRC32C -> part.checksumCRC32C(response.checksumCRC32C());
+            case SHA256 -> part.checksumSHA256(response.checksumSHA256());
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes a checksum over the bytes of a file as they pass through.
+     */
+    public static final class Hasher {
+
+        private final Checksum checksum;
+        private final MessageDigest digest;
+
+        private Hasher(Checksum checksum, MessageDigest digest) {
+            this.checksum = checksum;
+            this.digest = digest;
+        }
+
+        /**
+         * Adds bytes to the checksum.
+         *
+         * @param buffer the bytes.
+         * @param offset the offset of the first byte.
+         * @param length the number of bytes.
+         */
+        public void update(byte[] buffer, int offset, int length) {
+            if (checksum != null) {
+                checksum.update(buffer, offset, length);
+            } else {
+                digest.update(buffer, offset, length);
+            }
+        }
+
+        /**
+         * Adds the remaining bytes of a buffer to the checksum, consuming them.
+         *
+         * @param buffer the bytes, which may be a direct buffer.
+         */
+        public void update(ByteBuffer buffer) {
+            if (checksum != null) {
+                checksum.update(buffer);
+            } else {
+                digest.update(buffer);
+            }
+        }
+
+        /**
+         * Returns the checksum of the bytes added so far, encoded for S3.
+         *
+         * @return the Base64-encoded checksum.
+         */
+        public String value() {
+            return checksum != null
+                    ? encodeCrc(checksum.getValue())
+                    : Base64.getEncoder().encodeToString(digest.digest());
+        }
+    }
+}
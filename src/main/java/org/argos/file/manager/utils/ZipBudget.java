@@ -0,0 +1,26 @@
+package org.argos.file.manager.utils;
+
+/**
+ * Resource limits enforced while a ZIP archive is streamed, so that an oversized or
+ * malicious archive is rejected before it fills the disk.
+ *
+ * @param maxTotalBytes the maximum number of uncompressed bytes across all entries.
+ * @param maxEntries the maximum number of entries.
+ * @param maxRatio the maximum ratio of uncompressed to compressed bytes.
+ * @param maxEntryBytes the maximum number of uncompressed bytes of a single entry.
+ */
+public record ZipBudget(long maxTotalBytes, int maxEntries, int maxRatio, long maxEntryBytes) {
+
+    /**
+     * Reads the budget of this deployment from environment variables.
+     *
+     * @return the configured budget.
+     */
+    public static ZipBudget fromEnvironment() {
+        return new ZipBudget(
+                EnvSettings.getLong("ARGOS_ZIP_MAX_TOTAL_BYTES", 2L << 30),
+                EnvSettings.getInt("ARGOS_ZIP_MAX_ENTRIES", 50_000),
+                EnvSettings.getInt("ARGOS_ZIP_MAX_RATIO", 100),
+                EnvSettings.getLong("ARGOS_ZIP_MAX_ENTRY_BYTES", 512L << 20));
+    }
+}
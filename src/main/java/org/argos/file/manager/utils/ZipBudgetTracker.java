@@ -0,0 +1,141 @@
+package org.argos.file.manager.utils;
+
+import java.util.zip.ZipEntry;
+import org.argos.file.manager.exceptions.PayloadTooLargeError;
+
+/**
+ * Tracks the consumption of a {@link ZipBudget} during a single extraction and aborts it
+ * as soon as a limit is breached. The budget applies to ZIP and tar archives alike; the
+ * errors name the format being extracted.
+ */
+public class ZipBudgetTracker {
+
+    /**
+     * Below this many uncompressed bytes the ratio is not checked, since a handful of small,
+     * highly compressible files is normal and harmless.
+     */
+    private static final long RATIO_GRACE_BYTES = 1L << 20;
+
+    private final ZipBudget budget;
+    private final CountingInputStream compressedStream;
+    private final String label;
+    private int entries;
+    private long totalBytes;
+
+    /**
+     * Creates a tracker.
+     *
+     * @param budget the budget to enforce.
+     * @param compressedStream the raw archive stream, used to measure compressed bytes.
+     */
+    public ZipBudgetTracker(ZipBudget budget, CountingInputStream compressedStream) {
+        this(budget, compressedStream, "ZIP");
+    }
+
+    /**
+     * Creates a tracker for an archive of the given format.
+     *
+     * @param budget the budget to enforce.
+     * @param compressedStream the raw archive stream, used to measure compressed bytes.
+     * @param label the name of the archive format used in error messages.
+     */
+    public ZipBudgetTracker(ZipBudget budget, CountingInputStream compressedStream, String label) {
+        this.budget = budget;
+        this.compressedStream = compressedStream;
+        this.label = label;
+    }
+
+    /**
+     * Accounts a new entry, rejecting it early when its declared size is already too large.
+     *
+     * @param entry the entry about to be extracted.
+     * @throws PayloadTooLargeError if the entry count or declared size exceeds the budget.
+     */
+    public void onEntry(ZipEntry entry) {
+        onEntry(entry.getName(), entry.getSize());
+    }
+
+    /**
+     * Accounts a new entry, rejecting it early when its declared size is already too large.
+     *
+     * @param name the name of the entry about to be extracted.
+     * @param size the declared size of the entry, or -1 if unknown.
+     * @throws PayloadTooLargeError if the entry count or declared size exceeds the budget.
+     */
+    public void onEntry(String name, long size) {
+        if (++entries > budget.maxEntries()) {
+            throw new PayloadTooLargeError(
+                    label + " archive exceeds the limit of " + budget.maxEntries() + " entries.");
+        }
+        if (size > budget.maxEntryBytes()) {
+            throw entryTooLarge(name);
+        }
+    }
+
+    /**
+     * Accounts bytes inflated for the current entry.
+     *
+     * @param entry the entry being extracted.
+     * @param entryBytes the number of bytes inflated for the entry so far.
+     * @param chunkBytes the number of bytes inflated by the last read.
+     * @throws PayloadTooLargeError if any byte or ratio limit is exceeded.
+     */
+    public void onBytes(ZipEntry entry, long entryBytes, int chunkBytes) {
+        onBytes(entry.getName(), entryBytes, chunkBytes);
+    }
+
+    /**
+     * Accounts bytes extracted for the current entry.
+     *
+     * @param name the name of the entry being extracted.
+     * @param entryBytes the number of bytes extracted for the entry so far.
+     * @param chunkBytes the number of bytes extracted by the last read.
+     * @throws PayloadTooLargeError if any byte or ratio limit is exceeded.
+     */
+    public void onBytes(String name, long entryBytes, int chunkBytes) {
+        totalBytes += chunkBytes;
+        if (entryBytes > budget.maxEntryBytes()) {
+            throw entryTooLarge(name);
+        }
+        if (totalBytes > budget.maxTotalBytes()) {
+            throw new PayloadTooLargeError(
+                    label
+                            + " archive exceeds the limit of "
+                            + budget.maxTotalBytes()
+                            + " uncompressed bytes.");
+        }
+        long compressedBytes = Math.max(1, compressedStream.getCount());
+        if (totalBytes > RATIO_GRACE_BYTES && totalBytes / compressedBytes > budget.maxRatio()) {
+            throw new PayloadTooLargeError(
+                    label
+                            + " archive exceeds the maximum compression ratio of "
+                            + budget.maxRatio()
+                            + ".");
+        }
+    }
+
+    /**
+     * Returns the number of uncompressed bytes extracted so far.
+     *
+     * @return the extracted byte count.
+     */
+    public long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Builds the error for an entry exceeding the per-entry limit.
+     *
+     * @param name the name of the offending entry.
+     * @return the error to throw.
+     */
+    private PayloadTooLargeError entryTooLarge(String name) {
+        return new PayloadTooLargeError(
+                label
+                        + " entry "
+                        + name
+                        + " exceeds the limit of "
+                        + budget.maxEntryBytes()
+                        + " bytes.");
+    }
+}
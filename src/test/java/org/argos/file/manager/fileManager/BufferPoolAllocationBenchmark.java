@@ -0,0 +1,198 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.utils.BufferPool;
+import org.argos.file.manager.utils.FileProcessor;
+import org.argos.file.manager.utils.PooledContent;
+import org.argos.file.manager.utils.ZipBudget;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+/**
+ * Allocation benchmark comparing the heap bytes allocated per MiB of content by the copy
+ * paths of uploads with heap arrays, as they were, and with pooled direct buffers: spooling
+ * an uploaded archive to scratch space, extracting the entries of a ZIP file, and holding an
+ * archive entry in memory while its request body is read, twice to account for a retry.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class BufferPoolAllocationBenchmark {
+
+    private static final int ENTRY_BYTES = 1 << 20;
+    private static final int ZIP_ENTRIES = 64;
+    private static final int ROUNDS = 64;
+    private static final int WARMUP_ROUNDS = 16;
+    private static final byte[] SINK = new byte[8192];
+
+    @TempDir Path directory;
+
+    @Test
+    void compareAllocationRates() throws IOException {
+        byte[] content = new byte[ENTRY_BYTES];
+        new Random(7).nextBytes(content);
+        MockMultipartFile archive =
+                new MockMultipartFile("file", "archive.zip", "application/zip", content);
+        BufferPool pool = BufferPool.getInstance();
+        Path zip = zipOf(content);
+
+        double heapSpool = measure(() -> heapSpool(archive));
+        double pooledSpool = measure(() -> pooledSpool(archive));
+        double heapExtract = measure(() -> heapExtract(zip));
+        double pooledExtract = measure(() -> pooledExtract(zip));
+        double heapStaging = measure(() -> heapStaging(content));
+        double pooledStaging = measure(() -> pooledStaging(pool, content));
+
+        System.out.printf("%-16s %14s %14s%n", "path", "heap MB/MiB", "pooled MB/MiB");
+        System.out.printf("%-16s %14.3f %14.3f%n", "spool archive", heapSpool, pooledSpool);
+        System.out.printf("%-16s %14.3f %14.3f%n", "extract zip", heapExtract, pooledExtract);
+        System.out.printf("%-16s %14.3f %14.3f%n", "stage entry", heapStaging, pooledStaging);
+        System.out.printf(
+                "pool: %d buffers allocated, %d idle, %d leaks%n",
+                pool.allocated(), pool.idle(), pool.leaks());
+
+        assertTrue(pooledSpool < heapSpool / 4, "spooling should allocate far less");
+        assertTrue(pooledExtract < heapExtract, "extraction should allocate less");
+        assertTrue(pooledStaging < heapStaging / 4, "staging should allocate far less");
+        assertEquals(0, pool.leased());
+    }
+
+    /**
+     * Runs a copy path repeatedly on the current thread.
+     *
+     * @param path the copy path, handling one MiB per run.
+     * @return the heap megabytes allocated per MiB of content.
+     */
+    private double measure(CopyPath path) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            path.run();
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            path.run();
+        }
+        return (allocatedBytes() - before) / 1_048_576.0 / ROUNDS;
+    }
+
+    private void heapSpool(MockMultipartFile archive) throws IOException {
+        // Multipart files of a running server read their content from the request part.
+        Files.write(directory.resolve("heap.zip"), archive.getInputStream().readAllBytes());
+    }
+
+    private void pooledSpool(MockMultipartFile archive) throws IOException {
+        try (InputStream in = archive.getInputStream();
+                FileChannel out =
+                        FileChannel.open(
+                                directory.resolve("pooled.zip"),
+                                StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING,
+                                StandardOpenOption.WRITE)) {
+            BufferPool.getInstance().copy(in, out);
+        }
+    }
+
+    private void heapExtract(Path zip) throws IOException {
+        Path target = Files.createDirectories(directory.resolve("heap"));
+        try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                try (OutputStream out = Files.newOutputStream(target.resolve(entry.getName()))) {
+                    byte[] buffer = new byte[8192];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+            }
+        }
+    }
+
+    private void pooledExtract(Path zip) throws IOException {
+        Path target = Files.createDirectories(directory.resolve("pooled"));
+        FileProcessor.getInstance()
+                .extractZip(zip, target, new ZipBudget(Long.MAX_VALUE, 1000, 1000, ENTRY_BYTES));
+    }
+
+    private static void heapStaging(byte[] content) throws IOException {
+        ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        for (int offset = 0; offset < content.length; offset += 8192) {
+            memory.write(content, offset, 8192);
+        }
+        byte[] bytes = memory.toByteArray();
+        send(RequestBody.fromBytes(bytes));
+        send(RequestBody.fromBytes(bytes));
+    }
+
+    private static void pooledStaging(BufferPool pool, byte[] content) throws IOException {
+        try (PooledContent memory = new PooledContent(pool)) {
+            for (int offset = 0; offset < content.length; offset += 8192) {
+                memory.write(content, offset, 8192);
+            }
+            RequestBody body =
+                    RequestBody.fromContentProvider(
+                            memory::newInputStream, memory.size(), "application/octet-stream");
+            send(body);
+            send(body);
+        }
+    }
+
+    /**
+     * Writes a ZIP file splitting content into entries of equal size.
+     *
+     * @param content the content of the entries.
+     * @return the ZIP file.
+     */
+    private Path zipOf(byte[] content) throws IOException {
+        Path zip = directory.resolve("entries.zip");
+        int entryBytes = content.length / ZIP_ENTRIES;
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (int i = 0; i < ZIP_ENTRIES; i++) {
+                out.putNextEntry(new ZipEntry("file" + i + ".txt"));
+                out.write(content, i * entryBytes, entryBytes);
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    /**
+     * Reads a request body the way the HTTP client does when it sends it.
+     *
+     * @param body the request body.
+     */
+    private static void send(RequestBody body) throws IOException {
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            while (in.read(SINK) != -1) {
+                // The bytes would be written to the connection.
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * A copy path under measurement.
+     */
+    private interface CopyPath {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,119 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import org.argos.file.manager.utils.BufferPool;
+import org.argos.file.manager.utils.PooledContent;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the pooled direct buffers and the content held in them.
+ */
+class BufferPoolTest {
+
+    /**
+     * Released buffers are reused, and only up to the idle limit.
+     */
+    @Test
+    void testAcquire_ReusesReleasedBuffers() {
+        BufferPool pool = new BufferPool(16, 1, false);
+
+        ByteBuffer first;
+        try (BufferPool.Lease lease = pool.acquire()) {
+            first = lease.buffer();
+            assertTrue(first.isDirect());
+            first.put((byte) 1);
+        }
+        try (BufferPool.Lease lease = pool.acquire();
+                BufferPool.Lease other = pool.acquire()) {
+            assertSame(first, lease.buffer());
+            assertEquals(0, lease.buffer().position());
+            assertNotSame(first, other.buffer());
+            assertEquals(2, pool.leased());
+        }
+
+        assertEquals(2, pool.allocated());
+        assertEquals(0, pool.leased());
+        assertEquals(1, pool.idle());
+        assertEquals(0, pool.leaks());
+    }
+
+    /**
+     * A lease that is dropped without being closed is reported and its buffer recovered.
+     */
+    @Test
+    void testLease_DetectsLeaks() throws InterruptedException {
+        BufferPool pool = new BufferPool(16, 4, true);
+        leak(pool);
+
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (pool.leaks() == 0 && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, pool.leaks());
+        assertEquals(0, pool.leased());
+        assertEquals(1, pool.idle());
+    }
+
+    /**
+     * Content spanning several buffers reads back identically any number of times, and
+     * closing it returns every buffer.
+     */
+    @Test
+    void testPooledContent_ReadsAcrossBuffers() throws IOException {
+        BufferPool pool = new BufferPool(16, 8, false);
+        byte[] bytes = new byte[50];
+        Arrays.fill(bytes, (byte) 7);
+        bytes[49] = 9;
+
+        try (PooledContent content = new PooledContent(pool)) {
+            content.write(bytes, 0, 20);
+            content.write(bytes, 20, 30);
+
+            assertEquals(50, content.size());
+            assertEquals(4, pool.leased());
+            assertArrayEquals(bytes, content.newInputStream().readAllBytes());
+            try (InputStream in = content.newInputStream()) {
+                assertEquals(7, in.read());
+                assertArrayEquals(Arrays.copyOfRange(bytes, 1, 50), in.readAllBytes());
+                assertEquals(-1, in.read());
+            }
+            ByteArrayOutputStream written = new ByteArrayOutputStream();
+            content.writeTo(Channels.newChannel(written));
+            assertArrayEquals(bytes, written.toByteArray());
+        }
+        assertEquals(0, pool.leased());
+        assertEquals(0, pool.leaks());
+    }
+
+    /**
+     * Streams are copied through a single buffer whatever their size.
+     */
+    @Test
+    void testCopy_UsesOneBuffer() throws IOException {
+        BufferPool pool = new BufferPool(16, 8, false);
+        byte[] bytes = new byte[100];
+        Arrays.fill(bytes, (byte) 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long copied = pool.copy(new ByteArrayInputStream(bytes), Channels.newChannel(out));
+
+        assertEquals(100, copied);
+        assertArrayEquals(bytes, out.toByteArray());
+        assertEquals(1, pool.allocated());
+        assertEquals(0, pool.leased());
+    }
+
+    private static void leak(BufferPool pool) {
+        pool.acquire().buffer().put((byte) 1);
+    }
+}
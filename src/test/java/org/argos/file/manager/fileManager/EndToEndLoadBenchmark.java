@@ -0,0 +1,383 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.ArgosFileManagerApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * End-to-end load suite. The Spring application is booted on a random port with its S3 client
+ * replaced by an {@link S3StandIn}, and a mix of {@code /uploadZip}, {@code /files} and
+ * {@code /file} requests is sent over HTTP at a fixed arrival rate for each scenario.
+ * Latencies are measured from the scheduled send time, so a slow server is not hidden by the
+ * generator backing off. Heap and allocation figures cover the whole JVM, load generator
+ * included. Run with {@code ./gradlew benchmark --tests '*EndToEndLoadBenchmark'}.
+ */
+@Tag("benchmark")
+class EndToEndLoadBenchmark {
+
+    private static final long SEED = 7;
+    private static final int PROJECT_FILES = 200;
+    private static final int FILE_BYTES = 4096;
+    private static final int ZIP_FILES = 20;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final String BOUNDARY = "argos-load-boundary";
+
+    private static final List<Scenario> SCENARIOS =
+            List.of(
+                    new Scenario("baseline", Duration.ofMillis(20), 0, 0, 200, 20),
+                    new Scenario("slow-net", Duration.ofMillis(60), 4L << 20, 0, 200, 20),
+                    new Scenario("faults-1%", Duration.ofMillis(20), 0, 0.01, 200, 20),
+                    new Scenario("peak", Duration.ofMillis(20), 0, 0, 800, 20));
+
+    /** Relative weights of the endpoints in the traffic mix. */
+    private static final Map<Endpoint, Integer> MIX =
+            new EnumMap<>(Map.of(Endpoint.UPLOAD_ZIP, 5, Endpoint.LIST, 25, Endpoint.FILE, 70));
+
+    @Test
+    void runScenarios() throws Exception {
+        S3StandIn standIn = new S3StandIn(Duration.ZERO);
+        for (int i = 0; i < PROJECT_FILES; i++) {
+            standIn.putObject("projects/load/src/File" + i + ".java", content(i));
+        }
+        byte[] uploadBody = multipartBody(zip());
+
+        ConfigurableApplicationContext app = boot(standIn);
+        try (HttpClient http =
+                HttpClient.newBuilder()
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
+                        .build()) {
+            String baseUrl =
+                    "http://localhost:"
+                            + ((WebServerApplicationContext) app).getWebServer().getPort();
+            Load load = new Load(http, baseUrl, uploadBody);
+
+            Scenario warmup = SCENARIOS.get(0);
+            warmup.apply(standIn);
+            load.run(warmup, (int) (warmup.requestsPerSecond() * WARMUP.toSeconds()));
+
+            System.out.printf(
+                    "%-10s %-7s %8s %8s %8s %8s %7s %9s %9s %10s%n",
+                    "scenario",
+                    "route",
+                    "req/s",
+                    "p50 ms",
+                    "p99 ms",
+                    "p999 ms",
+                    "errors",
+                    "heap MB",
+                    "peak MB",
+                    "alloc MB/s");
+            for (Scenario scenario : SCENARIOS) {
+                scenario.apply(standIn);
+                Report report =
+                        load.run(
+                                scenario,
+                                scenario.requestsPerSecond() * scenario.durationSeconds());
+                report.print(scenario.name());
+                if (scenario.failureRate() == 0) {
+                    assertEquals(0, report.errors().get(), scenario.name() + " had errors");
+                }
+            }
+        } finally {
+            app.close();
+        }
+    }
+
+    /**
+     * Boots the application on a random port with the stand-in as its S3 client.
+     *
+     * @param standIn the S3 stand-in.
+     * @return the running application.
+     */
+    private static ConfigurableApplicationContext boot(S3StandIn standIn) {
+        return new SpringApplicationBuilder(ArgosFileManagerApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.main.allow-bean-definition-overriding=true",
+                        "logging.level.root=WARN")
+                .initializers(
+                        context -> {
+                            GenericApplicationContext registry =
+                                    (GenericApplicationContext) context;
+                            registry.registerBean("s3Client", S3Client.class, standIn::client);
+                            registry.registerBean(
+                                    "s3Presigner",
+                                    S3Presigner.class,
+                                    () ->
+                                            S3Presigner.builder()
+                                                    .region(Region.US_EAST_1)
+                                                    .credentialsProvider(
+                                                            StaticCredentialsProvider.create(
+                                                                    AwsBasicCredentials.create(
+                                                                            "load", "load")))
+                                                    .build());
+                        })
+                .run();
+    }
+
+    private static byte[] content(int index) {
+        StringBuilder text = new StringBuilder("class File" + index + " {\n");
+        while (text.length() < FILE_BYTES - 2) {
+            text.append("    // padding line\n");
+        }
+        return text.append("}\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] zip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < ZIP_FILES; i++) {
+                zos.putNextEntry(new ZipEntry("src/Upload" + i + ".java"));
+                zos.write(content(i));
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] multipartBody(byte[] zip) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(
+                ("--"
+                                + BOUNDARY
+                                + "\r\nContent-Disposition: form-data; name=\"file\";"
+                                + " filename=\"load.zip\"\r\nContent-Type: application/zip"
+                                + "\r\n\r\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(zip);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return body.toByteArray();
+    }
+
+    private enum Endpoint {
+        UPLOAD_ZIP("upload"),
+        LIST("files"),
+        FILE("file");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * One load scenario: the behaviour of the stand-in and the offered load.
+     */
+    private record Scenario(
+            String name,
+            Duration latency,
+            long bytesPerSecond,
+            double failureRate,
+            int requestsPerSecond,
+            int durationSeconds) {
+
+        void apply(S3StandIn standIn) {
+            standIn.latency(latency);
+            standIn.bandwidth(bytesPerSecond);
+            standIn.failRandomly(failureRate);
+        }
+    }
+
+    /**
+     * Open-model load generator: requests are sent on schedule whether or not earlier ones
+     * have completed.
+     */
+    private record Load(HttpClient http, String baseUrl, byte[] uploadBody) {
+
+        Report run(Scenario scenario, int requests) throws InterruptedException {
+            Random random = new Random(SEED);
+            Report report = new Report(requests);
+            long interval = 1_000_000_000L / scenario.requestsPerSecond();
+            long allocatedBefore = allocatedBytes();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                pool.resetPeakUsage();
+            }
+
+            long start = System.nanoTime();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < requests; i++) {
+                    long scheduled = start + i * interval;
+                    long wait = scheduled - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    Endpoint endpoint = pick(random);
+                    HttpRequest request = request(endpoint, random);
+                    clients.execute(() -> report.record(endpoint, send(request), scheduled));
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            report.finish(seconds, allocatedBytes() - allocatedBefore);
+            return report;
+        }
+
+        private Endpoint pick(Random random) {
+            int total = MIX.values().stream().mapToInt(Integer::intValue).sum();
+            int ticket = random.nextInt(total);
+            for (Map.Entry<Endpoint, Integer> weight : MIX.entrySet()) {
+                ticket -= weight.getValue();
+                if (ticket < 0) {
+                    return weight.getKey();
+                }
+            }
+            return Endpoint.FILE;
+        }
+
+        private HttpRequest request(Endpoint endpoint, Random random) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+            return switch (endpoint) {
+                case UPLOAD_ZIP ->
+                        builder.uri(URI.create(baseUrl + "/fileManager/uploadZip"))
+                                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(uploadBody))
+                                .build();
+                case LIST ->
+                        builder.uri(URI.create(baseUrl + "/fileManager/files?projectId=load"))
+                                .GET()
+                                .build();
+                case FILE ->
+                        builder.uri(
+                                        URI.create(
+                                                baseUrl
+                                                        + "/fileManager/file?projectId=load"
+                                                        + "&filePath=src/File"
+                                                        + random.nextInt(PROJECT_FILES)
+                                                        + ".java"))
+                                .GET()
+                                .build();
+            };
+        }
+
+        private boolean send(HttpRequest request) {
+            try {
+                HttpResponse<Void> response =
+                        http.send(request, HttpResponse.BodyHandlers.discarding());
+                return response.statusCode() < 400;
+            } catch (IOException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private static long allocatedBytes() {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                    .getTotalThreadAllocatedBytes();
+        }
+    }
+
+    /**
+     * Results of one scenario, overall and per endpoint.
+     */
+    private static final class Report {
+
+        private final LatencyRecorder all;
+        private final Map<Endpoint, LatencyRecorder> byEndpoint = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, AtomicInteger> errorsByEndpoint =
+                new EnumMap<>(Endpoint.class);
+        private final AtomicInteger errors = new AtomicInteger();
+        private double seconds;
+        private double allocatedMegabytes;
+        private double heapMegabytes;
+        private double peakHeapMegabytes;
+
+        Report(int requests) {
+            this.all = new LatencyRecorder(requests);
+            for (Endpoint endpoint : Endpoint.values()) {
+                byEndpoint.put(endpoint, new LatencyRecorder(requests));
+                errorsByEndpoint.put(endpoint, new AtomicInteger());
+            }
+        }
+
+        void record(Endpoint endpoint, boolean succeeded, long scheduled) {
+            long latency = System.nanoTime() - scheduled;
+            all.record(latency);
+            byEndpoint.get(endpoint).record(latency);
+            if (!succeeded) {
+                errors.incrementAndGet();
+                errorsByEndpoint.get(endpoint).incrementAndGet();
+            }
+        }
+
+        void finish(double seconds, long allocatedBytes) {
+            this.seconds = seconds;
+            this.allocatedMegabytes = allocatedBytes / 1_048_576.0;
+            this.heapMegabytes =
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed()
+                            / 1_048_576.0;
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            this.peakHeapMegabytes = peak / 1_048_576.0;
+        }
+
+        AtomicInteger errors() {
+            return errors;
+        }
+
+        void print(String scenario) {
+            print(scenario, "all", all, errors.get());
+            for (Endpoint endpoint : Endpoint.values()) {
+                print(
+                        "",
+                        endpoint.label,
+                        byEndpoint.get(endpoint),
+                        errorsByEndpoint.get(endpoint).get());
+            }
+        }
+
+        private void print(String scenario, String route, LatencyRecorder latencies, int failed) {
+            boolean total = !scenario.isEmpty();
+            System.out.printf(
+                    "%-10s %-7s %8.0f %8.1f %8.1f %8.1f %7d %9s %9s %10s%n",
+                    scenario,
+                    route,
+                    latencies.count() / seconds,
+                    latencies.percentileMillis(50),
+                    latencies.percentileMillis(99),
+                    latencies.percentileMillis(99.9),
+                    failed,
+                    total ? String.format("%.0f", heapMegabytes) : "",
+                    total ? String.format("%.0f", peakHeapMegabytes) : "",
+                    total ? String.format("%.1f", allocatedMegabytes / seconds) : "");
+        }
+    }
+}
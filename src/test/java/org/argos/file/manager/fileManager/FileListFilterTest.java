@@ -0,0 +1,137 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.utils.KeyGenerator;
+import org.argos.file.manager.utils.PathPattern;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Unit tests for listing the files of a project that match a glob or a regular expression.
+ */
+class FileListFilterTest {
+
+    /**
+     * The literal prefix of a pattern is the part every matching path starts with.
+     */
+    @Test
+    void testLiteralPrefix() {
+        assertEquals("src/", PathPattern.glob("src/**/*.java").literalPrefix());
+        assertTrue(PathPattern.glob("src/Main.java").isLiteral());
+        assertEquals("src/", PathPattern.regex("src/.*\\.java").literalPrefix());
+        assertEquals("src/Main.java", PathPattern.regex("^src/Main\\.java$").literalPrefix());
+        assertTrue(PathPattern.regex("^src/Main\\.java$").isLiteral());
+        assertEquals("src/", PathPattern.regex("src/a?b").literalPrefix());
+        assertEquals("src/", PathPattern.regex("src/(main|test)/.*").literalPrefix());
+        assertEquals("", PathPattern.regex("src/.*|lib/.*").literalPrefix());
+        assertEquals("src/", PathPattern.regex("src/[|].*").literalPrefix());
+        assertEquals("", PathPattern.regex("\\w+/.*").literalPrefix());
+    }
+
+    /**
+     * Malformed patterns and conflicting parameters are rejected.
+     */
+    @Test
+    void testFromParameters_Validation() {
+        assertNull(PathPattern.fromParameters(null, null));
+        assertThrows(BadRequestError.class, () -> PathPattern.fromParameters("*.java", ".*"));
+        BadRequestError error =
+                assertThrows(BadRequestError.class, () -> PathPattern.fromParameters(null, "("));
+        assertTrue(error.getMessage().startsWith("Invalid regex: "), error.getMessage());
+    }
+
+    /**
+     * The literal prefix narrows the listing request, and the rest of the pattern is matched
+     * against the listed paths.
+     */
+    @Test
+    void testListMatchingFiles_PushesPrefixDown() {
+        S3Client s3Client = mock(S3Client.class);
+        when(s3Client.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenReturn(
+                        ListObjectsV2Response.builder()
+                                .contents(
+                                        object("projects/p/src/Main.java"),
+                                        object("projects/p/src/a/b/Util.java"),
+                                        object("projects/p/src/notes.txt"))
+                                .isTruncated(false)
+                                .build());
+        List<String> matches = new ArrayList<>();
+
+        new S3Repository(s3Client)
+                .listMatchingFiles("p", PathPattern.glob("src/**/*.java"), matches::addAll);
+
+        ArgumentCaptor<ListObjectsV2Request> request =
+                ArgumentCaptor.forClass(ListObjectsV2Request.class);
+        verify(s3Client).listObjectsV2(request.capture());
+        assertEquals("projects/p/src/", request.getValue().prefix());
+        assertEquals(List.of("projects/p/src/Main.java", "projects/p/src/a/b/Util.java"), matches);
+    }
+
+    /**
+     * Matches are handed over page by page, and a project without matches yields none.
+     */
+    @Test
+    void testListMatchingFiles_StreamsPages() {
+        S3StandIn standIn = new S3StandIn(Duration.ZERO);
+        for (int i = 0; i < 1500; i++) {
+            String name = String.format("src/F%04d.%s", i, i % 2 == 0 ? "java" : "txt");
+            standIn.putObject("projects/paged/" + name, "x".getBytes(StandardCharsets.UTF_8));
+        }
+        standIn.putObject("projects/paged/README.java", "x".getBytes(StandardCharsets.UTF_8));
+        S3Repository repository = new S3Repository(standIn.client());
+        List<List<String>> batches = new ArrayList<>();
+
+        repository.listMatchingFiles("paged", PathPattern.regex("src/.*\\.java"), batches::add);
+
+        assertEquals(2, batches.size());
+        assertEquals(500, batches.get(0).size());
+        assertEquals(250, batches.get(1).size());
+        assertEquals("projects/paged/src/F0000.java", batches.get(0).get(0));
+        assertEquals(2, standIn.requestCount("listObjectsV2"));
+
+        repository.listMatchingFiles("paged", PathPattern.glob("lib/**"), batches::add);
+        assertEquals(2, batches.size());
+    }
+
+    /**
+     * Under the partitioned layout, paths are matched without their partition and only a
+     * single-file pattern narrows the listing.
+     */
+    @Test
+    void testListMatchingFiles_PartitionedLayout() {
+        S3StandIn standIn = new S3StandIn(Duration.ZERO);
+        for (String path : List.of("src/Main.java", "src/Util.java", "README.md")) {
+            standIn.putObject(
+                    KeyGenerator.objectKey("v2-filter", path),
+                    path.getBytes(StandardCharsets.UTF_8));
+        }
+        S3Repository repository = new S3Repository(standIn.client());
+        List<String> matches = new ArrayList<>();
+
+        repository.listMatchingFiles("v2-filter", PathPattern.glob("src/*.java"), matches::addAll);
+        assertEquals(
+                List.of("projects/v2-filter/src/Main.java", "projects/v2-filter/src/Util.java"),
+                matches.stream().sorted().toList());
+
+        matches.clear();
+        repository.listMatchingFiles("v2-filter", PathPattern.glob("README.md"), matches::addAll);
+        assertEquals(List.of("projects/v2-filter/README.md"), matches);
+    }
+
+    private static S3Object object(String key) {
+        return S3Object.builder().key(key).size(1L).build();
+    }
+}
@@ -4,10 +4,18 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import org.argos.file.manager.controller.FileManagerController;
+import org.argos.file.manager.model.DeliveryMode;
+import org.argos.file.manager.model.FileDelivery;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.UploadOptions;
 import org.argos.file.manager.service.S3FileService;
+import org.argos.file.manager.utils.PathPattern;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -45,6 +53,51 @@ class FileManagerControllerTest {
         verify(s3FileService, times(1)).listFiles(projectId);
     }
 
+    /**
+     * Tests that a filtered listing streams the matches of every batch as one JSON array.
+     */
+    @Test
+    void testListFiles_Glob() throws Exception {
+        doAnswer(
+                        invocation -> {
+                            Consumer<List<String>> matches = invocation.getArgument(2);
+                            matches.accept(List.of("projects/p/src/A.java"));
+                            matches.accept(List.of("projects/p/src/b/B.java"));
+                            return null;
+                        })
+                .when(s3FileService)
+                .listFiles(eq("p"), any(PathPattern.class), any());
+
+        mockMvc.perform(
+                        get("/fileManager/files")
+                                .param("projectId", "p")
+                                .param("glob", "src/**/*.java"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value("projects/p/src/A.java"))
+                .andExpect(jsonPath("$[1]").value("projects/p/src/b/B.java"));
+
+        verify(s3FileService, never()).listFiles("p");
+    }
+
+    /**
+     * Tests that a filtered listing without matches is an empty array, and that a glob and a
+     * regular expression cannot be combined.
+     */
+    @Test
+    void testListFiles_FilterEdgeCases() throws Exception {
+        mockMvc.perform(get("/fileManager/files").param("projectId", "p").param("regex", "x.*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(
+                        get("/fileManager/files")
+                                .param("projectId", "p")
+                                .param("glob", "*.java")
+                                .param("regex", ".*"))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests the endpoint for retrieving the content of a specific file for a specific project.
      */
@@ -76,7 +129,7 @@ class FileManagerControllerTest {
                         "projectFiles/subdirectory/subClass1.java", "Uploaded",
                         "projectFiles/sec/classDirSec.java", "Uploaded",
                         "projectFiles/directoryFirst/class1.java", "Uploaded");
-        when(s3FileService.uploadDirectory("test/"))
+        when(s3FileService.uploadDirectory("test/", UploadOptions.defaults()))
                 .thenReturn(
                         Map.of(
                                 "projectId", generatedProjectId,
@@ -95,7 +148,7 @@ class FileManagerControllerTest {
                         jsonPath("$.uploadResults['projectFiles/directoryFirst/class1.java']")
                                 .value("Uploaded"));
 
-        verify(s3FileService, times(1)).uploadDirectory("test/");
+        verify(s3FileService, times(1)).uploadDirectory("test/", UploadOptions.defaults());
     }
 
     /**
@@ -112,7 +165,7 @@ class FileManagerControllerTest {
                         "file1.txt", "Uploaded",
                         "file2.txt", "Uploaded");
 
-        when(s3FileService.uploadZipFile(mockFile))
+        when(s3FileService.uploadZipFile(mockFile, UploadOptions.defaults()))
                 .thenReturn(Map.of("projectId", generatedProjectId, "uploadResults", uploadResult));
 
         mockMvc.perform(multipart("/fileManager/uploadZip").file(mockFile))
@@ -121,6 +174,132 @@ class FileManagerControllerTest {
                 .andExpect(jsonPath("$.uploadResults['file1.txt']").value("Uploaded"))
                 .andExpect(jsonPath("$.uploadResults['file2.txt']").value("Uploaded"));
 
-        verify(s3FileService, times(1)).uploadZipFile(mockFile);
+        verify(s3FileService, times(1)).uploadZipFile(mockFile, UploadOptions.defaults());
+    }
+
+    /**
+     * Tests that the redirect delivery mode answers with a 302 to the presigned URL.
+     */
+    @Test
+    void testGetFile_RedirectDelivery() throws Exception {
+        String url = "https://bucket.s3.amazonaws.com/projects/p/big.bin?X-Amz-Signature=abc";
+        when(s3FileService.getFileDelivery("p", "big.bin", DeliveryMode.REDIRECT))
+                .thenReturn(FileDelivery.ofPresigned(presigned("big.bin", url)));
+
+        mockMvc.perform(
+                        get("/fileManager/file")
+                                .param("projectId", "p")
+                                .param("filePath", "big.bin")
+                                .param("delivery", "redirect"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", url));
+
+        verify(s3FileService, never()).getFileContent(anyString(), anyString());
+    }
+
+    /**
+     * Tests that the url delivery mode returns the presigned URL as JSON.
+     */
+    @Test
+    void testGetFile_UrlDelivery() throws Exception {
+        String url = "https://bucket.s3.amazonaws.com/projects/p/big.bin?X-Amz-Signature=abc";
+        when(s3FileService.getFileDelivery("p", "big.bin", DeliveryMode.URL))
+                .thenReturn(FileDelivery.ofPresigned(presigned("big.bin", url)));
+
+        mockMvc.perform(
+                        get("/fileManager/file")
+                                .param("projectId", "p")
+                                .param("filePath", "big.bin")
+                                .param("delivery", "url"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.url").value(url))
+                .andExpect(jsonPath("$.size").value(2048));
+    }
+
+    /**
+     * Tests that an unknown delivery mode is rejected.
+     */
+    @Test
+    void testGetFile_InvalidDelivery() throws Exception {
+        mockMvc.perform(
+                        get("/fileManager/file")
+                                .param("projectId", "p")
+                                .param("filePath", "a.txt")
+                                .param("delivery", "carrier-pigeon"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests the batch endpoint returning presigned URLs for several files.
+     */
+    @Test
+    void testPresignFiles() throws Exception {
+        when(s3FileService.presignFiles("p", List.of("a.txt", "b.txt")))
+                .thenReturn(
+                        List.of(presigned("a.txt", "https://a"), presigned("b.txt", "https://b")));
+
+        mockMvc.perform(
+                        get("/fileManager/files/urls")
+                                .param("projectId", "p")
+                                .param("filePath", "a.txt", "b.txt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].filePath").value("b.txt"))
+                .andExpect(jsonPath("$[1].url").value("https://b"));
+    }
+
+    /**
+     * Tests that a HEAD request for a file answers its metadata as headers without reading
+     * its content.
+     */
+    @Test
+    void testHeadFile() throws Exception {
+        when(s3FileService.statFile("p", "a.txt"))
+                .thenReturn(
+                        new FileStat(
+                                "a.txt",
+                                true,
+                                2048,
+                                "\"abc\"",
+                                "text/plain",
+                                Instant.parse("2030-01-01T00:00:00Z")));
+
+        mockMvc.perform(
+                        head("/fileManager/file")
+                                .param("projectId", "p")
+                                .param("filePath", "a.txt"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue("Content-Length", 2048))
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(header().string("Content-Type", "text/plain"))
+                .andExpect(header().string("Last-Modified", "Tue, 01 Jan 2030 00:00:00 GMT"))
+                .andExpect(content().string(""));
+
+        verify(s3FileService, never()).getFileContent(anyString(), anyString());
+    }
+
+    /**
+     * Tests the batch endpoint returning the metadata of several files.
+     */
+    @Test
+    void testStatFiles() throws Exception {
+        when(s3FileService.statFiles("p", List.of("a.txt", "b.txt")))
+                .thenReturn(
+                        List.of(
+                                new FileStat("a.txt", true, 3, "\"a\"", "text/plain", null),
+                                FileStat.missing("b.txt")));
+
+        mockMvc.perform(
+                        get("/fileManager/files/stat")
+                                .param("projectId", "p")
+                                .param("filePath", "a.txt", "b.txt"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].size").value(3))
+                .andExpect(jsonPath("$[1].filePath").value("b.txt"))
+                .andExpect(jsonPath("$[1].exists").value(false));
+    }
+
+    private PresignedFile presigned(String filePath, String url) {
+        return new PresignedFile(filePath, url, 2048, Instant.parse("2030-01-01T00:00:00Z"));
     }
 }
@@ -1,11 +1,21 @@
 package org.argos.file.manager.fileManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.DeliveryMode;
+import org.argos.file.manager.model.FileDelivery;
+import org.argos.file.manager.model.PresignedFile;
+import org.argos.file.manager.model.UploadOptions;
 import org.argos.file.manager.repository.IStorageRepository;
 import org.argos.file.manager.service.S3FileService;
 import org.junit.jupiter.api.BeforeEach;
@@ -91,4 +101,71 @@ class FileManagerServiceTest {
         assertEquals(fileContent, result);
         Mockito.verify(storageRepository).getFileContent(projectId, filePath);
     }
+
+    /**
+     * Tests that the auto delivery mode returns small files inline and presigns large ones.
+     */
+    @Test
+    void testGetFileDelivery_AutoUsesSizeThreshold() {
+        String projectId = "1234-5678-91011";
+        Mockito.when(storageRepository.presignFile(projectId, "small.txt"))
+                .thenReturn(presigned("small.txt", 100));
+        Mockito.when(storageRepository.presignFile(projectId, "large.bin"))
+                .thenReturn(presigned("large.bin", 8L << 20));
+        Mockito.when(storageRepository.getFileContent(projectId, "small.txt")).thenReturn("small");
+
+        FileDelivery small =
+                s3FileService.getFileDelivery(projectId, "small.txt", DeliveryMode.AUTO);
+        FileDelivery large =
+                s3FileService.getFileDelivery(projectId, "large.bin", DeliveryMode.AUTO);
+
+        assertFalse(small.isPresigned());
+        assertEquals("small", small.content());
+        assertTrue(large.isPresigned());
+        Mockito.verify(storageRepository, Mockito.never()).getFileContent(projectId, "large.bin");
+    }
+
+    /**
+     * Tests that the auto delivery mode serves a small cached file without presigning it.
+     */
+    @Test
+    void testGetFileDelivery_AutoServesCachedFileWithoutHead() {
+        String projectId = "1234-5678-91011";
+        Mockito.when(storageRepository.getCachedFileContent(projectId, "small.txt"))
+                .thenReturn("small");
+
+        FileDelivery small =
+                s3FileService.getFileDelivery(projectId, "small.txt", DeliveryMode.AUTO);
+
+        assertEquals("small", small.content());
+        Mockito.verify(storageRepository, Mockito.never()).presignFile(projectId, "small.txt");
+        Mockito.verify(storageRepository, Mockito.never()).getFileContent(projectId, "small.txt");
+    }
+
+    /**
+     * Tests that a staged upload records the project's expiry only once it has been accepted.
+     */
+    @Test
+    void testProcessStagedUpload_SchedulesExpiryOnlyOnceAccepted() {
+        UploadOptions options = new UploadOptions(Duration.ofHours(1));
+        Mockito.when(storageRepository.processStagedUpload("missing", null, List.of()))
+                .thenThrow(new NotFoundError("No staged upload found for project ID: missing"));
+        Mockito.when(storageRepository.processStagedUpload("staged", null, List.of()))
+                .thenReturn(Map.of("file1.txt", "Uploaded"));
+
+        assertThrows(
+                NotFoundError.class,
+                () -> s3FileService.processStagedUpload("missing", null, List.of(), options));
+        Map<String, Object> response =
+                s3FileService.processStagedUpload("staged", null, List.of(), options);
+
+        Mockito.verify(storageRepository, Mockito.never())
+                .scheduleExpiry(eq("missing"), any(Instant.class));
+        Mockito.verify(storageRepository).scheduleExpiry(eq("staged"), any(Instant.class));
+        assertTrue(response.containsKey("expiresAt"));
+    }
+
+    private PresignedFile presigned(String filePath, long size) {
+        return new PresignedFile(filePath, "https://example/" + filePath, size, Instant.now());
+    }
 }
@@ -0,0 +1,79 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.FileStat;
+import org.argos.file.manager.repository.S3Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for reading file metadata without transferring file content.
+ */
+class FileStatTest {
+
+    private final S3StandIn standIn = new S3StandIn(Duration.ZERO);
+    private final S3Repository repository = new S3Repository(standIn.client());
+
+    @TempDir Path directory;
+
+    /**
+     * The metadata of a stored file is read with a single HEAD request.
+     */
+    @Test
+    void testStatFile_ReadsMetadataWithoutContent() throws IOException {
+        Files.writeString(directory.resolve("Main.java"), "class Main {}");
+        repository.uploadDirectory("stat", directory.toString());
+        long gets = standIn.requestCount("getObjectAsBytes") + standIn.requestCount("getObject");
+
+        FileStat stat = repository.statFile("stat", "Main.java");
+
+        assertTrue(stat.exists());
+        assertEquals(13, stat.size());
+        assertTrue(stat.eTag().startsWith("\""));
+        assertNotNull(stat.contentType());
+        assertNotNull(stat.lastModified());
+        assertEquals(1, standIn.requestCount("headObject"));
+        assertEquals(
+                gets, standIn.requestCount("getObjectAsBytes") + standIn.requestCount("getObject"));
+    }
+
+    /**
+     * A bulk request answers every file in request order and reports missing files instead
+     * of failing.
+     */
+    @Test
+    void testStatFiles_ReportsMissingFiles() {
+        standIn.putObject("projects/bulk/a.txt", "alpha".getBytes(StandardCharsets.UTF_8));
+        standIn.putObject("projects/bulk/b/c.txt", "c".getBytes(StandardCharsets.UTF_8));
+
+        List<FileStat> stats =
+                repository.statFiles("bulk", List.of("b/c.txt", "missing.txt", "a.txt"));
+
+        assertEquals(
+                List.of("b/c.txt", "missing.txt", "a.txt"),
+                stats.stream().map(FileStat::filePath).toList());
+        assertEquals(1, stats.get(0).size());
+        assertEquals(FileStat.missing("missing.txt"), stats.get(1));
+        assertEquals(5, stats.get(2).size());
+        assertEquals(3, standIn.requestCount("headObject"));
+        assertEquals(0, standIn.requestCount("getObjectAsBytes"));
+    }
+
+    /**
+     * A single missing file is not found.
+     */
+    @Test
+    void testStatFile_MissingFile() {
+        NotFoundError error =
+                assertThrows(NotFoundError.class, () -> repository.statFile("p", "none.txt"));
+        assertEquals("File not found: none.txt", error.getMessage());
+    }
+}
@@ -0,0 +1,173 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.argos.file.manager.resilience.HedgedReader;
+import org.argos.file.manager.resilience.LatencyTracker;
+import org.argos.file.manager.resilience.RetryBudget;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Unit tests for the {@link HedgedReader}.
+ */
+class HedgedReaderTest {
+
+    private ExecutorService executor;
+    private LatencyTracker latencyTracker;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        latencyTracker = new LatencyTracker(16, 50, 1);
+        latencyTracker.record(Duration.ofMillis(5).toNanos());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A slow first request is hedged and the faster duplicate wins.
+     */
+    @Test
+    void testRead_SlowRequestIsHedged() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgedReader reader = newReader(new RetryBudget(1.0, 10), 1);
+
+        String result =
+                reader.read(
+                        () -> {
+                            if (calls.incrementAndGet() == 1) {
+                                sleep(Duration.ofSeconds(2));
+                                return "slow";
+                            }
+                            return "hedged";
+                        });
+
+        assertEquals("hedged", result);
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * The request losing to its hedge is cancelled instead of reading on.
+     */
+    @Test
+    void testRead_CancelsLosingRequest() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        HedgedReader reader = newReader(new RetryBudget(1.0, 10), 1);
+
+        reader.read(
+                () -> {
+                    if (calls.incrementAndGet() == 1) {
+                        try {
+                            Thread.sleep(Duration.ofSeconds(10).toMillis());
+                        } catch (InterruptedException e) {
+                            cancelled.countDown();
+                        }
+                        return "slow";
+                    }
+                    return "hedged";
+                });
+
+        assertTrue(cancelled.await(2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * SlowDown responses are retried until a request succeeds.
+     */
+    @Test
+    void testRead_RetriesSlowDown() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgedReader reader = newReader(new RetryBudget(1.0, 10), 3);
+
+        String result =
+                reader.read(
+                        () -> {
+                            if (calls.incrementAndGet() < 3) {
+                                throw slowDown();
+                            }
+                            return "content";
+                        });
+
+        assertEquals("content", result);
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * Failures that are not transient are rethrown without retrying.
+     */
+    @Test
+    void testRead_DoesNotRetryMissingKey() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgedReader reader = newReader(new RetryBudget(1.0, 10), 3);
+
+        assertThrows(
+                NoSuchKeyException.class,
+                () ->
+                        reader.read(
+                                () -> {
+                                    calls.incrementAndGet();
+                                    throw NoSuchKeyException.builder().message("missing").build();
+                                }));
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * An exhausted budget stops retries, so an outage does not multiply the load.
+     */
+    @Test
+    void testRead_ExhaustedBudgetStopsRetries() {
+        AtomicInteger calls = new AtomicInteger();
+        HedgedReader reader = newReader(new RetryBudget(0, 0), 3);
+
+        assertThrows(
+                S3Exception.class,
+                () ->
+                        reader.read(
+                                () -> {
+                                    calls.incrementAndGet();
+                                    throw slowDown();
+                                }));
+        assertEquals(1, calls.get());
+    }
+
+    private HedgedReader newReader(RetryBudget budget, int maxAttempts) {
+        return new HedgedReader(
+                executor,
+                latencyTracker,
+                budget,
+                new RetryPolicy(maxAttempts, 1, 5),
+                Duration.ofSeconds(5),
+                Duration.ofMillis(20));
+    }
+
+    private static S3Exception slowDown() {
+        return (S3Exception)
+                S3Exception.builder()
+                        .statusCode(503)
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("SlowDown").build())
+                        .build();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
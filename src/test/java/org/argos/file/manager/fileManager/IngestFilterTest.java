@@ -0,0 +1,213 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.controller.FileManagerController;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.GlobalExceptionHandler;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.repository.ArchiveIngestor;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.service.S3FileService;
+import org.argos.file.manager.utils.GlobPattern;
+import org.argos.file.manager.utils.IgnoreRules;
+import org.argos.file.manager.utils.IngestFilter;
+import org.argos.file.manager.utils.ZipBudget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Unit tests for ingest-time filtering of uploads.
+ */
+class IngestFilterTest {
+
+    private static final ZipBudget BUDGET = new ZipBudget(1L << 20, 100, 100, 1L << 20);
+
+    private final S3StandIn standIn = new S3StandIn(Duration.ZERO);
+
+    @TempDir Path directory;
+
+    /**
+     * Globs match within a segment, across segments and against character classes.
+     */
+    @Test
+    void testGlobPattern_Matches() {
+        GlobPattern glob = GlobPattern.compile("src/**/[!T]*.java");
+
+        assertTrue(glob.matches("src/Main.java"));
+        assertTrue(glob.matches("src/org/argos/Main.java"));
+        assertFalse(glob.matches("src/org/Test.java"));
+        assertFalse(glob.matches("lib/Main.java"));
+        assertEquals("src/", glob.literalPrefix());
+        assertFalse(GlobPattern.compile("*.txt").matches("docs/readme.txt"));
+        assertThrows(BadRequestError.class, () -> GlobPattern.compile(""));
+    }
+
+    /**
+     * Patterns follow .gitignore semantics: unanchored names match at any depth, anchored
+     * patterns only below their directory, and the last matching pattern wins.
+     */
+    @Test
+    void testIgnoreRules_GitignoreSemantics() {
+        IgnoreRules rules = new IgnoreRules();
+        rules.add("node_modules/");
+        rules.add("/build");
+        rules.add("*.log");
+        rules.add("!keep.log");
+        rules.addGitignore("docs/", "# generated\n*.html\n/draft\n");
+
+        assertEquals("web/node_modules", rules.ignoredAncestor("web/node_modules/a/index.js"));
+        assertTrue(rules.isIgnored("build/Main.class"));
+        assertFalse(rules.isIgnored("src/build/Main.java"));
+        assertTrue(rules.isIgnored("logs/app.log"));
+        assertFalse(rules.isIgnored("logs/keep.log"));
+        assertTrue(rules.isIgnored("docs/api/index.html"));
+        assertFalse(rules.isIgnored("index.html"));
+        assertTrue(rules.isIgnored("docs/draft"));
+        assertFalse(rules.isIgnored("docs/api/draft"));
+        assertFalse(rules.isIgnored("node_modules.txt"));
+    }
+
+    /**
+     * Excluded, oversized and binary ZIP entries are neither extracted nor uploaded, the
+     * archive's .gitignore applies to every entry, and ignored directories are reported once.
+     */
+    @Test
+    void testUploadZip_SkipsFilteredEntries() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("src/Main.java", text("class Main {}"));
+        entries.put("src/app.log", text("started"));
+        entries.put("node_modules/a/index.js", text("module.exports = 1;"));
+        entries.put("node_modules/b/index.js", text("module.exports = 2;"));
+        entries.put("assets/logo.png", new byte[] {(byte) 0x89, 'P', 'N', 'G', 0, 0, 0, 13});
+        entries.put("data/large.csv", text("x".repeat(200)));
+        entries.put(".gitignore", text("*.log\n"));
+        MockMultipartFile zipFile =
+                new MockMultipartFile("file", "project.zip", "application/zip", zip(entries));
+        Map<String, String> result = new ConcurrentHashMap<>();
+
+        new S3Repository(standIn.client())
+                .uploadMultiPartDirectory(
+                        "filtered",
+                        zipFile,
+                        IngestFilter.none().with(List.of("node_modules/"), true, 100L, true),
+                        UploadListener.collectingInto(result));
+
+        String prefix = "projects/filtered/";
+        assertEquals("Uploaded", result.get(prefix + "src/Main.java"));
+        assertEquals("Uploaded", result.get(prefix + ".gitignore"));
+        assertEquals("Ignored", result.get(prefix + "src/app.log"));
+        assertEquals("Ignored", result.get(prefix + "node_modules/"));
+        assertEquals("Binary", result.get(prefix + "assets/logo.png"));
+        assertEquals("TooLarge", result.get(prefix + "data/large.csv"));
+        assertFalse(result.containsKey(prefix + "node_modules/a/index.js"));
+        assertNull(standIn.getObject(prefix + "node_modules/a/index.js"));
+        assertNull(standIn.getObject(prefix + "assets/logo.png"));
+    }
+
+    /**
+     * A streamed archive skips excluded entries, and its .gitignore applies to the entries
+     * that follow it.
+     */
+    @Test
+    void testIngestZip_SkipsFilteredEntries() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ArchiveIngestor ingestor =
+                    new ArchiveIngestor(
+                            standIn.client(),
+                            "bucket",
+                            executor,
+                            2,
+                            1024,
+                            new RetryPolicy(1, 0, 0));
+            Map<String, byte[]> entries = new LinkedHashMap<>();
+            entries.put(".gitignore", text("target/\n"));
+            entries.put("target/app.jar", text("jar"));
+            entries.put("dist/bundle.js", text("bundle"));
+            entries.put("src/App.java", text("class App {}"));
+            Map<String, String> result = new ConcurrentHashMap<>();
+
+            int uploaded =
+                    ingestor.ingest(
+                            "streamed",
+                            new ByteArrayInputStream(zip(entries)),
+                            BUDGET,
+                            IngestFilter.none().with(List.of("dist/"), true, null, null),
+                            UploadListener.collectingInto(result));
+
+            assertEquals(2, uploaded);
+            assertEquals("Ignored", result.get("projects/streamed/target/"));
+            assertEquals("Ignored", result.get("projects/streamed/dist/"));
+            assertEquals("Uploaded", result.get("projects/streamed/src/App.java"));
+            assertEquals(2, standIn.objectCount("projects/streamed/"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Filter parameters of a directory upload prune excluded directories and the summary
+     * counts what was left out.
+     */
+    @Test
+    void testUpload_ReportsFilteredCounts() throws Exception {
+        Files.createDirectories(directory.resolve("build/classes"));
+        Files.writeString(directory.resolve("build/classes/Main.class"), "compiled");
+        Files.writeString(directory.resolve("Main.java"), "class Main {}");
+        Files.writeString(directory.resolve("notes.tmp"), "scratch");
+
+        MockMvcBuilders.standaloneSetup(
+                        new FileManagerController(
+                                new S3FileService(new S3Repository(standIn.client()))))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build()
+                .perform(
+                        post("/fileManager/upload")
+                                .param("localDir", directory.toString())
+                                .param("exclude", "build/", "*.tmp")
+                                .param("results", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uploadedFiles").value(1))
+                .andExpect(jsonPath("$.filtered.Ignored").value(2));
+        // The kept file, then the project's stats index.
+        assertEquals(2, standIn.requestCount("putObject"));
+        assertEquals(1, standIn.objectCount("projects/"));
+    }
+
+    private static byte[] text(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                zos.write(entry.getValue());
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
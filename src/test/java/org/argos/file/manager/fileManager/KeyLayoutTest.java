@@ -0,0 +1,98 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.argos.file.manager.model.KeyLayout;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.utils.KeyGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the v1 and v2 object key layouts.
+ */
+class KeyLayoutTest {
+
+    private S3StandIn standIn;
+    private S3Repository repository;
+
+    @BeforeEach
+    void setUp() {
+        standIn = new S3StandIn(Duration.ZERO);
+        repository = new S3Repository(standIn.client());
+    }
+
+    /**
+     * The layout of a project is resolved from its ID; IDs without a layout tag are v1.
+     */
+    @Test
+    void testResolve_FromProjectId() {
+        assertEquals(KeyLayout.V1, KeyLayout.resolve(KeyLayout.V1.newProjectId()));
+        assertEquals(KeyLayout.V2, KeyLayout.resolve(KeyLayout.V2.newProjectId()));
+        assertEquals(KeyLayout.V1, KeyLayout.resolve("e011bad2-0b57-4ed3-a278-29b255d25621"));
+    }
+
+    /**
+     * v1 object keys are the client keys; v2 keys insert a stable two-digit hash partition
+     * that is stripped again when the key is reported to clients.
+     */
+    @Test
+    void testObjectKey_PartitionsOnlyV2() {
+        assertEquals("projects/p1/src/Main.java", KeyGenerator.objectKey("p1", "src/Main.java"));
+
+        String key = KeyGenerator.objectKey("v2-p2", "src/Main.java");
+
+        assertTrue(key.matches("projects/v2-p2/[0-9a-f]{2}/src/Main\\.java"), key);
+        assertEquals(key, KeyGenerator.objectKey("v2-p2", "src/Main.java"));
+        assertEquals("src/Main.java", KeyGenerator.filePath("v2-p2", key));
+        assertEquals("projects/v2-p2/src/Main.java", KeyGenerator.clientKey("v2-p2", key));
+    }
+
+    /**
+     * Files of a v2 project spread over many partitions and are listed and read by their
+     * client keys.
+     */
+    @Test
+    void testRepository_ReadsV2Project() {
+        for (int i = 0; i < 64; i++) {
+            store("v2-spread", "src/File" + i + ".java", "class File" + i + " {}");
+        }
+
+        List<String> files = repository.listFiles("v2-spread");
+
+        assertEquals(64, files.size());
+        assertTrue(files.contains("projects/v2-spread/src/File7.java"));
+        assertEquals("class File7 {}", repository.getFileContent("v2-spread", "src/File7.java"));
+        long partitions =
+                files.stream()
+                        .map(file -> file.substring("projects/v2-spread/".length()))
+                        .map(path -> KeyGenerator.objectKey("v2-spread", path).split("/")[2])
+                        .distinct()
+                        .count();
+        assertTrue(partitions > 16, "partitions: " + partitions);
+    }
+
+    /**
+     * Forking a v1 project into a v2 project rewrites the keys into the target layout.
+     */
+    @Test
+    void testForkProject_MigratesLayout() {
+        store("legacy", "src/Main.java", "class Main {}");
+
+        Map<String, String> result = repository.forkProject("legacy", "v2-fork", null);
+
+        assertEquals(Map.of("projects/v2-fork/src/Main.java", "Copied"), result);
+        assertEquals("class Main {}", repository.getFileContent("v2-fork", "src/Main.java"));
+        assertNull(standIn.getObject("projects/v2-fork/src/Main.java"));
+    }
+
+    private void store(String projectId, String filePath, String content) {
+        standIn.putObject(
+                KeyGenerator.objectKey(projectId, filePath),
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,106 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.argos.file.manager.model.KeyLayout;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.utils.KeyGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Load benchmark comparing the sustained read rate of one project stored with the v1 and
+ * v2 key layouts against an S3 stand-in that throttles each key prefix. The stand-in groups
+ * keys by a fixed number of leading characters for both layouts, long enough to cover
+ * {@code projects/{id}/} and the first characters after it. All files live in one source
+ * directory, so under v1 those characters are the same for every file, while under v2 they
+ * include the hash partition. Partitions are never split, as S3 eventually does for a hot
+ * prefix, so the result is the gap on a bucket that has not adapted to the load yet, not
+ * the steady state.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class KeyLayoutThrottlingBenchmark {
+
+    private static final int FILES = 2000;
+    private static final int REQUESTS = 8000;
+    private static final int CLIENTS = 200;
+    private static final int PARTITION_PREFIX_LENGTH = 50;
+    private static final int PARTITION_REQUESTS_PER_SECOND = 500;
+    private static final Duration S3_LATENCY = Duration.ofMillis(5);
+
+    @Test
+    void compareKeyLayoutsUnderThrottling() throws Exception {
+        Result v1 = run(KeyLayout.V1);
+        Result v2 = run(KeyLayout.V2);
+
+        System.out.printf(
+                "%-8s %12s %10s %10s %10s%n", "layout", "ok/s", "throttled", "failed", "p99 ms");
+        v1.print("v1");
+        v2.print("v2");
+
+        assertTrue(v2.throughput() > v1.throughput());
+        assertTrue(v2.throttled() < v1.throttled());
+    }
+
+    private Result run(KeyLayout layout) throws Exception {
+        S3StandIn standIn = new S3StandIn(S3_LATENCY);
+        String projectId = layout.newProjectId();
+        for (int i = 0; i < FILES; i++) {
+            standIn.putObject(KeyGenerator.objectKey(projectId, filePath(i)), new byte[64]);
+        }
+        standIn.throttle(PARTITION_PREFIX_LENGTH, PARTITION_REQUESTS_PER_SECOND);
+        S3Repository repository = new S3Repository(standIn.client());
+
+        LatencyRecorder latencies = new LatencyRecorder(REQUESTS);
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(REQUESTS);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CLIENTS)) {
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    long started = System.nanoTime();
+                                    int file = ThreadLocalRandom.current().nextInt(FILES);
+                                    try {
+                                        repository.getFileContent(projectId, filePath(file));
+                                        latencies.record(System.nanoTime() - started);
+                                    } catch (RuntimeException e) {
+                                        failed.incrementAndGet();
+                                    }
+                                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(
+                latencies.count() / seconds,
+                standIn.requestCount("throttled"),
+                failed.get(),
+                latencies);
+    }
+
+    private static String filePath(int index) {
+        return String.format("src/main/java/File%05d.java", index);
+    }
+
+    private record Result(
+            double throughput, long throttled, int failed, LatencyRecorder latencies) {
+        void print(String layout) {
+            System.out.printf(
+                    "%-8s %12.0f %10d %10d %10.1f%n",
+                    layout, throughput, throttled, failed, latencies.percentileMillis(99));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.argos.file.manager.fileManager;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects request latencies for the benchmarks and reports percentiles.
+ */
+class LatencyRecorder {
+
+    private final long[] latenciesNanos;
+    private final AtomicInteger count = new AtomicInteger();
+
+    LatencyRecorder(int capacity) {
+        this.latenciesNanos = new long[capacity];
+    }
+
+    /**
+     * Records a single latency sample; samples beyond the capacity are dropped.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    void record(long nanos) {
+        int index = count.getAndIncrement();
+        if (index < latenciesNanos.length) {
+            latenciesNanos[index] = nanos;
+        }
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return the sample count.
+     */
+    int count() {
+        return Math.min(count.get(), latenciesNanos.length);
+    }
+
+    /**
+     * Returns a latency percentile in milliseconds.
+     *
+     * @param percentile the percentile between 0 and 100.
+     * @return the latency at that percentile.
+     */
+    double percentileMillis(double percentile) {
+        int samples = count();
+        if (samples == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latenciesNanos, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * samples) - 1;
+        return sorted[Math.max(0, Math.min(index, samples - 1))] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,149 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.LineIndex;
+import org.argos.file.manager.model.LineRange;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.service.S3FileService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for line-range reads served by the line-offset index.
+ */
+class LineRangeTest {
+
+    private static final String KEY = "projects/lines/src/Big.java";
+    private static final String INDEX_KEY = "meta/lines/lines/src/Big.java";
+
+    private S3StandIn standIn;
+    private S3Repository repository;
+
+    @BeforeEach
+    void setUp() {
+        standIn = new S3StandIn(Duration.ZERO);
+        repository = new S3Repository(standIn.client());
+        standIn.putObject(KEY, numberedLines("line", 1000));
+    }
+
+    /**
+     * The first read builds and stores the index; later reads only issue ranged GETs.
+     */
+    @Test
+    void testReadLines_UsesIndexAfterFirstRead() {
+        LineRange first = repository.readLines("lines", "src/Big.java", 500, 502);
+        LineRange second = repository.readLines("lines", "src/Big.java", 10, 10);
+
+        assertEquals(List.of("line 500", "line 501", "line 502"), first.lines());
+        assertEquals(502, first.toLine());
+        assertEquals(1000, first.totalLines());
+        assertEquals(List.of("line 10"), second.lines());
+        assertEquals(1, standIn.requestCount("getObject"));
+        assertNotNull(standIn.getObject(INDEX_KEY));
+    }
+
+    /**
+     * A replica without the index in memory reuses the stored index instead of rescanning.
+     */
+    @Test
+    void testReadLines_ReusesStoredIndex() {
+        repository.readLines("lines", "src/Big.java", 1, 1);
+
+        LineRange range =
+                new S3Repository(standIn.client()).readLines("lines", "src/Big.java", 64, 65);
+
+        assertEquals(List.of("line 64", "line 65"), range.lines());
+        assertEquals(1, standIn.requestCount("getObject"));
+    }
+
+    /**
+     * Ranges reaching past the end of the file return the lines that exist.
+     */
+    @Test
+    void testReadLines_ClampsToEndOfFile() {
+        LineRange tail = repository.readLines("lines", "src/Big.java", 999, 1200);
+        LineRange beyond = repository.readLines("lines", "src/Big.java", 1001, 1010);
+
+        assertEquals(List.of("line 999", "line 1000"), tail.lines());
+        assertEquals(1000, tail.toLine());
+        assertTrue(beyond.lines().isEmpty());
+    }
+
+    /**
+     * A stored index whose object has been replaced fails the conditional GET and is rebuilt.
+     */
+    @Test
+    void testReadLines_RebuildsStaleIndex() {
+        repository.readLines("lines", "src/Big.java", 1, 1);
+        standIn.putObject(KEY, numberedLines("changed", 10));
+
+        LineRange range =
+                new S3Repository(standIn.client()).readLines("lines", "src/Big.java", 5, 6);
+
+        assertEquals(List.of("changed 5", "changed 6"), range.lines());
+        assertEquals(10, range.totalLines());
+    }
+
+    /**
+     * Deleting a project also deletes the indexes of its files.
+     */
+    @Test
+    void testDeleteProject_DeletesIndexes() {
+        repository.readLines("lines", "src/Big.java", 1, 1);
+
+        repository.deleteProject("lines", new DeletionProgress("lines"));
+
+        assertEquals(0, standIn.objectCount("meta/lines/"));
+    }
+
+    /**
+     * The index handles CRLF line endings, a missing final newline and serialization.
+     */
+    @Test
+    void testLineIndex_BuildAndSerialize() throws IOException {
+        byte[] content = "a\r\nbb\r\n\r\nccc".getBytes(StandardCharsets.UTF_8);
+
+        LineIndex index =
+                LineIndex.fromBytes(
+                        LineIndex.build(new ByteArrayInputStream(content), "\"e\"", 2).toBytes());
+
+        assertEquals(4, index.lineCount());
+        assertEquals(content.length, index.size());
+        assertEquals(7, index.blockStart(3));
+        assertEquals(content.length - 1, index.blockEnd(4));
+        assertEquals(
+                List.of("bb", ""),
+                LineRange.slice("f", new String(content, StandardCharsets.UTF_8), 1, 2, 3, 4)
+                        .lines());
+    }
+
+    /**
+     * Empty, inverted and oversized ranges are rejected before any storage request.
+     */
+    @Test
+    void testReadLines_RejectsInvalidRanges() {
+        S3FileService service = new S3FileService(repository);
+
+        assertThrows(BadRequestError.class, () -> service.readLines("lines", "src/Big.java", 0, 5));
+        assertThrows(BadRequestError.class, () -> service.readLines("lines", "src/Big.java", 9, 5));
+        assertThrows(
+                BadRequestError.class, () -> service.readLines("lines", "src/Big.java", 1, 6000));
+        assertEquals(0, standIn.requestCount("getObject"));
+    }
+
+    private static byte[] numberedLines(String prefix, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            text.append(prefix).append(' ').append(i).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,254 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.argos.file.manager.cache.FileContentCache;
+import org.argos.file.manager.cache.PeerCache;
+import org.argos.file.manager.cache.PeerRing;
+import org.argos.file.manager.exceptions.ApiException;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.repository.CachingStorageRepository;
+import org.argos.file.manager.repository.S3Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the peer-to-peer cache, with two replicas serving the peer endpoints on
+ * localhost.
+ */
+class PeerCacheTest {
+
+    private static final int FILES = 40;
+    private static final String SECRET = "peer-secret";
+
+    private S3StandIn standIn;
+    private Replica first;
+    private Replica second;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        standIn = new S3StandIn(Duration.ZERO);
+        for (int i = 0; i < FILES; i++) {
+            standIn.putObject(
+                    "projects/shared/src/File" + i + ".java",
+                    ("class File" + i + " {}").getBytes(StandardCharsets.UTF_8));
+        }
+        S3Repository s3Repository = new S3Repository(standIn.client());
+        HttpServer firstServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        HttpServer secondServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        List<String> peers = List.of(url(firstServer), url(secondServer));
+        first = new Replica(firstServer, s3Repository, peers, SECRET);
+        second = new Replica(secondServer, s3Repository, peers, SECRET);
+    }
+
+    @AfterEach
+    void tearDown() {
+        first.server.stop(0);
+        second.server.stop(0);
+    }
+
+    /**
+     * Every file is read from S3 once for the whole cluster: the owner caches it and the
+     * other replica fetches it from the owner.
+     */
+    @Test
+    void testGetFileContent_ReadsEachFileFromS3Once() {
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < FILES; i++) {
+                assertEquals("class File" + i + " {}", first.read(i));
+                assertEquals("class File" + i + " {}", second.read(i));
+            }
+        }
+
+        assertEquals(FILES, standIn.requestCount("getObjectAsBytes"));
+        assertTrue(first.peerCache.peerHits() > 0);
+        assertTrue(second.peerCache.peerHits() > 0);
+        assertEquals(0, first.peerCache.peerFallbacks() + second.peerCache.peerFallbacks());
+    }
+
+    /**
+     * Reads of files owned by an unreachable replica fall back to S3 without caching.
+     */
+    @Test
+    void testGetFileContent_FallsBackWhenOwnerIsDown() {
+        second.server.stop(0);
+
+        for (int i = 0; i < FILES; i++) {
+            assertEquals("class File" + i + " {}", first.read(i));
+        }
+
+        assertTrue(first.peerCache.peerFallbacks() > 0);
+        assertEquals(0, first.peerCache.peerHits());
+    }
+
+    /**
+     * Deleting a project drops its files from the caches of the other replicas.
+     */
+    @Test
+    void testDeleteProject_InvalidatesPeers() throws InterruptedException {
+        for (int i = 0; i < FILES; i++) {
+            second.read(i);
+        }
+        assertTrue(second.cache.usedBytes() > 0);
+
+        first.repository.deleteProject("shared", new DeletionProgress("shared"));
+
+        for (int attempt = 0; attempt < 50 && second.cache.usedBytes() > 0; attempt++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, second.cache.usedBytes());
+    }
+
+    /**
+     * The peer endpoints refuse callers without the shared secret, and a replica configured
+     * with another secret reads from S3 instead.
+     */
+    @Test
+    void testPeerEndpoints_RequireSharedSecret() throws IOException, InterruptedException {
+        URI file =
+                URI.create(
+                        url(first.server)
+                                + PeerCache.FILE_ENDPOINT
+                                + "?projectId=shared&filePath=src/File0.java");
+        HttpResponse<Void> response =
+                HttpClient.newHttpClient()
+                        .send(
+                                HttpRequest.newBuilder(file).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+        assertEquals(403, response.statusCode());
+
+        first.server.stop(0);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        Replica outsider =
+                new Replica(
+                        server,
+                        new S3Repository(standIn.client()),
+                        List.of(url(server), url(second.server)),
+                        "wrong-secret");
+        try {
+            for (int i = 0; i < FILES; i++) {
+                assertEquals("class File" + i + " {}", outsider.read(i));
+            }
+            assertEquals(0, outsider.peerCache.peerHits());
+            assertTrue(outsider.peerCache.peerFallbacks() > 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Adding a peer to the ring only moves the keys it takes over.
+     */
+    @Test
+    void testPeerRing_MovesFewKeysWhenPeerIsAdded() {
+        PeerRing three = new PeerRing(List.of("http://a", "http://b", "http://c"), 128);
+        PeerRing four = new PeerRing(List.of("http://a", "http://b", "http://c", "http://d"), 128);
+
+        int moved = 0;
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = "projects/p/src/File" + i + ".java";
+            owned.merge(three.ownerOf(key), 1, Integer::sum);
+            if (!three.ownerOf(key).equals(four.ownerOf(key))) {
+                moved++;
+                assertEquals("http://d", four.ownerOf(key));
+            }
+        }
+
+        assertTrue(moved < 3500, "moved: " + moved);
+        owned.values().forEach(count -> assertTrue(count > 2000, "owned: " + owned));
+    }
+
+    private static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * One service replica: its cache, its caching repository and the HTTP server exposing
+     * the peer endpoints.
+     */
+    private static final class Replica {
+
+        private final HttpServer server;
+        private final FileContentCache cache = new FileContentCache(1L << 20);
+        private final PeerCache peerCache;
+        private final CachingStorageRepository repository;
+
+        Replica(HttpServer server, S3Repository s3Repository, List<String> peers, String secret) {
+            this.server = server;
+            this.peerCache =
+                    new PeerCache(
+                            new PeerRing(peers, 64),
+                            url(server),
+                            secret,
+                            Duration.ofMillis(500),
+                            Duration.ofSeconds(5));
+            this.repository = new CachingStorageRepository(s3Repository, cache, null, peerCache);
+            server.createContext(PeerCache.FILE_ENDPOINT, this::serveFile);
+            server.createContext(PeerCache.PROJECT_ENDPOINT, this::invalidate);
+            server.start();
+        }
+
+        String read(int index) {
+            return repository.getFileContent("shared", "src/File" + index + ".java");
+        }
+
+        private void serveFile(HttpExchange exchange) throws IOException {
+            Map<String, String> query = query(exchange);
+            try {
+                repository.authorizePeer(
+                        exchange.getRequestHeaders().getFirst(PeerCache.SECRET_HEADER));
+                byte[] body =
+                        repository
+                                .getOwnedFileContent(query.get("projectId"), query.get("filePath"))
+                                .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (ApiException e) {
+                exchange.sendResponseHeaders(e.getStatusCode(), -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private void invalidate(HttpExchange exchange) throws IOException {
+            try {
+                repository.authorizePeer(
+                        exchange.getRequestHeaders().getFirst(PeerCache.SECRET_HEADER));
+                repository.invalidateProject(query(exchange).get("projectId"));
+                exchange.sendResponseHeaders(200, -1);
+            } catch (ApiException e) {
+                exchange.sendResponseHeaders(e.getStatusCode(), -1);
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private static Map<String, String> query(HttpExchange exchange) {
+            Map<String, String> parameters = new HashMap<>();
+            for (String parameter : exchange.getRequestURI().getRawQuery().split("&")) {
+                String[] pair = parameter.split("=", 2);
+                parameters.put(pair[0], URLDecoder.decode(pair[1], StandardCharsets.UTF_8));
+            }
+            return parameters;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.DeletionProgress;
+import org.argos.file.manager.model.DeletionResult;
+import org.argos.file.manager.repository.S3BatchDeleter;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.service.ProjectLifecycleService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * Unit tests for batched project deletion and the TTL sweep.
+ */
+class ProjectDeletionTest {
+
+    private S3StandIn standIn;
+    private S3Repository repository;
+    private ProjectLifecycleService lifecycleService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        standIn = new S3StandIn(Duration.ZERO);
+        repository = new S3Repository(standIn.client());
+        lifecycleService = new ProjectLifecycleService(repository);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A project is deleted with one DeleteObjects request per listing page of 1000 keys,
+     * leaving other projects untouched.
+     */
+    @Test
+    void testDeleteProject_DeletesInBatchesOfOneThousand() {
+        storeFiles("doomed", 2500);
+        storeFiles("kept", 3);
+
+        DeletionResult result = lifecycleService.deleteProject("doomed");
+
+        assertEquals(2500, result.deletedObjects());
+        assertEquals(0, result.failedObjects());
+        assertEquals(3, result.batches());
+        assertEquals(3, standIn.requestCount("deleteObjects"));
+        assertEquals(0, standIn.objectCount("projects/doomed/"));
+        assertEquals(3, standIn.objectCount("projects/kept/"));
+        assertEquals(2500, lifecycleService.deletedObjects());
+        assertTrue(lifecycleService.activeDeletions().isEmpty());
+    }
+
+    /**
+     * Deleting a project without files is reported as not found.
+     */
+    @Test
+    void testDeleteProject_UnknownProject() {
+        Exception exception =
+                assertThrows(NotFoundError.class, () -> lifecycleService.deleteProject("missing"));
+
+        assertEquals("No files found for project ID: missing", exception.getMessage());
+    }
+
+    /**
+     * Keys throttled by DeleteObjects are retried; keys failing permanently are reported.
+     */
+    @Test
+    void testDeleteBatch_RetriesThrottledKeys() {
+        S3Client s3Client = mock(S3Client.class);
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class)))
+                .thenReturn(
+                        DeleteObjectsResponse.builder()
+                                .errors(error("a", "SlowDown"), error("b", "AccessDenied"))
+                                .build())
+                .thenReturn(DeleteObjectsResponse.builder().build());
+        S3BatchDeleter deleter =
+                new S3BatchDeleter(s3Client, "bucket", executor, 2, new RetryPolicy(3, 0, 0));
+
+        List<String> failed = deleter.deleteBatch(List.of("a", "b", "c"));
+
+        assertEquals(List.of("b"), failed);
+        verify(s3Client, times(2)).deleteObjects(any(DeleteObjectsRequest.class));
+    }
+
+    /**
+     * Progress counts every listed, deleted and failed object of a deletion.
+     */
+    @Test
+    void testDeletePrefix_ReportsProgress() {
+        storeFiles("tracked", 1200);
+        S3BatchDeleter deleter =
+                new S3BatchDeleter(
+                        standIn.client(), "bucket", executor, 2, new RetryPolicy(1, 0, 0));
+        DeletionProgress progress = new DeletionProgress("tracked");
+
+        deleter.deletePrefix("tracked", "projects/tracked/", progress);
+
+        assertEquals(1200, progress.getListedObjects());
+        assertEquals(1200, progress.getDeletedObjects());
+        assertEquals(2, progress.getCompletedBatches());
+    }
+
+    /**
+     * The sweep deletes expired projects and clears their expiry, but keeps projects
+     * whose TTL has not passed yet.
+     */
+    @Test
+    void testSweepExpired_DeletesOnlyExpiredProjects() {
+        storeFiles("expired", 5);
+        storeFiles("fresh", 5);
+        repository.scheduleExpiry("expired", Instant.now().minusSeconds(60));
+        repository.scheduleExpiry("fresh", Instant.now().plusSeconds(3600));
+
+        int swept = lifecycleService.sweepExpired();
+
+        assertEquals(1, swept);
+        assertEquals(0, standIn.objectCount("projects/expired/"));
+        assertEquals(5, standIn.objectCount("projects/fresh/"));
+        assertEquals(1, standIn.objectCount("lifecycle/ttl/"));
+        assertEquals(1, lifecycleService.expiredProjects());
+    }
+
+    /**
+     * A later expiry replaces the earlier one, so a project's TTL can be extended.
+     */
+    @Test
+    void testSweepExpired_HonoursExtendedExpiry() {
+        storeFiles("extended", 5);
+        repository.scheduleExpiry("extended", Instant.now().minusSeconds(60));
+        repository.scheduleExpiry("extended", Instant.now().plusSeconds(3600));
+
+        int swept = lifecycleService.sweepExpired();
+
+        assertEquals(0, swept);
+        assertEquals(5, standIn.objectCount("projects/extended/"));
+        assertEquals(1, standIn.objectCount("lifecycle/ttl/"));
+    }
+
+    /**
+     * A marker left behind by a replaced expiry is dropped by the sweep without deleting
+     * the project.
+     */
+    @Test
+    void testSweepExpired_DropsStaleMarkers() {
+        storeFiles("extended", 5);
+        repository.scheduleExpiry("extended", Instant.now().plusSeconds(3600));
+        standIn.putObject("lifecycle/ttl/000000000001/extended", new byte[0]);
+
+        int swept = lifecycleService.sweepExpired();
+
+        assertEquals(0, swept);
+        assertEquals(5, standIn.objectCount("projects/extended/"));
+        assertEquals(1, standIn.objectCount("lifecycle/ttl/"));
+    }
+
+    private void storeFiles(String projectId, int count) {
+        for (int i = 0; i < count; i++) {
+            standIn.putObject(
+                    String.format("projects/%s/src/File%05d.java", projectId, i), new byte[1]);
+        }
+    }
+
+    private S3Error error(String key, String code) {
+        return S3Error.builder().key(key).code(code).build();
+    }
+}
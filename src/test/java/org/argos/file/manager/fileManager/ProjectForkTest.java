@@ -0,0 +1,137 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.repository.S3ProjectCopier;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Unit tests for server-side project forks.
+ */
+class ProjectForkTest {
+
+    private S3StandIn standIn;
+    private S3Repository repository;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        standIn = new S3StandIn(Duration.ZERO);
+        repository = new S3Repository(standIn.client());
+        executor = Executors.newFixedThreadPool(2);
+        store("projects/source/src/Main.java", "class Main {}");
+        store("projects/source/src/Util.java", "class Util {}");
+        store("projects/source/pom.xml", "<project/>");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A fork copies every object server-side without reading or writing file contents
+     * through the service.
+     */
+    @Test
+    void testForkProject_CopiesServerSide() {
+        Map<String, String> result = repository.forkProject("source", "fork", null);
+
+        assertEquals(3, result.size());
+        assertEquals("Copied", result.get("projects/fork/src/Main.java"));
+        assertEquals("class Util {}", read("projects/fork/src/Util.java"));
+        assertEquals(3, standIn.objectCount("projects/source/"));
+        assertEquals(3, standIn.requestCount("copyObject"));
+        assertEquals(0, standIn.requestCount("getObjectAsBytes"));
+        assertEquals(0, standIn.requestCount("putObject"));
+    }
+
+    /**
+     * Overlay files replace their copied counterparts, which are not copied at all,
+     * and new overlay files are added.
+     */
+    @Test
+    void testForkProject_AppliesOverlay() throws IOException {
+        MockMultipartFile overlay =
+                new MockMultipartFile(
+                        "overlay",
+                        "overlay.zip",
+                        "application/zip",
+                        zip(Map.of("src/Main.java", "class Main { int x; }", "src/New.java", "")));
+
+        Map<String, String> result = repository.forkProject("source", "patched", overlay);
+
+        assertEquals(4, result.size());
+        assertEquals("Uploaded", result.get("projects/patched/src/Main.java"));
+        assertEquals("Uploaded", result.get("projects/patched/src/New.java"));
+        assertEquals("Copied", result.get("projects/patched/pom.xml"));
+        assertEquals("class Main { int x; }", read("projects/patched/src/Main.java"));
+        assertEquals("class Main {}", read("projects/source/src/Main.java"));
+        assertEquals(2, standIn.requestCount("copyObject"));
+    }
+
+    /**
+     * Forking a project without files is reported as not found and writes nothing.
+     */
+    @Test
+    void testForkProject_UnknownSource() {
+        Exception exception =
+                assertThrows(
+                        NotFoundError.class, () -> repository.forkProject("missing", "fork", null));
+
+        assertEquals("No files found for project ID: missing", exception.getMessage());
+        assertEquals(0, standIn.objectCount("projects/fork/"));
+    }
+
+    /**
+     * Objects above the multipart threshold are copied part by part with UploadPartCopy.
+     */
+    @Test
+    void testCopyPrefix_CopiesLargeObjectsInParts() {
+        store("projects/large/data.txt", "0123456789");
+        S3ProjectCopier copier =
+                new S3ProjectCopier(
+                        standIn.client(), "bucket", executor, 2, 4, 4, new RetryPolicy(1, 0, 0));
+
+        copier.copyPrefix("large", "projects/large/", "projects/large-copy/", key -> true);
+
+        assertEquals("0123456789", read("projects/large-copy/data.txt"));
+        assertEquals(3, standIn.requestCount("uploadPartCopy"));
+        assertEquals(0, standIn.requestCount("copyObject"));
+    }
+
+    private void store(String key, String content) {
+        standIn.putObject(key, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String read(String key) {
+        return new String(standIn.getObject(key), StandardCharsets.UTF_8);
+    }
+
+    private byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zos.putNextEntry(new ZipEntry(file.getKey()));
+                zos.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
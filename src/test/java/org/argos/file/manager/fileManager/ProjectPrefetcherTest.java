@@ -0,0 +1,148 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import org.argos.file.manager.cache.FileContentCache;
+import org.argos.file.manager.cache.ProjectPrefetcher;
+import org.argos.file.manager.model.StoredFile;
+import org.argos.file.manager.repository.CachingStorageRepository;
+import org.argos.file.manager.repository.IStorageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ProjectPrefetcher} and the {@link CachingStorageRepository}.
+ */
+class ProjectPrefetcherTest {
+
+    private static final String PROJECT_ID = "test-project";
+
+    private IStorageRepository delegate;
+    private FileContentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(IStorageRepository.class);
+        cache = new FileContentCache(1000);
+    }
+
+    /**
+     * Source files are ranked before text files, binaries and oversized files are skipped,
+     * and the selection stays within the byte budget.
+     */
+    @Test
+    void testSelectCandidates_RanksByTypeAndSizeWithinBudget() {
+        ProjectPrefetcher prefetcher = newPrefetcher(280, 200);
+        List<StoredFile> files =
+                List.of(
+                        file("README.md", 50),
+                        file("src/Big.java", 150),
+                        file("src/Small.java", 100),
+                        file("logo.png", 10),
+                        file("src/Huge.java", 250));
+
+        List<StoredFile> selected = prefetcher.selectCandidates(files);
+
+        assertEquals(List.of(file("src/Small.java", 100), file("src/Big.java", 150)), selected);
+    }
+
+    /**
+     * A file larger than the remaining budget is passed over, and smaller files ranked after
+     * it still fill the budget.
+     */
+    @Test
+    void testSelectCandidates_SkipsFilesLargerThanRemainingBudget() {
+        ProjectPrefetcher prefetcher = newPrefetcher(200, 200);
+        List<StoredFile> files =
+                List.of(
+                        file("README.md", 50),
+                        file("src/Big.java", 150),
+                        file("src/Small.java", 100));
+
+        List<StoredFile> selected = prefetcher.selectCandidates(files);
+
+        assertEquals(List.of(file("src/Small.java", 100), file("README.md", 50)), selected);
+    }
+
+    /**
+     * Listing a project prefetches its files so the following reads hit the cache.
+     */
+    @Test
+    void testListFiles_PrefetchesIntoCache() {
+        List<StoredFile> files = List.of(file("src/Main.java", 20), file("pom.xml", 30));
+        when(delegate.listStoredFiles(PROJECT_ID)).thenReturn(files);
+        when(delegate.getFileContent(eq(PROJECT_ID), anyString()))
+                .thenAnswer(invocation -> "content of " + invocation.getArgument(1));
+        CachingStorageRepository repository =
+                new CachingStorageRepository(delegate, cache, newPrefetcher(1000, 1000));
+
+        List<String> keys = repository.listFiles(PROJECT_ID);
+        String content = repository.getFileContent(PROJECT_ID, "src/Main.java");
+
+        assertEquals(2, keys.size());
+        assertEquals("content of src/Main.java", content);
+        verify(delegate, times(1)).getFileContent(PROJECT_ID, "src/Main.java");
+        verify(delegate, times(1)).getFileContent(PROJECT_ID, "pom.xml");
+    }
+
+    /**
+     * Prefetched files displace older prefetched files but never requested ones, and a
+     * prefetched file that has been read counts as requested.
+     */
+    @Test
+    void testPrefetch_EvictsOnlySpeculativeEntries() {
+        when(delegate.getFileContent(anyString(), anyString())).thenReturn("x".repeat(400));
+        cache.put("projects/other/Requested.java", "r".repeat(500));
+        ProjectPrefetcher prefetcher = newPrefetcher(1000, 1000);
+
+        prefetcher.prefetch("first", List.of(new StoredFile("projects/first/A.java", 400)));
+        prefetcher.prefetch(PROJECT_ID, List.of(file("B.java", 400)));
+
+        assertFalse(cache.contains("projects/first/A.java"));
+        assertTrue(cache.contains("projects/" + PROJECT_ID + "/B.java"));
+        assertTrue(cache.contains("projects/other/Requested.java"));
+
+        cache.get("projects/" + PROJECT_ID + "/B.java");
+        prefetcher.prefetch("first", List.of(new StoredFile("projects/first/A.java", 400)));
+
+        assertFalse(cache.contains("projects/first/A.java"));
+        assertEquals(900, cache.usedBytes());
+    }
+
+    /**
+     * Entries are weighed by their heap size, not their number of characters.
+     */
+    @Test
+    void testPut_WeighsContentInBytes() {
+        cache.put("latin", "\u00e9".repeat(100));
+        cache.put("wide", "\u20ac".repeat(100));
+
+        assertEquals(300, cache.usedBytes());
+    }
+
+    /**
+     * Repeated reads of the same file only reach the delegate once.
+     */
+    @Test
+    void testGetFileContent_ServesRepeatedReadsFromCache() {
+        when(delegate.getFileContent(PROJECT_ID, "file1.txt")).thenReturn("cached");
+        CachingStorageRepository repository = new CachingStorageRepository(delegate, cache, null);
+
+        repository.getFileContent(PROJECT_ID, "file1.txt");
+        String result = repository.getFileContent(PROJECT_ID, "file1.txt");
+
+        assertEquals("cached", result);
+        verify(delegate, times(1)).getFileContent(PROJECT_ID, "file1.txt");
+    }
+
+    private ProjectPrefetcher newPrefetcher(long byteBudget, long maxFileBytes) {
+        return new ProjectPrefetcher(
+                cache, delegate::getFileContent, Runnable::run, 2, byteBudget, maxFileBytes);
+    }
+
+    private StoredFile file(String path, long size) {
+        return new StoredFile("projects/" + PROJECT_ID + "/" + path, size);
+    }
+}
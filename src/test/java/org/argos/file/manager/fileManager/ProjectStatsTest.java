@@ -0,0 +1,182 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.FileFacts;
+import org.argos.file.manager.model.ProjectStats;
+import org.argos.file.manager.model.UploadOptions;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.service.S3FileService;
+import org.argos.file.manager.utils.ContentProfiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Unit tests for the file facts and project stats computed at ingest.
+ */
+class ProjectStatsTest {
+
+    private final S3StandIn standIn = new S3StandIn(Duration.ZERO);
+    private final S3Repository repository = new S3Repository(standIn.client());
+
+    @TempDir Path directory;
+
+    /**
+     * Lines, encoding and binary content are recognised from the bytes alone.
+     */
+    @Test
+    void testProfiler_DescribesContent() {
+        assertEquals(
+                new FileFacts("Java", 24, 2, "US-ASCII", false),
+                profile("src/Main.java", text("class Main {\n  int x; }\n")));
+        assertEquals(
+                new FileFacts("Markdown", 9, 2, "UTF-8", false),
+                profile("README.md", text("# Café\nx")));
+        assertEquals(
+                new FileFacts("Other", 4, 1, "unknown", false),
+                profile("notes", new byte[] {'c', 'a', 'f', (byte) 0xe9}));
+        assertEquals(
+                new FileFacts("Binary", 4, 0, FileFacts.BINARY, true),
+                profile("logo.png", new byte[] {(byte) 0x89, 'P', 0, '\n'}));
+        assertEquals(new FileFacts("Dockerfile", 0, 0, "US-ASCII", false), profile("Dockerfile"));
+    }
+
+    /**
+     * Uploading a directory indexes every file, and the stats are served from the index
+     * without reading any file.
+     */
+    @Test
+    void testUploadDirectory_IndexesFiles() throws IOException {
+        Files.createDirectories(directory.resolve("src"));
+        Files.writeString(directory.resolve("src/Main.java"), "class Main {\n}\n");
+        Files.writeString(directory.resolve("src/Util.java"), "class Util {}");
+        Files.write(directory.resolve("icon.bin"), new byte[] {1, 0, 2});
+
+        repository.uploadDirectory("local", directory.toString());
+        ProjectStats stats = repository.getStats("local");
+
+        assertEquals(3, stats.fileCount());
+        assertEquals(31, stats.totalBytes());
+        assertEquals(3, stats.totalLines());
+        assertEquals(1, stats.binaryFiles());
+        assertEquals(new ProjectStats.LanguageStats(2, 28, 3), stats.languages().get("Java"));
+        assertEquals("Java", stats.languages().keySet().iterator().next());
+        assertEquals(
+                new FileFacts("Java", 15, 2, "US-ASCII", false),
+                stats.files().get("src/Main.java"));
+        assertTrue(stats.files().get("icon.bin").binary());
+        assertEquals(1, standIn.requestCount("getObjectAsBytes"));
+    }
+
+    /**
+     * Entries of a streamed archive are profiled while they are staged.
+     */
+    @Test
+    void testProcessStagedUpload_IndexesEntries() throws IOException {
+        standIn.putObject("staging/tar/archive", tar("docs/guide.md", text("# Guide\n\nText\n")));
+
+        repository.processStagedUpload("tar", null, null);
+
+        assertEquals(
+                new FileFacts("Markdown", 14, 3, "US-ASCII", false),
+                repository.getStats("tar").files().get("docs/guide.md"));
+    }
+
+    /**
+     * A fork inherits the facts of the files it copies and indexes its overlay files.
+     */
+    @Test
+    void testForkProject_InheritsStats() throws IOException {
+        Files.writeString(directory.resolve("Main.java"), "class Main {}");
+        Files.writeString(directory.resolve("pom.xml"), "<project/>");
+        S3FileService service = new S3FileService(repository);
+        String sourceId =
+                (String) service.uploadDirectory(directory.toString()).get("projectId");
+        MockMultipartFile overlay =
+                new MockMultipartFile(
+                        "overlay",
+                        "overlay.zip",
+                        "application/zip",
+                        zip("Main.java", text("class Main {\n  int x;\n}\n")));
+
+        String forkId =
+                (String)
+                        service.forkProject(sourceId, overlay, UploadOptions.defaults())
+                                .get("projectId");
+        ProjectStats stats = service.getStats(forkId);
+
+        assertEquals(2, stats.fileCount());
+        assertEquals(3, stats.files().get("Main.java").lines());
+        assertEquals("XML", stats.files().get("pom.xml").language());
+        assertEquals(1, service.getStats(sourceId).files().get("Main.java").lines());
+    }
+
+    /**
+     * Indexes survive serialization, and projects uploaded without one are not found.
+     */
+    @Test
+    void testStats_RoundTripAndMissing() {
+        ProjectStats stats =
+                ProjectStats.build(
+                        "p",
+                        Instant.parse("2026-01-01T00:00:00Z"),
+                        Map.of(
+                                "dir/a file.txt",
+                                new FileFacts("Text", 3, 1, "UTF-8", false),
+                                "b.bin",
+                                new FileFacts("Binary", 2, 0, FileFacts.BINARY, true)));
+
+        assertEquals(stats, ProjectStats.fromBytes(stats.toBytes()));
+        NotFoundError error =
+                assertThrows(NotFoundError.class, () -> repository.getStats("unindexed"));
+        assertEquals("No stats found for project ID: unindexed", error.getMessage());
+    }
+
+    private static FileFacts profile(String path, byte[]... chunks) {
+        ContentProfiler profiler = new ContentProfiler();
+        for (byte[] chunk : chunks) {
+            profiler.update(chunk, 0, chunk.length);
+        }
+        return profiler.facts(path);
+    }
+
+    private static byte[] text(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] zip(String name, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            zos.putNextEntry(new ZipEntry(name));
+            zos.write(content);
+            zos.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tar(String name, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            TarArchiveEntry entry = new TarArchiveEntry(name);
+            entry.setSize(content.length);
+            tar.putArchiveEntry(entry);
+            tar.write(content);
+            tar.closeArchiveEntry();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,144 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.tracing.RequestTrace;
+import org.argos.file.manager.tracing.RequestTracingFilter;
+import org.argos.file.manager.tracing.Stage;
+import org.argos.file.manager.tracing.TraceExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import software.amazon.awssdk.awscore.DefaultAwsResponseMetadata;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+/**
+ * Unit tests for request traces and their stages.
+ */
+class RequestTraceTest {
+
+    @TempDir Path directory;
+
+    @AfterEach
+    void tearDown() {
+        RequestTrace current = RequestTrace.current();
+        if (current != null) {
+            current.end();
+        }
+    }
+
+    /**
+     * Stages opened outside a traced request record nothing.
+     */
+    @Test
+    void testStage_RecordsNothingOutsideTrace() {
+        try (Stage stage = RequestTrace.stage("getBytes")) {
+            stage.addBytes(10).addFiles(1);
+            assertEquals(0, stage.bytes());
+            assertEquals(0, stage.files());
+        }
+
+        assertNull(RequestTrace.current());
+    }
+
+    /**
+     * The Server-Timing value lists each stage in opening order, followed by the total.
+     */
+    @Test
+    void testServerTiming_ListsStagesAndTotal() {
+        RequestTrace trace = RequestTrace.begin("POST /fileManager/uploadZip");
+        try (Stage stage = RequestTrace.stage("getBytes")) {
+            stage.addBytes(2048);
+        }
+        try (Stage stage = RequestTrace.stage("extractZip")) {
+            stage.addBytes(4096).addFiles(3);
+        }
+        trace.end();
+
+        assertNull(RequestTrace.current());
+        assertTrue(
+                trace.serverTiming()
+                        .matches(
+                                "getBytes;dur=\\d+\\.\\d, extractZip;dur=\\d+\\.\\d,"
+                                        + " total;dur=\\d+\\.\\d"),
+                trace.serverTiming());
+        assertTrue(trace.breakdown().startsWith("POST /fileManager/uploadZip took "));
+        assertTrue(trace.breakdown().contains(" extractZip="));
+        assertTrue(trace.breakdown().contains(" files=3 bytes=4096;"));
+    }
+
+    /**
+     * Upload workers report every PUT into the request's stage, with the S3 request IDs.
+     */
+    @Test
+    void testUploadDirectory_RecordsPutStage() throws IOException {
+        S3Client s3Client = mock(S3Client.class);
+        AtomicInteger requests = new AtomicInteger();
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> putResponse("req-" + requests.incrementAndGet()));
+        for (int i = 0; i < 5; i++) {
+            Files.write(directory.resolve("file" + i + ".txt"), new byte[100]);
+        }
+
+        RequestTrace trace = RequestTrace.begin("POST /fileManager/upload");
+        new S3Repository(s3Client).uploadDirectory("traced", directory.toString());
+        trace.end();
+
+        Stage put =
+                trace.stages().stream()
+                        .filter(stage -> stage.name().equals("putObjects"))
+                        .findFirst()
+                        .orElseThrow();
+        assertEquals(5, put.files());
+        assertEquals(500, put.bytes());
+        assertEquals(5, put.requestIds().size());
+        assertTrue(put.requestIds().contains("req-1"));
+        assertTrue(trace.stages().stream().anyMatch(stage -> stage.name().equals("walkFiles")));
+    }
+
+    /**
+     * The filter binds a trace for file manager requests only, and unbinds it afterwards.
+     */
+    @Test
+    void testFilter_TracesFileManagerRequests() throws Exception {
+        RequestTracingFilter filter = new RequestTracingFilter(new TraceExporter("none", null));
+        AtomicReference<RequestTrace> seen = new AtomicReference<>();
+
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/fileManager/files"),
+                new MockHttpServletResponse(),
+                (request, response) -> seen.set(RequestTrace.current()));
+        RequestTrace traced = seen.get();
+        filter.doFilter(
+                new MockHttpServletRequest("GET", "/actuator/health"),
+                new MockHttpServletResponse(),
+                (request, response) -> seen.set(RequestTrace.current()));
+
+        assertNotNull(traced);
+        assertEquals("GET /fileManager/files", traced.name());
+        assertNull(seen.get());
+        assertNull(RequestTrace.current());
+        assertEquals(List.of(), traced.stages());
+    }
+
+    private PutObjectResponse putResponse(String requestId) {
+        return PutObjectResponse.builder()
+                .responseMetadata(
+                        DefaultAwsResponseMetadata.create(Map.of("AWS_REQUEST_ID", requestId)))
+                .build();
+    }
+}
@@ -0,0 +1,153 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import org.argos.file.manager.controller.FileManagerController;
+import org.argos.file.manager.exceptions.GlobalExceptionHandler;
+import org.argos.file.manager.exceptions.IncompleteUploadError;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.service.S3FileService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Unit tests for per-file upload retries, checkpoints and resumed uploads.
+ */
+class ResumableUploadTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final S3StandIn standIn = new S3StandIn(Duration.ZERO);
+
+    @TempDir Path directory;
+
+    /**
+     * Failed PUTs are retried, so transient server errors do not fail the upload.
+     */
+    @Test
+    void testUploadDirectory_RetriesTransientFailures() throws IOException {
+        standIn.failRandomly(0.3);
+
+        Map<String, String> result =
+                new S3Repository(standIn.client()).uploadDirectory("retried", directoryWith(10));
+
+        assertEquals(10, result.size());
+        assertTrue(result.values().stream().allMatch("Uploaded"::equals));
+        assertTrue(standIn.requestCount("failed") > 0);
+        standIn.failRandomly(0);
+        assertEquals(10, standIn.objectCount("projects/retried/"));
+    }
+
+    /**
+     * A file that keeps failing does not stop the other files, which are checkpointed.
+     */
+    @Test
+    void testUploadDirectory_ContinuesAfterFailureAndCheckpoints() throws IOException {
+        standIn.denyPuts(key -> key.endsWith("file3.txt"));
+
+        IncompleteUploadError error =
+                assertThrows(
+                        IncompleteUploadError.class,
+                        () ->
+                                new S3Repository(standIn.client())
+                                        .uploadDirectory("partial", directoryWith(6)));
+
+        assertEquals("Failed to upload files to S3: Access Denied", error.getMessage());
+        assertEquals("partial", error.getProjectId());
+        assertEquals(1, error.getFailedFileCount());
+        assertEquals("projects/partial/file3.txt", error.getFailedFiles().get(0).get("key"));
+        assertEquals(5, standIn.objectCount("projects/partial/"));
+        assertEquals(1, standIn.objectCount("meta/partial/checkpoint/"));
+    }
+
+    /**
+     * Resuming a failed upload only sends the files it could not store, then drops the
+     * checkpoint.
+     */
+    @Test
+    void testUpload_ResumesFromCheckpoint() throws Exception {
+        MockMvc mockMvc = mockMvc();
+        String localDir = directoryWith(8);
+        standIn.denyPuts(key -> key.endsWith("file2.txt") || key.endsWith("file5.txt"));
+
+        String failed =
+                mockMvc.perform(post("/fileManager/upload").param("localDir", localDir))
+                        .andExpect(status().isBadRequest())
+                        .andExpect(jsonPath("$.failedFiles").value(2))
+                        .andExpect(jsonPath("$.failures.length()").value(2))
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString();
+        String projectId = mapper.readTree(failed).get("projectId").asText();
+        assertEquals(6, standIn.objectCount("projects/" + projectId + "/"));
+
+        standIn.denyPuts(key -> false);
+        long putsBefore = standIn.requestCount("putObject");
+        String resumed =
+                mockMvc.perform(
+                                post("/fileManager/upload")
+                                        .param("localDir", localDir)
+                                        .param("resumeProjectId", projectId))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.projectId").value(projectId))
+                        .andReturn()
+                        .getResponse()
+                        .getContentAsString();
+
+        JsonNode results = mapper.readTree(resumed).get("uploadResults");
+        String prefix = "projects/" + projectId + "/";
+        assertEquals(8, results.size());
+        assertEquals("Uploaded", results.get(prefix + "file2.txt").asText());
+        assertEquals("Uploaded", results.get(prefix + "file5.txt").asText());
+        assertEquals("Skipped", results.get(prefix + "file0.txt").asText());
+        // The two missing files, then the stats index merged with the failed attempt's.
+        assertEquals(3, standIn.requestCount("putObject") - putsBefore);
+        assertEquals(8, standIn.objectCount(prefix));
+        assertEquals(0, standIn.objectCount("meta/" + projectId + "/checkpoint/"));
+        mockMvc.perform(get("/fileManager/stats").param("projectId", projectId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fileCount").value(8));
+    }
+
+    /**
+     * Only uploads that failed with a checkpoint can be resumed.
+     */
+    @Test
+    void testUpload_RejectsResumeWithoutCheckpoint() throws Exception {
+        mockMvc()
+                .perform(
+                        post("/fileManager/upload")
+                                .param("localDir", directoryWith(2))
+                                .param("resumeProjectId", "missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(
+                        jsonPath("$.error")
+                                .value("No unfinished upload found for project ID: missing"));
+        assertEquals(0, standIn.requestCount("putObject"));
+    }
+
+    private MockMvc mockMvc() {
+        return MockMvcBuilders.standaloneSetup(
+                        new FileManagerController(
+                                new S3FileService(new S3Repository(standIn.client()))))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private String directoryWith(int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            Files.writeString(directory.resolve("file" + i + ".txt"), "content" + i);
+        }
+        return directory.toString();
+    }
+}
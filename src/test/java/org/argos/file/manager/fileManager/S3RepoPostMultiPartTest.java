@@ -65,7 +65,7 @@ class S3RepoPostMultiPartTest {
             assertEquals("Uploaded", result.get("projects/test-project/file1.txt"));
             assertEquals("Uploaded", result.get("projects/test-project/file2.txt"));
 
-            verify(fileProcessorMock).cleanUpTempDirectory(tempDir);
+            verify(fileProcessorMock).releaseTempDirectory(tempDir);
         } finally {
             Files.deleteIfExists(file1);
             Files.deleteIfExists(file2);
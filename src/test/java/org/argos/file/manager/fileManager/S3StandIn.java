@@ -0,0 +1,580 @@
+package org.argos.file.manager.fileManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+/**
+ * In-process stand-in for S3 used by the benchmarks.
+ * Objects are kept in memory and every request is delayed by a fixed latency; transfers can
+ * be limited to a bandwidth and requests can fail at random to inject faults.
+ * The client is a dynamic proxy so only the operations the service uses are implemented.
+ */
+class S3StandIn implements InvocationHandler {
+
+    private final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, String> checksums = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    private final Map<String, Instant> lastModified = new ConcurrentHashMap<>();
+    private final Map<String, Long> requestCounts = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> multipartUploads = new ConcurrentHashMap<>();
+    private final Map<String, Integer> partCounts = new ConcurrentHashMap<>();
+    private final Map<String, long[]> partitionWindows = new ConcurrentHashMap<>();
+    private final Random faults = new Random(42);
+    private volatile Duration latency;
+    private volatile long bytesPerSecond;
+    private volatile double failureRate;
+    private volatile int partitionPrefixLength;
+    private volatile int partitionRequestsPerSecond;
+    private volatile Predicate<String> deniedKeys = key -> false;
+
+    S3StandIn(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Changes the fixed latency added to every request.
+     *
+     * @param latency the new latency.
+     */
+    void latency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Limits the bandwidth of each object transfer, on top of the request latency.
+     *
+     * @param bytesPerSecond the transfer rate of one request, or 0 for no limit.
+     */
+    void bandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Makes a fraction of all requests fail with 500 InternalError, as S3 occasionally does.
+     * Faults are drawn from a fixed seed so that runs are repeatable.
+     *
+     * @param rate the probability that a request fails, between 0 and 1.
+     */
+    void failRandomly(double rate) {
+        this.failureRate = rate;
+    }
+
+    /**
+     * Throttles object requests the way S3 throttles a hot key prefix. Keys are grouped into
+     * partitions by their first characters, whatever the key layout, and requests beyond the
+     * per-partition rate of the current second are rejected with 503 SlowDown. Partitions are
+     * fixed: S3 also splits a prefix that stays hot, which is not modelled, so this is the
+     * behavior of a bucket that has not yet adapted to the load.
+     *
+     * @param prefixLength the number of leading key characters identifying a partition.
+     * @param requestsPerSecond the request rate each partition sustains.
+     */
+    void throttle(int prefixLength, int requestsPerSecond) {
+        this.partitionPrefixLength = prefixLength;
+        this.partitionRequestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * Rejects every PUT of the matching keys with 403 AccessDenied, which is not retryable.
+     *
+     * @param keys the keys to reject; {@code key -> false} to accept every key again.
+     */
+    void denyPuts(Predicate<String> keys) {
+        this.deniedKeys = keys;
+    }
+
+    /**
+     * Creates an S3 client backed by this stand-in.
+     *
+     * @return the proxied S3 client.
+     */
+    S3Client client() {
+        return (S3Client)
+                Proxy.newProxyInstance(
+                        S3Client.class.getClassLoader(), new Class<?>[] {S3Client.class}, this);
+    }
+
+    /**
+     * Stores an object directly, without latency.
+     *
+     * @param key the object key.
+     * @param content the object content.
+     */
+    void putObject(String key, byte[] content) {
+        objects.put(key, content);
+        partCounts.remove(key);
+        lastModified.put(key, Instant.now());
+    }
+
+    /**
+     * Returns the additional checksum the last PUT of a key was sent with.
+     *
+     * @param key the object key.
+     * @return the algorithm and Base64 value, e.g. "CRC32:NhCmhg==", the algorithm alone if
+     *         the client was left to compute it, or null if the PUT carried no checksum.
+     */
+    String checksum(String key) {
+        return checksums.get(key);
+    }
+
+    /**
+     * Returns the number of requests served for an operation.
+     *
+     * @param operation the operation name, e.g. "getObjectAsBytes".
+     * @return the request count.
+     */
+    long requestCount(String operation) {
+        return requestCounts.getOrDefault(operation, 0L);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "toString":
+                return "S3StandIn";
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "close":
+                return null;
+            default:
+                break;
+        }
+        requestCounts.merge(method.getName(), 1L, Long::sum);
+        Thread.sleep(latency.toMillis());
+        if (failureRate > 0 && faults.nextDouble() < failureRate) {
+            requestCounts.merge("failed", 1L, Long::sum);
+            throw S3Exception.builder()
+                    .statusCode(500)
+                    .awsErrorDetails(
+                            AwsErrorDetails.builder()
+                                    .errorCode("InternalError")
+                                    .errorMessage("We encountered an internal error.")
+                                    .build())
+                    .build();
+        }
+        if (args != null
+                && args.length > 0
+                && args[0] instanceof PutObjectRequest put
+                && deniedKeys.test(put.key())) {
+            throw S3Exception.builder()
+                    .statusCode(403)
+                    .awsErrorDetails(
+                            AwsErrorDetails.builder()
+                                    .errorCode("AccessDenied")
+                                    .errorMessage("Access Denied")
+                                    .build())
+                    .build();
+        }
+        if (partitionRequestsPerSecond > 0 && args != null && args.length > 0) {
+            admit(keyOf(args[0]));
+        }
+        return switch (method.getName()) {
+            case "putObject" -> put((PutObjectRequest) args[0], (RequestBody) args[1]);
+            case "getObjectAsBytes" -> getAsBytes((GetObjectRequest) args[0]);
+            case "headObject" -> head((HeadObjectRequest) args[0]);
+            case "getObject" -> {
+                if (args.length != 1 || !(args[0] instanceof GetObjectRequest request)) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                yield getAsStream(request);
+            }
+            case "listObjectsV2" -> list((ListObjectsV2Request) args[0]);
+            case "deleteObject" -> delete((DeleteObjectRequest) args[0]);
+            case "deleteObjects" -> deleteAll((DeleteObjectsRequest) args[0]);
+            case "copyObject" -> copy((CopyObjectRequest) args[0]);
+            case "createMultipartUpload" -> createUpload((CreateMultipartUploadRequest) args[0]);
+            case "uploadPart" -> uploadPart((UploadPartRequest) args[0], (RequestBody) args[1]);
+            case "uploadPartCopy" -> copyPart((UploadPartCopyRequest) args[0]);
+            case "completeMultipartUpload" ->
+                    completeUpload((CompleteMultipartUploadRequest) args[0]);
+            case "abortMultipartUpload" -> abortUpload((AbortMultipartUploadRequest) args[0]);
+            default -> throw new UnsupportedOperationException(method.getName());
+        };
+    }
+
+    private String keyOf(Object request) {
+        if (request instanceof PutObjectRequest put) {
+            return put.key();
+        }
+        if (request instanceof GetObjectRequest get) {
+            return get.key();
+        }
+        if (request instanceof HeadObjectRequest head) {
+            return head.key();
+        }
+        return null;
+    }
+
+    private void admit(String key) {
+        if (key == null) {
+            return;
+        }
+        String partition = key.substring(0, Math.min(partitionPrefixLength, key.length()));
+        long second = System.nanoTime() / 1_000_000_000L;
+        long[] window = partitionWindows.computeIfAbsent(partition, p -> new long[2]);
+        synchronized (window) {
+            if (window[0] != second) {
+                window[0] = second;
+                window[1] = 0;
+            }
+            if (++window[1] > partitionRequestsPerSecond) {
+                requestCounts.merge("throttled", 1L, Long::sum);
+                throw S3Exception.builder()
+                        .statusCode(503)
+                        .awsErrorDetails(
+                                AwsErrorDetails.builder()
+                                        .errorCode("SlowDown")
+                                        .errorMessage("Please reduce your request rate.")
+                                        .build())
+                        .build();
+            }
+        }
+    }
+
+    private PutObjectResponse put(PutObjectRequest request, RequestBody body) {
+        try (var stream = body.contentStreamProvider().newStream()) {
+            byte[] content = stream.readAllBytes();
+            transfer(content.length);
+            String checksum = verifyChecksum(request, content);
+            if (checksum != null) {
+                checksums.put(request.key(), checksum);
+            } else {
+                checksums.remove(request.key());
+            }
+            objects.put(request.key(), content);
+            partCounts.remove(request.key());
+            contentTypes.put(
+                    request.key(),
+                    request.contentType() != null ? request.contentType() : body.contentType());
+            lastModified.put(request.key(), Instant.now());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return PutObjectResponse.builder().eTag(eTagOf(objects.get(request.key()))).build();
+    }
+
+    /**
+     * Verifies the additional checksum of a PUT the way S3 does, rejecting a mismatch with
+     * 400 BadDigest.
+     *
+     * @return the checksum of the request, or null if it carried none.
+     */
+    private static String verifyChecksum(PutObjectRequest request, byte[] content)
+            throws IOException {
+        String algorithm;
+        String sent;
+        String actual;
+        if (request.checksumCRC32() != null) {
+            algorithm = "CRC32";
+            sent = request.checksumCRC32();
+            actual = crc(new CRC32(), content);
+        } else if (request.checksumCRC32C() != null) {
+            algorithm = "CRC32C";
+            sent = request.checksumCRC32C();
+            actual = crc(new CRC32C(), content);
+        } else if (request.checksumSHA256() != null) {
+            algorithm = "SHA256";
+            sent = request.checksumSHA256();
+            try {
+                actual =
+                        Base64.getEncoder()
+                                .encodeToString(
+                                        MessageDigest.getInstance("SHA-256").digest(content));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException(e);
+            }
+        } else {
+            return request.checksumAlgorithm() != null
+                    ? request.checksumAlgorithmAsString()
+                    : null;
+        }
+        if (!actual.equals(sent)) {
+            throw S3Exception.builder()
+                    .statusCode(400)
+                    .awsErrorDetails(
+                            AwsErrorDetails.builder()
+                                    .errorCode("BadDigest")
+                                    .errorMessage(
+                                            "The "
+                                                    + algorithm
+                                                    + " you specified did not match the"
+                                                    + " calculated checksum.")
+                                    .build())
+                    .build();
+        }
+        return algorithm + ":" + sent;
+    }
+
+    private static String crc(Checksum checksum, byte[] content) {
+        checksum.update(content, 0, content.length);
+        return Base64.getEncoder()
+                .encodeToString(ByteBuffer.allocate(4).putInt((int) checksum.getValue()).array());
+    }
+
+    private void transfer(long bytes) {
+        long rate = bytesPerSecond;
+        if (rate > 0) {
+            LockSupport.parkNanos(bytes * 1_000_000_000L / rate);
+        }
+    }
+
+    private static String eTagOf(byte[] content) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(content)) + "\"";
+    }
+
+    /**
+     * Returns the ETag of an object. As on S3, an object assembled from parts gets an ETag
+     * ending in the number of its parts instead of the ETag of its content.
+     */
+    private String eTagOf(String key, byte[] content) {
+        Integer parts = partCounts.get(key);
+        if (parts == null) {
+            return eTagOf(content);
+        }
+        return "\"" + Integer.toHexString(Arrays.hashCode(content) * 31) + "-" + parts + "\"";
+    }
+
+    private ResponseBytes<GetObjectResponse> getAsBytes(GetObjectRequest request) {
+        byte[] content = existing(request.key());
+        if (request.ifMatch() != null
+                && !request.ifMatch().equals(eTagOf(request.key(), content))) {
+            throw S3Exception.builder()
+                    .statusCode(412)
+                    .awsErrorDetails(
+                            AwsErrorDetails.builder()
+                                    .errorCode("PreconditionFailed")
+                                    .errorMessage("At least one of the preconditions failed.")
+                                    .build())
+                    .build();
+        }
+        if (request.range() != null) {
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            content =
+                    Arrays.copyOfRange(
+                            content,
+                            Integer.parseInt(range[0]),
+                            Math.min(content.length, Integer.parseInt(range[1]) + 1));
+        }
+        transfer(content.length);
+        return ResponseBytes.fromByteArray(
+                GetObjectResponse.builder().contentLength((long) content.length).build(), content);
+    }
+
+    private HeadObjectResponse head(HeadObjectRequest request) {
+        byte[] content = objects.get(request.key());
+        if (content == null) {
+            // A HEAD response has no body, so a missing key is reported by its status alone.
+            throw S3Exception.builder().statusCode(404).build();
+        }
+        return HeadObjectResponse.builder()
+                .contentLength((long) content.length)
+                .eTag(eTagOf(request.key(), content))
+                .contentType(contentTypes.getOrDefault(request.key(), "binary/octet-stream"))
+                .lastModified(lastModified.get(request.key()))
+                .build();
+    }
+
+    private ResponseInputStream<GetObjectResponse> getAsStream(GetObjectRequest request) {
+        byte[] content = existing(request.key());
+        transfer(content.length);
+        return new ResponseInputStream<>(
+                GetObjectResponse.builder()
+                        .contentLength((long) content.length)
+                        .eTag(eTagOf(request.key(), content))
+                        .build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+    }
+
+    /**
+     * Stores one part of a multipart upload, as a client PUT to a presigned part URL would.
+     *
+     * @param uploadId the ID of the multipart upload.
+     * @param partNumber the number of the part.
+     * @param content the part content.
+     */
+    void putPart(String uploadId, int partNumber, byte[] content) {
+        multipartUploads.get(uploadId).put(partNumber, content);
+    }
+
+    /**
+     * Returns the content of a stored object.
+     *
+     * @param key the object key.
+     * @return the object content, or null if the key does not exist.
+     */
+    byte[] getObject(String key) {
+        return objects.get(key);
+    }
+
+    /**
+     * Returns the number of stored objects under a prefix.
+     *
+     * @param prefix the key prefix.
+     * @return the object count.
+     */
+    long objectCount(String prefix) {
+        return objects.keySet().stream().filter(key -> key.startsWith(prefix)).count();
+    }
+
+    private ListObjectsV2Response list(ListObjectsV2Request request) {
+        String prefix = request.prefix() != null ? request.prefix() : "";
+        String after = request.continuationToken();
+        int maxKeys = request.maxKeys() != null ? request.maxKeys() : 1000;
+        List<S3Object> matching =
+                objects.entrySet().stream()
+                        .filter(entry -> entry.getKey().startsWith(prefix))
+                        .filter(entry -> after == null || entry.getKey().compareTo(after) > 0)
+                        .limit(maxKeys + 1L)
+                        .map(
+                                entry ->
+                                        S3Object.builder()
+                                                .key(entry.getKey())
+                                                .size((long) entry.getValue().length)
+                                                .eTag(eTagOf(entry.getKey(), entry.getValue()))
+                                                .build())
+                        .toList();
+        boolean truncated = matching.size() > maxKeys;
+        List<S3Object> contents = truncated ? matching.subList(0, maxKeys) : matching;
+        return ListObjectsV2Response.builder()
+                .contents(contents)
+                .keyCount(contents.size())
+                .isTruncated(truncated)
+                .nextContinuationToken(truncated ? contents.get(maxKeys - 1).key() : null)
+                .build();
+    }
+
+    private DeleteObjectResponse delete(DeleteObjectRequest request) {
+        objects.remove(request.key());
+        partCounts.remove(request.key());
+        checksums.remove(request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    private DeleteObjectsResponse deleteAll(DeleteObjectsRequest request) {
+        List<DeletedObject> deleted = new ArrayList<>();
+        for (ObjectIdentifier object : request.delete().objects()) {
+            objects.remove(object.key());
+            partCounts.remove(object.key());
+            checksums.remove(object.key());
+            deleted.add(DeletedObject.builder().key(object.key()).build());
+        }
+        return DeleteObjectsResponse.builder()
+                .deleted(Boolean.TRUE.equals(request.delete().quiet()) ? List.of() : deleted)
+                .build();
+    }
+
+    private CopyObjectResponse copy(CopyObjectRequest request) {
+        objects.put(request.destinationKey(), existing(request.sourceKey()).clone());
+        partCounts.remove(request.destinationKey());
+        String contentType = contentTypes.get(request.sourceKey());
+        if (contentType != null) {
+            contentTypes.put(request.destinationKey(), contentType);
+        }
+        lastModified.put(request.destinationKey(), Instant.now());
+        return CopyObjectResponse.builder().build();
+    }
+
+    private CreateMultipartUploadResponse createUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        multipartUploads.put(uploadId, new ConcurrentSkipListMap<>());
+        return CreateMultipartUploadResponse.builder()
+                .bucket(request.bucket())
+                .key(request.key())
+                .uploadId(uploadId)
+                .build();
+    }
+
+    private UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        Map<Integer, byte[]> parts = multipartUploads.get(request.uploadId());
+        if (parts == null) {
+            throw NoSuchUploadException.builder()
+                    .message("The specified upload does not exist.")
+                    .build();
+        }
+        try (var stream = body.contentStreamProvider().newStream()) {
+            byte[] content = stream.readAllBytes();
+            transfer(content.length);
+            parts.put(request.partNumber(), content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return UploadPartResponse.builder().eTag("\"" + request.partNumber() + "\"").build();
+    }
+
+    private UploadPartCopyResponse copyPart(UploadPartCopyRequest request) {
+        byte[] source = existing(request.sourceKey());
+        String[] range = request.copySourceRange().substring("bytes=".length()).split("-");
+        byte[] part =
+                Arrays.copyOfRange(
+                        source, Integer.parseInt(range[0]), Integer.parseInt(range[1]) + 1);
+        multipartUploads.get(request.uploadId()).put(request.partNumber(), part);
+        return UploadPartCopyResponse.builder()
+                .copyPartResult(
+                        CopyPartResult.builder()
+                                .eTag("\"" + request.partNumber() + "\"")
+                                .build())
+                .build();
+    }
+
+    private CompleteMultipartUploadResponse completeUpload(
+            CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = multipartUploads.remove(request.uploadId());
+        if (parts == null) {
+            throw NoSuchUploadException.builder()
+                    .message("The specified upload does not exist.")
+                    .build();
+        }
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        parts.values().forEach(content::writeBytes);
+        objects.put(request.key(), content.toByteArray());
+        partCounts.put(request.key(), parts.size());
+        lastModified.put(request.key(), Instant.now());
+        return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+    }
+
+    private AbortMultipartUploadResponse abortUpload(AbortMultipartUploadRequest request) {
+        multipartUploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    private byte[] existing(String key) {
+        byte[] content = objects.get(key);
+        if (content == null) {
+            throw NoSuchKeyException.builder().message("The specified key does not exist.").build();
+        }
+        return content;
+    }
+}
@@ -0,0 +1,84 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import org.argos.file.manager.utils.ScratchSpaceManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ScratchSpaceManager}.
+ */
+class ScratchSpaceManagerTest {
+
+    private ScratchSpaceManager scratchSpace;
+
+    @BeforeEach
+    void setUp() {
+        scratchSpace = ScratchSpaceManager.getInstance();
+    }
+
+    /**
+     * Released directories are deleted by the background reaper.
+     */
+    @Test
+    void testRelease_DeletesDirectoryInBackground() throws Exception {
+        Path directory = scratchSpace.createDirectory(100);
+        Files.writeString(directory.resolve("file.txt"), "content");
+
+        scratchSpace.release(directory);
+
+        awaitDeleted(directory);
+        assertFalse(Files.exists(directory));
+    }
+
+    /**
+     * Unused directories older than the stale age are swept, active ones are kept.
+     */
+    @Test
+    void testSweepStale_RemovesOnlyUnusedOldDirectories() throws Exception {
+        Path active = scratchSpace.createDirectory(0);
+        Path leaked = Files.createTempDirectory(scratchSpace.root(), "unpacked-zip");
+        Instant old = Instant.now().minus(Duration.ofDays(1));
+        Files.setLastModifiedTime(leaked, FileTime.from(old));
+        Files.setLastModifiedTime(active, FileTime.from(old));
+
+        int swept = scratchSpace.sweepStale();
+
+        awaitDeleted(leaked);
+        assertTrue(swept >= 1);
+        assertFalse(Files.exists(leaked));
+        assertTrue(Files.exists(active));
+        scratchSpace.release(active);
+    }
+
+    /**
+     * Reserved bytes are accounted until the released directory has been deleted.
+     */
+    @Test
+    void testUsedBytes_TracksReservations() throws IOException, InterruptedException {
+        long before = scratchSpace.usedBytes();
+        Path directory = scratchSpace.createDirectory(1000);
+        scratchSpace.recordUsage(directory, 2500);
+
+        assertEquals(before + 2500, scratchSpace.usedBytes());
+
+        scratchSpace.release(directory);
+        awaitDeleted(directory);
+        Thread.sleep(50);
+        assertEquals(before, scratchSpace.usedBytes());
+    }
+
+    private void awaitDeleted(Path directory) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (Files.exists(directory) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
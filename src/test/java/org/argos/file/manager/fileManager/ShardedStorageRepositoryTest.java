@@ -0,0 +1,137 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.KeyLayout;
+import org.argos.file.manager.model.ProjectExpiry;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.repository.ShardedStorageRepository;
+import org.argos.file.manager.utils.ShardRing;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for placing projects on storage shards and routing them to their bucket.
+ */
+class ShardedStorageRepositoryTest {
+
+    private final S3StandIn primary = new S3StandIn(Duration.ZERO);
+    private final S3StandIn east = new S3StandIn(Duration.ZERO);
+    private final ShardedStorageRepository repository =
+            new ShardedStorageRepository(
+                    Map.of(
+                            ShardRing.PRIMARY, new S3Repository(primary.client()),
+                            "east", new S3Repository(east.client())));
+
+    /**
+     * New projects spread over the shards by weight, and the shard and key layout are both
+     * resolved from the ID alone.
+     */
+    @Test
+    void testNewProjectId_SpreadsByWeight() {
+        ShardRing ring = new ShardRing(1, List.of(new ShardRing.Shard("east", "b", 3)), 128);
+        Map<String, Integer> placed = new HashMap<>();
+        for (int i = 0; i < 4000; i++) {
+            placed.merge(ShardRing.shardOf(ring.newProjectId(KeyLayout.V1)), 1, Integer::sum);
+        }
+        assertTrue(placed.get("east") > 2600 && placed.get("east") < 3400, placed.toString());
+
+        String id = ring.place("v2-" + UUID.randomUUID());
+        assertEquals(KeyLayout.V2, KeyLayout.resolve(id));
+        assertEquals(ShardRing.PRIMARY, ShardRing.shardOf(UUID.randomUUID().toString()));
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(0, List.of(), 128));
+    }
+
+    /**
+     * Adding a shard only moves new placements onto it, and a shard of weight 0 takes none.
+     */
+    @Test
+    void testAddingShard_OnlyPlacesOnNewShard() {
+        ShardRing before = new ShardRing(1, List.of(new ShardRing.Shard("a", "ba", 1)), 128);
+        ShardRing after =
+                new ShardRing(
+                        1,
+                        List.of(
+                                new ShardRing.Shard("a", "ba", 1),
+                                new ShardRing.Shard("b", "bb", 1)),
+                        128);
+        ShardRing drained = new ShardRing(0, List.of(new ShardRing.Shard("a", "ba", 1)), 128);
+
+        int moved = 0;
+        for (int i = 0; i < 3000; i++) {
+            String id =
+                    UUID.nameUUIDFromBytes(("project-" + i).getBytes(StandardCharsets.UTF_8))
+                            .toString();
+            String was = ShardRing.shardOf(before.place(id));
+            String is = ShardRing.shardOf(after.place(id));
+            if (!was.equals(is)) {
+                assertEquals("b", is);
+                moved++;
+            }
+            assertEquals("a", ShardRing.shardOf(drained.place(id)));
+        }
+        assertTrue(moved > 700 && moved < 1300, "moved " + moved);
+    }
+
+    /**
+     * Each project is stored in and read from the bucket of its shard, and projects created
+     * before sharding stay on the primary shard.
+     */
+    @Test
+    void testRouting_UsesShardOfProjectId() {
+        east.putObject("projects/p1.east/a.txt", "east".getBytes(StandardCharsets.UTF_8));
+        primary.putObject("projects/legacy/a.txt", "primary".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("east", repository.getFileContent("p1.east", "a.txt"));
+        assertEquals("primary", repository.getFileContent("legacy", "a.txt"));
+        assertEquals(List.of("projects/p1.east/a.txt"), repository.listFiles("p1.east"));
+        assertEquals(0, primary.requestCount("listObjectsV2"));
+
+        NotFoundError error =
+                assertThrows(NotFoundError.class, () -> repository.listFiles("p2.west"));
+        assertEquals("No storage shard configured for project ID: p2.west", error.getMessage());
+    }
+
+    /**
+     * Forks stay on the shard of their source, where they are copied server-side.
+     */
+    @Test
+    void testForkProject_RequiresSameShard() {
+        east.putObject("projects/src.east/a.txt", "east".getBytes(StandardCharsets.UTF_8));
+        String forkId = ShardRing.colocatedProjectId(KeyLayout.V1, "src.east");
+
+        assertEquals("east", ShardRing.shardOf(forkId));
+        assertEquals(1, repository.forkProject("src.east", forkId, null).size());
+        assertEquals(1, east.requestCount("copyObject"));
+        assertThrows(
+                BadRequestError.class, () -> repository.forkProject("src.east", "fork", null));
+    }
+
+    /**
+     * Expired projects are collected from every shard, oldest first.
+     */
+    @Test
+    void testFindExpiredProjects_MergesShards() {
+        Instant now = Instant.now();
+        repository.scheduleExpiry("old.east", now.minusSeconds(300));
+        repository.scheduleExpiry("older", now.minusSeconds(600));
+        repository.scheduleExpiry("recent.east", now.minusSeconds(60));
+        repository.scheduleExpiry("fresh", now.plusSeconds(3600));
+
+        List<ProjectExpiry> expired = repository.findExpiredProjects(now, 2);
+
+        assertEquals(
+                List.of("older", "old.east"),
+                expired.stream().map(ProjectExpiry::projectId).toList());
+        repository.clearExpiry(expired.get(1));
+        assertEquals(1, east.objectCount("lifecycle/"));
+    }
+}
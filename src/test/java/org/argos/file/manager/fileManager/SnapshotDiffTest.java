@@ -0,0 +1,207 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.model.SnapshotDiff;
+import org.argos.file.manager.model.SnapshotManifest;
+import org.argos.file.manager.model.UploadOptions;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.service.S3FileService;
+import org.argos.file.manager.utils.KeyGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+
+/**
+ * Unit tests for snapshot manifests and snapshot diffs.
+ */
+class SnapshotDiffTest {
+
+    private S3StandIn standIn;
+    private S3Repository repository;
+    private S3FileService service;
+
+    @BeforeEach
+    void setUp() {
+        standIn = new S3StandIn(Duration.ZERO);
+        repository = new S3Repository(standIn.client());
+        service = new S3FileService(repository);
+        store("base", "src/Main.java", "class Main {}");
+        store("base", "src/util/Strings.java", "class Strings {}");
+        store("base", "src/util/Lists.java", "class Lists {}");
+        store("base", "docs/guide.md", "# Guide");
+        store("base", "pom.xml", "<project/>");
+    }
+
+    /**
+     * A fork records its source as parent, and its diff lists the overlay changes.
+     */
+    @Test
+    void testDiffSnapshots_ForkAgainstParent() throws IOException {
+        MockMultipartFile overlay =
+                new MockMultipartFile(
+                        "overlay",
+                        "overlay.zip",
+                        "application/zip",
+                        zip(Map.of("src/Main.java", "class Main { int x; }", "src/New.java", "")));
+
+        Map<String, Object> response =
+                service.forkProject("base", overlay, UploadOptions.defaults());
+        String projectId = (String) response.get("projectId");
+        SnapshotDiff diff = service.diffSnapshots(projectId, null);
+
+        assertEquals("base", response.get("parentProjectId"));
+        assertNotNull(response.get("rootHash"));
+        assertEquals("base", diff.baseProjectId());
+        assertEquals(List.of("src/New.java"), diff.added());
+        assertEquals(List.of(), diff.removed());
+        assertEquals(List.of("src/Main.java"), diff.modified());
+    }
+
+    /**
+     * Added, removed and modified files are found in nested directories, and a path that
+     * turns from a file into a directory counts as removed and added.
+     */
+    @Test
+    void testDiffSnapshots_ReportsNestedChanges() {
+        store("next", "src/Main.java", "class Main {}");
+        store("next", "src/util/Strings.java", "class Strings { }");
+        store("next", "src/util/Maps.java", "class Maps {}");
+        store("next", "docs/guide.md", "# Guide");
+        store("next", "pom.xml/readme.txt", "moved");
+
+        SnapshotDiff diff = service.diffSnapshots("next", "base");
+
+        assertEquals(List.of("pom.xml/readme.txt", "src/util/Maps.java"), diff.added());
+        assertEquals(List.of("pom.xml", "src/util/Lists.java"), diff.removed());
+        assertEquals(List.of("src/util/Strings.java"), diff.modified());
+        assertEquals(0, standIn.requestCount("getObject"));
+    }
+
+    /**
+     * Identical projects have the same root hash and an empty diff, whatever their key layout.
+     */
+    @Test
+    void testDiffSnapshots_IgnoresKeyLayout() {
+        for (String path : repository.getSnapshot("base").files().keySet()) {
+            String content =
+                    new String(
+                            standIn.getObject(KeyGenerator.objectKey("base", path)),
+                            StandardCharsets.UTF_8);
+            store("v2-copy", path, content);
+        }
+
+        SnapshotDiff diff = service.diffSnapshots("v2-copy", "base");
+
+        assertEquals(diff.baseRootHash(), diff.rootHash());
+        assertTrue(diff.added().isEmpty() && diff.removed().isEmpty());
+        assertTrue(diff.modified().isEmpty());
+    }
+
+    /**
+     * Files a fork copied in parts keep the node they have in the parent, although S3 gives
+     * them a new multipart ETag.
+     */
+    @Test
+    void testDiffSnapshots_MultipartCopiesAreUnchanged() {
+        for (String path : repository.getSnapshot("base").files().keySet()) {
+            byte[] content = standIn.getObject(KeyGenerator.objectKey("base", path));
+            String key = KeyGenerator.objectKey("copy", path);
+            if (path.equals("docs/guide.md")) {
+                S3Client client = standIn.client();
+                String uploadId =
+                        client.createMultipartUpload(
+                                        CreateMultipartUploadRequest.builder()
+                                                .bucket("bucket")
+                                                .key(key)
+                                                .build())
+                                .uploadId();
+                standIn.putPart(uploadId, 1, content);
+                client.completeMultipartUpload(
+                        CompleteMultipartUploadRequest.builder()
+                                .bucket("bucket")
+                                .key(key)
+                                .uploadId(uploadId)
+                                .build());
+            } else {
+                standIn.putObject(key, content);
+            }
+        }
+
+        repository.createSnapshot("copy", "base");
+        SnapshotDiff diff = service.diffSnapshots("copy", null);
+
+        assertEquals(diff.baseRootHash(), diff.rootHash());
+        assertTrue(diff.modified().isEmpty());
+    }
+
+    /**
+     * Manifests are stored once and reloaded by later requests without listing the project.
+     */
+    @Test
+    void testGetSnapshot_ReusesStoredManifest() {
+        SnapshotManifest created = repository.createSnapshot("base", "origin");
+        long listings = standIn.requestCount("listObjectsV2");
+
+        SnapshotManifest loaded = new S3Repository(standIn.client()).getSnapshot("base");
+
+        assertEquals(listings, standIn.requestCount("listObjectsV2"));
+        assertEquals(created.root().hash(), loaded.root().hash());
+        assertEquals("origin", loaded.parentProjectId());
+        assertEquals(5, loaded.fileCount());
+    }
+
+    /**
+     * A stored manifest whose files do not match its root hash is rejected.
+     */
+    @Test
+    void testFromBytes_RejectsTamperedManifest() {
+        byte[] bytes = repository.createSnapshot("base", null).toBytes();
+        String tampered =
+                new String(bytes, StandardCharsets.UTF_8).replace("docs/guide.md", "docs/x.md");
+
+        assertNotNull(SnapshotManifest.fromBytes(bytes));
+        assertNull(SnapshotManifest.fromBytes(tampered.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Diffing a project that has no parent requires an explicit base project.
+     */
+    @Test
+    void testDiffSnapshots_RequiresBaseWithoutParent() {
+        Exception exception =
+                assertThrows(BadRequestError.class, () -> service.diffSnapshots("base", null));
+
+        assertEquals("Project has no parent snapshot: base", exception.getMessage());
+    }
+
+    private void store(String projectId, String filePath, String content) {
+        standIn.putObject(
+                KeyGenerator.objectKey(projectId, filePath),
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zos.putNextEntry(new ZipEntry(file.getKey()));
+                zos.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
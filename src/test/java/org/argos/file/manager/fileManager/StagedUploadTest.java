@@ -0,0 +1,214 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.NotFoundError;
+import org.argos.file.manager.model.StagedUpload;
+import org.argos.file.manager.repository.ArchiveIngestor;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.utils.ZipBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+/**
+ * Unit tests for direct-to-storage uploads processed from the staging area.
+ */
+class StagedUploadTest {
+
+    private static final ZipBudget BUDGET = new ZipBudget(1L << 20, 100, 100, 1L << 20);
+
+    private S3StandIn standIn;
+    private S3Presigner presigner;
+    private S3Repository repository;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        standIn = new S3StandIn(Duration.ZERO);
+        presigner =
+                S3Presigner.builder()
+                        .region(Region.US_EAST_1)
+                        .credentialsProvider(
+                                StaticCredentialsProvider.create(
+                                        AwsBasicCredentials.create("key", "secret")))
+                        .build();
+        repository = new S3Repository(standIn.client(), presigner);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        presigner.close();
+    }
+
+    /**
+     * A single-part upload is handed one presigned PUT URL for the staging key.
+     */
+    @Test
+    void testCreateStagedUpload_SinglePart() {
+        StagedUpload upload = repository.createStagedUpload("direct", 1);
+
+        assertTrue(upload.uploadUrl().contains("staging/direct/archive"));
+        assertNull(upload.uploadId());
+        assertTrue(upload.partUrls().isEmpty());
+        assertNotNull(upload.expiresAt());
+    }
+
+    /**
+     * A staged archive is extracted into the project and then removed from the staging area.
+     */
+    @Test
+    void testProcessStagedUpload_ExtractsArchive() throws IOException {
+        standIn.putObject(
+                "staging/direct/archive",
+                zip(Map.of("src/Main.java", "class Main {}", "README.md", "# Direct")));
+
+        Map<String, String> result = repository.processStagedUpload("direct", null, null);
+
+        assertEquals(2, result.size());
+        assertEquals("Uploaded", result.get("projects/direct/src/Main.java"));
+        assertEquals("class Main {}", read("projects/direct/src/Main.java"));
+        assertNull(standIn.getObject("staging/direct/archive"));
+        assertEquals(0, standIn.requestCount("getObjectAsBytes"));
+    }
+
+    /**
+     * An archive uploaded in parts is assembled from its parts before it is extracted.
+     */
+    @Test
+    void testProcessStagedUpload_CompletesMultipartUpload() throws IOException {
+        StagedUpload upload = repository.createStagedUpload("parts", 2);
+        byte[] archive = zip(Map.of("src/Main.java", "class Main {}"));
+        int half = archive.length / 2;
+        standIn.putPart(upload.uploadId(), 1, Arrays.copyOfRange(archive, 0, half));
+        standIn.putPart(upload.uploadId(), 2, Arrays.copyOfRange(archive, half, archive.length));
+
+        Map<String, String> result =
+                repository.processStagedUpload(
+                        "parts", upload.uploadId(), List.of("\"1\"", "\"2\""));
+
+        assertEquals(2, upload.partUrls().size());
+        assertEquals(Map.of("projects/parts/src/Main.java", "Uploaded"), result);
+        assertNull(standIn.getObject("staging/parts/archive"));
+    }
+
+    /**
+     * Processing a project that has nothing staged is reported as not found.
+     */
+    @Test
+    void testProcessStagedUpload_NothingStaged() {
+        Exception exception =
+                assertThrows(
+                        NotFoundError.class,
+                        () -> repository.processStagedUpload("missing", null, null));
+
+        assertEquals("No staged upload found for project ID: missing", exception.getMessage());
+    }
+
+    /**
+     * Entries escaping the project root reject the archive, and files already written by
+     * the failed run are removed.
+     */
+    @Test
+    void testProcessStagedUpload_RejectsZipSlip() throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        files.put("src/Main.java", "class Main {}");
+        files.put("../../escape.txt", "oops");
+        standIn.putObject("staging/slip/archive", zip(files));
+
+        Exception exception =
+                assertThrows(
+                        BadRequestError.class,
+                        () -> repository.processStagedUpload("slip", null, null));
+
+        assertEquals("Invalid ZIP entry: ../../escape.txt", exception.getMessage());
+        assertEquals(0, standIn.objectCount("projects/slip/"));
+        assertNotNull(standIn.getObject("staging/slip/archive"));
+    }
+
+    /**
+     * A failed run keeps the staged archive, so the same request can be sent again once the
+     * failure is resolved, even though its multipart upload was already completed.
+     */
+    @Test
+    void testProcessStagedUpload_RetriesAfterFailure() throws IOException {
+        StagedUpload upload = repository.createStagedUpload("retry", 2);
+        byte[] archive = zip(Map.of("src/Main.java", "class Main {}"));
+        int half = archive.length / 2;
+        standIn.putPart(upload.uploadId(), 1, Arrays.copyOfRange(archive, 0, half));
+        standIn.putPart(upload.uploadId(), 2, Arrays.copyOfRange(archive, half, archive.length));
+        List<String> partETags = List.of("\"1\"", "\"2\"");
+        standIn.denyPuts(key -> key.startsWith("projects/retry/"));
+
+        assertThrows(
+                BadRequestError.class,
+                () -> repository.processStagedUpload("retry", upload.uploadId(), partETags));
+        assertNotNull(standIn.getObject("staging/retry/archive"));
+
+        standIn.denyPuts(key -> false);
+        Map<String, String> result =
+                repository.processStagedUpload("retry", upload.uploadId(), partETags);
+
+        assertEquals(Map.of("projects/retry/src/Main.java", "Uploaded"), result);
+        assertNull(standIn.getObject("staging/retry/archive"));
+    }
+
+    /**
+     * Entries above the part size are uploaded in parts as they are read, and still stored
+     * intact.
+     */
+    @Test
+    void testIngestZip_UploadsLargeEntriesInParts() throws IOException {
+        ArchiveIngestor ingestor =
+                new ArchiveIngestor(
+                        standIn.client(), "bucket", executor, 2, 4, new RetryPolicy(1, 0, 0));
+        byte[] archive = zip(Map.of("small.txt", "abc", "large.txt", "0123456789"));
+
+        Map<String, String> result =
+                ingestor.ingestZip("spill", new ByteArrayInputStream(archive), BUDGET);
+
+        assertEquals(2, result.size());
+        assertEquals("abc", read("projects/spill/small.txt"));
+        assertEquals("0123456789", read("projects/spill/large.txt"));
+        assertEquals(1, standIn.requestCount("createMultipartUpload"));
+        assertEquals(1, standIn.requestCount("completeMultipartUpload"));
+        assertEquals(1, standIn.requestCount("putObject"));
+    }
+
+    private String read(String key) {
+        return new String(standIn.getObject(key), StandardCharsets.UTF_8);
+    }
+
+    private byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zos.putNextEntry(new ZipEntry(file.getKey()));
+                zos.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,218 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.exceptions.IncompleteUploadError;
+import org.argos.file.manager.model.UploadListener;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.utils.ArchiveFormat;
+import org.argos.file.manager.utils.IngestFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Unit tests for streaming tar, tar.gz and tar.zst uploads.
+ */
+class TarIngestTest {
+
+    private final S3StandIn standIn = new S3StandIn(Duration.ZERO);
+    private final S3Repository repository = new S3Repository(standIn.client());
+
+    /**
+     * Formats are recognised by their magic numbers, and a tar archive without one by name.
+     */
+    @Test
+    void testDetect_RecognisesFormats() throws IOException {
+        byte[] tar = tar(Map.of("a.txt", text("a")));
+
+        assertEquals(ArchiveFormat.TAR, ArchiveFormat.detect(tar, null));
+        assertEquals(ArchiveFormat.TAR_GZIP, ArchiveFormat.detect(gzip(tar), "upload.bin"));
+        assertEquals(ArchiveFormat.TAR_ZSTD, ArchiveFormat.detect(zstd(tar), null));
+        assertEquals(ArchiveFormat.TAR, ArchiveFormat.detect(new byte[16], "legacy.TAR"));
+        assertEquals(ArchiveFormat.ZIP, ArchiveFormat.detect(new byte[] {'P', 'K', 3, 4}, null));
+    }
+
+    /**
+     * A gzipped tarball is uploaded file by file, with directories skipped and the
+     * {@code ./} prefix written by tar tools dropped.
+     */
+    @Test
+    void testUploadMultiPartDirectory_TarGzip() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("./", null);
+        files.put("./src/", null);
+        files.put("./src/Main.java", text("class Main {}"));
+        files.put("./README.md", text("# project"));
+
+        Map<String, String> result =
+                repository.uploadMultiPartDirectory(
+                        "tgz",
+                        new MockMultipartFile(
+                                "file", "project.tgz", "application/gzip", gzip(tar(files))));
+
+        assertEquals(2, result.size());
+        assertEquals("Uploaded", result.get("projects/tgz/src/Main.java"));
+        assertArrayEquals(text("# project"), standIn.getObject("projects/tgz/README.md"));
+    }
+
+    /**
+     * A file of a tarball that keeps failing does not stop the other files, which are
+     * checkpointed, and resuming the upload only sends the missing file.
+     */
+    @Test
+    void testUploadMultiPartDirectory_TarResumesFromCheckpoint() throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("a.txt", text("a"));
+        files.put("b.txt", text("b"));
+        files.put("c.txt", text("c"));
+        MockMultipartFile archive =
+                new MockMultipartFile("file", "project.tar", "application/x-tar", tar(files));
+        standIn.denyPuts(key -> key.endsWith("b.txt"));
+
+        IncompleteUploadError error =
+                assertThrows(
+                        IncompleteUploadError.class,
+                        () -> repository.uploadMultiPartDirectory("resumed", archive));
+        assertEquals(1, error.getFailedFileCount());
+        assertEquals(2, standIn.objectCount("projects/resumed/"));
+
+        standIn.denyPuts(key -> false);
+        Map<String, String> result = new HashMap<>();
+        repository.uploadMultiPartDirectory(
+                "resumed",
+                archive,
+                IngestFilter.none(),
+                repository.resumeUpload("resumed", UploadListener.collectingInto(result)));
+
+        assertEquals("Skipped", result.get("projects/resumed/a.txt"));
+        assertEquals("Uploaded", result.get("projects/resumed/b.txt"));
+        assertEquals(3, standIn.objectCount("projects/resumed/"));
+        assertEquals(0, standIn.objectCount("meta/resumed/checkpoint/"));
+    }
+
+    /**
+     * A zstd-compressed tarball staged in the bucket is ingested like a ZIP archive.
+     */
+    @Test
+    void testProcessStagedUpload_TarZstd() throws IOException {
+        standIn.putObject(
+                "staging/zst/archive", zstd(tar(Map.of("docs/guide.md", text("# guide")))));
+
+        Map<String, String> result = repository.processStagedUpload("zst", null, null);
+
+        assertEquals("Uploaded", result.get("projects/zst/docs/guide.md"));
+        assertNull(standIn.getObject("staging/zst/archive"));
+    }
+
+    /**
+     * Symbolic links are rejected instead of being stored or followed.
+     */
+    @Test
+    void testUploadMultiPartDirectory_RejectsSymlink() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            TarArchiveEntry link = new TarArchiveEntry("secrets", TarArchiveEntry.LF_SYMLINK);
+            link.setLinkName("/etc/passwd");
+            tar.putArchiveEntry(link);
+            tar.closeArchiveEntry();
+        }
+        MockMultipartFile archive =
+                new MockMultipartFile("file", "link.tar", "application/x-tar", bytes.toByteArray());
+
+        BadRequestError error =
+                assertThrows(
+                        BadRequestError.class,
+                        () -> repository.uploadMultiPartDirectory("link", archive));
+
+        assertEquals("TAR entry contains a symbolic link: secrets", error.getMessage());
+        assertEquals(0, standIn.objectCount("projects/link/"));
+    }
+
+    /**
+     * Entries escaping the project root, or with empty or {@code .} segments, are rejected.
+     */
+    @Test
+    void testUploadMultiPartDirectory_RejectsPathTraversal() throws IOException {
+        MockMultipartFile archive =
+                new MockMultipartFile(
+                        "file",
+                        "slip.tar.gz",
+                        "application/gzip",
+                        gzip(tar(Map.of("../escape.txt", text("escaped")))));
+
+        BadRequestError error =
+                assertThrows(
+                        BadRequestError.class,
+                        () -> repository.uploadMultiPartDirectory("slip", archive));
+
+        assertEquals("Invalid TAR entry: ../escape.txt", error.getMessage());
+
+        for (String name : List.of("src/./Main.java", "src//Main.java")) {
+            MockMultipartFile malformed =
+                    new MockMultipartFile(
+                            "file",
+                            "malformed.tar",
+                            "application/x-tar",
+                            tar(Map.of(name, text("class Main {}"))));
+            assertThrows(
+                    BadRequestError.class,
+                    () -> repository.uploadMultiPartDirectory("malformed", malformed));
+        }
+        assertEquals(0, standIn.objectCount("projects/malformed/"));
+    }
+
+    private static byte[] text(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a tar archive; a null content denotes a directory.
+     */
+    private static byte[] tar(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                if (entry.getValue() != null) {
+                    tarEntry.setSize(entry.getValue().length);
+                }
+                tar.putArchiveEntry(tarEntry);
+                if (entry.getValue() != null) {
+                    tar.write(entry.getValue());
+                }
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new ZstdCompressorOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+}
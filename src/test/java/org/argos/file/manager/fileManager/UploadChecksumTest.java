@@ -0,0 +1,193 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.argos.file.manager.exceptions.BadRequestError;
+import org.argos.file.manager.repository.ArchiveIngestor;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.resilience.RetryPolicy;
+import org.argos.file.manager.utils.UploadChecksum;
+import org.argos.file.manager.utils.ZipBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+/**
+ * Unit tests for the S3 additional checksums sent with uploaded files.
+ */
+class UploadChecksumTest {
+
+    private static final ZipBudget BUDGET = new ZipBudget(1L << 20, 100, 100, 1L << 20);
+    private static final byte[] MAIN = text("class Main {}");
+    private static final byte[] README = text("# project");
+
+    private final S3StandIn standIn = new S3StandIn(Duration.ZERO);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @TempDir Path directory;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Files extracted from an uploaded ZIP are sent with the CRC32 stored in their entries.
+     */
+    @Test
+    void testUploadZip_SendsEntryCrc() throws IOException {
+        new S3Repository(standIn.client())
+                .uploadMultiPartDirectory(
+                        "crc", new MockMultipartFile("file", "project.zip", null, zip()));
+
+        assertEquals("CRC32:" + crc(new CRC32(), MAIN), standIn.checksum("projects/crc/Main.java"));
+        assertEquals(
+                "CRC32:" + crc(new CRC32(), README), standIn.checksum("projects/crc/README.md"));
+    }
+
+    /**
+     * An entry whose content does not match its CRC32 rejects the archive before anything
+     * is stored.
+     */
+    @Test
+    void testUploadZip_RejectsCorruptEntry() throws IOException {
+        byte[] archive = zip();
+        int descriptor = indexOf(archive, new byte[] {'P', 'K', 7, 8});
+        archive[descriptor + 4] ^= 0x01;
+        MockMultipartFile zipFile = new MockMultipartFile("file", "corrupt.zip", null, archive);
+
+        BadRequestError error =
+                assertThrows(
+                        BadRequestError.class,
+                        () ->
+                                new S3Repository(standIn.client())
+                                        .uploadMultiPartDirectory("corrupt", zipFile));
+
+        assertTrue(error.getMessage().startsWith("Error extracting ZIP file: invalid entry CRC"));
+        assertEquals(0, standIn.objectCount("projects/corrupt/"));
+    }
+
+    /**
+     * Streamed entries are checksummed as they are staged with the configured algorithm.
+     */
+    @Test
+    void testIngest_ComputesConfiguredChecksum() throws Exception {
+        ingest(UploadChecksum.CRC32C, "crc32c", zip());
+        ingest(UploadChecksum.SHA256, "sha", tar());
+        ingest(UploadChecksum.CRC32, "tar", tar());
+        ingest(UploadChecksum.NONE, "none", zip());
+
+        assertEquals(
+                "CRC32C:" + crc(new CRC32C(), MAIN), standIn.checksum("projects/crc32c/Main.java"));
+        assertEquals(
+                "SHA256:"
+                        + Base64.getEncoder()
+                                .encodeToString(MessageDigest.getInstance("SHA-256").digest(MAIN)),
+                standIn.checksum("projects/sha/Main.java"));
+        assertEquals("CRC32:" + crc(new CRC32(), MAIN), standIn.checksum("projects/tar/Main.java"));
+        assertNull(standIn.checksum("projects/none/Main.java"));
+    }
+
+    /**
+     * Files of a local directory leave the checksum to the S3 client, which computes it
+     * while sending the file.
+     */
+    @Test
+    void testUploadDirectory_RequestsClientChecksum() throws IOException {
+        Files.write(directory.resolve("Main.java"), MAIN);
+
+        new S3Repository(standIn.client()).uploadDirectory("local", directory.toString());
+
+        assertEquals("CRC32", standIn.checksum("projects/local/Main.java"));
+    }
+
+    private void ingest(UploadChecksum checksum, String projectId, byte[] archive) {
+        new ArchiveIngestor(
+                        standIn.client(),
+                        "bucket",
+                        executor,
+                        2,
+                        1024,
+                        new RetryPolicy(1, 0, 0),
+                        checksum)
+                .ingestZip(projectId, new ByteArrayInputStream(archive), BUDGET);
+    }
+
+    private static byte[] text(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String crc(Checksum checksum, byte[] content) {
+        checksum.update(content, 0, content.length);
+        return Base64.getEncoder()
+                .encodeToString(ByteBuffer.allocate(4).putInt((int) checksum.getValue()).array());
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= bytes.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new AssertionError("Pattern not found.");
+    }
+
+    private static Map<String, byte[]> files() {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        files.put("Main.java", MAIN);
+        files.put("README.md", README);
+        return files;
+    }
+
+    private static byte[] zip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> file : files().entrySet()) {
+                zos.putNextEntry(new ZipEntry(file.getKey()));
+                zos.write(file.getValue());
+                zos.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> file : files().entrySet()) {
+                TarArchiveEntry entry = new TarArchiveEntry(file.getKey());
+                entry.setSize(file.getValue().length);
+                tar.putArchiveEntry(entry);
+                tar.write(file.getValue());
+                tar.closeArchiveEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
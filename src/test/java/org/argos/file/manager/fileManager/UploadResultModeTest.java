@@ -0,0 +1,181 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.argos.file.manager.controller.FileManagerController;
+import org.argos.file.manager.exceptions.GlobalExceptionHandler;
+import org.argos.file.manager.repository.S3Repository;
+import org.argos.file.manager.service.S3FileService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Unit tests for the summary and stream result modes of uploads.
+ */
+class UploadResultModeTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir Path directory;
+
+    /**
+     * Stream mode writes one record per stored file and ends with a summary record.
+     */
+    @Test
+    void testUpload_StreamsNdjsonRecords() throws Exception {
+        S3StandIn standIn = new S3StandIn(Duration.ZERO);
+        MvcResult result =
+                mockMvc(standIn.client())
+                        .perform(
+                                post("/fileManager/upload")
+                                        .param("localDir", directoryWith(12))
+                                        .param("results", "stream"))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType("application/x-ndjson"))
+                        .andReturn();
+
+        List<JsonNode> records = records(result);
+        JsonNode summary = records.get(records.size() - 1);
+
+        assertEquals(13, records.size());
+        assertTrue(
+                records.subList(0, 12).stream()
+                        .allMatch(record -> record.get("type").asText().equals("file")));
+        assertEquals("summary", summary.get("type").asText());
+        assertEquals("completed", summary.get("status").asText());
+        assertEquals(12, summary.get("uploadedFiles").asInt());
+        assertEquals(12 * 7, summary.get("uploadedBytes").asLong());
+        String projectId = summary.get("projectId").asText();
+        assertEquals(12, standIn.objectCount("projects/" + projectId + "/"));
+    }
+
+    /**
+     * Summary mode returns counts instead of a status per file.
+     */
+    @Test
+    void testUpload_ReturnsSummary() throws Exception {
+        S3StandIn standIn = new S3StandIn(Duration.ZERO);
+
+        mockMvc(standIn.client())
+                .perform(
+                        post("/fileManager/upload")
+                                .param("localDir", directoryWith(5))
+                                .param("results", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.projectId").exists())
+                .andExpect(jsonPath("$.uploadResults").doesNotExist())
+                .andExpect(jsonPath("$.status").value("completed"))
+                .andExpect(jsonPath("$.uploadedFiles").value(5))
+                .andExpect(jsonPath("$.uploadedBytes").value(35))
+                .andExpect(jsonPath("$.failedFiles").value(0));
+    }
+
+    /**
+     * A failed PUT is listed in the summary, which carries the status of the error.
+     */
+    @Test
+    void testUpload_SummaryListsFailures() throws Exception {
+        S3Client s3Client = mock(S3Client.class);
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenAnswer(
+                        invocation -> {
+                            PutObjectRequest request = invocation.getArgument(0);
+                            if (request.key().endsWith("file3.txt")) {
+                                throw S3Exception.builder()
+                                        .awsErrorDetails(
+                                                AwsErrorDetails.builder()
+                                                        .errorMessage("Access Denied")
+                                                        .build())
+                                        .build();
+                            }
+                            return PutObjectResponse.builder().build();
+                        });
+
+        mockMvc(s3Client)
+                .perform(
+                        post("/fileManager/upload")
+                                .param("localDir", directoryWith(5))
+                                .param("results", "summary"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("failed"))
+                .andExpect(jsonPath("$.statusCode").value(400))
+                .andExpect(
+                        jsonPath("$.error").value("Failed to upload files to S3: Access Denied"))
+                .andExpect(jsonPath("$.failedFiles").value(1))
+                .andExpect(jsonPath("$.failures[0].error").value("Access Denied"));
+    }
+
+    /**
+     * An upload rejected before any file is stored gets the usual error response.
+     */
+    @Test
+    void testUpload_StreamRejectsEmptyDirectory() throws Exception {
+        mockMvc(new S3StandIn(Duration.ZERO).client())
+                .perform(
+                        post("/fileManager/upload")
+                                .param("localDir", directory.toString())
+                                .param("results", "stream"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andExpect(
+                        jsonPath("$.error").value("No files found in the directory to upload."));
+    }
+
+    /**
+     * Unknown result modes are rejected.
+     */
+    @Test
+    void testUpload_RejectsUnknownMode() throws Exception {
+        mockMvc(new S3StandIn(Duration.ZERO).client())
+                .perform(
+                        post("/fileManager/upload")
+                                .param("localDir", directoryWith(1))
+                                .param("results", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid result mode: xml"));
+    }
+
+    private MockMvc mockMvc(S3Client s3Client) {
+        return MockMvcBuilders.standaloneSetup(
+                        new FileManagerController(new S3FileService(new S3Repository(s3Client))))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    private List<JsonNode> records(MvcResult result) throws IOException {
+        List<JsonNode> records = new ArrayList<>();
+        for (String line :
+                result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            records.add(mapper.readTree(line));
+        }
+        return records;
+    }
+
+    private String directoryWith(int files) throws IOException {
+        for (int i = 0; i < files; i++) {
+            Files.writeString(directory.resolve("file" + i + ".txt"), "content");
+        }
+        return directory.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.argos.file.manager.repository.S3Repository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Load benchmark comparing request handling on a Tomcat-sized platform thread pool with
+ * one virtual thread per request. Every request blocks on an S3 read with a fixed latency,
+ * so the platform pool queues requests once all of its threads are blocked.
+ * Run with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int REQUESTS = 4000;
+    private static final Duration S3_LATENCY = Duration.ofMillis(50);
+
+    @Test
+    void compareVirtualAndPlatformThreads() throws Exception {
+        S3StandIn standIn = new S3StandIn(S3_LATENCY);
+        standIn.putObject(
+                "projects/bench/src/Main.java", "class Main {}".getBytes(StandardCharsets.UTF_8));
+        S3Repository repository = new S3Repository(standIn.client());
+
+        Result platform;
+        try (ExecutorService executor = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS)) {
+            platform = run(executor, repository);
+        }
+        Result virtual;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            virtual = run(executor, repository);
+        }
+
+        System.out.printf(
+                "%-10s %12s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "max conc");
+        platform.print("platform");
+        virtual.print("virtual");
+
+        assertTrue(virtual.throughput() > platform.throughput());
+    }
+
+    private Result run(ExecutorService executor, S3Repository repository) throws Exception {
+        LatencyRecorder latencies = new LatencyRecorder(REQUESTS);
+        ConcurrencyGauge gauge = new ConcurrencyGauge();
+        List<Future<?>> futures = new ArrayList<>(REQUESTS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            long submitted = System.nanoTime();
+            futures.add(
+                    executor.submit(
+                            () -> {
+                                gauge.enter();
+                                try {
+                                    repository.getFileContent("bench", "src/Main.java");
+                                } finally {
+                                    gauge.exit();
+                                }
+                                latencies.record(System.nanoTime() - submitted);
+                            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return new Result(REQUESTS / seconds, latencies, gauge.max());
+    }
+
+    private record Result(double throughput, LatencyRecorder latencies, int maxConcurrency) {
+        void print(String mode) {
+            System.out.printf(
+                    "%-10s %12.0f %10.1f %10.1f %10d%n",
+                    mode,
+                    throughput,
+                    latencies.percentileMillis(50),
+                    latencies.percentileMillis(99),
+                    maxConcurrency);
+        }
+    }
+
+    private static final class ConcurrencyGauge {
+        private final AtomicInteger current = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        void enter() {
+            max.accumulateAndGet(current.incrementAndGet(), Math::max);
+        }
+
+        void exit() {
+            current.decrementAndGet();
+        }
+
+        int max() {
+            return max.get();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.argos.file.manager.fileManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.argos.file.manager.exceptions.PayloadTooLargeError;
+import org.argos.file.manager.utils.FileProcessor;
+import org.argos.file.manager.utils.ZipBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the ZIP budgets enforced by {@link FileProcessor#extractZip(Path, Path, ZipBudget)}.
+ */
+class ZipBudgetTest {
+
+    private static final long MIB = 1L << 20;
+
+    private FileProcessor fileProcessor;
+    private Path workDir;
+    private Path targetDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileProcessor = FileProcessor.getInstance();
+        workDir = Files.createTempDirectory("zip-budget");
+        targetDir = Files.createDirectories(workDir.resolve("output"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fileProcessor.cleanUpTempDirectory(workDir);
+    }
+
+    @Test
+    void testExtractZip_WithinBudget() throws IOException {
+        Path zip = createZip(3, 100);
+
+        long extracted = fileProcessor.extractZip(zip, targetDir, budget(MIB, 10, 100, MIB));
+
+        assertEquals(300, extracted);
+        assertTrue(Files.exists(targetDir.resolve("file2.txt")));
+    }
+
+    @Test
+    void testExtractZip_TooManyEntries() throws IOException {
+        Path zip = createZip(5, 10);
+
+        PayloadTooLargeError error =
+                assertThrows(
+                        PayloadTooLargeError.class,
+                        () -> fileProcessor.extractZip(zip, targetDir, budget(MIB, 4, 100, MIB)));
+
+        assertEquals("ZIP archive exceeds the limit of 4 entries.", error.getMessage());
+        assertFalse(Files.exists(targetDir.resolve("file4.txt")));
+    }
+
+    @Test
+    void testExtractZip_EntryTooLarge() throws IOException {
+        Path zip = createZip(1, 2000);
+
+        assertThrows(
+                PayloadTooLargeError.class,
+                () -> fileProcessor.extractZip(zip, targetDir, budget(MIB, 10, 1000, 1000)));
+    }
+
+    @Test
+    void testExtractZip_TotalTooLarge() throws IOException {
+        Path zip = createZip(4, 1000);
+
+        assertThrows(
+                PayloadTooLargeError.class,
+                () -> fileProcessor.extractZip(zip, targetDir, budget(3000, 10, 1000, MIB)));
+    }
+
+    @Test
+    void testExtractZip_CompressionRatioTooHigh() throws IOException {
+        Path zip = createZip(1, (int) (8 * MIB));
+
+        PayloadTooLargeError error =
+                assertThrows(
+                        PayloadTooLargeError.class,
+                        () ->
+                                fileProcessor.extractZip(
+                                        zip, targetDir, budget(64 * MIB, 10, 100, 64 * MIB)));
+
+        assertEquals(
+                "ZIP archive exceeds the maximum compression ratio of 100.", error.getMessage());
+    }
+
+    private ZipBudget budget(long maxTotal, int maxEntries, int maxRatio, long maxEntry) {
+        return new ZipBudget(maxTotal, maxEntries, maxRatio, maxEntry);
+    }
+
+    private Path createZip(int entries, int entrySize) throws IOException {
+        Path zip = workDir.resolve("test.zip");
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (int i = 0; i < entries; i++) {
+                zos.putNextEntry(new ZipEntry("file" + i + ".txt"));
+                zos.write(new byte[entrySize]);
+                zos.closeEntry();
+            }
+        }
+        return zip;
+    }
+}